@@ -53,7 +53,57 @@ abstract class GradleStartScriptGenerator : DefaultTask() {
         generator.setClasspath(listOf("lib/$launcherJarName"))
         generator.setAppNameSystemProperty("org.gradle.appname")
         generator.setDefaultJvmOpts(listOf("-Xmx64m", "-Xms64m"))
-        generator.generateUnixScript(startScriptsDir.file("gradle").get().asFile)
+        val unixScript = startScriptsDir.file("gradle").get().asFile
+        generator.generateUnixScript(unixScript)
+        unixScript.writeText(withClientClassDataSharing(unixScript.readText()))
         generator.generateWindowsScript(startScriptsDir.file("gradle.bat").get().asFile)
     }
+
+    /**
+     * Makes the script start the client JVM with a dynamic class data sharing archive for the launcher classes.
+     * See `org.gradle.launcher.bootstrap.ClientClassDataSharing` for the client side, which records the options once it runs on a JVM that supports them.
+     */
+    private
+    fun withClientClassDataSharing(script: String): String {
+        val execLine = "exec \"\$JAVACMD\" \"\$@\""
+        require(script.contains(execLine)) { "Cannot find the java command in the generated start script." }
+        return script.replace(execLine, clientClassDataSharingOptions + "\n" + execLine)
+    }
+
+    private
+    val clientClassDataSharingOptions = listOf(
+        "# Use a class data sharing archive for the launcher classes, once the client has recorded the options for this installation and Java runtime",
+        "# Key the options by the full installation path, so that installations with the same directory name do not replace each other's options",
+        "APP_HOME_KEY=\$( printf %s \"\$APP_HOME\" | cksum )",
+        "GRADLE_CLIENT_CDS_OPTIONS=\${GRADLE_USER_HOME:-\$HOME/.gradle}/caches/client-cds/\${APP_HOME##*/}-\${APP_HOME_KEY%% *}.options",
+        "if [ -r \"\$GRADLE_CLIENT_CDS_OPTIONS\" ] && {",
+        "        read -r cds_java && read -r cds_home && read -r cds_runtime && read -r cds_archive",
+        "    } < \"\$GRADLE_CLIENT_CDS_OPTIONS\" &&",
+        "    [ \"\$cds_java\" = \"\$JAVACMD\" ] && [ \"\$cds_home\" = \"\$APP_HOME\" ] &&",
+        "    [ -r \"\${JAVACMD%/*/*}/release\" ]",
+        "then",
+        "    # Only use the options with the exact Java runtime that recorded them, an update may have replaced it with one that does not support them",
+        "    java_runtime=",
+        "    while IFS= read -r cds_line; do",
+        "        case \$cds_line in",
+        "            JAVA_RUNTIME_VERSION=*) java_runtime=\${cds_line#JAVA_RUNTIME_VERSION=} ;;",
+        "        esac",
+        "    done < \"\${JAVACMD%/*/*}/release\"",
+        "    if [ \"\$java_runtime\" = \"\$cds_runtime\" ]; then",
+        "        # The JVM ignores an archive it cannot use, do not let it report this",
+        "        if [ -r \"\$cds_archive\" ]; then",
+        "            set -- \"-XX:SharedArchiveFile=\$cds_archive\" \"-Xlog:cds*=off,class+path=off\" \"\$@\"",
+        "        else",
+        "            # The JVM writes the archive header last, so a concurrent invocation ignores an archive that is still being written",
+        "            set -- \"-XX:ArchiveClassesAtExit=\$cds_archive\" \"-Xlog:cds*=off,class+path=off\" \"\$@\"",
+        "        fi",
+        "    fi",
+        "fi",
+        "set -- \\",
+        "        \"-Dorg.gradle.internal.launcher.cds.options=\$GRADLE_CLIENT_CDS_OPTIONS\" \\",
+        "        \"-Dorg.gradle.internal.launcher.cds.java=\$JAVACMD\" \\",
+        "        \"-Dorg.gradle.internal.launcher.cds.home=\$APP_HOME\" \\",
+        "        \"\$@\"",
+        ""
+    ).joinToString("\n")
 }
@@ -23,7 +23,9 @@
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public class DefaultExecutorFactory implements ExecutorFactory, Stoppable {
@@ -70,6 +72,21 @@ protected ExecutorService createExecutor(String displayName, int fixedSize) {
         return Executors.newFixedThreadPool(fixedSize, newThreadFactory(displayName));
     }
 
+    @Override
+    public ManagedExecutor createVirtualThreadExecutor(String displayName) {
+        if (!VirtualThreads.isSupported()) {
+            return create(displayName);
+        }
+        TrackedManagedExecutor executor = new TrackedManagedExecutor(createVirtualThreadExecutorService(displayName), new ExecutorPolicy.CatchAndRecordFailures());
+        executors.add(executor);
+        return executor;
+    }
+
+    private ExecutorService createVirtualThreadExecutorService(String displayName) {
+        // Virtual threads are cheap to create and must not be pooled, so start a new thread for each action
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), VirtualThreads.newThreadFactory(displayName, threadFactoryContextClassloader));
+    }
+
     @Override
     public ManagedScheduledExecutor createScheduled(String displayName, int fixedSize) {
         ManagedScheduledExecutor executor = new TrackedScheduledManagedExecutor(createScheduledExecutor(displayName, fixedSize), new ExecutorPolicy.CatchAndRecordFailures());
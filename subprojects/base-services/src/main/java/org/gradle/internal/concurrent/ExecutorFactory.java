@@ -38,6 +38,21 @@ public interface ExecutorFactory {
      */
     ManagedExecutor create(String displayName, int fixedSize);
 
+    /**
+     * Creates an executor which runs each action in its own virtual thread, when the current JVM supports virtual threads.
+     * Falls back to an executor created using {@link #create(String)} otherwise. It is the caller's responsibility to stop the executor.
+     *
+     * The executor is intended for actions which spend most of their time blocked, for example waiting for I/O or locks.
+     * The number of actions which run concurrently is not limited, so the caller must limit it where required.
+     *
+     * The executor will collect failures thrown by actions and rethrow when the executor is stopped.
+     *
+     * @param displayName The display name for the this executor. Used for thread names, logging and error message.
+     * @return The executor.
+     * @see VirtualThreads#isSupported()
+     */
+    ManagedExecutor createVirtualThreadExecutor(String displayName);
+
     /**
      * Creates a scheduled executor which can run tasks periodically. It is the caller's responsibility to stop the executor.
      *
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.concurrent;
+
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads, for JVMs which support them.
+ *
+ * Uses reflection, since this code needs to compile and run on JVMs without virtual threads.
+ */
+public class VirtualThreads {
+    @Nullable
+    private static final Method OF_VIRTUAL;
+    @Nullable
+    private static final Method BUILDER_NAME;
+    @Nullable
+    private static final Method BUILDER_FACTORY;
+    @Nullable
+    private static final Method IS_VIRTUAL;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method isVirtual = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            isVirtual = Thread.class.getMethod("isVirtual");
+            // Virtual threads are a preview feature on some JVMs, in which case this fails unless preview features are enabled
+            builderFactory.invoke(ofVirtual.invoke(null));
+        } catch (Exception e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns true when the current JVM can create virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns true when the given thread is a virtual thread.
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (OF_VIRTUAL == null) {
+            return false;
+        }
+        return (Boolean) invoke(IS_VIRTUAL, thread);
+    }
+
+    /**
+     * Creates a factory for virtual threads, which are named after the given display name and marked as managed by Gradle.
+     *
+     * @throws UnsupportedOperationException when virtual threads are not supported by the current JVM.
+     */
+    public static ThreadFactory newThreadFactory(String displayName, @Nullable final ClassLoader contextClassLoader) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the current JVM.");
+        }
+        Object builder = invoke(OF_VIRTUAL, null);
+        builder = invoke(BUILDER_NAME, builder, displayName + " Thread ", 1L);
+        final ThreadFactory virtualThreadFactory = (ThreadFactory) invoke(BUILDER_FACTORY, builder);
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = virtualThreadFactory.newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        GradleThread.setManaged();
+                        runnable.run();
+                    }
+                });
+                thread.setContextClassLoader(contextClassLoader);
+                return thread;
+            }
+        };
+    }
+
+    private static Object invoke(Method method, @Nullable Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.unwrapAndRethrow(e);
+        }
+    }
+}
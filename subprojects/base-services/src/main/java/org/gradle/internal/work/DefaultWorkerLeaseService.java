@@ -26,7 +26,9 @@
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.MutableBoolean;
+import org.gradle.internal.MutableReference;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.VirtualThreads;
 import org.gradle.internal.resources.AbstractResourceLockRegistry;
 import org.gradle.internal.resources.AbstractTrackedResourceLock;
 import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
@@ -171,7 +173,18 @@ public <T> T withoutProjectLock(Factory<T> factory) {
     public void blocking(Runnable action) {
         if (projectLockRegistry.mayAttemptToChangeLocks()) {
             // Need to run the action without the project locks
-            withoutProjectLock(action);
+            if (VirtualThreads.isVirtual(Thread.currentThread())) {
+                // A blocked virtual thread is cheap, so also let some other worker use the worker lease while this thread is waiting
+                final Runnable blockingAction = action;
+                withoutProjectLock(new Runnable() {
+                    @Override
+                    public void run() {
+                        withoutWorkerLease(blockingAction);
+                    }
+                });
+            } else {
+                withoutProjectLock(action);
+            }
         } else {
             // Can just run the action, as it is safe to retain the project locks or the current thread is allowed to do whatever it likes
             action.run();
@@ -298,6 +311,47 @@ private void releaseWorkerLeaseAndWaitFor(Iterable<? extends ResourceLock> locks
         acquireLocks(allLocks);
     }
 
+    @Override
+    public void withoutWorkerLease(Runnable action) {
+        final MutableReference<DefaultWorkerLease> releasedLease = MutableReference.empty();
+        coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+            @Override
+            public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                Collection<? extends ResourceLock> leases = workerLeaseLockRegistry.getResourceLocksByCurrentThread();
+                if (leases.isEmpty()) {
+                    return FINISHED;
+                }
+                DefaultWorkerLease lease = (DefaultWorkerLease) Iterables.getLast(leases);
+                // A lease cannot be released while child operations are running
+                if (lease.isLockedByCurrentThread() && lease.children == 0) {
+                    releasedLease.set(lease);
+                    return unlock(lease).transform(resourceLockState);
+                }
+                return FINISHED;
+            }
+        });
+        try {
+            action.run();
+        } finally {
+            final DefaultWorkerLease lease = releasedLease.get();
+            if (lease != null) {
+                // Take the lease back even when all leases are in use, rather than waiting for one. This thread may hold other locks
+                // that the current lease holders are waiting for. No new work starts until the number of leases in use drops below the maximum again
+                coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        lease.reacquiring = true;
+                        try {
+                            return lock(lease).transform(resourceLockState);
+                        } finally {
+                            lease.reacquiring = false;
+                        }
+                    }
+                });
+            }
+        }
+    }
+
     private boolean allLockedByCurrentThread(final Iterable<? extends ResourceLock> locks) {
         final MutableBoolean allLocked = new MutableBoolean();
         coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
@@ -358,7 +412,10 @@ public DefaultWorkerLease create(String displayName, ResourceLockCoordinationSer
     }
 
     private interface LeaseHolder extends Describable {
-        boolean grantLease();
+        /**
+         * Grants a lease to a child, when one is available or when {@code force} is true.
+         */
+        boolean grantLease(boolean force);
 
         void releaseLease();
     }
@@ -372,8 +429,8 @@ public String getDisplayName() {
         }
 
         @Override
-        public boolean grantLease() {
-            if (leasesInUse >= maxWorkerCount) {
+        public boolean grantLease(boolean force) {
+            if (!force && leasesInUse >= maxWorkerCount) {
                 return false;
             }
             leasesInUse++;
@@ -390,7 +447,10 @@ private class DefaultWorkerLease extends AbstractTrackedResourceLock implements
         private final LeaseHolder parent;
         private final Thread ownerThread;
         int children;
+        // Whether one of the children is using this lease's slot
+        boolean slotLent;
         boolean active;
+        boolean reacquiring;
 
         public DefaultWorkerLease(String displayName, ResourceLockCoordinationService coordinationService, Action<ResourceLock> lockAction, Action<ResourceLock> unlockAction, LeaseHolder parent, Thread ownerThread) {
             super(displayName, coordinationService, lockAction, unlockAction);
@@ -410,7 +470,7 @@ protected boolean doIsLockedByCurrentThread() {
 
         @Override
         protected boolean acquireLock() {
-            if (parent.grantLease()) {
+            if (parent.grantLease(reacquiring)) {
                 active = true;
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Worker lease {} started ({} worker(s) in use).", getDisplayName(), root.leasesInUse);
@@ -440,18 +500,23 @@ protected void releaseLock() {
         }
 
         @Override
-        public boolean grantLease() {
-            if (children == 0 || root.grantLease()) {
-                children++;
-                return true;
+        public boolean grantLease(boolean force) {
+            if (active && !slotLent) {
+                // The first child uses the slot of this lease
+                slotLent = true;
+            } else if (!root.grantLease(force)) {
+                return false;
             }
-            return false;
+            children++;
+            return true;
         }
 
         @Override
         public void releaseLease() {
             children--;
-            if (children > 0) {
+            if (children == 0 && slotLent) {
+                slotLent = false;
+            } else {
                 root.releaseLease();
             }
         }
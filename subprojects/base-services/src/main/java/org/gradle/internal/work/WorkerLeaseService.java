@@ -54,4 +54,12 @@ public interface WorkerLeaseService extends WorkerLeaseRegistry, ProjectLeaseReg
      * and the method will block until the locks are reacquired.
      */
     void withoutLocks(Iterable<? extends ResourceLock> locks, Runnable runnable);
+
+    /**
+     * Runs the given {@link Runnable} while the worker lease of the current thread is released, so that other work can use the lease
+     * while this thread waits for something, and then reacquires the lease. The lease is reacquired without waiting, even when this
+     * briefly puts the number of leases in use above the maximum. Runs the action with the lease when the current thread holds no
+     * lease or when the lease cannot be released because child operations are running.
+     */
+    void withoutWorkerLease(Runnable action);
 }
@@ -436,4 +436,44 @@ class DefaultExecutorFactoryTest extends ConcurrentSpec {
         def ex = thrown(RuntimeException)
         ex.is(failure1)
     }
+
+    def virtualThreadExecutorRunsActionsConcurrentlyInManagedThreads() {
+        given:
+        def managed = []
+        def virtual = []
+        def action1 = {
+            managed << GradleThread.isManaged()
+            virtual << VirtualThreads.isVirtual(Thread.currentThread())
+            instant.started1
+            thread.blockUntil.started2
+        }
+        def action2 = {
+            instant.started2
+            thread.blockUntil.started1
+        }
+
+        when:
+        def executor = factory.createVirtualThreadExecutor('test')
+        executor.execute(action1)
+        executor.execute(action2)
+        executor.stop()
+
+        then:
+        managed == [true]
+        virtual == [VirtualThreads.isSupported()]
+    }
+
+    def stopOfVirtualThreadExecutorRethrowsFirstExecutionException() {
+        given:
+        def failure = new RuntimeException()
+
+        when:
+        def executor = factory.createVirtualThreadExecutor('test')
+        executor.execute { throw failure }
+        executor.stop()
+
+        then:
+        def ex = thrown(RuntimeException)
+        ex.is(failure)
+    }
 }
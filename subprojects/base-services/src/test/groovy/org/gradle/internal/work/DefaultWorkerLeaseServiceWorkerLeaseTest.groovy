@@ -16,10 +16,13 @@
 
 package org.gradle.internal.work
 
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.concurrent.VirtualThreads
 import org.gradle.internal.resources.DefaultResourceLockCoordinationService
 import org.gradle.internal.resources.ResourceLockCoordinationService
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import spock.lang.IgnoreIf
 
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.lock
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock
@@ -358,6 +361,206 @@ class DefaultWorkerLeaseServiceWorkerLeaseTest extends ConcurrentSpec {
         noExceptionThrown()
     }
 
+    def "other operation can use the lease while action runs without worker lease"() {
+        def registry = workerLeaseService(1)
+
+        expect:
+        async {
+            start {
+                def cl = registry.getWorkerLease().start()
+                registry.withoutWorkerLease {
+                    instant.released
+                    thread.blockUntil.worker2Finished
+                }
+                cl.leaseFinish()
+            }
+            start {
+                thread.blockUntil.released
+                def cl = registry.getWorkerLease().start()
+                cl.leaseFinish()
+                instant.worker2Finished
+            }
+        }
+
+        cleanup:
+        registry?.stop()
+    }
+
+    def "reacquires lease without waiting when all leases are in use and blocks new operations until leases are available"() {
+        def registry = workerLeaseService(1)
+
+        when:
+        async {
+            start {
+                def cl = registry.getWorkerLease().start()
+                registry.withoutWorkerLease {
+                    instant.released
+                    thread.blockUntil.worker2Started
+                }
+                instant.reacquired
+                thread.block()
+                instant.worker1Finished
+                cl.leaseFinish()
+            }
+            start {
+                thread.blockUntil.released
+                def cl = registry.getWorkerLease().start()
+                instant.worker2Started
+                thread.blockUntil.reacquired
+                thread.block()
+                instant.worker2Finished
+                cl.leaseFinish()
+            }
+            start {
+                thread.blockUntil.reacquired
+                def cl = registry.getWorkerLease().start()
+                instant.worker3Started
+                cl.leaseFinish()
+            }
+        }
+
+        then:
+        instant.worker3Started > instant.worker1Finished
+        instant.worker3Started > instant.worker2Finished
+
+        cleanup:
+        registry?.stop()
+    }
+
+    def "does not release lease while child operations are running"() {
+        def registry = workerLeaseService(1)
+
+        when:
+        async {
+            start {
+                def cl = registry.getWorkerLease().start()
+                def op = registry.currentWorkerLease
+                start {
+                    def child = op.startChild()
+                    instant.childStarted
+                    thread.blockUntil.actionFinished
+                    child.leaseFinish()
+                    instant.childFinished
+                }
+                thread.blockUntil.childStarted
+                registry.withoutWorkerLease {
+                    start {
+                        def other = registry.getWorkerLease().start()
+                        instant.otherStarted
+                        other.leaseFinish()
+                    }
+                    thread.block()
+                    instant.actionFinished
+                }
+                thread.blockUntil.childFinished
+                instant.parentFinished
+                cl.leaseFinish()
+            }
+        }
+
+        then:
+        instant.otherStarted > instant.parentFinished
+
+        cleanup:
+        registry?.stop()
+    }
+
+    def "child operation started while the parent lease is released waits for a lease"() {
+        def registry = workerLeaseService(1)
+
+        when:
+        async {
+            start {
+                def cl = registry.getWorkerLease().start()
+                def op = registry.currentWorkerLease
+                registry.withoutWorkerLease {
+                    start {
+                        def other = registry.getWorkerLease().start()
+                        instant.otherStarted
+                        thread.block()
+                        instant.otherFinished
+                        other.leaseFinish()
+                    }
+                    thread.blockUntil.otherStarted
+                    start {
+                        def child = op.startChild()
+                        instant.childStarted
+                        child.leaseFinish()
+                        instant.childFinished
+                    }
+                    thread.blockUntil.childFinished
+                }
+                cl.leaseFinish()
+            }
+        }
+
+        then:
+        instant.childStarted > instant.otherFinished
+
+        cleanup:
+        registry?.stop()
+    }
+
+    @IgnoreIf({ !VirtualThreads.isSupported() })
+    def "blocking action on a virtual thread releases the worker lease"() {
+        def registry = workerLeaseService(1)
+        def executor = new DefaultExecutorFactory().createVirtualThreadExecutor("test")
+
+        when:
+        executor.execute {
+            def cl = registry.getWorkerLease().start()
+            registry.blocking {
+                instant.blocking
+                thread.blockUntil.worker2Finished
+            }
+            cl.leaseFinish()
+        }
+        async {
+            start {
+                thread.blockUntil.blocking
+                def cl = registry.getWorkerLease().start()
+                cl.leaseFinish()
+                instant.worker2Finished
+            }
+        }
+        executor.stop()
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        registry?.stop()
+    }
+
+    def "blocking action on a platform thread keeps the worker lease"() {
+        def registry = workerLeaseService(1)
+
+        when:
+        async {
+            start {
+                def cl = registry.getWorkerLease().start()
+                registry.blocking {
+                    instant.blocking
+                    thread.block()
+                    instant.worker1Finished
+                }
+                cl.leaseFinish()
+            }
+            start {
+                thread.blockUntil.blocking
+                def cl = registry.getWorkerLease().start()
+                instant.worker2Started
+                cl.leaseFinish()
+            }
+        }
+
+        then:
+        instant.worker2Started > instant.worker1Finished
+
+        cleanup:
+        registry?.stop()
+    }
+
     WorkerLeaseService workerLeaseService(int maxWorkers) {
         return new DefaultWorkerLeaseService(coordinationService, new DefaultParallelismConfiguration(true, maxWorkers))
     }
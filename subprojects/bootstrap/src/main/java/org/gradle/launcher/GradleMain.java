@@ -18,6 +18,7 @@
 
 import org.gradle.api.JavaVersion;
 import org.gradle.internal.jvm.UnsupportedJavaRuntimeException;
+import org.gradle.launcher.bootstrap.ClientClassDataSharing;
 import org.gradle.launcher.bootstrap.ProcessBootstrap;
 
 public class GradleMain {
@@ -28,6 +29,7 @@ public static void main(String[] args) {
             System.err.println(ex.getMessage());
             System.exit(1);
         }
+        new ClientClassDataSharing().recordOptions();
         new ProcessBootstrap().run("org.gradle.launcher.Main", args);
     }
 }
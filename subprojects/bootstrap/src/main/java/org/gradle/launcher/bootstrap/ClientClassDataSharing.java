@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.bootstrap;
+
+import org.gradle.api.JavaVersion;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Records the class data sharing options used by the {@code gradle} start script to launch the client JVM.
+ *
+ * <p>The start script passes the location of the options file and the Java command it used. When the client runs on a JVM that can create
+ * dynamic archives, which is Java 13 or later, this class writes the Java command, the installation directory, the full Java runtime version
+ * and the archive location to that file. Subsequent invocations using the same Java command, installation and runtime version start the client
+ * with {@code -XX:ArchiveClassesAtExit} while there is no archive yet, so that the JVM creates the archive for the launcher classes on exit,
+ * and with {@code -XX:SharedArchiveFile} once there is one, so that the JVM maps it.</p>
+ *
+ * <p>The start script cannot ask the JVM for its version without starting it, so the runtime version is recorded as it appears in the
+ * {@code release} file of the Java installation, which the script reads and compares before adding the options. This way an update that
+ * replaces the Java installation with one that does not support the options does not prevent the client from starting.</p>
+ */
+public class ClientClassDataSharing {
+    public static final String OPTIONS_FILE_PROPERTY = "org.gradle.internal.launcher.cds.options";
+    public static final String JAVA_COMMAND_PROPERTY = "org.gradle.internal.launcher.cds.java";
+    public static final String APP_HOME_PROPERTY = "org.gradle.internal.launcher.cds.home";
+
+    /**
+     * Writes the options file if the start script requested it and it does not already match this JVM and installation.
+     * Any failure is ignored, as the archive is only an optimization.
+     */
+    public void recordOptions() {
+        String optionsPath = System.getProperty(OPTIONS_FILE_PROPERTY);
+        String javaCommand = System.getProperty(JAVA_COMMAND_PROPERTY);
+        String appHome = System.getProperty(APP_HOME_PROPERTY);
+        if (optionsPath == null || javaCommand == null || appHome == null) {
+            return;
+        }
+        // A Java command found on the PATH may resolve to a different JVM on the next invocation
+        if (!new File(javaCommand).isAbsolute() || !JavaVersion.current().isCompatibleWith(JavaVersion.VERSION_13)) {
+            return;
+        }
+        File optionsFile = new File(optionsPath);
+        try {
+            String runtimeVersion = releaseRuntimeVersion(new File(javaCommand));
+            if (runtimeVersion == null) {
+                return;
+            }
+            if (isUpToDate(optionsFile, javaCommand, appHome, runtimeVersion)) {
+                return;
+            }
+            writeOptions(optionsFile, javaCommand, appHome, runtimeVersion);
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Returns the {@code JAVA_RUNTIME_VERSION} entry of the {@code release} file the start script will read for the given Java command, exactly as
+     * it appears in the file, or null when there is no such entry or it does not describe the current JVM.
+     */
+    private static String releaseRuntimeVersion(File javaCommand) throws IOException {
+        File binDir = javaCommand.getParentFile();
+        if (binDir == null || binDir.getParentFile() == null) {
+            return null;
+        }
+        File releaseFile = new File(binDir.getParentFile(), "release");
+        if (!releaseFile.isFile()) {
+            return null;
+        }
+        String prefix = "JAVA_RUNTIME_VERSION=";
+        BufferedReader reader = new BufferedReader(new FileReader(releaseFile));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    String value = line.substring(prefix.length());
+                    String unquoted = value.replaceFirst("^\"(.*)\"$", "$1");
+                    return unquoted.equals(System.getProperty("java.runtime.version")) ? value : null;
+                }
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static boolean isUpToDate(File optionsFile, String javaCommand, String appHome, String runtimeVersion) throws IOException {
+        if (!optionsFile.isFile()) {
+            return false;
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(optionsFile));
+        try {
+            return javaCommand.equals(reader.readLine()) && appHome.equals(reader.readLine()) && runtimeVersion.equals(reader.readLine());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void writeOptions(File optionsFile, String javaCommand, String appHome, String runtimeVersion) throws IOException {
+        File dir = optionsFile.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        String baseName = optionsFile.getName().replaceFirst("\\.options$", "");
+        File archiveFile = new File(dir, baseName + ".jsa");
+        File tmpFile = File.createTempFile(baseName, ".tmp", dir);
+        try {
+            Writer writer = new FileWriter(tmpFile);
+            try {
+                writer.write(javaCommand + "\n");
+                writer.write(appHome + "\n");
+                writer.write(runtimeVersion + "\n");
+                writer.write(archiveFile.getAbsolutePath() + "\n");
+            } finally {
+                writer.close();
+            }
+            // A concurrent invocation may have written the file already, in which case its content is equivalent
+            if (!tmpFile.renameTo(optionsFile)) {
+                optionsFile.delete();
+                tmpFile.renameTo(optionsFile);
+            }
+            // The previous archive was created for a different JVM, let the JVM create a new one
+            archiveFile.delete();
+        } finally {
+            tmpFile.delete();
+        }
+    }
+}
@@ -44,6 +44,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.work.WorkerLeaseService;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -63,6 +64,7 @@ public class DefaultBuildCacheController implements BuildCacheController {
 
     private final BuildCacheTempFileStore tmp;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final WorkerLeaseService workerLeaseService;
     private final boolean emitDebugLogging;
 
     private boolean closed;
@@ -70,12 +72,14 @@ public class DefaultBuildCacheController implements BuildCacheController {
     public DefaultBuildCacheController(
         BuildCacheServicesConfiguration config,
         BuildOperationExecutor buildOperationExecutor,
+        WorkerLeaseService workerLeaseService,
         TemporaryFileProvider temporaryFileProvider,
         boolean logStackTraces,
         boolean emitDebugLogging,
         boolean disableRemoteOnError
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
+        this.workerLeaseService = workerLeaseService;
         this.emitDebugLogging = emitDebugLogging;
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush());
         this.remote = toRemoteHandle(config.getRemote(), config.isRemotePush(), buildOperationExecutor, logStackTraces, disableRemoteOnError);
@@ -111,7 +115,8 @@ public <T> Optional<T> load(BuildCacheLoadCommand<T> command) {
         if (remote.canLoad()) {
             tmp.withTempFile(command.getKey(), file -> {
                 LoadTarget loadTarget = new LoadTarget(file);
-                remote.load(command.getKey(), loadTarget);
+                // Remote loads wait on the network, so let other work run meanwhile
+                workerLeaseService.blocking(() -> remote.load(command.getKey(), loadTarget));
 
                 if (loadTarget.isLoaded()) {
                     try {
@@ -177,7 +182,7 @@ public void store(BuildCacheStoreCommand command) {
             pack.execute(file);
 
             if (remote.canStore()) {
-                remote.store(key, new StoreTarget(file));
+                workerLeaseService.blocking(() -> remote.store(key, new StoreTarget(file)));
             }
 
             if (local.canStore()) {
@@ -26,6 +26,7 @@ import org.gradle.caching.internal.controller.service.BuildCacheServicesConfigur
 import org.gradle.caching.local.internal.LocalBuildCacheService
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.work.TestWorkerLeaseService
 import spock.lang.Specification
 import org.junit.Rule
 
@@ -93,6 +94,7 @@ class DefaultBuildCacheControllerTest extends Specification {
                 remotePush
             ),
             operations,
+            new TestWorkerLeaseService(),
             TestFiles.tmpDirTemporaryFileProvider(tmpDir.root),
             false,
             false,
@@ -30,7 +30,7 @@ class BeanConstructors(
     cacheFactory: CrossBuildInMemoryCacheFactory
 ) {
     private
-    val cache: CrossBuildInMemoryCache<Class<*>, Constructor<out Any>> = cacheFactory.newClassCache()
+    val cache: CrossBuildInMemoryCache<Class<*>, Constructor<out Any>> = cacheFactory.newClassCache("Configuration cache bean constructors")
 
     fun constructorForSerialization(beanType: Class<*>): Constructor<out Any> {
         return cache.get(beanType) { -> createConstructor(beanType) }
@@ -21,18 +21,22 @@ import org.gradle.api.internal.file.temp.GradleUserHomeTemporaryFileProvider
 import org.gradle.api.logging.LogLevel
 import org.gradle.api.logging.Logging
 import org.gradle.internal.Actions
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.id.LongIdGenerator
 import org.gradle.internal.jvm.inspection.CachingJvmMetadataDetector
 import org.gradle.internal.jvm.inspection.DefaultJvmVersionDetector
 import org.gradle.internal.remote.ObjectConnectionBuilder
 import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.worker.DefaultWorkerProcessBuilder
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory
 import org.gradle.process.internal.worker.WorkerProcess
 import org.gradle.process.internal.worker.WorkerProcessBuilder
 import org.gradle.process.internal.worker.WorkerProcessContext
 import org.gradle.util.Requires
+import org.gradle.util.SetSystemProperties
 import org.gradle.util.TestPrecondition
 import org.gradle.util.internal.TextUtil
+import org.junit.Rule
 import spock.lang.Timeout
 import spock.lang.Unroll
 
@@ -43,6 +47,8 @@ import static org.junit.Assert.assertTrue
 class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec {
     private final TestListenerInterface listenerMock = Mock(TestListenerInterface.class)
     private final RemoteExceptionListener exceptionListener = new RemoteExceptionListener(listenerMock)
+    @Rule
+    final SetSystemProperties systemProperties = new SetSystemProperties()
 
     ChildProcess worker(Action<? super WorkerProcessContext> action) {
         return new ChildProcess(action)
@@ -67,6 +73,69 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
         outputEventListener.toString().contains(TextUtil.toPlatformLineSeparators("[QUIET] [system.out] <Normal>this is stdout\n</Normal>]"))
     }
 
+    def "worker process and this process exchange messages through shared memory"() {
+        given:
+        useSharedMemory()
+        def pingWorker = worker(new PingRemoteProcess()).onServer { objectConnection ->
+            TestListenerInterface listener = objectConnection.addOutgoing(TestListenerInterface.class)
+            listener.send("1", 0)
+            listener.send("1", 1)
+            listener.send("1", 2)
+            listener.send("stop", 3)
+        }
+        def sendingWorker = worker(new RemoteProcess())
+
+        when:
+        execute(pingWorker, sendingWorker)
+
+        then:
+        1 * listenerMock.send("message 1", 1)
+
+        then:
+        1 * listenerMock.send("message 2", 2)
+        0 * listenerMock._
+
+        and:
+        pingWorker.transport.startsWith("shared memory connection")
+        sendingWorker.transport.startsWith("shared memory connection")
+    }
+
+    def "handles worker process that crashes while connected through shared memory"() {
+        given:
+        useSharedMemory()
+        def crashingWorker = worker(new CrashingRemoteProcess()).expectStopFailure()
+
+        when:
+        execute(crashingWorker)
+
+        then:
+        (0..1) * listenerMock.send("message 1", 1)
+        (0..1) * listenerMock.send("message 2", 2)
+        0 * listenerMock._
+
+        and:
+        crashingWorker.transport.startsWith("shared memory connection")
+        stdout.stdOut == ""
+        stdout.stdErr == ""
+    }
+
+    private void useSharedMemory() {
+        System.setProperty(DefaultWorkerProcessBuilder.SHARED_MEMORY_TRANSPORT_PROPERTY, "true")
+        workerFactory = new DefaultWorkerProcessFactory(
+            loggingManager(LogLevel.INFO),
+            server,
+            classPathRegistry,
+            new LongIdGenerator(),
+            tmpDir.file("gradleUserHome"),
+            tmpDirTemporaryFileProvider,
+            execHandleFactory,
+            new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
+            outputEventListener,
+            Stub(MemoryManager),
+            services.get(ExecutorFactory)
+        )
+    }
+
     @Unroll
     def "log level and categories are preserved when forwarded to main process"() {
         when:
@@ -278,6 +347,7 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
         private Action<? super WorkerProcessContext> action
         private List<String> jvmArgs = Collections.emptyList()
         private Action<ObjectConnectionBuilder> serverAction
+        String transport
 
         public ChildProcess(Action<? super WorkerProcessContext> action) {
             this.action = action
@@ -317,6 +387,7 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
                 serverAction.execute(proc.connection)
             }
             proc.connection.connect()
+            transport = proc.connection.@connection.toString()
         }
 
         public void waitForStop() {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.resources.ResourceLock;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A minimal node without any behaviour, ordered by its id.
+ */
+class BenchmarkNode extends Node {
+    private final int id;
+
+    BenchmarkNode(int id) {
+        this.id = id;
+    }
+
+    @Nullable
+    @Override
+    public Throwable getNodeFailure() {
+        return null;
+    }
+
+    @Override
+    public void rethrowNodeFailure() {
+    }
+
+    @Override
+    public void prepareForExecution() {
+    }
+
+    @Override
+    public void resolveDependencies(TaskDependencyResolver dependencyResolver, Action<Node> processHardSuccessor) {
+    }
+
+    @Override
+    public Set<Node> getFinalizers() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void resolveMutations() {
+    }
+
+    @Override
+    public boolean isPublicNode() {
+        return false;
+    }
+
+    @Override
+    public boolean requiresMonitoring() {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public ResourceLock getProjectToLock() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public ProjectInternal getOwningProject() {
+        return null;
+    }
+
+    @Override
+    public List<? extends ResourceLock> getResourcesToLock() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int compareTo(Node other) {
+        return Integer.compare(id, ((BenchmarkNode) other).id);
+    }
+
+    @Override
+    public String toString() {
+        return "node " + id;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the per-pair reachability cache previously used by {@link DefaultExecutionPlan} with {@link NodeReachability},
+ * for plans where many consumers are checked against many destroyers.
+ *
+ * Run with {@code -prof gc} to compare the allocation rates of both approaches.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class NodeReachabilityBenchmark {
+
+    @Param({"1000", "10000"})
+    int nodeCount;
+
+    @Param({"10", "100"})
+    int destroyerCount;
+
+    private List<Node> consumers;
+    private List<Node> destroyers;
+
+    @Setup(Level.Trial)
+    public void setupPlan() {
+        Random random = new Random(1234L);
+        List<BenchmarkNode> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            BenchmarkNode node = new BenchmarkNode(i);
+            node.require();
+            // Each node depends on a few random nodes created before it, so the graph is acyclic
+            for (int j = 0; j < 3 && i > 0; j++) {
+                node.addDependencySuccessor(nodes.get(random.nextInt(i)));
+            }
+            nodes.add(node);
+        }
+        consumers = new ArrayList<>(nodes);
+        Collections.shuffle(consumers, random);
+        destroyers = new ArrayList<>(consumers.subList(0, destroyerCount));
+    }
+
+    @Benchmark
+    public void pairCache(Blackhole blackhole) {
+        Map<Pair<Node, Node>, Boolean> cache = new HashMap<>();
+        for (Node destroyer : destroyers) {
+            for (Node consumer : consumers) {
+                blackhole.consume(isReachableUsingPairCache(cache, consumer, destroyer));
+            }
+        }
+        blackhole.consume(cache);
+    }
+
+    @Benchmark
+    public void bitSetClosure(Blackhole blackhole) {
+        NodeReachability reachability = new NodeReachability();
+        for (Node destroyer : destroyers) {
+            for (Node consumer : consumers) {
+                blackhole.consume(reachability.isReachable(consumer, destroyer));
+            }
+        }
+        blackhole.consume(reachability);
+    }
+
+    private static boolean isReachableUsingPairCache(Map<Pair<Node, Node>, Boolean> cache, Node consumer, Node destroyer) {
+        if (consumer == destroyer) {
+            return true;
+        }
+        Pair<Node, Node> nodePair = Pair.of(consumer, destroyer);
+        Boolean cached = cache.get(nodePair);
+        if (cached != null) {
+            return cached;
+        }
+        boolean reachable = false;
+        for (Node dependency : consumer.getAllSuccessors()) {
+            if (!dependency.isComplete() && isReachableUsingPairCache(cache, dependency, destroyer)) {
+                reachable = true;
+            }
+        }
+        cache.put(nodePair, reachable);
+        return reachable;
+    }
+}
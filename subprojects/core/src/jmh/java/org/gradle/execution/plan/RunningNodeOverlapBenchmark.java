@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.Sets.newIdentityHashSet;
+
+/**
+ * Compares checking a candidate node's outputs against the running nodes by filtering the build-wide hierarchies,
+ * as previously done by {@link DefaultExecutionPlan}, with looking them up in a {@link NodePathIndex} of the running nodes.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class RunningNodeOverlapBenchmark {
+    private static final int RUNNING_NODES = 64;
+
+    @Param({"10", "100"})
+    int outputRootsPerNode;
+
+    @Param({"1000"})
+    int nodesInBuild;
+
+    private ExecutionNodeAccessHierarchy outputHierarchy;
+    private ExecutionNodeAccessHierarchy destroyableHierarchy;
+    private final Set<Node> runningNodes = newIdentityHashSet();
+    private NodePathIndex runningNodeMutations;
+    private List<String> candidatePaths;
+
+    @Setup(Level.Trial)
+    public void setupNodes() {
+        // Stat is only used for filtered file tree accesses, which are not recorded here
+        outputHierarchy = new ExecutionNodeAccessHierarchy(CaseSensitivity.CASE_SENSITIVE, null);
+        destroyableHierarchy = new ExecutionNodeAccessHierarchy(CaseSensitivity.CASE_SENSITIVE, null);
+        runningNodeMutations = new NodePathIndex(CaseSensitivity.CASE_SENSITIVE);
+        for (int i = 0; i < nodesInBuild; i++) {
+            Node node = new BenchmarkNode(i);
+            List<String> outputs = outputsOf(i);
+            outputHierarchy.recordNodeAccessingLocations(node, outputs);
+            if (i < RUNNING_NODES) {
+                runningNodes.add(node);
+                runningNodeMutations.add(node, outputs);
+            }
+        }
+        // Half of the candidate paths overlap with a running node
+        candidatePaths = new ArrayList<>();
+        for (int i = RUNNING_NODES / 2; i < RUNNING_NODES * 3 / 2; i++) {
+            candidatePaths.add("/root/project" + i + "/build/output" + (outputRootsPerNode - 1) + "/file");
+        }
+    }
+
+    private List<String> outputsOf(int nodeId) {
+        List<String> outputs = new ArrayList<>(outputRootsPerNode);
+        for (int j = 0; j < outputRootsPerNode; j++) {
+            outputs.add("/root/project" + nodeId + "/build/output" + j);
+        }
+        return outputs;
+    }
+
+    @Benchmark
+    public void filterHierarchiesByRunningNodes(Blackhole blackhole) {
+        for (String candidatePath : candidatePaths) {
+            Stream<Node> nodesMutatingCandidatePath = Stream.concat(
+                outputHierarchy.getNodesAccessing(candidatePath).stream(),
+                destroyableHierarchy.getNodesAccessing(candidatePath).stream()
+            );
+            blackhole.consume(nodesMutatingCandidatePath.anyMatch(runningNodes::contains));
+        }
+    }
+
+    @Benchmark
+    public void lookupInRunningNodeIndex(Blackhole blackhole) {
+        for (String candidatePath : candidatePaths) {
+            blackhole.consume(runningNodeMutations.hasNodesRelatedTo(candidatePath));
+        }
+    }
+}
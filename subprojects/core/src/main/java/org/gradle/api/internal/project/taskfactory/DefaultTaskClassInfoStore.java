@@ -45,7 +45,7 @@ public class DefaultTaskClassInfoStore implements TaskClassInfoStore {
     private final Function<Class<?>, TaskClassInfo> taskClassInfoFactory = aClass -> createTaskClassInfo(aClass.asSubclass(Task.class));
 
     public DefaultTaskClassInfoStore(CrossBuildInMemoryCacheFactory cacheFactory) {
-        this.classInfos = cacheFactory.newClassCache();
+        this.classInfos = cacheFactory.newClassCache("Task class info");
     }
 
     @Override
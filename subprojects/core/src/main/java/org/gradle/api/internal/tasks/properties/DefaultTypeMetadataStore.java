@@ -72,7 +72,7 @@ public DefaultTypeMetadataStore(
         this.allowedPropertyModifiers = ImmutableSet.copyOf(allowedPropertyModifiers);
         this.typeAnnotationMetadataStore = typeAnnotationMetadataStore;
         this.displayName = calculateDisplayName(propertyAnnotationHandlers);
-        this.cache = cacheFactory.newClassCache();
+        this.cache = cacheFactory.newClassCache("Type metadata");
     }
 
     private static String calculateDisplayName(Iterable<? extends PropertyAnnotationHandler> annotationHandlers) {
@@ -20,18 +20,27 @@
 import org.gradle.internal.session.BuildSessionLifecycleListener;
 import org.gradle.internal.classloader.VisitableURLClassLoader;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.process.internal.health.memory.JvmMemoryPressureListener;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -42,35 +51,47 @@
  * Note that this implementation currently retains strong references to keys and values during the whole lifetime of a build session.
  *
  * Uses a simple algorithm to collect unused values, by retaining strong references to all keys and values used during the current build session, and the previous build session. All other values are referenced only by soft references.
+ *
+ * Also keeps track of the caches it creates, other than class maps, so that they can be monitored and trimmed. Each cache is described by the display name given when it was created.
+ * The caches are tracked using weak references, so that a cache that is no longer used can be collected.
+ *
+ * When the JVM reports memory pressure, each cache releases its strong references to values from the previous session. A cache that knows the order in which its values were used then
+ * discards half of the values not used in the current session, least recently used first. Other caches, such as the caches keyed by class, discard all values not used in the current session.
+ * Each cache reacts to memory pressure on its own, there is no priority between caches, as the factory cannot tell how much memory a value retains or how expensive it is to recreate.
  */
 @ThreadSafe
-public class DefaultCrossBuildInMemoryCacheFactory implements CrossBuildInMemoryCacheFactory {
+public class DefaultCrossBuildInMemoryCacheFactory implements CrossBuildInMemoryCacheFactory, RetainedInMemoryCaches {
     private final ListenerManager listenerManager;
+    private final List<TrackedCache> caches = new CopyOnWriteArrayList<>();
 
     public DefaultCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
         this.listenerManager = listenerManager;
     }
 
     @Override
-    public <K, V> CrossBuildInMemoryCache<K, V> newCache() {
-        DefaultCrossBuildInMemoryCache<K, V> cache = new DefaultCrossBuildInMemoryCache<>(new HashMap<>());
+    public <K, V> CrossBuildInMemoryCache<K, V> newCache(String displayName) {
+        // Access ordered, so that the least recently used values are discarded first
+        DefaultCrossBuildInMemoryCache<K, V> cache = new DefaultCrossBuildInMemoryCache<>(new LinkedHashMap<>(16, 0.75f, true), true);
         listenerManager.addListener(cache);
+        track(displayName, cache);
         return cache;
     }
 
     @Override
-    public <K, V> CrossBuildInMemoryCache<K, V> newCacheRetainingDataFromPreviousBuild(Predicate<V> retentionFilter) {
+    public <K, V> CrossBuildInMemoryCache<K, V> newCacheRetainingDataFromPreviousBuild(String displayName, Predicate<V> retentionFilter) {
         CrossBuildCacheRetainingDataFromPreviousBuild<K, V> cache = new CrossBuildCacheRetainingDataFromPreviousBuild<>(retentionFilter);
         listenerManager.addListener(cache);
+        track(displayName, cache);
         return cache;
     }
 
     @Override
-    public <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache() {
+    public <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache(String displayName) {
         // Should use some variation of DefaultClassMap below to associate values with classes, as currently we retain a strong reference to each value for one session after the ClassLoader
         // for the entry's key is discarded, which is unnecessary because we won't attempt to locate the entry again once the ClassLoader has been discarded
-        DefaultCrossBuildInMemoryCache<Class<?>, V> cache = new DefaultCrossBuildInMemoryCache<>(new WeakHashMap<>());
+        DefaultCrossBuildInMemoryCache<Class<?>, V> cache = new DefaultCrossBuildInMemoryCache<>(new WeakHashMap<>(), false);
         listenerManager.addListener(cache);
+        track(displayName, cache);
         return cache;
     }
 
@@ -81,15 +102,75 @@ public <V> CrossBuildInMemoryCache<Class<?>, V> newClassMap() {
         return map;
     }
 
-    private abstract static class AbstractCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener {
+    @Override
+    public List<CacheSize> getCacheSizes() {
+        List<CacheSize> sizes = new ArrayList<>(caches.size());
+        for (TrackedCache trackedCache : caches) {
+            TrimmableCache cache = trackedCache.get();
+            if (cache == null) {
+                caches.remove(trackedCache);
+            } else {
+                sizes.add(new CacheSize(trackedCache.displayName, cache.size(), cache.evictedCount()));
+            }
+        }
+        sizes.sort(Comparator.comparingInt(CacheSize::getEntries).reversed());
+        return sizes;
+    }
+
+    @Override
+    public int trim() {
+        int discarded = 0;
+        for (TrackedCache trackedCache : caches) {
+            TrimmableCache cache = trackedCache.get();
+            if (cache == null) {
+                caches.remove(trackedCache);
+            } else {
+                discarded += cache.trim();
+            }
+        }
+        return discarded;
+    }
+
+    private void track(String displayName, TrimmableCache cache) {
+        caches.add(new TrackedCache(displayName, cache));
+    }
+
+    private interface TrimmableCache {
+        int size();
+
+        /**
+         * Discards the entries not used in the current build session, returning the number of discarded entries.
+         */
+        int trim();
+
+        /**
+         * Returns the number of entries discarded by {@link #trim()} or due to memory pressure, since the cache was created.
+         */
+        int evictedCount();
+    }
+
+    private static class TrackedCache extends WeakReference<TrimmableCache> {
+        private final String displayName;
+
+        TrackedCache(String displayName, TrimmableCache cache) {
+            super(cache);
+            this.displayName = displayName;
+        }
+    }
+
+    private abstract static class AbstractCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener, JvmMemoryPressureListener {
         private final Object lock = new Object();
         private final Map<K, V> valuesForThisSession = new HashMap<>();
+        // Updated while holding the lock, but read without it so that monitoring does not wait for a value to be computed
+        private volatile int retainedCount;
+        private volatile int evictedCount;
 
         @Override
         public void beforeComplete() {
             synchronized (lock) {
                 retainValuesFromCurrentSession(valuesForThisSession.values());
                 valuesForThisSession.clear();
+                retainedCount = retainedValueCount();
             }
         }
 
@@ -98,11 +179,52 @@ public void clear() {
             synchronized (lock) {
                 valuesForThisSession.clear();
                 discardRetainedValues();
+                retainedCount = retainedValueCount();
+            }
+        }
+
+        public int size() {
+            return retainedCount;
+        }
+
+        public int trim() {
+            synchronized (lock) {
+                int discarded = discardValuesNotUsedInCurrentSession(valuesForThisSession.keySet(), Integer.MAX_VALUE);
+                evictedCount += discarded;
+                retainedCount = retainedValueCount();
+                return discarded;
             }
         }
 
+        public int evictedCount() {
+            return evictedCount;
+        }
+
+        @Override
+        public void onJvmMemoryPressure() {
+            synchronized (lock) {
+                int unused = retainedValueCount() - valuesForThisSession.size();
+                evictedCount += discardValuesNotUsedInCurrentSession(valuesForThisSession.keySet(), maxValuesToDiscardOnMemoryPressure(unused));
+                retainedCount = retainedValueCount();
+            }
+        }
+
+        /**
+         * Returns the maximum number of values not used in the current session to discard when the JVM reports memory pressure.
+         */
+        protected int maxValuesToDiscardOnMemoryPressure(int unusedValueCount) {
+            return unusedValueCount;
+        }
+
         protected abstract void retainValuesFromCurrentSession(Collection<V> values);
 
+        protected abstract int retainedValueCount();
+
+        /**
+         * Discards at most the given number of values not used in the current session, least recently used first where known.
+         */
+        protected abstract int discardValuesNotUsedInCurrentSession(Set<K> keysUsedInCurrentSession, int maxCount);
+
         protected abstract void discardRetainedValues();
 
         protected abstract void retainValue(K key, V v);
@@ -130,6 +252,7 @@ public V get(K key, Function<? super K, ? extends V> factory) {
                 v = factory.apply(key);
 
                 retainValue(key, v);
+                retainedCount = retainedValueCount();
 
                 // Retain strong reference
                 valuesForThisSession.put(key, v);
@@ -142,6 +265,7 @@ public V get(K key, Function<? super K, ? extends V> factory) {
         public void put(K key, V value) {
             synchronized (lock) {
                 retainValue(key, value);
+                retainedCount = retainedValueCount();
                 valuesForThisSession.put(key, value);
             }
         }
@@ -164,13 +288,25 @@ private V getIfPresentWithoutLock(K key) {
         }
     }
 
-    private static class DefaultCrossBuildInMemoryCache<K, V> extends AbstractCrossBuildInMemoryCache<K, V> {
+    private static class DefaultCrossBuildInMemoryCache<K, V> extends AbstractCrossBuildInMemoryCache<K, V> implements TrimmableCache {
         // This is used only to retain strong references to the values
         private final Set<V> valuesForPreviousSession = new HashSet<>();
         private final Map<K, SoftReference<V>> allValues;
+        private final boolean accessOrdered;
 
-        public DefaultCrossBuildInMemoryCache(Map<K, SoftReference<V>> allValues) {
+        public DefaultCrossBuildInMemoryCache(Map<K, SoftReference<V>> allValues, boolean accessOrdered) {
             this.allValues = allValues;
+            this.accessOrdered = accessOrdered;
+        }
+
+        @Override
+        protected int maxValuesToDiscardOnMemoryPressure(int unusedValueCount) {
+            if (accessOrdered) {
+                // Keep the most recently used half, as these are the most likely to be used by the next build
+                return (unusedValueCount + 1) / 2;
+            }
+            // Cannot tell which values were used recently, so discard them all rather than an arbitrary half
+            return unusedValueCount;
         }
 
         @Override
@@ -186,6 +322,26 @@ protected void discardRetainedValues() {
             allValues.clear();
         }
 
+        @Override
+        protected int retainedValueCount() {
+            return allValues.size();
+        }
+
+        @Override
+        protected int discardValuesNotUsedInCurrentSession(Set<K> keysUsedInCurrentSession, int maxCount) {
+            // Release the strong references first, so that the remaining values can be collected when required
+            valuesForPreviousSession.clear();
+            int discarded = 0;
+            Iterator<K> keys = allValues.keySet().iterator();
+            while (discarded < maxCount && keys.hasNext()) {
+                if (!keysUsedInCurrentSession.contains(keys.next())) {
+                    keys.remove();
+                    discarded++;
+                }
+            }
+            return discarded;
+        }
+
         @Override
         protected void retainValue(K key, V v) {
             allValues.put(key, new SoftReference<>(v));
@@ -220,6 +376,17 @@ protected void discardRetainedValues() {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        protected int retainedValueCount() {
+            return leakyValues.size();
+        }
+
+        @Override
+        protected int discardValuesNotUsedInCurrentSession(Set<Class<?>> keysUsedInCurrentSession, int maxCount) {
+            // Values are discarded along with the ClassLoader of their key
+            return 0;
+        }
+
         @Override
         protected void retainValue(Class<?> key, V v) {
             getCacheScope(key).put(key, v);
@@ -240,11 +407,12 @@ private Map<Class<?>, V> getCacheScope(Class<?> type) {
         }
     }
 
-    private static class CrossBuildCacheRetainingDataFromPreviousBuild<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener {
+    private static class CrossBuildCacheRetainingDataFromPreviousBuild<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener, JvmMemoryPressureListener, TrimmableCache {
         private final ManualEvictionInMemoryCache<K, V> delegate = new ManualEvictionInMemoryCache<>();
         private final ConcurrentMap<K, Boolean> keysFromPreviousBuild = new ConcurrentHashMap<>();
         private final ConcurrentMap<K, Boolean> keysFromCurrentBuild = new ConcurrentHashMap<>();
         private final Predicate<V> retentionFilter;
+        private final AtomicInteger evictedCount = new AtomicInteger();
 
         public CrossBuildCacheRetainingDataFromPreviousBuild(Predicate<V> retentionFilter) {
             this.retentionFilter = retentionFilter;
@@ -283,6 +451,32 @@ public void clear() {
             keysFromPreviousBuild.clear();
         }
 
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public int trim() {
+            int before = delegate.size();
+            delegate.retainAll(new HashSet<>(keysFromCurrentBuild.keySet()));
+            keysFromPreviousBuild.clear();
+            int discarded = before - delegate.size();
+            evictedCount.addAndGet(discarded);
+            return discarded;
+        }
+
+        @Override
+        public int evictedCount() {
+            return evictedCount.get();
+        }
+
+        @Override
+        public void onJvmMemoryPressure() {
+            // The delegate does not track usage, so discard everything not used in the current build
+            trim();
+        }
+
         @Override
         public void beforeComplete() {
             final Set<K> keysToRetain = new HashSet<>();
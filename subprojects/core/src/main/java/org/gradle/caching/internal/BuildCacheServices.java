@@ -58,6 +58,7 @@
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
 import org.gradle.internal.vfs.FileSystemAccess;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.util.GradleVersion;
 import org.gradle.util.Path;
 
@@ -154,13 +155,14 @@ BuildCacheController createBuildCacheController(
                 ServiceRegistry serviceRegistry,
                 BuildCacheConfigurationInternal buildCacheConfiguration,
                 BuildOperationExecutor buildOperationExecutor,
+                WorkerLeaseService workerLeaseService,
                 InstantiatorFactory instantiatorFactory,
                 GradleInternal gradle,
                 RootBuildCacheControllerRef rootControllerRef,
                 TemporaryFileProvider temporaryFileProvider
             ) {
                 if (isRoot(gradle) || isGradleBuildTaskRoot(rootControllerRef)) {
-                    return doCreateBuildCacheController(serviceRegistry, buildCacheConfiguration, buildOperationExecutor, instantiatorFactory, gradle, temporaryFileProvider);
+                    return doCreateBuildCacheController(serviceRegistry, buildCacheConfiguration, buildOperationExecutor, workerLeaseService, instantiatorFactory, gradle, temporaryFileProvider);
                 } else {
                     // must be an included build or buildSrc
                     return rootControllerRef.getForNonRootBuild();
@@ -180,7 +182,7 @@ private boolean isRoot(GradleInternal gradle) {
                 return gradle.isRootBuild();
             }
 
-            private BuildCacheController doCreateBuildCacheController(ServiceRegistry serviceRegistry, BuildCacheConfigurationInternal buildCacheConfiguration, BuildOperationExecutor buildOperationExecutor, InstantiatorFactory instantiatorFactory, GradleInternal gradle, TemporaryFileProvider temporaryFileProvider) {
+            private BuildCacheController doCreateBuildCacheController(ServiceRegistry serviceRegistry, BuildCacheConfigurationInternal buildCacheConfiguration, BuildOperationExecutor buildOperationExecutor, WorkerLeaseService workerLeaseService, InstantiatorFactory instantiatorFactory, GradleInternal gradle, TemporaryFileProvider temporaryFileProvider) {
                 StartParameter startParameter = gradle.getStartParameter();
                 Path buildIdentityPath = gradle.getIdentityPath();
                 BuildCacheControllerFactory.BuildCacheMode buildCacheMode = startParameter.isBuildCacheEnabled() ? BuildCacheControllerFactory.BuildCacheMode.ENABLED : BuildCacheControllerFactory.BuildCacheMode.DISABLED;
@@ -190,6 +192,7 @@ private BuildCacheController doCreateBuildCacheController(ServiceRegistry servic
 
                 return BuildCacheControllerFactory.create(
                     buildOperationExecutor,
+                    workerLeaseService,
                     buildIdentityPath,
                     temporaryFileProvider,
                     buildCacheConfiguration,
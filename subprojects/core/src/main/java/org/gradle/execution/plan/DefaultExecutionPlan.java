@@ -30,7 +30,6 @@
 import org.gradle.api.Task;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
-import org.gradle.internal.Pair;
 import org.gradle.internal.graph.CachingDirectedGraphWalker;
 import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.logging.text.StyledTextOutput;
@@ -56,7 +55,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import static com.google.common.collect.Lists.newLinkedList;
 import static com.google.common.collect.Sets.newIdentityHashSet;
@@ -87,7 +85,9 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     private final Set<Node> runningNodes = newIdentityHashSet();
     private final Set<Node> filteredNodes = newIdentityHashSet();
     private final Set<Node> producedButNotYetConsumed = newIdentityHashSet();
-    private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
+    private final NodePathIndex runningNodeMutations;
+    private final NodePathIndex producedButNotYetConsumedOutputs;
+    private final NodeReachability reachability = new NodeReachability();
     private final List<Node> dependenciesWhichRequireMonitoring = new ArrayList<>();
     private boolean maybeNodesReady;
 
@@ -107,6 +107,8 @@ public DefaultExecutionPlan(
         this.nodeValidator = nodeValidator;
         this.outputHierarchy = outputHierarchy;
         this.destroyableHierarchy = destroyableHierarchy;
+        this.runningNodeMutations = new NodePathIndex(outputHierarchy.getCaseSensitivity());
+        this.producedButNotYetConsumedOutputs = new NodePathIndex(outputHierarchy.getCaseSensitivity());
     }
 
     @Override
@@ -545,9 +547,10 @@ public void setContinueOnFailure(boolean continueOnFailure) {
 
     @Override
     @Nullable
-    public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState) {
+    public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState, NodeSelectionListener selectionListener) {
         if (allProjectsLocked()) {
             // TODO - this is incorrect. We can still run nodes that don't need a project lock
+            selectionListener.selectionBlocked(null, NodeSelectionListener.BlockedReason.ALL_PROJECTS_LOCKED);
             return null;
         }
 
@@ -560,8 +563,12 @@ public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLock
             }
         }
         if (!maybeNodesReady) {
+            selectionListener.selectionBlocked(null, NodeSelectionListener.BlockedReason.NO_READY_NODES);
             return null;
         }
+        if (selectionListener.countsReadyNodes()) {
+            selectionListener.readyNodesCounted(countReadyNodes());
+        }
         Iterator<Node> iterator = executionQueue.iterator();
         boolean foundReadyNode = false;
         while (iterator.hasNext()) {
@@ -570,12 +577,13 @@ public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLock
                 foundReadyNode = true;
                 MutationInfo mutations = getResolvedMutationInfo(node);
 
-                if (!tryAcquireLocksForNode(node, mutations)) {
+                if (!tryAcquireLocksForNode(node, mutations, selectionListener)) {
                     resourceLockState.releaseLocks();
                     continue;
                 }
 
                 if (!tryAcquireWorkerLeaseForNode(node, workerLease)) {
+                    selectionListener.selectionBlocked(node, NodeSelectionListener.BlockedReason.WORKER_LEASE);
                     resourceLockState.releaseLocks();
                     // if we can't get a worker lease, we won't be able to execute any other nodes, either
                     break;
@@ -594,21 +602,38 @@ public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLock
             }
         }
         LOGGER.debug("No node could be selected, nodes ready: {}", foundReadyNode);
+        if (!foundReadyNode) {
+            selectionListener.selectionBlocked(null, NodeSelectionListener.BlockedReason.NO_READY_NODES);
+        }
         maybeNodesReady = foundReadyNode;
         return null;
     }
 
-    private boolean tryAcquireLocksForNode(Node node, MutationInfo mutations) {
+    private int countReadyNodes() {
+        int readyNodes = 0;
+        for (Node node : executionQueue) {
+            if (node.isReady() && node.allDependenciesComplete()) {
+                readyNodes++;
+            }
+        }
+        return readyNodes;
+    }
+
+    private boolean tryAcquireLocksForNode(Node node, MutationInfo mutations, NodeSelectionListener selectionListener) {
         if (!tryLockProjectFor(node)) {
             LOGGER.debug("Cannot acquire project lock for node {}", node);
+            selectionListener.selectionBlocked(node, NodeSelectionListener.BlockedReason.PROJECT_LOCK);
             return false;
         } else if (!tryLockSharedResourceFor(node)) {
             LOGGER.debug("Cannot acquire shared resource lock for node {}", node);
+            selectionListener.selectionBlocked(node, NodeSelectionListener.BlockedReason.SHARED_RESOURCE_LOCK);
             return false;
         } else if (!canRunWithCurrentlyExecutedNodes(mutations)) {
             LOGGER.debug("Node {} cannot run with currently running nodes {}", node, runningNodes);
+            selectionListener.selectionBlocked(node, NodeSelectionListener.BlockedReason.OVERLAPPING_MUTATIONS);
             return false;
         } else if (doesDestroyNotYetConsumedOutputOfAnotherNode(node, mutations.destroyablePaths)) {
+            selectionListener.selectionBlocked(node, NodeSelectionListener.BlockedReason.DESTROYS_UNCONSUMED_OUTPUT);
             return false;
         }
         return true;
@@ -694,15 +719,9 @@ private boolean hasRunningNodeWithOverlappingMutations(MutationInfo mutations) {
         Set<String> candidateMutationPaths = !candidateNodeOutputs.isEmpty()
             ? candidateNodeOutputs
             : mutations.destroyablePaths;
-        if (!candidateMutationPaths.isEmpty()) {
-            for (String candidateMutationPath : candidateMutationPaths) {
-                Stream<Node> nodesMutatingCandidatePath = Stream.concat(
-                    outputHierarchy.getNodesAccessing(candidateMutationPath).stream(),
-                    destroyableHierarchy.getNodesAccessing(candidateMutationPath).stream()
-                );
-                if (nodesMutatingCandidatePath.anyMatch(runningNodes::contains)) {
-                    return true;
-                }
+        for (String candidateMutationPath : candidateMutationPaths) {
+            if (runningNodeMutations.hasNodesRelatedTo(candidateMutationPath)) {
+                return true;
             }
         }
         return false;
@@ -713,11 +732,7 @@ private boolean doesDestroyNotYetConsumedOutputOfAnotherNode(Node destroyer, Set
             return false;
         }
         for (String destroyablePath : destroyablePaths) {
-            ImmutableSet<Node> producersDestroyedByDestroyer = outputHierarchy.getNodesAccessing(destroyablePath);
-            for (Node producingNode : producedButNotYetConsumed) {
-                if (!producersDestroyedByDestroyer.contains(producingNode)) {
-                    continue;
-                }
+            for (Node producingNode : producedButNotYetConsumedOutputs.getNodesRelatedTo(destroyablePath)) {
                 MutationInfo producingNodeMutations = producingNode.getMutationInfo();
                 assert !producingNodeMutations.consumingNodes.isEmpty();
                 for (Node consumer : producingNodeMutations.consumingNodes) {
@@ -735,29 +750,22 @@ private boolean doesDestroyNotYetConsumedOutputOfAnotherNode(Node destroyer, Set
     }
 
     private boolean doesConsumerDependOnDestroyer(Node consumer, Node destroyer) {
-        if (consumer == destroyer) {
-            return true;
-        }
-        Pair<Node, Node> nodePair = Pair.of(consumer, destroyer);
-        if (reachableCache.get(nodePair) != null) {
-            return reachableCache.get(nodePair);
-        }
-
-        boolean reachable = false;
-        for (Node dependency : consumer.getAllSuccessors()) {
-            if (!dependency.isComplete()) {
-                if (doesConsumerDependOnDestroyer(dependency, destroyer)) {
-                    reachable = true;
-                }
-            }
-        }
-
-        reachableCache.put(nodePair, reachable);
-        return reachable;
+        return reachability.isReachable(consumer, destroyer);
     }
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        MutationInfo mutations = node.getMutationInfo();
+        runningNodeMutations.add(node, mutations.outputPaths);
+        runningNodeMutations.add(node, mutations.destroyablePaths);
+    }
+
+    private void recordNodeExecutionFinished(Node node) {
+        if (runningNodes.remove(node)) {
+            MutationInfo mutations = node.getMutationInfo();
+            runningNodeMutations.remove(node, mutations.outputPaths);
+            runningNodeMutations.remove(node, mutations.destroyablePaths);
+        }
     }
 
     private void recordNodeCompleted(Node node) {
@@ -766,12 +774,16 @@ private void recordNodeCompleted(Node node) {
         for (Node producer : node.getDependencySuccessors()) {
             MutationInfo producerMutations = producer.getMutationInfo();
             if (producerMutations.consumingNodes.remove(node) && producerMutations.consumingNodes.isEmpty()) {
-                producedButNotYetConsumed.remove(producer);
+                if (producedButNotYetConsumed.remove(producer)) {
+                    producedButNotYetConsumedOutputs.remove(producer, producerMutations.outputPaths);
+                }
             }
         }
 
         if (!mutations.consumingNodes.isEmpty() && !mutations.outputPaths.isEmpty()) {
-            producedButNotYetConsumed.add(node);
+            if (producedButNotYetConsumed.add(node)) {
+                producedButNotYetConsumedOutputs.add(node, mutations.outputPaths);
+            }
         }
 
         updateAllDependenciesCompleteForPredecessors(node);
@@ -790,7 +802,7 @@ public void finishedExecuting(Node node) {
                     LOGGER.debug("Node {} finished executing", node);
                 }
 
-                runningNodes.remove(node);
+                recordNodeExecutionFinished(node);
                 node.finishExecution(this::recordNodeCompleted);
             } else {
                 LOGGER.debug("Already completed node {} reported as finished executing", node);
@@ -24,6 +24,10 @@
 import org.gradle.internal.MutableReference;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.VirtualThreads;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.operations.OperationIdentifier;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.time.TimeFormatting;
@@ -33,9 +37,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.concurrent.Executor;
-import java.util.concurrent.atomic.AtomicLong;
 
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
 import static org.gradle.internal.resources.ResourceLockState.Disposition.FINISHED;
@@ -44,16 +48,49 @@
 @NonNullApi
 public class DefaultPlanExecutor implements PlanExecutor {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultPlanExecutor.class);
+
+    /**
+     * When set to true, each execution worker emits its idle periods and a summary as build operation progress events.
+     */
+    public static final String WORKER_INSTRUMENTATION_PROPERTY = "org.gradle.internal.plan-executor.instrumentation";
+
+    /**
+     * When set to true and the JVM supports virtual threads, the execution workers run in virtual threads.
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "org.gradle.internal.plan-executor.virtual-threads";
+
+    /**
+     * The number of execution workers to start per worker lease, when the workers run in virtual threads.
+     * A worker which is blocked waiting for some other work gives up its worker lease, so another worker can use it in the meantime.
+     * The worker leases still limit the number of nodes which execute concurrently.
+     */
+    private static final int VIRTUAL_WORKERS_PER_WORKER_LEASE = 4;
+
     private final int executorCount;
     private final ExecutorFactory executorFactory;
     private final WorkerLeaseService workerLeaseService;
     private final BuildCancellationToken cancellationToken;
     private final ResourceLockCoordinationService coordinationService;
+    private final BuildOperationProgressEventEmitter progressEventEmitter;
+    private final boolean emitWorkerInstrumentation;
+    private final boolean useVirtualThreads;
 
-    public DefaultPlanExecutor(ParallelismConfiguration parallelismConfiguration, ExecutorFactory executorFactory, WorkerLeaseService workerLeaseService, BuildCancellationToken cancellationToken, ResourceLockCoordinationService coordinationService) {
+    public DefaultPlanExecutor(
+        ParallelismConfiguration parallelismConfiguration,
+        ExecutorFactory executorFactory,
+        WorkerLeaseService workerLeaseService,
+        BuildCancellationToken cancellationToken,
+        ResourceLockCoordinationService coordinationService,
+        BuildOperationProgressEventEmitter progressEventEmitter,
+        boolean emitWorkerInstrumentation,
+        boolean useVirtualThreads
+    ) {
         this.executorFactory = executorFactory;
         this.cancellationToken = cancellationToken;
         this.coordinationService = coordinationService;
+        this.progressEventEmitter = progressEventEmitter;
+        this.emitWorkerInstrumentation = emitWorkerInstrumentation;
+        this.useVirtualThreads = useVirtualThreads && VirtualThreads.isSupported();
         int numberOfParallelExecutors = parallelismConfiguration.getMaxWorkerCount();
         if (numberOfParallelExecutors < 1) {
             throw new IllegalArgumentException("Not a valid number of parallel executors: " + numberOfParallelExecutors);
@@ -65,11 +102,13 @@ public DefaultPlanExecutor(ParallelismConfiguration parallelismConfiguration, Ex
 
     @Override
     public void process(ExecutionPlan executionPlan, Collection<? super Throwable> failures, Action<Node> nodeExecutor) {
-        ManagedExecutor executor = executorFactory.create("Execution worker for '" + executionPlan.getDisplayName() + "'");
+        String displayName = "Execution worker for '" + executionPlan.getDisplayName() + "'";
+        ManagedExecutor executor = useVirtualThreads ? executorFactory.createVirtualThreadExecutor(displayName) : executorFactory.create(displayName);
         try {
             WorkerLease parentWorkerLease = workerLeaseService.getCurrentWorkerLease();
-            startAdditionalWorkers(executionPlan, nodeExecutor, executor, parentWorkerLease);
-            new ExecutorWorker(executionPlan, nodeExecutor, parentWorkerLease, cancellationToken, coordinationService).run();
+            OperationIdentifier instrumentationOperation = emitWorkerInstrumentation ? CurrentBuildOperationRef.instance().getId() : null;
+            startAdditionalWorkers(executionPlan, nodeExecutor, executor, parentWorkerLease, instrumentationOperation);
+            new ExecutorWorker(executionPlan, nodeExecutor, parentWorkerLease, cancellationToken, coordinationService, createInstrumentation(0, instrumentationOperation)).run();
             awaitCompletion(executionPlan, failures);
         } finally {
             executor.stop();
@@ -90,32 +129,45 @@ private void awaitCompletion(final ExecutionPlan executionPlan, final Collection
         });
     }
 
-    private void startAdditionalWorkers(ExecutionPlan executionPlan, Action<? super Node> nodeExecutor, Executor executor, WorkerLease parentWorkerLease) {
-        LOGGER.debug("Using {} parallel executor threads", executorCount);
+    private void startAdditionalWorkers(ExecutionPlan executionPlan, Action<? super Node> nodeExecutor, Executor executor, WorkerLease parentWorkerLease, @Nullable OperationIdentifier instrumentationOperation) {
+        int workerCount = useVirtualThreads ? executorCount * VIRTUAL_WORKERS_PER_WORKER_LEASE : executorCount;
+        LOGGER.debug("Using {} parallel executor {}", workerCount, useVirtualThreads ? "virtual threads" : "threads");
 
-        for (int i = 1; i < executorCount; i++) {
-            executor.execute(new ExecutorWorker(executionPlan, nodeExecutor, parentWorkerLease, cancellationToken, coordinationService));
+        for (int i = 1; i < workerCount; i++) {
+            executor.execute(new ExecutorWorker(executionPlan, nodeExecutor, parentWorkerLease, cancellationToken, coordinationService, createInstrumentation(i, instrumentationOperation)));
         }
     }
 
+    private ExecutionWorkerInstrumentation createInstrumentation(int workerIndex, @Nullable OperationIdentifier instrumentationOperation) {
+        return new ExecutionWorkerInstrumentation("Execution worker " + workerIndex, Time.clock(), progressEventEmitter, instrumentationOperation);
+    }
+
     private static class ExecutorWorker implements Runnable {
         private final ExecutionPlan executionPlan;
         private final Action<? super Node> nodeExecutor;
         private final WorkerLease parentWorkerLease;
         private final BuildCancellationToken cancellationToken;
         private final ResourceLockCoordinationService coordinationService;
+        private final ExecutionWorkerInstrumentation instrumentation;
 
-        private ExecutorWorker(ExecutionPlan executionPlan, Action<? super Node> nodeExecutor, WorkerLease parentWorkerLease, BuildCancellationToken cancellationToken, ResourceLockCoordinationService coordinationService) {
+        private ExecutorWorker(
+            ExecutionPlan executionPlan,
+            Action<? super Node> nodeExecutor,
+            WorkerLease parentWorkerLease,
+            BuildCancellationToken cancellationToken,
+            ResourceLockCoordinationService coordinationService,
+            ExecutionWorkerInstrumentation instrumentation
+        ) {
             this.executionPlan = executionPlan;
             this.nodeExecutor = nodeExecutor;
             this.parentWorkerLease = parentWorkerLease;
             this.cancellationToken = cancellationToken;
             this.coordinationService = coordinationService;
+            this.instrumentation = instrumentation;
         }
 
         @Override
         public void run() {
-            final AtomicLong busy = new AtomicLong(0);
             Timer totalTimer = Time.startTimer();
             final Timer executionTimer = Time.startTimer();
 
@@ -126,7 +178,7 @@ public void run() {
                     executionTimer.reset();
                     nodeExecutor.execute(work);
                     long duration = executionTimer.getElapsedMillis();
-                    busy.addAndGet(duration);
+                    instrumentation.nodeFinished(duration);
                     if (LOGGER.isInfoEnabled()) {
                         LOGGER.info("{} ({}) completed. Took {}.", work, Thread.currentThread(), TimeFormatting.formatDurationVerbose(duration));
                     }
@@ -137,9 +189,11 @@ public void run() {
             }
 
             long total = totalTimer.getElapsedMillis();
+            instrumentation.workerFinished();
 
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Execution worker [{}] finished, busy: {}, idle: {}", Thread.currentThread(), TimeFormatting.formatDurationVerbose(busy.get()), TimeFormatting.formatDurationVerbose(total - busy.get()));
+                long busy = instrumentation.getBusyMillis();
+                LOGGER.debug("Execution worker [{}] finished, busy: {}, idle: {}, blocked selections: {}", Thread.currentThread(), TimeFormatting.formatDurationVerbose(busy), TimeFormatting.formatDurationVerbose(total - busy), instrumentation.getBlockedTotal());
             }
         }
 
@@ -163,7 +217,8 @@ private boolean executeNextNode(final WorkerLease workerLease, final Action<Node
                 }
 
                 try {
-                    selected.set(executionPlan.selectNext(workerLease, resourceLockState));
+                    instrumentation.selectionAttempted();
+                    selected.set(executionPlan.selectNext(workerLease, resourceLockState, instrumentation));
                 } catch (Throwable t) {
                     resourceLockState.releaseLocks();
                     executionPlan.abortAllAndFail(t);
@@ -179,6 +234,7 @@ private boolean executeNextNode(final WorkerLease workerLease, final Action<Node
 
             Node selectedNode = selected.get();
             if (selectedNode != null) {
+                instrumentation.nodeSelected(selectedNode);
                 execute(selectedNode, workerLease, nodeExecutor);
             }
             return nodesRemaining.get();
@@ -37,13 +37,19 @@
 
 public class ExecutionNodeAccessHierarchy {
     private volatile ValuedVfsHierarchy<NodeAccess> root;
+    private final CaseSensitivity caseSensitivity;
     private final Stat stat;
 
     public ExecutionNodeAccessHierarchy(CaseSensitivity caseSensitivity, Stat stat) {
         this.root = new ValuedVfsHierarchy<>(PersistentList.of(), EmptyChildMap.getInstance(), caseSensitivity);
+        this.caseSensitivity = caseSensitivity;
         this.stat = stat;
     }
 
+    public CaseSensitivity getCaseSensitivity() {
+        return caseSensitivity;
+    }
+
     /**
      * Returns all nodes which access the location.
      *
@@ -45,7 +45,7 @@ public void setContinueOnFailure(boolean continueOnFailure) {
 
         @Nullable
         @Override
-        public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState) {
+        public Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState, NodeSelectionListener selectionListener) {
             return null;
         }
 
@@ -139,7 +139,15 @@ public String getDisplayName() {
      * Selects a work item to run, returns null if there is no work remaining _or_ if no queued work is ready to run.
      */
     @Nullable
-    Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState);
+    default Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState) {
+        return selectNext(workerLease, resourceLockState, NodeSelectionListener.NO_OP);
+    }
+
+    /**
+     * Selects a work item to run, like {@link #selectNext(WorkerLeaseRegistry.WorkerLease, ResourceLockState)}, and reports why nodes could not be selected to the given listener.
+     */
+    @Nullable
+    Node selectNext(WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState, NodeSelectionListener selectionListener);
 
     void finishedExecuting(Node node);
 
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.ImmutableMap;
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.time.Clock;
+
+import javax.annotation.Nullable;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Records what an execution worker of {@link DefaultPlanExecutor} spends its time on: the periods it is idle, how often it tried to select a node during
+ * those periods, why ready nodes could not be selected and how many nodes were ready to execute.
+ *
+ * <p>When an operation to report to is given, each idle period and a summary for the worker are emitted as build operation progress events,
+ * so they show up in the build operation trace (see {@link org.gradle.internal.operations.trace.BuildOperationTrace}).</p>
+ *
+ * <p>Each worker has its own instance, which is only used from the thread of the worker.</p>
+ */
+@NonNullApi
+public class ExecutionWorkerInstrumentation implements NodeSelectionListener {
+    private final String workerName;
+    private final Clock clock;
+    private final BuildOperationProgressEventEmitter progressEventEmitter;
+    private final OperationIdentifier operationId;
+
+    private final Map<BlockedReason, Integer> blockedInIdlePeriod = new EnumMap<>(BlockedReason.class);
+    private final Map<BlockedReason, Integer> blockedTotal = new EnumMap<>(BlockedReason.class);
+    private final long startTime;
+    private long idleSince;
+    private int selectionAttempts;
+    private int maxReadyNodes;
+    private long busyMillis;
+    private int nodesExecuted;
+
+    public ExecutionWorkerInstrumentation(String workerName, Clock clock, BuildOperationProgressEventEmitter progressEventEmitter, @Nullable OperationIdentifier operationId) {
+        this.workerName = workerName;
+        this.clock = clock;
+        this.progressEventEmitter = progressEventEmitter;
+        this.operationId = operationId;
+        this.startTime = clock.getCurrentTime();
+        this.idleSince = startTime;
+    }
+
+    /**
+     * Called before the worker tries to select a node.
+     */
+    public void selectionAttempted() {
+        selectionAttempts++;
+    }
+
+    @Override
+    public boolean countsReadyNodes() {
+        // Only needed for the idle periods, which are only emitted when there is an operation to report to
+        return operationId != null;
+    }
+
+    @Override
+    public void readyNodesCounted(int readyNodes) {
+        maxReadyNodes = Math.max(maxReadyNodes, readyNodes);
+    }
+
+    @Override
+    public void selectionBlocked(@Nullable Node node, BlockedReason reason) {
+        blockedInIdlePeriod.merge(reason, 1, Integer::sum);
+        blockedTotal.merge(reason, 1, Integer::sum);
+    }
+
+    /**
+     * Called when the worker has selected a node and starts executing it. Ends the current idle period.
+     */
+    public void nodeSelected(Node node) {
+        endIdlePeriod(clock.getCurrentTime(), node.toString());
+    }
+
+    private void endIdlePeriod(long now, @Nullable String selectedNode) {
+        if (operationId != null) {
+            progressEventEmitter.emit(operationId, now, new IdlePeriod(workerName, idleSince, now - idleSince, selectedNode, selectionAttempts, maxReadyNodes, ImmutableMap.copyOf(blockedInIdlePeriod)));
+        }
+        blockedInIdlePeriod.clear();
+        selectionAttempts = 0;
+        maxReadyNodes = 0;
+    }
+
+    /**
+     * Called when the worker has finished executing a node. Starts a new idle period.
+     */
+    public void nodeFinished(long durationMillis) {
+        busyMillis += durationMillis;
+        nodesExecuted++;
+        idleSince = clock.getCurrentTime();
+    }
+
+    /**
+     * Called when there are no more nodes for the worker to execute. Ends the last idle period.
+     */
+    public void workerFinished() {
+        long now = clock.getCurrentTime();
+        endIdlePeriod(now, null);
+        if (operationId != null) {
+            progressEventEmitter.emit(operationId, now, new WorkerSummary(workerName, startTime, busyMillis, now - startTime - busyMillis, nodesExecuted, ImmutableMap.copyOf(blockedTotal)));
+        }
+    }
+
+    public long getBusyMillis() {
+        return busyMillis;
+    }
+
+    public Map<BlockedReason, Integer> getBlockedTotal() {
+        return blockedTotal;
+    }
+
+    /**
+     * A period in which an execution worker did not execute any node.
+     */
+    public static class IdlePeriod {
+        private final String worker;
+        private final long startTime;
+        private final long durationMillis;
+        private final String selectedNode;
+        private final int selectionAttempts;
+        private final int maxReadyNodes;
+        private final Map<BlockedReason, Integer> blockedReasons;
+
+        IdlePeriod(String worker, long startTime, long durationMillis, @Nullable String selectedNode, int selectionAttempts, int maxReadyNodes, Map<BlockedReason, Integer> blockedReasons) {
+            this.worker = worker;
+            this.startTime = startTime;
+            this.durationMillis = durationMillis;
+            this.selectedNode = selectedNode;
+            this.selectionAttempts = selectionAttempts;
+            this.maxReadyNodes = maxReadyNodes;
+            this.blockedReasons = blockedReasons;
+        }
+
+        public String getWorker() {
+            return worker;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        /**
+         * The node which was selected at the end of the idle period, or {@code null} for the period at the end of the execution.
+         */
+        @Nullable
+        public String getSelectedNode() {
+            return selectedNode;
+        }
+
+        public int getSelectionAttempts() {
+            return selectionAttempts;
+        }
+
+        /**
+         * The largest number of nodes in the execution queue which were ready to execute at the start of a selection attempt.
+         */
+        public int getMaxReadyNodes() {
+            return maxReadyNodes;
+        }
+
+        /**
+         * How often a node could not be selected during the idle period, by reason.
+         */
+        public Map<BlockedReason, Integer> getBlockedReasons() {
+            return blockedReasons;
+        }
+    }
+
+    /**
+     * The time an execution worker spent executing nodes and being idle.
+     */
+    public static class WorkerSummary {
+        private final String worker;
+        private final long startTime;
+        private final long busyMillis;
+        private final long idleMillis;
+        private final int nodesExecuted;
+        private final Map<BlockedReason, Integer> blockedReasons;
+
+        WorkerSummary(String worker, long startTime, long busyMillis, long idleMillis, int nodesExecuted, Map<BlockedReason, Integer> blockedReasons) {
+            this.worker = worker;
+            this.startTime = startTime;
+            this.busyMillis = busyMillis;
+            this.idleMillis = idleMillis;
+            this.nodesExecuted = nodesExecuted;
+            this.blockedReasons = blockedReasons;
+        }
+
+        public String getWorker() {
+            return worker;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getBusyMillis() {
+            return busyMillis;
+        }
+
+        public long getIdleMillis() {
+            return idleMillis;
+        }
+
+        public int getNodesExecuted() {
+            return nodesExecuted;
+        }
+
+        public Map<BlockedReason, Integer> getBlockedReasons() {
+            return blockedReasons;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.snapshot.CaseSensitivity;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.gradle.internal.snapshot.PathUtil.isFileSeparator;
+
+/**
+ * An incrementally maintained prefix tree of the locations mutated by a changing set of nodes, e.g. the nodes currently running.
+ *
+ * <p>In contrast to {@link ExecutionNodeAccessHierarchy}, which records every node of the build and is then filtered by the caller,
+ * nodes are added and removed as they enter and leave the set. Looking up the nodes related to a location costs O(depth of the location),
+ * independent of the number of nodes in the set, since each entry tracks how many nodes are recorded at or below it.</p>
+ *
+ * <p>Updates are synchronized, while queries don't take a lock.</p>
+ */
+@NonNullApi
+class NodePathIndex {
+    private final CaseSensitivity caseSensitivity;
+    private final Entry root = new Entry(null, "");
+
+    public NodePathIndex(CaseSensitivity caseSensitivity) {
+        this.caseSensitivity = caseSensitivity;
+    }
+
+    /**
+     * Records that the node mutates the given locations.
+     */
+    public synchronized void add(Node node, Iterable<String> locations) {
+        for (String location : locations) {
+            Entry entry = root;
+            for (String segment : segmentsOf(location)) {
+                entry = entry.getOrCreateChild(segment);
+            }
+            entry.nodes.add(node);
+            for (Entry current = entry; current != null; current = current.parent) {
+                current.nodesAtOrBelow++;
+            }
+        }
+    }
+
+    /**
+     * Removes the node for the given locations, which must have been previously passed to {@link #add(Node, Iterable)}.
+     */
+    public synchronized void remove(Node node, Iterable<String> locations) {
+        for (String location : locations) {
+            Entry entry = root;
+            for (String segment : segmentsOf(location)) {
+                entry = entry.children.get(segment);
+                if (entry == null) {
+                    break;
+                }
+            }
+            if (entry == null || !entry.nodes.remove(node)) {
+                continue;
+            }
+            for (Entry current = entry; current != null; current = current.parent) {
+                current.nodesAtOrBelow--;
+                if (current.nodesAtOrBelow == 0 && current.parent != null) {
+                    current.parent.children.remove(current.segment);
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return root.nodesAtOrBelow == 0;
+    }
+
+    /**
+     * Returns whether any node mutates the location, one of its ancestors or one of its descendants.
+     */
+    public boolean hasNodesRelatedTo(String location) {
+        if (root.nodesAtOrBelow == 0) {
+            return false;
+        }
+        Entry entry = root;
+        for (String segment : segmentsOf(location)) {
+            if (!entry.nodes.isEmpty()) {
+                return true;
+            }
+            entry = entry.children.get(segment);
+            if (entry == null) {
+                return false;
+            }
+        }
+        return entry.nodesAtOrBelow > 0;
+    }
+
+    /**
+     * Returns all nodes which mutate the location, one of its ancestors or one of its descendants.
+     */
+    public ImmutableSet<Node> getNodesRelatedTo(String location) {
+        if (root.nodesAtOrBelow == 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<Node> builder = ImmutableSet.builder();
+        Entry entry = root;
+        for (String segment : segmentsOf(location)) {
+            builder.addAll(entry.nodes);
+            entry = entry.children.get(segment);
+            if (entry == null) {
+                return builder.build();
+            }
+        }
+        entry.collectNodesAtOrBelow(builder);
+        return builder.build();
+    }
+
+    private List<String> segmentsOf(String location) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int length = location.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || isFileSeparator(location.charAt(i))) {
+                if (i > start) {
+                    String segment = location.substring(start, i);
+                    segments.add(caseSensitivity == CaseSensitivity.CASE_SENSITIVE ? segment : segment.toLowerCase(Locale.ROOT));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static class Entry {
+        private final Entry parent;
+        private final String segment;
+        private final Map<String, Entry> children = new ConcurrentHashMap<>();
+        private final List<Node> nodes = new CopyOnWriteArrayList<>();
+        private volatile int nodesAtOrBelow;
+
+        Entry(@Nullable Entry parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        Entry getOrCreateChild(String segment) {
+            return children.computeIfAbsent(segment, key -> new Entry(this, key));
+        }
+
+        void collectNodesAtOrBelow(ImmutableSet.Builder<Node> builder) {
+            builder.addAll(nodes);
+            for (Entry child : children.values()) {
+                child.collectNodesAtOrBelow(builder);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.NonNullApi;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Answers whether a node transitively depends on some target node via successors which are not yet complete.
+ *
+ * <p>Each node is assigned a dense ordinal the first time it is seen. For every queried target node, the closure is
+ * computed lazily and memoized in two {@link BitSet}s indexed by that ordinal, so the cost of a query is a few bits per
+ * node in the plan rather than an entry per queried pair of nodes.</p>
+ *
+ * <p>Like the rest of the execution plan, this class is NOT threadsafe.</p>
+ */
+@NonNullApi
+class NodeReachability {
+    private final Map<Node, Integer> ordinals = new IdentityHashMap<>();
+    private final Map<Node, TargetClosure> closures = new IdentityHashMap<>();
+
+    /**
+     * Returns true when {@code target} is {@code from} itself, or can be reached from {@code from} via nodes that were not complete when first visited.
+     */
+    public boolean isReachable(Node from, Node target) {
+        if (from == target) {
+            return true;
+        }
+        return closures.computeIfAbsent(target, TargetClosure::new).isReachableFrom(from);
+    }
+
+    private int ordinalOf(Node node) {
+        Integer ordinal = ordinals.get(node);
+        if (ordinal == null) {
+            ordinal = ordinals.size();
+            ordinals.put(node, ordinal);
+        }
+        return ordinal;
+    }
+
+    private class TargetClosure {
+        private final Node target;
+        private final BitSet visited = new BitSet();
+        private final BitSet reachable = new BitSet();
+        private final BitSet expanded = new BitSet();
+
+        TargetClosure(Node target) {
+            this.target = target;
+        }
+
+        boolean isReachableFrom(Node from) {
+            int fromOrdinal = ordinalOf(from);
+            if (!visited.get(fromOrdinal)) {
+                visit(from);
+            }
+            return reachable.get(fromOrdinal);
+        }
+
+        private void visit(Node from) {
+            // Iterative post-order walk, so that long dependency chains do not overflow the stack
+            Deque<Node> queue = new ArrayDeque<>();
+            queue.push(from);
+            while (!queue.isEmpty()) {
+                Node node = queue.peek();
+                int ordinal = ordinalOf(node);
+                if (visited.get(ordinal)) {
+                    queue.pop();
+                } else if (node == target) {
+                    queue.pop();
+                    visited.set(ordinal);
+                    reachable.set(ordinal);
+                } else if (!expanded.get(ordinal)) {
+                    // Have not seen this node before - add its incomplete successors to the head of the queue and leave this node in the queue
+                    expanded.set(ordinal);
+                    for (Node successor : node.getAllSuccessors()) {
+                        if (!successor.isComplete() && !visited.get(ordinalOf(successor))) {
+                            queue.push(successor);
+                        }
+                    }
+                } else {
+                    // Have visited this node's successors - it is reachable when any of them is
+                    queue.pop();
+                    expanded.clear(ordinal);
+                    visited.set(ordinal);
+                    for (Node successor : node.getAllSuccessors()) {
+                        if (!successor.isComplete() && reachable.get(ordinalOf(successor))) {
+                            reachable.set(ordinal);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
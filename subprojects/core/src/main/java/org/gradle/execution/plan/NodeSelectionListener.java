@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import javax.annotation.Nullable;
+
+/**
+ * Receives the reasons why an attempt to select a node from an {@link ExecutionPlan} did not select some node.
+ */
+public interface NodeSelectionListener {
+    NodeSelectionListener NO_OP = (node, reason) -> {
+    };
+
+    /**
+     * Called when a node could not be selected.
+     *
+     * @param node the node which was not selected, or {@code null} when the reason applies to all nodes in the plan.
+     */
+    void selectionBlocked(@Nullable Node node, BlockedReason reason);
+
+    /**
+     * Returns true when {@link #readyNodesCounted(int)} should be called. Counting the ready nodes requires a pass over the whole execution queue.
+     */
+    default boolean countsReadyNodes() {
+        return false;
+    }
+
+    /**
+     * Called at the start of a selection attempt with the number of nodes in the execution queue which are ready to execute.
+     */
+    default void readyNodesCounted(int readyNodes) {
+    }
+
+    enum BlockedReason {
+        /**
+         * All projects of the plan are locked, so no node is considered.
+         */
+        ALL_PROJECTS_LOCKED,
+        /**
+         * None of the nodes in the plan is ready to execute.
+         */
+        NO_READY_NODES,
+        /**
+         * The node is ready, but its project lock is held by another worker.
+         */
+        PROJECT_LOCK,
+        /**
+         * The node is ready, but one of its shared resources is held by other workers.
+         */
+        SHARED_RESOURCE_LOCK,
+        /**
+         * The node is ready, but it mutates locations which are mutated by a running node, or it or a running node is invalid.
+         */
+        OVERLAPPING_MUTATIONS,
+        /**
+         * The node is ready, but it destroys outputs which have not been consumed yet.
+         */
+        DESTROYS_UNCONSUMED_OUTPUT,
+        /**
+         * The node is ready, but no worker lease is available.
+         */
+        WORKER_LEASE
+    }
+}
@@ -29,7 +29,7 @@ public class CrossBuildInMemoryCachingScriptClassCache {
     private final CrossBuildInMemoryCache<ScriptCacheKey, CachedCompiledScript> cachedCompiledScripts;
 
     public CrossBuildInMemoryCachingScriptClassCache(CrossBuildInMemoryCacheFactory cacheFactory) {
-        cachedCompiledScripts = cacheFactory.newCache();
+        cachedCompiledScripts = cacheFactory.newCache("Compiled Groovy scripts");
     }
 
     public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource source,
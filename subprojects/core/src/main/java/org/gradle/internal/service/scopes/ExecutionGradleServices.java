@@ -15,6 +15,7 @@
  */
 package org.gradle.internal.service.scopes;
 
+import org.gradle.StartParameter;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.DefaultExecutionHistoryCacheAccess;
@@ -71,6 +72,7 @@
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
 import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.resources.SharedResourceLeaseRegistry;
@@ -116,7 +118,9 @@ PlanExecutor createPlanExecutor(
         ExecutorFactory executorFactory,
         WorkerLeaseService workerLeaseService,
         BuildCancellationToken cancellationToken,
-        ResourceLockCoordinationService coordinationService) {
+        ResourceLockCoordinationService coordinationService,
+        BuildOperationProgressEventEmitter progressEventEmitter,
+        StartParameter startParameter) {
         int parallelThreads = parallelismConfiguration.getMaxWorkerCount();
         if (parallelThreads < 1) {
             throw new IllegalStateException(String.format("Cannot create executor for requested number of worker threads: %s.", parallelThreads));
@@ -127,10 +131,18 @@ PlanExecutor createPlanExecutor(
             executorFactory,
             workerLeaseService,
             cancellationToken,
-            coordinationService
+            coordinationService,
+            progressEventEmitter,
+            isEnabled(startParameter, DefaultPlanExecutor.WORKER_INSTRUMENTATION_PROPERTY),
+            isEnabled(startParameter, DefaultPlanExecutor.VIRTUAL_THREADS_PROPERTY)
         );
     }
 
+    private static boolean isEnabled(StartParameter startParameter, String property) {
+        String value = startParameter.getSystemPropertiesArgs().getOrDefault(property, System.getProperty(property));
+        return Boolean.parseBoolean(value);
+    }
+
     OutputChangeListener createOutputChangeListener(ListenerManager listenerManager) {
         return listenerManager.getBroadcaster(OutputChangeListener.class);
     }
@@ -170,7 +170,7 @@ ExecFactory createExecFactory(ExecFactory parent, FileResolver fileResolver, Fil
     WorkerProcessFactory createWorkerProcessFactory(
         LoggingManagerInternal loggingManagerInternal, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
         TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory, JvmVersionDetector jvmVersionDetector,
-        MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener
+        MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener, ExecutorFactory executorFactory
     ) {
         return new DefaultWorkerProcessFactory(
             loggingManagerInternal,
@@ -182,7 +182,8 @@ WorkerProcessFactory createWorkerProcessFactory(
             execHandleFactory,
             jvmVersionDetector,
             outputEventListener,
-            memoryManager
+            memoryManager,
+            executorFactory
         );
     }
 
@@ -87,7 +87,7 @@ Clock createClock() {
         return Time.clock();
     }
 
-    CrossBuildInMemoryCacheFactory createCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
+    DefaultCrossBuildInMemoryCacheFactory createCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
         return new DefaultCrossBuildInMemoryCacheFactory(listenerManager);
     }
 
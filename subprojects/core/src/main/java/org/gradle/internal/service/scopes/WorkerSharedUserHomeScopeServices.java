@@ -23,6 +23,6 @@
 public class WorkerSharedUserHomeScopeServices {
 
     DefaultValueSnapshotter createValueSnapshotter(ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ManagedFactoryRegistry managedFactoryRegistry) {
-        return new DefaultValueSnapshotter(classLoaderHierarchyHasher, managedFactoryRegistry);
+        return new DefaultValueSnapshotter(classLoaderHierarchyHasher, managedFactoryRegistry, Boolean.getBoolean(DefaultValueSnapshotter.INTERN_ISOLATED_VALUES_PROPERTY));
     }
 }
@@ -91,7 +91,7 @@ private void waitForItemsAndGatherFailures(List<AsyncWorkCompletion> workItems,
                 return;
             case RELEASE_PROJECT_LOCKS:
                 projectLeaseRegistry.releaseCurrentProjectLocks();
-                waitForItemsAndGatherFailures(workItems);
+                blockingWaitForItemsAndGatherFailures(workItems);
                 return;
             case RELEASE_AND_REACQUIRE_PROJECT_LOCKS:
                 if (!hasWorkInProgress(workItems)) {
@@ -99,17 +99,22 @@ private void waitForItemsAndGatherFailures(List<AsyncWorkCompletion> workItems,
                     waitForItemsAndGatherFailures(workItems);
                     return;
                 }
-                projectLeaseRegistry.withoutProjectLock(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                waitForItemsAndGatherFailures(workItems);
-                            }
-                        }
-                );
+                blockingWaitForItemsAndGatherFailures(workItems);
         }
     }
 
+    private void blockingWaitForItemsAndGatherFailures(final List<AsyncWorkCompletion> workItems) {
+        // Releases any project locks, and the worker lease when waiting is cheap, so that other work can run while this thread waits
+        projectLeaseRegistry.blocking(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        waitForItemsAndGatherFailures(workItems);
+                    }
+                }
+        );
+    }
+
     private boolean hasWorkInProgress(List<AsyncWorkCompletion> workItems) {
         return CollectionUtils.any(workItems, new Spec<AsyncWorkCompletion>() {
                         @Override
@@ -18,6 +18,7 @@
 
 import org.gradle.api.Action;
 import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.jvm.Jvm;
 import org.gradle.internal.logging.events.OutputEventListener;
@@ -25,6 +26,8 @@
 import org.gradle.internal.remote.ConnectionAcceptor;
 import org.gradle.internal.remote.MessagingServer;
 import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddress;
 import org.gradle.process.ExecResult;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.JavaExecHandleBuilder;
@@ -33,12 +36,14 @@
 import org.gradle.process.internal.health.memory.MemoryAmount;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.child.ApplicationClassesInSystemClassLoaderWorkerImplementationFactory;
+import org.gradle.process.internal.worker.child.SharedMemoryOrSocketAddress;
 import org.gradle.process.internal.worker.child.WorkerJvmMemoryInfoProtocol;
 import org.gradle.process.internal.worker.child.WorkerLoggingProtocol;
 import org.gradle.util.internal.GUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
 import java.util.Arrays;
@@ -47,10 +52,16 @@
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
+    /**
+     * When set, worker processes connect to the build process through shared memory rather than through a local socket, where possible.
+     */
+    public static final String SHARED_MEMORY_TRANSPORT_PROPERTY = "org.gradle.internal.worker.shared-memory";
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultWorkerProcessBuilder.class);
     private final MessagingServer server;
+    private MessagingServer sharedMemoryServer;
     private final IdGenerator<Long> idGenerator;
     private final ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory;
     private final OutputEventListener outputEventListener;
@@ -174,6 +185,10 @@ public WorkerProcessBuilder setLogLevel(LogLevel logLevel) {
         return this;
     }
 
+    public void setSharedMemoryServer(@Nullable MessagingServer sharedMemoryServer) {
+        this.sharedMemoryServer = sharedMemoryServer;
+    }
+
     public File getGradleUserHomeDir() {
         return gradleUserHomeDir;
     }
@@ -201,7 +216,7 @@ public void enableJvmMemoryInfoPublishing(boolean shouldPublish) {
     public WorkerProcess build() {
         final WorkerJvmMemoryStatus memoryStatus = shouldPublishJvmMemoryInfo ? new WorkerJvmMemoryStatus() : null;
         final DefaultWorkerProcess workerProcess = new DefaultWorkerProcess(connectTimeoutSeconds, TimeUnit.SECONDS, memoryStatus);
-        ConnectionAcceptor acceptor = server.accept(new Action<ObjectConnection>() {
+        ConnectionAcceptor acceptor = accept(new Action<ObjectConnection>() {
             @Override
             public void execute(final ObjectConnection connection) {
                 workerProcess.onConnect(connection, new Runnable() {
@@ -247,6 +262,75 @@ public void run() {
         return new MemoryRequestingWorkerProcess(workerProcess, memoryManager, MemoryAmount.parseNotation(javaCommand.getMinHeapSize()));
     }
 
+    /**
+     * Accepts the connection from the worker process through shared memory, when enabled, and through a socket, which the worker process
+     * uses when it cannot open the shared memory.
+     */
+    private ConnectionAcceptor accept(Action<ObjectConnection> action) {
+        if (sharedMemoryServer != null && Boolean.getBoolean(SHARED_MEMORY_TRANSPORT_PROPERTY)) {
+            FirstConnectionAction firstConnectionAction = new FirstConnectionAction(action);
+            ConnectionAcceptor sharedMemoryAcceptor;
+            try {
+                sharedMemoryAcceptor = sharedMemoryServer.accept(firstConnectionAction);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not accept a connection from the worker process through shared memory, using a socket instead.", e);
+                return server.accept(action);
+            }
+            try {
+                return new SharedMemoryOrSocketAcceptor(sharedMemoryAcceptor, server.accept(firstConnectionAction));
+            } catch (RuntimeException e) {
+                sharedMemoryAcceptor.stop();
+                throw e;
+            }
+        }
+        return server.accept(action);
+    }
+
+    private static class FirstConnectionAction implements Action<ObjectConnection> {
+        private final Action<ObjectConnection> action;
+        private final AtomicBoolean connected = new AtomicBoolean();
+
+        FirstConnectionAction(Action<ObjectConnection> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void execute(ObjectConnection connection) {
+            if (connected.compareAndSet(false, true)) {
+                action.execute(connection);
+            } else {
+                LOGGER.debug("Discarding additional connection {} from the worker process.", connection);
+                connection.stop();
+            }
+        }
+    }
+
+    private static class SharedMemoryOrSocketAcceptor implements ConnectionAcceptor {
+        private final ConnectionAcceptor sharedMemoryAcceptor;
+        private final ConnectionAcceptor socketAcceptor;
+
+        SharedMemoryOrSocketAcceptor(ConnectionAcceptor sharedMemoryAcceptor, ConnectionAcceptor socketAcceptor) {
+            this.sharedMemoryAcceptor = sharedMemoryAcceptor;
+            this.socketAcceptor = socketAcceptor;
+        }
+
+        @Override
+        public Address getAddress() {
+            return new SharedMemoryOrSocketAddress((SharedMemoryAddress) sharedMemoryAcceptor.getAddress(), (MultiChoiceAddress) socketAcceptor.getAddress());
+        }
+
+        @Override
+        public void requestStop() {
+            sharedMemoryAcceptor.requestStop();
+            socketAcceptor.requestStop();
+        }
+
+        @Override
+        public void stop() {
+            CompositeStoppable.stoppable(sharedMemoryAcceptor, socketAcceptor).stop();
+        }
+    }
+
     private static class MemoryRequestingWorkerProcess implements WorkerProcess {
         private final WorkerProcess delegate;
         private final MemoryManager memoryResourceManager;
@@ -21,20 +21,25 @@
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.api.logging.LoggingManager;
 import org.gradle.internal.classloader.ClasspathUtil;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.remote.MessagingServer;
+import org.gradle.internal.remote.internal.hub.MessageHubBackedServer;
+import org.gradle.internal.remote.internal.shm.SharedMemoryIncomingConnector;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.child.ApplicationClassesInSystemClassLoaderWorkerImplementationFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
 
     private final LoggingManager loggingManager;
     private final MessagingServer server;
+    private final MessagingServer sharedMemoryServer;
     private final IdGenerator<Long> idGenerator;
     private final File gradleUserHomeDir;
     private final JavaExecHandleFactory execHandleFactory;
@@ -46,6 +51,16 @@ public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
     public DefaultWorkerProcessFactory(LoggingManager loggingManager, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<Long> idGenerator,
                                        File gradleUserHomeDir, TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory,
                                        JvmVersionDetector jvmVersionDetector, OutputEventListener outputEventListener, MemoryManager memoryManager) {
+        this(loggingManager, server, classPathRegistry, idGenerator, gradleUserHomeDir, temporaryFileProvider, execHandleFactory, jvmVersionDetector, outputEventListener, memoryManager, null);
+    }
+
+    /**
+     * Creates a factory whose worker processes can connect through shared memory, using the given executor factory, if not null.
+     */
+    public DefaultWorkerProcessFactory(LoggingManager loggingManager, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<Long> idGenerator,
+                                       File gradleUserHomeDir, TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory,
+                                       JvmVersionDetector jvmVersionDetector, OutputEventListener outputEventListener, MemoryManager memoryManager,
+                                       @Nullable ExecutorFactory executorFactory) {
         this.loggingManager = loggingManager;
         this.server = server;
         this.idGenerator = idGenerator;
@@ -54,6 +69,9 @@ public DefaultWorkerProcessFactory(LoggingManager loggingManager, MessagingServe
         this.outputEventListener = outputEventListener;
         this.workerImplementationFactory = new ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(classPathRegistry, temporaryFileProvider, jvmVersionDetector, gradleUserHomeDir);
         this.memoryManager = memoryManager;
+        this.sharedMemoryServer = executorFactory == null
+            ? null
+            : new MessageHubBackedServer(new SharedMemoryIncomingConnector(executorFactory, SharedMemoryIncomingConnector.getConnectionsDirectory(temporaryFileProvider.newTemporaryFile("worker-connections"))), executorFactory);
     }
 
     public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
@@ -83,6 +101,7 @@ private DefaultWorkerProcessBuilder newWorkerProcessBuilder() {
         builder.setLogLevel(loggingManager.getLevel());
         builder.setGradleUserHomeDir(gradleUserHomeDir);
         builder.setConnectTimeoutSeconds(connectTimeoutSeconds);
+        builder.setSharedMemoryServer(sharedMemoryServer);
         return builder;
     }
 }
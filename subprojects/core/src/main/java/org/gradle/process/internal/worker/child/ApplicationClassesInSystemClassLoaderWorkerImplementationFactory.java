@@ -29,11 +29,13 @@
 import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddressSerializer;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
 import org.gradle.internal.stream.EncodedStream;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.worker.GradleWorkerMain;
 import org.gradle.process.internal.worker.WorkerProcessBuilder;
+import org.gradle.util.GradleVersion;
 import org.gradle.util.internal.GUtil;
 
 import java.io.DataOutputStream;
@@ -74,6 +76,7 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
     private final TemporaryFileProvider temporaryFileProvider;
     private final JvmVersionDetector jvmVersionDetector;
     private final File gradleUserHomeDir;
+    private final WorkerClassDataSharing classDataSharing;
 
     public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider,
                                                                             JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir) {
@@ -81,6 +84,7 @@ public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPat
         this.temporaryFileProvider = temporaryFileProvider;
         this.jvmVersionDetector = jvmVersionDetector;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharing = new WorkerClassDataSharing(new File(gradleUserHomeDir, "caches/" + GradleVersion.current().getVersion() + "/worker-cds"));
     }
 
     @Override
@@ -99,12 +103,18 @@ public void prepareJavaCommand(long workerId, String displayName, WorkerProcessB
         }
         execSpec.getMainClass().set("worker." + GradleWorkerMain.class.getName());
 
-        boolean useOptionsFile = shouldUseOptionsFile(execSpec);
+        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
+        boolean useOptionsFile = shouldUseOptionsFile(executableVersion);
         if (useOptionsFile) {
             // Use an options file to pass across application classpath
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
             List<String> jvmArgs = writeOptionsFile(runAsModule, workerMainClassPath, implementationModulePath, applicationClasspath, applicationModulePath, optionsFile);
             execSpec.jvmArgs(jvmArgs);
+            if (!runAsModule && applicationModulePath.isEmpty() && Boolean.getBoolean(WorkerClassDataSharing.CLASS_DATA_SHARING_PROPERTY)) {
+                List<File> systemClasspath = new ArrayList<>(workerMainClassPath);
+                systemClasspath.addAll(applicationClasspath);
+                classDataSharing.configure(execSpec, executableVersion, systemClasspath);
+            }
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
             execSpec.classpath(workerMainClassPath);
@@ -155,7 +165,15 @@ public void prepareJavaCommand(long workerId, String displayName, WorkerProcessB
             encoder.writeSmallInt(logLevel.ordinal());
             encoder.writeBoolean(publishProcessInfo);
             encoder.writeString(gradleUserHomeDir.getAbsolutePath());
-            new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
+            if (serverAddress instanceof SharedMemoryOrSocketAddress) {
+                SharedMemoryOrSocketAddress addresses = (SharedMemoryOrSocketAddress) serverAddress;
+                encoder.writeBoolean(true);
+                new SharedMemoryAddressSerializer().write(encoder, addresses.getSharedMemoryAddress());
+                new MultiChoiceAddressSerializer().write(encoder, addresses.getSocketAddress());
+            } else {
+                encoder.writeBoolean(false);
+                new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
+            }
             encoder.writeSmallLong(workerId);
             encoder.writeString(displayName);
 
@@ -170,8 +188,7 @@ public void prepareJavaCommand(long workerId, String displayName, WorkerProcessB
         execSpec.setStandardInput(buffer.getInputStream());
     }
 
-    private boolean shouldUseOptionsFile(JavaExecHandleBuilder execSpec) {
-        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
+    private boolean shouldUseOptionsFile(JavaVersion executableVersion) {
         return executableVersion != null && executableVersion.isJava9Compatible();
     }
 
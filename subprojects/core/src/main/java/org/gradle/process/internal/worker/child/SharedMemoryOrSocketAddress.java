@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddress;
+
+/**
+ * The addresses a worker process can connect to: a shared memory address, and a socket address to use when the worker process cannot open the
+ * shared memory.
+ */
+public class SharedMemoryOrSocketAddress implements Address {
+    private final SharedMemoryAddress sharedMemoryAddress;
+    private final MultiChoiceAddress socketAddress;
+
+    public SharedMemoryOrSocketAddress(SharedMemoryAddress sharedMemoryAddress, MultiChoiceAddress socketAddress) {
+        this.sharedMemoryAddress = sharedMemoryAddress;
+        this.socketAddress = socketAddress;
+    }
+
+    public SharedMemoryAddress getSharedMemoryAddress() {
+        return sharedMemoryAddress;
+    }
+
+    public MultiChoiceAddress getSocketAddress() {
+        return socketAddress;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return sharedMemoryAddress.getDisplayName() + " or " + socketAddress.getDisplayName();
+    }
+
+    @Override
+    public String toString() {
+        return getDisplayName();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.cache.CleanableStore;
+import org.gradle.cache.CleanupAction;
+import org.gradle.cache.CleanupProgressMonitor;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
+import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.resource.local.ModificationTimeFileAccessTimeJournal;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES;
+
+/**
+ * Manages the class data sharing (AppCDS) archives used to reduce the start up time of worker processes.
+ *
+ * <p>The first worker process started with a given Java installation and system classpath dumps the classes it loaded into a
+ * dynamic archive when it exits. Later worker processes with the same Java installation and system classpath map this archive
+ * instead of loading and verifying those classes again.</p>
+ *
+ * <p>Archives are stored in the Gradle user home and are keyed by the full runtime version of the Java installation, the Java executable
+ * and the content of the system classpath. An archive can only be used by the exact JVM build that created it, so the runtime version
+ * is taken from the {@code release} file of the Java installation, which changes with every update, rather than from the major version.
+ * The JVM validates an archive before using it, and ignores one that does not match, so a stale archive only costs the start up time it
+ * would otherwise have saved.</p>
+ *
+ * <p>As a new archive is created whenever the system classpath changes, archives that have not been used for a while are deleted. The last
+ * use of an archive is recorded in its modification time.</p>
+ */
+public class WorkerClassDataSharing {
+    public static final String CLASS_DATA_SHARING_PROPERTY = "org.gradle.internal.worker.class-data-sharing";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerClassDataSharing.class);
+    // An archive that does not match is expected, for example after the JVM has been updated, so do not report it in the worker output
+    private static final String DISABLE_CDS_LOGGING = "-Xlog:cds*=off,class+path=off";
+
+    private final File archivesDir;
+    private final Set<String> archivesBeingCreated = ConcurrentHashMap.newKeySet();
+    private final FileAccessTimeJournal fileAccessTimeJournal = new ModificationTimeFileAccessTimeJournal();
+    private final CleanupAction cleanupAction = new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(1), fileAccessTimeJournal, DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES);
+    private final AtomicBoolean cleanedUp = new AtomicBoolean();
+
+    public WorkerClassDataSharing(File archivesDir) {
+        this.archivesDir = archivesDir;
+    }
+
+    /**
+     * Adds the JVM arguments to create or use the archive for the given system classpath, when possible.
+     */
+    public void configure(JavaExecHandleBuilder execSpec, JavaVersion javaVersion, List<File> systemClasspath) {
+        // Dynamic archives are available from Java 13 and can only be created for a classpath made of jars
+        if (!javaVersion.isCompatibleWith(JavaVersion.VERSION_13) || !isArchivable(systemClasspath) || hasClassDataSharingArgs(execSpec.getAllJvmArgs())) {
+            return;
+        }
+        if (cleanedUp.compareAndSet(false, true)) {
+            deleteUnusedArchives();
+        }
+        String key = archiveKey(execSpec.getExecutable(), javaVersion, systemClasspath);
+        File archive = new File(archivesDir, key + ".jsa");
+        if (archive.isFile()) {
+            fileAccessTimeJournal.setLastAccessTime(archive, System.currentTimeMillis());
+            execSpec.jvmArgs("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), DISABLE_CDS_LOGGING);
+        } else if (archivesBeingCreated.add(key)) {
+            // Only one worker process creates each archive. It writes to a temporary file, which is moved into place once the process has exited
+            if (!archivesDir.isDirectory() && !archivesDir.mkdirs()) {
+                archivesBeingCreated.remove(key);
+                return;
+            }
+            File temporaryArchive = new File(archivesDir, key + "-" + UUID.randomUUID() + ".jsa.tmp");
+            execSpec.jvmArgs("-XX:ArchiveClassesAtExit=" + temporaryArchive.getAbsolutePath(), DISABLE_CDS_LOGGING);
+            execSpec.listener(new ArchiveCreationListener(key, temporaryArchive, archive));
+        }
+    }
+
+    /**
+     * Deletes the archives, and temporary archives left behind by processes that did not exit, that have not been used for a while.
+     */
+    private void deleteUnusedArchives() {
+        if (!archivesDir.isDirectory()) {
+            return;
+        }
+        try {
+            cleanupAction.clean(new CleanableStore() {
+                @Override
+                public File getBaseDir() {
+                    return archivesDir;
+                }
+
+                @Override
+                public Collection<File> getReservedCacheFiles() {
+                    return Collections.emptyList();
+                }
+
+                @Override
+                public String getDisplayName() {
+                    return "worker class data sharing archives";
+                }
+            }, CleanupProgressMonitor.NO_OP);
+        } catch (Exception e) {
+            LOGGER.debug("Could not delete unused class data sharing archives in {}.", archivesDir, e);
+        }
+    }
+
+    private static boolean isArchivable(List<File> systemClasspath) {
+        for (File file : systemClasspath) {
+            if (!file.isFile() || !file.getName().endsWith(".jar")) {
+                return false;
+            }
+        }
+        return !systemClasspath.isEmpty();
+    }
+
+    private static boolean hasClassDataSharingArgs(List<String> jvmArgs) {
+        for (String jvmArg : jvmArgs) {
+            if (jvmArg.startsWith("-Xshare") || jvmArg.startsWith("-XX:SharedArchiveFile") || jvmArg.startsWith("-XX:ArchiveClassesAtExit") || jvmArg.contains("AutoCreateSharedArchive")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String archiveKey(String executable, JavaVersion javaVersion, List<File> systemClasspath) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(javaVersion.getMajorVersion());
+        File executableFile = new File(executable).getAbsoluteFile();
+        hasher.putString(executableFile.getPath());
+        putRuntimeVersion(hasher, executableFile);
+        for (File file : systemClasspath) {
+            hasher.putString(file.getAbsolutePath());
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Adds the full runtime version of the Java installation of the given executable, including the update and build number.
+     */
+    private static void putRuntimeVersion(Hasher hasher, File executable) {
+        File javaHome = executable.getParentFile() == null ? null : executable.getParentFile().getParentFile();
+        if (javaHome == null) {
+            return;
+        }
+        // Lists JAVA_RUNTIME_VERSION, IMPLEMENTOR and the like
+        File release = new File(javaHome, "release");
+        if (release.isFile()) {
+            try {
+                hasher.putBytes(Files.readAllBytes(release.toPath()));
+            } catch (IOException e) {
+                LOGGER.debug("Could not read {}.", release, e);
+            }
+        }
+        if (javaHome.equals(new File(System.getProperty("java.home")).getAbsoluteFile())) {
+            hasher.putString(System.getProperty("java.runtime.version"));
+        }
+        // Also catches updates installed in place of a Java installation without a release file
+        hasher.putLong(executable.length());
+        hasher.putLong(executable.lastModified());
+    }
+
+    private class ArchiveCreationListener implements ExecHandleListener {
+        private final String key;
+        private final File temporaryArchive;
+        private final File archive;
+
+        ArchiveCreationListener(String key, File temporaryArchive, File archive) {
+            this.key = key;
+            this.temporaryArchive = temporaryArchive;
+            this.archive = archive;
+        }
+
+        @Override
+        public void executionStarted(ExecHandle execHandle) {
+        }
+
+        @Override
+        public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+            try {
+                // The archive is only complete when the JVM has exited normally
+                if (execResult.getExitValue() == 0 && temporaryArchive.length() > 0) {
+                    Files.move(temporaryArchive.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    LOGGER.debug("Created class data sharing archive {}.", archive);
+                }
+            } catch (IOException e) {
+                // Another process may have created the archive at the same time
+                LOGGER.debug("Could not create class data sharing archive {}.", archive, e);
+            } finally {
+                temporaryArchive.delete();
+                archivesBeingCreated.remove(key);
+            }
+        }
+    }
+}
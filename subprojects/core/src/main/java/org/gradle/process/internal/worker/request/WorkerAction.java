@@ -21,6 +21,7 @@
 import org.gradle.cache.internal.DefaultCrossBuildInMemoryCacheFactory;
 import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.event.DefaultListenerManager;
@@ -94,6 +95,9 @@ public void execute(WorkerProcessContext workerProcessContext) {
         } catch (InterruptedException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
+
+        // Give the implementation the chance to release the resources it has kept across requests
+        CompositeStoppable.stoppable(implementation).stop();
     }
 
     @Override
@@ -24,7 +24,7 @@ class CacheRetainingDataFromPreviousBuildTest extends AbstractCrossBuildInMemory
 
     @Override
     CrossBuildInMemoryCache<String, Object> newCache() {
-        return factory.newCacheRetainingDataFromPreviousBuild { value -> true }
+        return factory.newCacheRetainingDataFromPreviousBuild("test") { value -> true }
     }
 
     def "retains values from the previous session"() {
@@ -73,7 +73,7 @@ class CacheRetainingDataFromPreviousBuildTest extends AbstractCrossBuildInMemory
         def notToBeKept = new Object()
 
         when:
-        def cache = factory.newCacheRetainingDataFromPreviousBuild { value -> value != notToBeKept }
+        def cache = factory.newCacheRetainingDataFromPreviousBuild("test") { value -> value != notToBeKept }
         cache.get("a", function)
         cache.get("b", function)
         cache.get("c", function)
@@ -16,7 +16,11 @@
 
 package org.gradle.cache.internal
 
+import org.gradle.internal.event.DefaultListenerManager
+import org.gradle.internal.service.scopes.Scope
+import org.gradle.internal.service.scopes.Scopes
 import org.gradle.internal.session.BuildSessionLifecycleListener
+import org.gradle.process.internal.health.memory.JvmMemoryPressureListener
 
 import java.util.function.Function
 
@@ -24,14 +28,14 @@ class DefaultCrossBuildInMemoryCacheFactoryTest extends AbstractCrossBuildInMemo
 
     @Override
     CrossBuildInMemoryCache<String, Object> newCache() {
-        return factory.newCache()
+        return factory.newCache("test")
     }
 
     def "retains strong references to values from the previous session"() {
         def function = Mock(Function)
 
         when:
-        def cache = factory.newCache()
+        def cache = factory.newCache("test")
         cache.get("a", function)
         cache.get("b", function)
 
@@ -50,6 +54,109 @@ class DefaultCrossBuildInMemoryCacheFactoryTest extends AbstractCrossBuildInMemo
         0 * function._
     }
 
+    def "reports size of each cache and trims entries not used in the current session"() {
+        def function = Mock(Function)
+        function.apply(_) >> { new Object() }
+
+        when:
+        def cache = factory.newCache("test")
+        cache.get("a", function)
+        cache.get("b", function)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        cache.get("a", function)
+
+        then:
+        factory.cacheSizes*.displayName == ["test"]
+        factory.cacheSizes*.entries == [2]
+
+        when:
+        def trimmed = factory.trim()
+
+        then:
+        trimmed == 1
+        factory.cacheSizes*.entries == [1]
+        factory.cacheSizes*.evictedEntries == [1]
+        cache.getIfPresent("a") != null
+        cache.getIfPresent("b") == null
+    }
+
+    def "reports size of a cache while a value is being computed"() {
+        def cache = factory.newCache("test")
+        cache.put("a", new Object())
+
+        when:
+        async {
+            start {
+                cache.get("b") {
+                    instant.computing
+                    thread.blockUntil.reported
+                    new Object()
+                }
+            }
+            thread.blockUntil.computing
+            assert factory.cacheSizes*.entries == [1]
+            instant.reported
+        }
+
+        then:
+        factory.cacheSizes*.entries == [2]
+    }
+
+    def "discards least recently used values not used in the current session on memory pressure"() {
+        def globalListenerManager = new DefaultListenerManager(Scope.Global)
+        def sessionListenerManager = globalListenerManager.createChild(Scopes.BuildSession)
+        def cacheFactory = new DefaultCrossBuildInMemoryCacheFactory(globalListenerManager)
+        def function = Mock(Function)
+        function.apply(_) >> { new Object() }
+
+        when:
+        def cache = cacheFactory.newCache("test")
+        cache.get("a", function)
+        cache.get("b", function)
+        cache.get("c", function)
+        cache.get("d", function)
+        cache.get("e", function)
+        sessionListenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        cache.get("c", function)
+        cache.get("a", function)
+        globalListenerManager.getBroadcaster(JvmMemoryPressureListener).onJvmMemoryPressure()
+
+        then:
+        cacheFactory.cacheSizes*.entries == [3]
+        cacheFactory.cacheSizes*.evictedEntries == [2]
+        cache.getIfPresent("b") == null
+        cache.getIfPresent("d") == null
+        cache.getIfPresent("e") != null
+        cache.getIfPresent("a") != null
+        cache.getIfPresent("c") != null
+    }
+
+    def "discards all values not used in the current session from a cache whose keys are classes on memory pressure"() {
+        def globalListenerManager = new DefaultListenerManager(Scope.Global)
+        def sessionListenerManager = globalListenerManager.createChild(Scopes.BuildSession)
+        def cacheFactory = new DefaultCrossBuildInMemoryCacheFactory(globalListenerManager)
+        def function = Mock(Function)
+        function.apply(_) >> { new Object() }
+
+        when:
+        def cache = cacheFactory.newClassCache("test")
+        cache.get(String, function)
+        cache.get(Long, function)
+        cache.get(Integer, function)
+        cache.get(Short, function)
+        sessionListenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        cache.get(Long, function)
+        globalListenerManager.getBroadcaster(JvmMemoryPressureListener).onJvmMemoryPressure()
+
+        then:
+        cacheFactory.cacheSizes*.entries == [1]
+        cacheFactory.cacheSizes*.evictedEntries == [3]
+        cache.getIfPresent(Long) != null
+        cache.getIfPresent(String) == null
+        cache.getIfPresent(Integer) == null
+        cache.getIfPresent(Short) == null
+    }
+
     def "creates a cache whose keys are classes"() {
         def a = new Object()
         def b = new Object()
@@ -60,7 +167,7 @@ class DefaultCrossBuildInMemoryCacheFactoryTest extends AbstractCrossBuildInMemo
         function.apply(String) >> a
         function.apply(Long) >> b
 
-        def cache = factory.newClassCache()
+        def cache = factory.newClassCache("test")
 
         expect:
         cache.get(String, function) == a
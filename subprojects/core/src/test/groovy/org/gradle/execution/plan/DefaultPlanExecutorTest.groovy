@@ -25,6 +25,7 @@ import org.gradle.initialization.BuildCancellationToken
 import org.gradle.internal.concurrent.DefaultParallelismConfiguration
 import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter
 import org.gradle.internal.resources.ResourceLockCoordinationService
 import org.gradle.internal.resources.ResourceLockState
 import org.gradle.internal.work.WorkerLeaseService
@@ -40,7 +41,7 @@ class DefaultPlanExecutorTest extends Specification {
             transformer[0].transform(Stub(ResourceLockState))
         }
     }
-    def executor = new DefaultPlanExecutor(new DefaultParallelismConfiguration(false, 1), executorFactory, Stub(WorkerLeaseService), cancellationHandler, coordinationService)
+    def executor = new DefaultPlanExecutor(new DefaultParallelismConfiguration(false, 1), executorFactory, Stub(WorkerLeaseService), cancellationHandler, coordinationService, Stub(BuildOperationProgressEventEmitter), false, false)
 
     def "executes tasks until no further tasks remain"() {
         def gradle = Mock(Gradle)
@@ -59,7 +60,7 @@ class DefaultPlanExecutorTest extends Specification {
         1 * executorFactory.create(_) >> Mock(ManagedExecutor)
         1 * cancellationHandler.isCancellationRequested() >> false
         1 * executionPlan.hasNodesRemaining() >> true
-        1 * executionPlan.selectNext(_, _) >> node
+        1 * executionPlan.selectNext(_, _, _) >> node
         1 * worker.execute(node)
 
         then:
@@ -87,7 +88,7 @@ class DefaultPlanExecutorTest extends Specification {
         1 * executorFactory.create(_) >> Mock(ManagedExecutor)
         1 * cancellationHandler.isCancellationRequested() >> false
         1 * executionPlan.hasNodesRemaining() >> true
-        1 * executionPlan.selectNext(_, _) >> node
+        1 * executionPlan.selectNext(_, _, _) >> node
         1 * worker.execute(node)
         1 * executionPlan.finishedExecuting(node)
 
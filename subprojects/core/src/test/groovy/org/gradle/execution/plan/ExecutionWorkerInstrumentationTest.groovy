@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.time.MockClock
+import spock.lang.Specification
+
+import static org.gradle.execution.plan.NodeSelectionListener.BlockedReason.NO_READY_NODES
+import static org.gradle.execution.plan.NodeSelectionListener.BlockedReason.PROJECT_LOCK
+import static org.gradle.execution.plan.NodeSelectionListener.BlockedReason.WORKER_LEASE
+
+class ExecutionWorkerInstrumentationTest extends Specification {
+    def emitter = Mock(BuildOperationProgressEventEmitter)
+    def operationId = new OperationIdentifier(12)
+    def clock = new MockClock(0)
+    def node = Stub(Node) {
+        toString() >> "node"
+    }
+
+    def "emits idle periods and summary with blocked reasons"() {
+        def instrumentation = new ExecutionWorkerInstrumentation("worker", clock, emitter, operationId)
+
+        when:
+        instrumentation.selectionAttempted()
+        instrumentation.selectionBlocked(null, NO_READY_NODES)
+        instrumentation.selectionAttempted()
+        instrumentation.readyNodesCounted(3)
+        instrumentation.selectionBlocked(Stub(Node), PROJECT_LOCK)
+        instrumentation.selectionBlocked(Stub(Node), PROJECT_LOCK)
+        instrumentation.nodeSelected(node)
+
+        then:
+        1 * emitter.emit(operationId, _, _) >> { OperationIdentifier id, long time, ExecutionWorkerInstrumentation.IdlePeriod details ->
+            assert details.worker == "worker"
+            assert details.selectedNode == "node"
+            assert details.selectionAttempts == 2
+            assert details.maxReadyNodes == 3
+            assert details.blockedReasons == [(NO_READY_NODES): 1, (PROJECT_LOCK): 2]
+        }
+
+        when:
+        instrumentation.nodeFinished(100)
+        clock.increment(20)
+        instrumentation.selectionAttempted()
+        instrumentation.readyNodesCounted(1)
+        instrumentation.selectionBlocked(Stub(Node), WORKER_LEASE)
+        clock.increment(30)
+        instrumentation.workerFinished()
+
+        then:
+        1 * emitter.emit(operationId, _, _) >> { OperationIdentifier id, long time, ExecutionWorkerInstrumentation.IdlePeriod details ->
+            assert details.selectedNode == null
+            assert details.durationMillis == 60
+            assert details.selectionAttempts == 1
+            assert details.maxReadyNodes == 1
+            assert details.blockedReasons == [(WORKER_LEASE): 1]
+        }
+
+        then:
+        1 * emitter.emit(operationId, _, _) >> { OperationIdentifier id, long time, ExecutionWorkerInstrumentation.WorkerSummary details ->
+            assert details.busyMillis == 100
+            assert details.nodesExecuted == 1
+            assert details.blockedReasons == [(NO_READY_NODES): 1, (PROJECT_LOCK): 2, (WORKER_LEASE): 1]
+        }
+    }
+
+    def "does not emit events without an operation"() {
+        def instrumentation = new ExecutionWorkerInstrumentation("worker", clock, emitter, null)
+
+        expect:
+        !instrumentation.countsReadyNodes()
+
+        when:
+        instrumentation.selectionAttempted()
+        instrumentation.selectionBlocked(null, NO_READY_NODES)
+        instrumentation.nodeSelected(node)
+        instrumentation.nodeFinished(100)
+        instrumentation.workerFinished()
+
+        then:
+        0 * emitter._
+        instrumentation.busyMillis == 100
+        instrumentation.blockedTotal == [(NO_READY_NODES): 1]
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.internal.snapshot.CaseSensitivity
+import spock.lang.Specification
+
+class NodePathIndexTest extends Specification {
+    def index = new NodePathIndex(CaseSensitivity.CASE_SENSITIVE)
+
+    def "finds nodes mutating ancestors, the location itself and descendants"() {
+        def ancestor = Mock(Node)
+        def exact = Mock(Node)
+        def descendant = Mock(Node)
+        def unrelated = Mock(Node)
+        index.add(ancestor, ["/some"])
+        index.add(exact, ["/some/location"])
+        index.add(descendant, ["/some/location/child/within"])
+        index.add(unrelated, ["/some/other", "/different"])
+
+        expect:
+        index.getNodesRelatedTo("/some/location") == [ancestor, exact, descendant] as Set
+        index.getNodesRelatedTo("/some/location/child") == [ancestor, exact, descendant] as Set
+        index.getNodesRelatedTo("/different/child") == [unrelated] as Set
+        index.getNodesRelatedTo("/unrelated").empty
+        index.hasNodesRelatedTo("/some/location/child")
+        index.hasNodesRelatedTo("/")
+        !index.hasNodesRelatedTo("/unrelated")
+    }
+
+    def "does not find removed nodes"() {
+        def node1 = Mock(Node)
+        def node2 = Mock(Node)
+        index.add(node1, ["/some/location", "/other/location"])
+        index.add(node2, ["/some/location"])
+
+        when:
+        index.remove(node1, ["/some/location", "/other/location"])
+
+        then:
+        index.getNodesRelatedTo("/some") == [node2] as Set
+        !index.hasNodesRelatedTo("/other")
+
+        when:
+        index.remove(node2, ["/some/location"])
+
+        then:
+        index.empty
+        !index.hasNodesRelatedTo("/some/location")
+    }
+
+    def "keeps a node which mutates the same location twice until both are removed"() {
+        def node = Mock(Node)
+        index.add(node, ["/some/location"])
+        index.add(node, ["/some/location"])
+
+        when:
+        index.remove(node, ["/some/location"])
+
+        then:
+        index.hasNodesRelatedTo("/some/location")
+
+        when:
+        index.remove(node, ["/some/location"])
+
+        then:
+        !index.hasNodesRelatedTo("/some/location")
+    }
+
+    def "respects case sensitivity"() {
+        def node = Mock(Node)
+        def caseInsensitiveIndex = new NodePathIndex(CaseSensitivity.CASE_INSENSITIVE)
+        index.add(node, ["/Some/Location"])
+        caseInsensitiveIndex.add(node, ["/Some/Location"])
+
+        expect:
+        !index.hasNodesRelatedTo("/some/location")
+        caseInsensitiveIndex.hasNodesRelatedTo("/some/location")
+    }
+}
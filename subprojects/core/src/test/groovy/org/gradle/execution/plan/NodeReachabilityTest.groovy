@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import spock.lang.Specification
+
+class NodeReachabilityTest extends Specification {
+    def reachability = new NodeReachability()
+
+    def "node is reachable from itself"() {
+        def node = node()
+
+        expect:
+        reachability.isReachable(node, node)
+    }
+
+    def "finds transitive successors"() {
+        def target = node()
+        def middle = node(target)
+        def other = node()
+        def from = node(other, middle)
+
+        expect:
+        reachability.isReachable(from, target)
+        reachability.isReachable(middle, target)
+        !reachability.isReachable(other, target)
+        !reachability.isReachable(target, from)
+    }
+
+    def "does not walk through completed successors"() {
+        def target = node()
+        def completed = node([target], true)
+        def from = node(completed)
+
+        expect:
+        !reachability.isReachable(from, target)
+    }
+
+    def "memoizes results per target"() {
+        def target = node()
+        def middle = Mock(Node)
+        def from = node(middle)
+
+        when:
+        def first = reachability.isReachable(from, target)
+        def second = reachability.isReachable(from, target)
+        def third = reachability.isReachable(middle, target)
+
+        then:
+        first && second && third
+        2 * middle.getAllSuccessors() >> [target]
+        _ * middle.isComplete() >> false
+    }
+
+    def "handles long dependency chains"() {
+        def target = node()
+        def from = target
+        10000.times {
+            from = node(from)
+        }
+
+        expect:
+        reachability.isReachable(from, target)
+    }
+
+    private Node node(Node... successors) {
+        return node(successors as List, false)
+    }
+
+    private Node node(List<Node> successors, boolean complete) {
+        def node = Stub(Node)
+        node.allSuccessors >> successors
+        node.complete >> complete
+        return node
+    }
+}
@@ -302,7 +302,7 @@ class DefaultAsyncWorkTrackerTest extends ConcurrentSpec {
         asyncWorkTracker.waitForCompletion(operation1, RELEASE_AND_REACQUIRE_PROJECT_LOCKS)
 
         then:
-        1 * projectLockService.withoutProjectLock(_)
+        1 * projectLockService.blocking(_)
     }
 
     def "can release a project lock before waiting on async work"() {
@@ -330,6 +330,9 @@ class DefaultAsyncWorkTrackerTest extends ConcurrentSpec {
 
         then:
         1 * projectLockService.releaseCurrentProjectLocks()
+
+        then:
+        1 * projectLockService.blocking(_)
     }
 
     def "does not release a project lock before waiting on async work when locks are retained"() {
@@ -356,7 +359,7 @@ class DefaultAsyncWorkTrackerTest extends ConcurrentSpec {
         asyncWorkTracker.waitForCompletion(operation1, RETAIN_PROJECT_LOCKS)
 
         then:
-        0 * projectLockService.withoutProjectLock(_)
+        0 * projectLockService.blocking(_)
     }
 
     def "does not temporarily release a project lock before waiting on async work when no work is registered"() {
@@ -368,7 +371,7 @@ class DefaultAsyncWorkTrackerTest extends ConcurrentSpec {
         asyncWorkTracker.waitForCompletion(operation1, RELEASE_AND_REACQUIRE_PROJECT_LOCKS)
 
         then:
-        0 * projectLockService.withoutProjectLock(_)
+        0 * projectLockService.blocking(_)
     }
 
     def "does not temporarily release a project lock when all async work is already completed"() {
@@ -383,7 +386,7 @@ class DefaultAsyncWorkTrackerTest extends ConcurrentSpec {
         asyncWorkTracker.waitForCompletion(operation1, RELEASE_AND_REACQUIRE_PROJECT_LOCKS)
 
         then:
-        0 * projectLockService.withoutProjectLock(_)
+        0 * projectLockService.blocking(_)
     }
 
     def "can release a project lock when all async work is already completed"() {
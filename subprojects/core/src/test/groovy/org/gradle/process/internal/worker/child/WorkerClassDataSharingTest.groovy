@@ -0,0 +1,226 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child
+
+import org.gradle.api.JavaVersion
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.ExecHandle
+import org.gradle.process.internal.ExecHandleListener
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.TimeUnit
+
+class WorkerClassDataSharingTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def archivesDir = tmpDir.file("cds")
+    def classDataSharing = new WorkerClassDataSharing(archivesDir)
+    def classpath = [tmpDir.file("gradle-worker.jar").createFile(), tmpDir.file("lib.jar").createFile()]
+    def javaHome = tmpDir.createDir("jdk")
+
+    def setup() {
+        javaHome.file("bin/java").createFile()
+        javaHome.file("release").text = 'JAVA_VERSION="17.0.1"\nJAVA_RUNTIME_VERSION="17.0.1+12"\n'
+    }
+
+    def "first worker process creates the archive and later worker processes use it"() {
+        def creator = execSpec()
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(creator, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * creator.jvmArgs(*_) >> { args ->
+            assert args[0][0].startsWith("-XX:ArchiveClassesAtExit=")
+        }
+        1 * creator.listener(_) >> { args -> listener = args[0] }
+
+        when:
+        def other = execSpec()
+        classDataSharing.configure(other, JavaVersion.VERSION_17, classpath)
+
+        then:
+        0 * other.jvmArgs(*_)
+
+        when:
+        def temporaryArchive = archivesDir.listFiles().find { it.name.endsWith(".jsa.tmp") }
+        temporaryArchive.text = "archive"
+        listener.executionFinished(Stub(ExecHandle), result(0))
+
+        then:
+        !temporaryArchive.exists()
+        archivesDir.listFiles().findAll { it.name.endsWith(".jsa") }.size() == 1
+
+        when:
+        def user = execSpec()
+        classDataSharing.configure(user, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * user.jvmArgs(*_) >> { args ->
+            assert args[0][0].startsWith("-XX:SharedArchiveFile=")
+        }
+        0 * user.listener(_)
+    }
+
+    def "does not keep an archive from a worker process that failed"() {
+        def creator = execSpec()
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(creator, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * creator.listener(_) >> { args -> listener = args[0] }
+
+        when:
+        def temporaryArchive = archivesDir.listFiles().find { it.name.endsWith(".jsa.tmp") }
+        temporaryArchive.text = "partial"
+        listener.executionFinished(Stub(ExecHandle), result(1))
+
+        then:
+        archivesDir.listFiles().length == 0
+
+        when:
+        def next = execSpec()
+        classDataSharing.configure(next, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * next.jvmArgs(*_) >> { args ->
+            assert args[0][0].startsWith("-XX:ArchiveClassesAtExit=")
+        }
+    }
+
+    def "does not use an archive when the classpath changes"() {
+        def creator = execSpec()
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(creator, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * creator.listener(_) >> { args -> listener = args[0] }
+
+        when:
+        archivesDir.listFiles().find { it.name.endsWith(".jsa.tmp") }.text = "archive"
+        listener.executionFinished(Stub(ExecHandle), result(0))
+        classpath[1].text = "changed"
+        def next = execSpec()
+        classDataSharing.configure(next, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * next.jvmArgs(*_) >> { args ->
+            assert args[0][0].startsWith("-XX:ArchiveClassesAtExit=")
+        }
+    }
+
+    def "does not use an archive when the Java installation is updated to another build of the same major version"() {
+        def creator = execSpec()
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(creator, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * creator.listener(_) >> { args -> listener = args[0] }
+
+        when:
+        archivesDir.listFiles().find { it.name.endsWith(".jsa.tmp") }.text = "archive"
+        listener.executionFinished(Stub(ExecHandle), result(0))
+        javaHome.file("release").text = 'JAVA_VERSION="17.0.2"\nJAVA_RUNTIME_VERSION="17.0.2+8"\n'
+        def next = execSpec()
+        classDataSharing.configure(next, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * next.jvmArgs(*_) >> { args ->
+            assert args[0][0].startsWith("-XX:ArchiveClassesAtExit=")
+        }
+    }
+
+    def "deletes archives that have not been used for a while"() {
+        def unused = archivesDir.file("unused.jsa").createFile()
+        unused.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8)
+        def leftBehind = archivesDir.file("unused-1.jsa.tmp").createFile()
+        leftBehind.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8)
+        def recent = archivesDir.file("recent.jsa").createFile()
+
+        when:
+        classDataSharing.configure(execSpec(), JavaVersion.VERSION_17, classpath)
+
+        then:
+        !unused.exists()
+        !leftBehind.exists()
+        recent.exists()
+    }
+
+    def "records the use of an archive"() {
+        def creator = execSpec()
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(creator, JavaVersion.VERSION_17, classpath)
+
+        then:
+        1 * creator.listener(_) >> { args -> listener = args[0] }
+
+        when:
+        archivesDir.listFiles().find { it.name.endsWith(".jsa.tmp") }.text = "archive"
+        listener.executionFinished(Stub(ExecHandle), result(0))
+        def archive = archivesDir.listFiles().find { it.name.endsWith(".jsa") }
+        archive.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3)
+        classDataSharing.configure(execSpec(), JavaVersion.VERSION_17, classpath)
+
+        then:
+        archive.lastModified() > System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)
+    }
+
+    @Unroll
+    def "does not use class data sharing when #description"() {
+        def execSpec = execSpec(jvmArgs)
+
+        when:
+        classDataSharing.configure(execSpec, javaVersion, files.collect { tmpDir.file(it).createFile() })
+
+        then:
+        0 * execSpec.jvmArgs(*_)
+        0 * execSpec.listener(_)
+
+        where:
+        description                          | javaVersion             | files                               | jvmArgs
+        "Java version does not support it"   | JavaVersion.VERSION_11  | ["lib.jar"]                         | []
+        "classpath contains class files"     | JavaVersion.VERSION_17  | ["lib.jar", "classes/Thing.class"]  | []
+        "class data sharing is configured"   | JavaVersion.VERSION_17  | ["lib.jar"]                         | ["-Xshare:off"]
+    }
+
+    private JavaExecHandleBuilder execSpec(List<String> jvmArgs = []) {
+        return Mock(JavaExecHandleBuilder) {
+            getAllJvmArgs() >> jvmArgs
+            getExecutable() >> javaHome.file("bin/java").absolutePath
+        }
+    }
+
+    private ExecResult result(int exitValue) {
+        return Stub(ExecResult) {
+            getExitValue() >> exitValue
+        }
+    }
+}
@@ -23,17 +23,17 @@ import java.util.function.Predicate
 
 class TestCrossBuildInMemoryCacheFactory implements CrossBuildInMemoryCacheFactory {
     @Override
-    <K, V> CrossBuildInMemoryCache<K, V> newCache() {
+    <K, V> CrossBuildInMemoryCache<K, V> newCache(String displayName) {
         return new TestCache<K, V>()
     }
 
     @Override
-    <K, V> CrossBuildInMemoryCache<K, V> newCacheRetainingDataFromPreviousBuild(Predicate<V> retentionFilter) {
+    <K, V> CrossBuildInMemoryCache<K, V> newCacheRetainingDataFromPreviousBuild(String displayName, Predicate<V> retentionFilter) {
         return new TestCache<K, V>()
     }
 
     @Override
-    <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache() {
+    <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache(String displayName) {
         return new TestCache<Class<?>, V>()
     }
 
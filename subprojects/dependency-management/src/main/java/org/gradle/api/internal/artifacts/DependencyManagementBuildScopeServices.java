@@ -227,6 +227,7 @@
 import org.gradle.internal.snapshot.ValueSnapshotter;
 import org.gradle.internal.typeconversion.NotationParser;
 import org.gradle.internal.vfs.VirtualFileSystem;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.util.internal.BuildCommencedTimeProvider;
 import org.gradle.util.internal.SimpleMapInterner;
 
@@ -527,7 +528,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(TemporaryFileProvide
                                                                 FileResourceRepository fileResourceRepository,
                                                                 ChecksumService checksumService,
                                                                 StartParameterResolutionOverride startParameterResolutionOverride,
-                                                                ListenerManager listenerManager) {
+                                                                ListenerManager listenerManager,
+                                                                WorkerLeaseService workerLeaseService) {
         return artifactCachesProvider.withWritableCache((md, manager) -> new RepositoryTransportFactory(
             resourceConnectorFactories,
             temporaryFileProvider,
@@ -539,7 +541,8 @@ RepositoryTransportFactory createRepositoryTransportFactory(TemporaryFileProvide
             producerGuard,
             fileResourceRepository,
             checksumService,
-            listenerManager.getBroadcaster(FileResourceListener.class)));
+            listenerManager.getBroadcaster(FileResourceListener.class),
+            workerLeaseService));
     }
 
     RepositoryDisabler createRepositoryDisabler() {
@@ -85,7 +85,7 @@ ImmutableModuleIdentifierFactory createModuleIdentifierFactory() {
     NotationParser<Object, ComponentSelector> createComponentSelectorFactory(ImmutableModuleIdentifierFactory moduleIdentifierFactory, CrossBuildInMemoryCacheFactory cacheFactory) {
         return NotationParserBuilder
             .toType(ComponentSelector.class)
-            .converter(new CrossBuildCachingNotationConverter<>(new ModuleSelectorStringNotationConverter(moduleIdentifierFactory), cacheFactory.newCache()))
+            .converter(new CrossBuildCachingNotationConverter<>(new ModuleSelectorStringNotationConverter(moduleIdentifierFactory), cacheFactory.newCache("Component selector notations")))
             .toComposite();
     }
 
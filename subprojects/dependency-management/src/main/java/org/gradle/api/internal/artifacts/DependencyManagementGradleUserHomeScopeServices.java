@@ -100,7 +100,7 @@ ImmutableTransformationWorkspaceServices createTransformerWorkspaceServices(
                 .withDisplayName("Artifact transforms cache"),
             fileAccessTimeJournal,
             executionHistoryStore,
-            crossBuildInMemoryCacheFactory.newCacheRetainingDataFromPreviousBuild(Try::isSuccessful)
+            crossBuildInMemoryCacheFactory.newCacheRetainingDataFromPreviousBuild("Immutable artifact transform results", Try::isSuccessful)
         );
     }
 }
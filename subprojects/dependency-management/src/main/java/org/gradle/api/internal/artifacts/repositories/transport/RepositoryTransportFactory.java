@@ -41,6 +41,7 @@
 import org.gradle.internal.service.scopes.Scopes;
 import org.gradle.internal.service.scopes.ServiceScope;
 import org.gradle.internal.verifier.HttpRedirectVerifier;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.util.internal.BuildCommencedTimeProvider;
 
 import java.util.Collection;
@@ -62,6 +63,7 @@ public class RepositoryTransportFactory {
     private final FileResourceRepository fileRepository;
     private final ChecksumService checksumService;
     private final FileResourceListener listener;
+    private final WorkerLeaseService workerLeaseService;
 
     public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceConnectorFactory,
                                       TemporaryFileProvider temporaryFileProvider,
@@ -73,7 +75,8 @@ public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceC
                                       ProducerGuard<ExternalResourceName> producerGuard,
                                       FileResourceRepository fileRepository,
                                       ChecksumService checksumService,
-                                      FileResourceListener listener) {
+                                      FileResourceListener listener,
+                                      WorkerLeaseService workerLeaseService) {
         this.temporaryFileProvider = temporaryFileProvider;
         this.cachedExternalResourceIndex = cachedExternalResourceIndex;
         this.timeProvider = timeProvider;
@@ -84,6 +87,7 @@ public RepositoryTransportFactory(Collection<ResourceConnectorFactory> resourceC
         this.fileRepository = fileRepository;
         this.checksumService = checksumService;
         this.listener = listener;
+        this.workerLeaseService = workerLeaseService;
 
         registeredProtocols.addAll(resourceConnectorFactory);
     }
@@ -127,7 +131,7 @@ public RepositoryTransport createTransport(Set<String> schemes, String name, Col
         ExternalResourceCachePolicy cachePolicy = new DefaultExternalResourceCachePolicy();
         cachePolicy = startParameterResolutionOverride.overrideExternalResourceCachePolicy(cachePolicy);
 
-        return new ResourceConnectorRepositoryTransport(name, temporaryFileProvider, cachedExternalResourceIndex, timeProvider, artifactCacheLockingManager, resourceConnector, buildOperationExecutor, cachePolicy, producerGuard, fileRepository, checksumService);
+        return new ResourceConnectorRepositoryTransport(name, temporaryFileProvider, cachedExternalResourceIndex, timeProvider, artifactCacheLockingManager, resourceConnector, buildOperationExecutor, cachePolicy, producerGuard, fileRepository, checksumService, workerLeaseService);
     }
 
     private void validateSchemes(Set<String> schemes) {
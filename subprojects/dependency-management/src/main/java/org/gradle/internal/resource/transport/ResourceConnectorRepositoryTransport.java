@@ -20,23 +20,30 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.ExternalResourceCachePolicy;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.cache.internal.ProducerGuard;
+import org.gradle.internal.MutableReference;
 import org.gradle.internal.hash.ChecksumService;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.resource.ExternalResourceName;
 import org.gradle.internal.resource.ExternalResourceRepository;
 import org.gradle.internal.resource.cached.CachedExternalResourceIndex;
 import org.gradle.internal.resource.local.FileResourceRepository;
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
+import org.gradle.internal.resource.local.LocallyAvailableResourceCandidates;
 import org.gradle.internal.resource.transfer.CacheAwareExternalResourceAccessor;
 import org.gradle.internal.resource.transfer.DefaultCacheAwareExternalResourceAccessor;
 import org.gradle.internal.resource.transfer.ExternalResourceConnector;
 import org.gradle.internal.resource.transfer.ProgressLoggingExternalResourceAccessor;
 import org.gradle.internal.resource.transfer.ProgressLoggingExternalResourceLister;
 import org.gradle.internal.resource.transfer.ProgressLoggingExternalResourceUploader;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.util.internal.BuildCommencedTimeProvider;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+
 public class ResourceConnectorRepositoryTransport extends AbstractRepositoryTransport {
     private final ExternalResourceRepository repository;
-    private final DefaultCacheAwareExternalResourceAccessor resourceAccessor;
+    private final CacheAwareExternalResourceAccessor resourceAccessor;
 
     public ResourceConnectorRepositoryTransport(String name,
                                                 TemporaryFileProvider temporaryFileProvider,
@@ -48,13 +55,15 @@ public ResourceConnectorRepositoryTransport(String name,
                                                 ExternalResourceCachePolicy cachePolicy,
                                                 ProducerGuard<ExternalResourceName> producerGuard,
                                                 FileResourceRepository fileResourceRepository,
-                                                ChecksumService checksumService) {
+                                                ChecksumService checksumService,
+                                                WorkerLeaseService workerLeaseService) {
         super(name);
         ProgressLoggingExternalResourceUploader loggingUploader = new ProgressLoggingExternalResourceUploader(connector, buildOperationExecutor);
         ProgressLoggingExternalResourceAccessor loggingAccessor = new ProgressLoggingExternalResourceAccessor(connector, buildOperationExecutor);
         ProgressLoggingExternalResourceLister loggingLister = new ProgressLoggingExternalResourceLister(connector, buildOperationExecutor);
         repository = new DefaultExternalResourceRepository(name, loggingAccessor, loggingUploader, loggingLister);
-        resourceAccessor = new DefaultCacheAwareExternalResourceAccessor(repository, cachedExternalResourceIndex, timeProvider, temporaryFileProvider, artifactCacheLockingManager, cachePolicy, producerGuard, fileResourceRepository, checksumService);
+        DefaultCacheAwareExternalResourceAccessor cacheAwareAccessor = new DefaultCacheAwareExternalResourceAccessor(repository, cachedExternalResourceIndex, timeProvider, temporaryFileProvider, artifactCacheLockingManager, cachePolicy, producerGuard, fileResourceRepository, checksumService);
+        resourceAccessor = new BlockingResourceAccessor(cacheAwareAccessor, workerLeaseService);
     }
 
     @Override
@@ -71,4 +80,36 @@ public CacheAwareExternalResourceAccessor getResourceAccessor() {
     public boolean isLocal() {
         return false;
     }
+
+    /**
+     * Fetches resources as blocking actions, so that other work can run while the download waits on the network.
+     * Wraps the whole fetch, so no locks are released while another thread waits for this thread to produce the same resource.
+     */
+    private static class BlockingResourceAccessor implements CacheAwareExternalResourceAccessor {
+        private final CacheAwareExternalResourceAccessor delegate;
+        private final WorkerLeaseService workerLeaseService;
+
+        BlockingResourceAccessor(CacheAwareExternalResourceAccessor delegate, WorkerLeaseService workerLeaseService) {
+            this.delegate = delegate;
+            this.workerLeaseService = workerLeaseService;
+        }
+
+        @Nullable
+        @Override
+        public LocallyAvailableExternalResource getResource(ExternalResourceName source, @Nullable String baseName, ResourceFileStore fileStore, @Nullable LocallyAvailableResourceCandidates additionalCandidates) throws IOException {
+            MutableReference<LocallyAvailableExternalResource> resource = MutableReference.empty();
+            MutableReference<IOException> failure = MutableReference.empty();
+            workerLeaseService.blocking(() -> {
+                try {
+                    resource.set(delegate.getResource(source, baseName, fileStore, additionalCandidates));
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            });
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return resource.get();
+        }
+    }
 }
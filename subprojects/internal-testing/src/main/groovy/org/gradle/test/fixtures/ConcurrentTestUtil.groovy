@@ -114,6 +114,10 @@ class ConcurrentTestUtil extends ExternalResource {
                 return new ManagedExecutorStub(ConcurrentTestUtil.this)
             }
 
+            ManagedExecutor createVirtualThreadExecutor(String displayName) {
+                return new ManagedExecutorStub(ConcurrentTestUtil.this)
+            }
+
             ManagedScheduledExecutor createScheduled(String displayName, int fixedSize) {
                 throw new UnsupportedOperationException()
             }
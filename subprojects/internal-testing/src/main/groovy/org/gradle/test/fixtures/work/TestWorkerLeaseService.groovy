@@ -94,6 +94,11 @@ class TestWorkerLeaseService implements WorkerLeaseService {
         action.run()
     }
 
+    @Override
+    void withoutWorkerLease(Runnable action) {
+        action.run()
+    }
+
     @Override
     <T> T whileDisallowingProjectLockChanges(Factory<T> action) {
         return action.create()
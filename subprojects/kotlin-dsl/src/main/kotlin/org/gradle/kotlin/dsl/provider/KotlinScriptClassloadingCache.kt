@@ -30,7 +30,7 @@ class KotlinScriptClassloadingCache @Inject constructor(
 ) {
 
     private
-    val cache: CrossBuildInMemoryCache<ProgramId, CompiledScript> = cacheFactory.newCache()
+    val cache: CrossBuildInMemoryCache<ProgramId, CompiledScript> = cacheFactory.newCache("Kotlin DSL script classes")
 
     fun get(key: ProgramId): CompiledScript? =
         cache.getIfPresent(key)?.also { it.onReuse() }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Measures compiling many small modules in sequence, as a compiler daemon does, comparing a new file manager
+ * for each compilation with file managers reused through {@link StandardJavaFileManagerCache}.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class JavaCompilerFileManagerBenchmark {
+    private static final int MODULES = 200;
+    private static final int LIBRARIES = 20;
+
+    @Param({"new", "reused"})
+    String fileManagers;
+
+    private JavaCompiler compiler;
+    private StandardJavaFileManagerCache cache;
+    private Path workDir;
+    private List<File> classpath;
+    private List<File> sources;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        cache = new StandardJavaFileManagerCache(new DefaultExecutorFactory().createScheduled("file manager expiry", 1), TimeUnit.MINUTES.toMillis(1));
+        workDir = Files.createTempDirectory("compile-benchmark");
+        classpath = new ArrayList<>();
+        for (int i = 0; i < LIBRARIES; i++) {
+            classpath.add(createLibrary(i));
+        }
+        sources = new ArrayList<>();
+        for (int i = 0; i < MODULES; i++) {
+            File source = workDir.resolve("module" + i + "/src/Module" + i + ".java").toFile();
+            write(source, "public class Module" + i + " { java.util.List<String> items = java.util.Collections.emptyList(); lib.Library0 library; }");
+            sources.add(source);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MODULES)
+    public void compileModules() throws IOException {
+        for (int i = 0; i < MODULES; i++) {
+            File outputDir = workDir.resolve("module" + i + "/classes").toFile();
+            outputDir.mkdirs();
+            List<String> options = Arrays.asList("-classpath", asPath(classpath), "-d", outputDir.getPath(), "-proc:none");
+            if (fileManagers.equals("reused")) {
+                try (StandardJavaFileManagerCache.CachedFileManager cached = cache.acquire(compiler, null, options, classpath)) {
+                    compile(cached.getFileManager(), options, sources.get(i));
+                }
+            } else {
+                try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+                    compile(fileManager, options, sources.get(i));
+                }
+            }
+        }
+    }
+
+    private void compile(StandardJavaFileManager fileManager, List<String> options, File source) {
+        if (!compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjects(source)).call()) {
+            throw new IllegalStateException("Compilation failed for " + source);
+        }
+    }
+
+    private File createLibrary(int index) throws IOException {
+        File source = workDir.resolve("lib" + index + "/src/lib/Library" + index + ".java").toFile();
+        write(source, "package lib; public class Library" + index + " { public String name() { return \"library" + index + "\"; } }");
+        File classesDir = workDir.resolve("lib" + index + "/classes").toFile();
+        classesDir.mkdirs();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            compile(fileManager, Arrays.asList("-d", classesDir.getPath()), source);
+        }
+        File jar = workDir.resolve("lib" + index + ".jar").toFile();
+        try (JarOutputStream jarOutput = new JarOutputStream(new FileOutputStream(jar))) {
+            String entryName = "lib/Library" + index + ".class";
+            jarOutput.putNextEntry(new JarEntry(entryName));
+            jarOutput.write(Files.readAllBytes(new File(classesDir, entryName).toPath()));
+            jarOutput.closeEntry();
+        }
+        return jar;
+    }
+
+    private static void write(File file, String text) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String asPath(List<File> files) {
+        StringBuilder builder = new StringBuilder();
+        for (File file : files) {
+            if (builder.length() > 0) {
+                builder.append(File.pathSeparatorChar);
+            }
+            builder.append(file.getPath());
+        }
+        return builder.toString();
+    }
+}
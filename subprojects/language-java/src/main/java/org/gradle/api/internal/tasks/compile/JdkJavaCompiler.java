@@ -15,34 +15,57 @@
  */
 package org.gradle.api.internal.tasks.compile;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
 import org.gradle.api.internal.tasks.compile.reflect.GradleStandardJavaFileManager;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.Factory;
 import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.language.base.internal.compile.Compiler;
+import org.gradle.workers.internal.WorkerDaemonSharedObjects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.Closeable;
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
+    private static final long FILE_MANAGER_IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    @Nullable
+    private final transient StandardJavaFileManagerCache fileManagerCache;
 
-    @Inject
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.fileManagerCache = null;
+    }
+
+    /**
+     * Creates a compiler that runs in a compiler daemon and keeps file managers open for later compilations in the same daemon.
+     */
+    @Inject
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, WorkerDaemonSharedObjects sharedObjects, ExecutorFactory executorFactory) {
+        this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.fileManagerCache = sharedObjects.get(StandardJavaFileManagerCache.class, () ->
+            new StandardJavaFileManagerCache(executorFactory.createScheduled("Java compiler file manager expiry", 1), FILE_MANAGER_IDLE_TIMEOUT_MILLIS)
+        );
     }
 
     @Override
@@ -63,7 +86,15 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
         Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, charset);
+        StandardJavaFileManager standardFileManager;
+        Closeable cachedFileManager = null;
+        if (fileManagerCache != null && JavaVersion.current().isJava9Compatible()) {
+            StandardJavaFileManagerCache.CachedFileManager cached = fileManagerCache.acquire(compiler, charset, options, archivesOf(spec));
+            standardFileManager = cached.getFileManager();
+            cachedFileManager = cached;
+        } else {
+            standardFileManager = compiler.getStandardFileManager(null, null, charset);
+        }
         Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
         boolean hasEmptySourcepaths = JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options);
         JavaFileManager fileManager = GradleStandardJavaFileManager.wrap(standardFileManager, DefaultClassPath.of(spec.getAnnotationProcessorPath()), hasEmptySourcepaths);
@@ -73,10 +104,21 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         }
         Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
         task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
+        task = new ResourceCleaningCompilationTask(task, cachedFileManager != null ? cachedFileManager : fileManager);
         return task;
     }
 
+    private static Iterable<File> archivesOf(JavaCompileSpec spec) {
+        List<File> bootClasspathFiles = new ArrayList<>();
+        String bootClasspath = spec.getCompileOptions().getBootClasspath();
+        if (bootClasspath != null) {
+            for (String path : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(bootClasspath)) {
+                bootClasspathFiles.add(new File(path));
+            }
+        }
+        return Iterables.concat(spec.getCompileClasspath(), spec.getModulePath(), spec.getAnnotationProcessorPath(), bootClasspathFiles);
+    }
+
     private static boolean emptySourcepathIn(List<String> options) {
         Iterator<String> optionsIter = options.iterator();
         while (optionsIter.hasNext()) {
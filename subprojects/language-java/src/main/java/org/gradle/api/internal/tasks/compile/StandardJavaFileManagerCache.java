@@ -0,0 +1,288 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the standard file managers of the Java compiler open across compilations, so that a compiler daemon does not
+ * have to open and index the archives on the compile classpath and the JRT file system of the JDK again for every compilation.
+ *
+ * <p>A file manager is only reused for compilations that use the same encoding and the same compiler options, ignoring the
+ * values of the options that point to the class path, source path, module path, processor path and output directories. As
+ * these are passed to every compilation, each compilation replaces the locations set by the previous one.</p>
+ *
+ * <p>The cache is bounded: at most {@value #MAX_IDLE_FILE_MANAGERS} file managers are kept open while no compilation uses them,
+ * an idle file manager is closed once it has not been used for the idle timeout, and a file manager that has seen more than
+ * {@value #MAX_TRACKED_ARCHIVES} different archives is closed instead of being kept. All idle file managers are closed when
+ * the cache is stopped, which happens when the compiler daemon stops.</p>
+ *
+ * <p>A file manager is discarded as soon as one of the archives it may have opened has changed. An archive is considered changed
+ * when its size, its last modified time or its file key (the inode on most file systems) has changed. An archive that is rewritten in
+ * place with the same size within the resolution of the file system timestamps is not detected as changed.</p>
+ */
+class StandardJavaFileManagerCache implements Stoppable {
+    private static final int MAX_IDLE_FILE_MANAGERS = 2;
+    private static final int MAX_TRACKED_ARCHIVES = 1000;
+    private static final Set<String> PATH_OPTIONS = ImmutableSet.of(
+        "-classpath", "-cp", "--class-path",
+        "-sourcepath", "--source-path",
+        "-processorpath", "--processor-path",
+        "--module-path", "-p",
+        "--processor-module-path",
+        "--module-source-path",
+        "--patch-module",
+        "-d", "-s", "-h"
+    );
+
+    private final ManagedScheduledExecutor expiryExecutor;
+    private final long idleTimeoutMillis;
+    private final Map<List<String>, CachedFileManager> idleFileManagers = new LinkedHashMap<>();
+    private boolean stopped;
+
+    /**
+     * @param expiryExecutor the executor used to close idle file managers. It is stopped together with this cache.
+     */
+    StandardJavaFileManagerCache(ManagedScheduledExecutor expiryExecutor, long idleTimeoutMillis) {
+        this.expiryExecutor = expiryExecutor;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given options and archives. The file manager must be released by closing the returned value once the compilation has finished.
+     */
+    CachedFileManager acquire(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Iterable<File> archives) {
+        List<String> key = keyFor(charset, options);
+        Map<File, ArchiveFingerprint> fingerprints = fingerprintsOf(archives);
+        CachedFileManager fileManager;
+        synchronized (this) {
+            fileManager = idleFileManagers.remove(key);
+        }
+        if (fileManager != null) {
+            fileManager.cancelExpiry();
+            if (!fileManager.canReuseWith(fingerprints)) {
+                fileManager.discard();
+                fileManager = null;
+            }
+        }
+        if (fileManager == null) {
+            fileManager = new CachedFileManager(key, compiler.getStandardFileManager(null, null, charset));
+        }
+        fileManager.track(fingerprints);
+        return fileManager;
+    }
+
+    private void release(CachedFileManager fileManager) {
+        if (fileManager.trackedArchives.size() > MAX_TRACKED_ARCHIVES) {
+            fileManager.discard();
+            return;
+        }
+        List<CachedFileManager> discarded = new ArrayList<>();
+        synchronized (this) {
+            if (stopped) {
+                discarded.add(fileManager);
+            } else {
+                CachedFileManager replaced = idleFileManagers.put(fileManager.key, fileManager);
+                if (replaced != null) {
+                    discarded.add(replaced);
+                }
+                if (idleFileManagers.size() > MAX_IDLE_FILE_MANAGERS) {
+                    Iterator<CachedFileManager> iterator = idleFileManagers.values().iterator();
+                    discarded.add(iterator.next());
+                    iterator.remove();
+                }
+                fileManager.scheduleExpiry();
+            }
+        }
+        discardAll(discarded);
+    }
+
+    private void expire(CachedFileManager fileManager) {
+        synchronized (this) {
+            if (idleFileManagers.get(fileManager.key) != fileManager) {
+                // Already in use again, or already discarded
+                return;
+            }
+            idleFileManagers.remove(fileManager.key);
+        }
+        fileManager.discard();
+    }
+
+    /**
+     * Closes all idle file managers. File managers that are in use are closed when they are released.
+     */
+    @Override
+    public void stop() {
+        List<CachedFileManager> discarded;
+        synchronized (this) {
+            stopped = true;
+            discarded = new ArrayList<>(idleFileManagers.values());
+            idleFileManagers.clear();
+        }
+        try {
+            discardAll(discarded);
+        } finally {
+            expiryExecutor.stop();
+        }
+    }
+
+    private static void discardAll(List<CachedFileManager> fileManagers) {
+        for (CachedFileManager fileManager : fileManagers) {
+            fileManager.cancelExpiry();
+            fileManager.discard();
+        }
+    }
+
+    private static List<String> keyFor(@Nullable Charset charset, List<String> options) {
+        ImmutableList.Builder<String> key = ImmutableList.builder();
+        key.add(charset == null ? "" : charset.name());
+        Iterator<String> iterator = options.iterator();
+        while (iterator.hasNext()) {
+            String option = iterator.next();
+            key.add(option);
+            if (PATH_OPTIONS.contains(option) && iterator.hasNext()) {
+                iterator.next();
+            }
+        }
+        return key.build();
+    }
+
+    private static Map<File, ArchiveFingerprint> fingerprintsOf(Iterable<File> archives) {
+        Map<File, ArchiveFingerprint> fingerprints = new LinkedHashMap<>();
+        for (File archive : archives) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(archive.toPath(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Missing, so cannot have been opened
+                continue;
+            }
+            if (attributes.isRegularFile()) {
+                fingerprints.put(archive, new ArchiveFingerprint(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey()));
+            }
+        }
+        return fingerprints;
+    }
+
+    class CachedFileManager implements Closeable {
+        private final List<String> key;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, ArchiveFingerprint> trackedArchives = new HashMap<>();
+        private ScheduledFuture<?> expiry;
+
+        private CachedFileManager(List<String> key, StandardJavaFileManager fileManager) {
+            this.key = key;
+            this.fileManager = fileManager;
+        }
+
+        StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        private boolean canReuseWith(Map<File, ArchiveFingerprint> fingerprints) {
+            for (Map.Entry<File, ArchiveFingerprint> entry : fingerprints.entrySet()) {
+                ArchiveFingerprint tracked = trackedArchives.get(entry.getKey());
+                if (tracked != null && !tracked.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void track(Map<File, ArchiveFingerprint> fingerprints) {
+            trackedArchives.putAll(fingerprints);
+        }
+
+        private synchronized void scheduleExpiry() {
+            expiry = expiryExecutor.schedule(() -> expire(this), idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void cancelExpiry() {
+            if (expiry != null) {
+                expiry.cancel(false);
+                expiry = null;
+            }
+        }
+
+        private void discard() {
+            CompositeStoppable.stoppable(fileManager).stop();
+        }
+
+        /**
+         * Returns this file manager to the cache.
+         */
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    private static class ArchiveFingerprint {
+        private final long size;
+        private final FileTime lastModified;
+        private final Object fileKey;
+
+        ArchiveFingerprint(long size, FileTime lastModified, @Nullable Object fileKey) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ArchiveFingerprint that = (ArchiveFingerprint) o;
+            return size == that.size && lastModified.equals(that.lastModified) && Objects.equal(fileKey, that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(size, lastModified, fileKey);
+        }
+    }
+}
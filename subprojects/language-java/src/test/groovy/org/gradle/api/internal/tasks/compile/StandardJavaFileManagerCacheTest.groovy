@@ -0,0 +1,206 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.internal.concurrent.ManagedScheduledExecutor
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+class StandardJavaFileManagerCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def compiler = Mock(JavaCompiler)
+    def expiryExecutor = Mock(ManagedScheduledExecutor)
+    def cache = new StandardJavaFileManagerCache(expiryExecutor, 1000)
+
+    def "reuses file manager for compilations with different paths"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def lib = tmpDir.file("lib.jar").createFile()
+
+        when:
+        def first = cache.acquire(compiler, null, ["-classpath", "a.jar", "-d", "out1"], [lib])
+        first.close()
+        def second = cache.acquire(compiler, null, ["-classpath", "b.jar", "-d", "out2"], [lib])
+        second.close()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        0 * fileManager.close()
+        first.fileManager == fileManager
+        second.fileManager == fileManager
+    }
+
+    def "does not reuse file manager for compilations with different options or encoding"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def fileManager3 = Mock(StandardJavaFileManager)
+
+        when:
+        cache.acquire(compiler, null, ["-classpath", "a.jar", "--release", "8"], []).close()
+        cache.acquire(compiler, null, ["--release", "8"], []).close()
+        cache.acquire(compiler, StandardCharsets.UTF_8, ["-classpath", "a.jar", "--release", "8"], []).close()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager1
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager2
+        1 * compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8) >> fileManager3
+        0 * _.close()
+    }
+
+    def "does not share file manager between concurrent compilations"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        def first = cache.acquire(compiler, null, [], [])
+        def second = cache.acquire(compiler, null, [], [])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        first.fileManager == fileManager1
+        second.fileManager == fileManager2
+
+        when:
+        first.close()
+        second.close()
+
+        then:
+        1 * fileManager1.close()
+        0 * fileManager2.close()
+    }
+
+    def "discards file manager when an archive has changed"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def lib = tmpDir.file("lib.jar")
+        lib.text = "original"
+
+        when:
+        cache.acquire(compiler, null, [], [lib]).close()
+        lib.text = "changed content"
+        def fileManager = cache.acquire(compiler, null, [], [lib])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        1 * fileManager1.close()
+        fileManager.fileManager == fileManager2
+    }
+
+    def "closes file manager once it has been idle for the idle timeout"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        Runnable expiry = null
+
+        when:
+        cache.acquire(compiler, null, [], []).close()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * expiryExecutor.schedule(_ as Runnable, 1000, TimeUnit.MILLISECONDS) >> { Runnable task, long delay, TimeUnit unit ->
+            expiry = task
+            Mock(ScheduledFuture)
+        }
+        0 * fileManager.close()
+
+        when:
+        expiry.run()
+
+        then:
+        1 * fileManager.close()
+    }
+
+    def "does not close file manager that is in use again when its idle timeout expires"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def future = Mock(ScheduledFuture)
+        Runnable expiry = null
+
+        when:
+        cache.acquire(compiler, null, [], []).close()
+        def inUse = cache.acquire(compiler, null, [], [])
+        expiry.run()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * expiryExecutor.schedule(_ as Runnable, 1000, TimeUnit.MILLISECONDS) >> { Runnable task, long delay, TimeUnit unit ->
+            expiry = task
+            future
+        }
+        1 * future.cancel(false)
+        0 * fileManager.close()
+        inUse.fileManager == fileManager
+    }
+
+    def "keeps a bounded number of idle file managers"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def fileManager3 = Mock(StandardJavaFileManager)
+
+        when:
+        cache.acquire(compiler, null, ["--release", "8"], []).close()
+        cache.acquire(compiler, null, ["--release", "11"], []).close()
+        cache.acquire(compiler, null, ["--release", "17"], []).close()
+
+        then:
+        3 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2, fileManager3]
+        1 * fileManager1.close()
+        0 * fileManager2.close()
+        0 * fileManager3.close()
+    }
+
+    def "does not keep file manager that has seen too many archives"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def archives = (0..1000).collect { tmpDir.file("lib${it}.jar").createFile() }
+
+        when:
+        cache.acquire(compiler, null, [], archives).close()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.close()
+        0 * expiryExecutor._
+    }
+
+    def "closes idle file managers when stopped and file managers in use when they are released"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        cache.acquire(compiler, null, ["--release", "8"], []).close()
+        def inUse = cache.acquire(compiler, null, ["--release", "11"], [])
+        cache.stop()
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        1 * fileManager1.close()
+        0 * fileManager2.close()
+        1 * expiryExecutor.stop()
+
+        when:
+        inUse.close()
+
+        then:
+        1 * fileManager2.close()
+    }
+}
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.tasks.compile.daemon;
 
 import com.google.common.collect.Lists;
+import org.gradle.api.internal.tasks.compile.JvmLanguageCompileSpec;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.compile.BaseForkOptions;
 import org.gradle.internal.Cast;
@@ -34,10 +35,14 @@
 import org.gradle.workers.internal.IsolatedClassLoaderWorkerRequirement;
 import org.gradle.workers.internal.IsolationMode;
 import org.gradle.workers.internal.ProvidesWorkResult;
+import org.gradle.workers.internal.ProvidesWorkerAffinity;
 import org.gradle.workers.internal.WorkerFactory;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import static org.gradle.process.internal.util.MergeOptionsUtil.mergeHeapSize;
@@ -92,7 +97,7 @@ protected BaseForkOptions mergeForkOptions(BaseForkOptions left, BaseForkOptions
         return merged;
     }
 
-    public abstract static class CompilerParameters implements WorkParameters, Serializable {
+    public abstract static class CompilerParameters implements WorkParameters, ProvidesWorkerAffinity, Serializable {
         private final String compilerClassName;
         private final Object[] compilerInstanceParameters;
 
@@ -110,6 +115,14 @@ public Object[] getCompilerInstanceParameters() {
         }
 
         abstract public CompileSpec getCompileSpec();
+
+        @Override
+        public Object getWorkerAffinity() {
+            // A compiler daemon that has compiled against the same classpath has already loaded and cached it
+            CompileSpec compileSpec = getCompileSpec();
+            List<File> compileClasspath = compileSpec instanceof JvmLanguageCompileSpec ? ((JvmLanguageCompileSpec) compileSpec).getCompileClasspath() : null;
+            return Arrays.asList(compilerClassName, compileClasspath);
+        }
     }
 
     public static class CompilerWorkAction implements WorkAction<CompilerParameters>, ProvidesWorkResult {
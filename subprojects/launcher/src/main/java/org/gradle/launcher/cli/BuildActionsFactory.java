@@ -18,6 +18,7 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import org.gradle.StartParameter;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.internal.StartParameterInternal;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.cli.CommandLineParser;
@@ -29,6 +30,8 @@
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.jvm.JavaInfo;
+import org.gradle.internal.jvm.Jvm;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.nativeintegration.services.NativeServices;
@@ -57,7 +60,6 @@
 class BuildActionsFactory implements CommandLineAction {
     private final ParametersConverter parametersConverter;
     private final ServiceRegistry loggingServices;
-    private final JvmVersionDetector jvmVersionDetector;
     private final FileCollectionFactory fileCollectionFactory;
     private final ServiceRegistry basicServices;
 
@@ -69,7 +71,6 @@ public BuildActionsFactory(ServiceRegistry loggingServices) {
         this.loggingServices = loggingServices;
         fileCollectionFactory = basicServices.get(FileCollectionFactory.class);
         parametersConverter = new ParametersConverter(new BuildLayoutFactory(), basicServices.get(FileCollectionFactory.class));
-        jvmVersionDetector = basicServices.get(JvmVersionDetector.class);
     }
 
     @Override
@@ -81,7 +82,7 @@ public void configureCommandLineParser(CommandLineParser parser) {
     public Runnable createAction(CommandLineParser parser, ParsedCommandLine commandLine) {
         Parameters parameters = parametersConverter.convert(commandLine, null);
 
-        parameters.getDaemonParameters().applyDefaultsFor(jvmVersionDetector.getJavaVersion(parameters.getDaemonParameters().getEffectiveJvm()));
+        parameters.getDaemonParameters().applyDefaultsFor(getJavaVersion(parameters.getDaemonParameters().getEffectiveJvm()));
 
         if (parameters.getDaemonParameters().isStop()) {
             return stopAllDaemons(parameters.getDaemonParameters());
@@ -105,6 +106,14 @@ public Runnable createAction(CommandLineParser parser, ParsedCommandLine command
         return runBuildInSingleUseDaemon(parameters.getStartParameter(), parameters.getDaemonParameters());
     }
 
+    private JavaVersion getJavaVersion(JavaInfo jvm) {
+        // Avoid creating the services used to probe a JVM installation when the daemon uses the same JVM as this client
+        if (jvm.getJavaHome().equals(Jvm.current().getJavaHome())) {
+            return JavaVersion.current();
+        }
+        return basicServices.get(JvmVersionDetector.class).getJavaVersion(jvm);
+    }
+
     private Runnable stopAllDaemons(DaemonParameters daemonParameters) {
         ServiceRegistry clientSharedServices = createGlobalClientServices(false);
         ServiceRegistry clientServices = clientSharedServices.get(DaemonClientFactory.class).createMessageDaemonServices(loggingServices.get(OutputEventListener.class), daemonParameters);
@@ -117,6 +117,12 @@ public void markDaemonAsUnavailable(DaemonConnectDetails daemon) {
 
     @Override
     public DaemonClientConnection connect(ExplainingSpec<DaemonContext> constraint) {
+        // Try the idle daemons that can be found without locking the registry first, which is the common case
+        DaemonClientConnection idleConnection = connectToIdleDaemon(daemonRegistry.getIdleWithoutLocking(), constraint);
+        if (idleConnection != null) {
+            return idleConnection;
+        }
+
         final Pair<Collection<DaemonInfo>, Collection<DaemonInfo>> idleBusy = partitionByState(daemonRegistry.getAll(), Idle);
         final Collection<DaemonInfo> idleDaemons = idleBusy.getLeft();
         final Collection<DaemonInfo> busyDaemons = idleBusy.getRight();
@@ -100,6 +100,9 @@ void printRunningDaemons(final List<Status> statuses) {
             for(Status status : statuses) {
                 Long pid = status.getPid();
                 LOGGER.quiet(String.format(STATUS_FORMAT, pid == null ? "PID unknown" : pid, status.getStatus(), status.getVersion()));
+                for (String retainedCache : status.getRetainedCaches()) {
+                    LOGGER.quiet(String.format(STATUS_FORMAT, "", "", retainedCache));
+                }
             }
         }
     }
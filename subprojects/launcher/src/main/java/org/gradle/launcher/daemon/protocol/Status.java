@@ -18,17 +18,25 @@
 
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
 public class Status implements Serializable {
     @Nullable
     private final Long pid;
     private final String version;
     private final String status;
+    private final List<String> retainedCaches;
 
     public Status(Long pid, String version, String status) {
+        this(pid, version, status, Collections.<String>emptyList());
+    }
+
+    public Status(Long pid, String version, String status, List<String> retainedCaches) {
         this.pid = pid;
         this.version = version;
         this.status = status;
+        this.retainedCaches = retainedCaches;
     }
 
     @Nullable
@@ -43,4 +51,11 @@ public String getVersion() {
     public String getStatus() {
         return status;
     }
+
+    /**
+     * A description of the largest in-memory caches retained by the daemon, one line per cache.
+     */
+    public List<String> getRetainedCaches() {
+        return retainedCaches;
+    }
 }
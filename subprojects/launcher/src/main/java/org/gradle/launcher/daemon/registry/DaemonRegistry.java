@@ -37,6 +37,12 @@ public interface DaemonRegistry {
     List<DaemonInfo> getNotIdle();
     List<DaemonInfo> getCanceled();
 
+    /**
+     * Returns the daemons that were idle when last recorded, without waiting for other processes that access the registry.
+     * The result may be stale or incomplete, so callers must cope with daemons that are no longer available and fall back to {@link #getAll()}.
+     */
+    List<DaemonInfo> getIdleWithoutLocking();
+
     void store(DaemonInfo info);
     void remove(Address address);
     void markState(Address address, State state);
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.registry;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.file.Chmod;
+import org.gradle.internal.remote.internal.inet.InetEndpoint;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Idle;
+
+/**
+ * A memory-mapped copy of the daemon infos held in the registry file, which can be read without holding the cross-process registry lock.
+ *
+ * <p>The file has a fixed number of fixed-size slots, each holding a single daemon info keyed by its port. Slots are only written while
+ * the registry lock is held, so there is at most one writer at a time. Each slot starts with a sequence number, which the writer makes odd
+ * while it changes the slot and even once done. A reader copies a slot and accepts it only when the sequence number was even and unchanged
+ * across the copy and the checksum of the copy matches, retrying a few times otherwise.</p>
+ *
+ * <p>The content is a hint: it may miss daemons, for example when there are more daemons than slots or a daemon info is too large for a slot,
+ * and it may be stale if a writer crashed. Callers must fall back to the registry file when no usable daemon is found.</p>
+ */
+class MappedDaemonRegistryIndex {
+    private static final Logger LOGGER = Logging.getLogger(MappedDaemonRegistryIndex.class);
+
+    private static final int MAGIC = 0x47445249;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    static final int SLOT_COUNT = 64;
+    static final int SLOT_SIZE = 4096;
+    // sequence (long), port (int), state (byte), payload length (int), payload checksum (long)
+    private static final int SLOT_HEADER_SIZE = 8 + 4 + 1 + 4 + 8;
+    private static final int MAX_PAYLOAD_SIZE = SLOT_SIZE - SLOT_HEADER_SIZE;
+    private static final int FILE_SIZE = HEADER_SIZE + SLOT_COUNT * SLOT_SIZE;
+    private static final int MAX_READ_ATTEMPTS = 4;
+
+    private final File indexFile;
+    private final Chmod chmod;
+    private MappedByteBuffer readBuffer;
+    private MappedByteBuffer writeBuffer;
+    private boolean broken;
+
+    MappedDaemonRegistryIndex(File indexFile, Chmod chmod) {
+        this.indexFile = indexFile;
+        this.chmod = chmod;
+    }
+
+    /**
+     * Returns the idle daemons found in the index, which is empty when the index does not exist or cannot be read.
+     */
+    List<DaemonInfo> getIdle() {
+        ByteBuffer buffer = mapForRead();
+        if (buffer == null) {
+            return new ArrayList<DaemonInfo>();
+        }
+        List<DaemonInfo> result = new ArrayList<DaemonInfo>();
+        byte[] payload = new byte[MAX_PAYLOAD_SIZE];
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            DaemonInfo info = readIdleSlot(buffer, slotOffset(slot), payload);
+            if (info != null) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    private DaemonInfo readIdleSlot(ByteBuffer buffer, int offset, byte[] payload) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long sequence = buffer.getLong(offset);
+            if ((sequence & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            int port = buffer.getInt(offset + 8);
+            byte state = buffer.get(offset + 12);
+            int length = buffer.getInt(offset + 13);
+            long checksum = buffer.getLong(offset + 17);
+            if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+                continue;
+            }
+            ByteBuffer copy = buffer.duplicate();
+            copy.position(offset + SLOT_HEADER_SIZE);
+            copy.get(payload, 0, length);
+            if (buffer.getLong(offset) != sequence || checksum(port, state, payload, length) != checksum) {
+                continue;
+            }
+            if (port == 0 || state != Idle.ordinal()) {
+                return null;
+            }
+            try {
+                List<DaemonInfo> infos = DaemonRegistryContent.SERIALIZER.read(new InputStreamBackedDecoder(new ByteArrayInputStream(payload, 0, length))).getInfos();
+                return infos.isEmpty() ? null : infos.get(0);
+            } catch (Exception e) {
+                LOGGER.debug("Could not read daemon info from slot at offset {} of {}.", offset, indexFile, e);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes the index reflect the given daemon infos. Must only be called while holding the registry lock.
+     */
+    void update(@Nullable DaemonRegistryContent content) {
+        MappedByteBuffer buffer = mapForWrite();
+        if (buffer == null) {
+            return;
+        }
+        List<DaemonInfo> infos = content == null ? new ArrayList<DaemonInfo>() : content.getInfos();
+        Set<Integer> ports = new HashSet<Integer>();
+        for (DaemonInfo info : infos) {
+            ports.add(((InetEndpoint) info.getAddress()).getPort());
+        }
+        // Release the slots of daemons that are no longer registered first, so they can be reused below
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            int offset = slotOffset(slot);
+            int port = buffer.getInt(offset + 8);
+            if (port != 0 && !ports.contains(port)) {
+                writeSlot(buffer, offset, 0, (byte) 0, new byte[0]);
+            }
+        }
+        for (DaemonInfo info : infos) {
+            int port = ((InetEndpoint) info.getAddress()).getPort();
+            byte[] payload = serialize(info);
+            int offset = findSlot(buffer, port);
+            if (offset < 0) {
+                LOGGER.debug("No free slot in {} for daemon {}.", indexFile, info);
+                continue;
+            }
+            if (payload.length > MAX_PAYLOAD_SIZE) {
+                LOGGER.debug("Daemon info is too large for a slot in {}: {}.", indexFile, info);
+                if (buffer.getInt(offset + 8) == port) {
+                    writeSlot(buffer, offset, 0, (byte) 0, new byte[0]);
+                }
+                continue;
+            }
+            byte state = (byte) info.getState().ordinal();
+            if (buffer.getInt(offset + 8) == port && buffer.get(offset + 12) == state && sameBytes(buffer, offset, payload)) {
+                continue;
+            }
+            writeSlot(buffer, offset, port, state, payload);
+        }
+    }
+
+    private static int findSlot(ByteBuffer buffer, int port) {
+        int free = -1;
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            int offset = slotOffset(slot);
+            int slotPort = buffer.getInt(offset + 8);
+            if (slotPort == port) {
+                return offset;
+            }
+            if (slotPort == 0 && free < 0) {
+                free = offset;
+            }
+        }
+        return free;
+    }
+
+    private static boolean sameBytes(ByteBuffer buffer, int offset, byte[] payload) {
+        if (buffer.getInt(offset + 13) != payload.length) {
+            return false;
+        }
+        byte[] current = new byte[payload.length];
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(offset + SLOT_HEADER_SIZE);
+        copy.get(current);
+        return Arrays.equals(current, payload);
+    }
+
+    private static void writeSlot(ByteBuffer buffer, int offset, int port, byte state, byte[] payload) {
+        long sequence = buffer.getLong(offset);
+        if ((sequence & 1) != 0) {
+            // A previous writer did not finish
+            sequence++;
+        }
+        buffer.putLong(offset, sequence + 1);
+        buffer.putInt(offset + 8, port);
+        buffer.put(offset + 12, state);
+        buffer.putInt(offset + 13, payload.length);
+        buffer.putLong(offset + 17, checksum(port, state, payload, payload.length));
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(offset + SLOT_HEADER_SIZE);
+        copy.put(payload);
+        buffer.putLong(offset, sequence + 2);
+    }
+
+    private static long checksum(int port, byte state, byte[] payload, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(port >>> 24);
+        crc.update(port >>> 16);
+        crc.update(port >>> 8);
+        crc.update(port);
+        crc.update(state);
+        crc.update(payload, 0, length);
+        return crc.getValue();
+    }
+
+    private static byte[] serialize(DaemonInfo info) {
+        DaemonRegistryContent content = new DaemonRegistryContent();
+        content.setStatus(info.getAddress(), info);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(outputStream);
+        try {
+            DaemonRegistryContent.SERIALIZER.write(encoder, content);
+            encoder.flush();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize daemon info " + info, e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    @Nullable
+    private synchronized ByteBuffer mapForRead() {
+        if (writeBuffer != null) {
+            return writeBuffer;
+        }
+        if (readBuffer == null && !broken) {
+            if (!indexFile.isFile() || indexFile.length() != FILE_SIZE) {
+                return null;
+            }
+            try {
+                RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+                try {
+                    MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+                    if (!hasValidHeader(buffer)) {
+                        return null;
+                    }
+                    readBuffer = buffer;
+                } finally {
+                    file.close();
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not map {}.", indexFile, e);
+                broken = true;
+            }
+        }
+        return readBuffer;
+    }
+
+    @Nullable
+    private synchronized MappedByteBuffer mapForWrite() {
+        if (writeBuffer == null && !broken) {
+            try {
+                RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+                try {
+                    chmod.chmod(indexFile, 0600); // read-write for user only
+                    if (file.length() != FILE_SIZE) {
+                        file.setLength(0);
+                        file.setLength(FILE_SIZE);
+                    }
+                    MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+                    if (!hasValidHeader(buffer)) {
+                        // A new file, or one in a different format. Clear the slots before making the header valid.
+                        for (int offset = HEADER_SIZE; offset < FILE_SIZE; offset += 8) {
+                            buffer.putLong(offset, 0);
+                        }
+                        buffer.putInt(4, VERSION);
+                        buffer.putInt(8, SLOT_COUNT);
+                        buffer.putInt(12, SLOT_SIZE);
+                        buffer.putInt(0, MAGIC);
+                    }
+                    writeBuffer = buffer;
+                    readBuffer = null;
+                } finally {
+                    file.close();
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not map {}.", indexFile, e);
+                broken = true;
+            }
+        }
+        return writeBuffer;
+    }
+
+    private static boolean hasValidHeader(ByteBuffer buffer) {
+        return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == SLOT_COUNT && buffer.getInt(12) == SLOT_SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return indexFile.toString();
+    }
+}
@@ -45,6 +45,7 @@
  */
 public class PersistentDaemonRegistry implements DaemonRegistry {
     private final PersistentStateCache<DaemonRegistryContent> cache;
+    private final MappedDaemonRegistryIndex index;
     private final Lock lock = new ReentrantLock();
     private final File registryFile;
 
@@ -62,6 +63,7 @@ public PersistentDaemonRegistry(File registryFile, FileLockManager fileLockManag
                 DaemonRegistryContent.SERIALIZER,
                 chmod
             ));
+        index = new MappedDaemonRegistryIndex(new File(registryFile.getParentFile(), registryFile.getName() + ".slots"), chmod);
     }
 
     @Override
@@ -89,6 +91,11 @@ public boolean isSatisfiedBy(DaemonInfo daemonInfo) {
         });
     }
 
+    @Override
+    public List<DaemonInfo> getIdleWithoutLocking() {
+        return index.getIdle();
+    }
+
     @Override
     public List<DaemonInfo> getNotIdle() {
         return getDaemonsMatching(new Spec<DaemonInfo>() {
@@ -137,6 +144,7 @@ public DaemonRegistryContent update(DaemonRegistryContent oldValue) {
                         return oldValue;
                     }
                     oldValue.removeInfo(((InetEndpoint)address).getPort());
+                    index.update(oldValue);
                     return oldValue;
                 }
             });
@@ -158,6 +166,7 @@ public DaemonRegistryContent update(DaemonRegistryContent oldValue) {
                         daemonInfo.setState(state);
                     }
                     // Else, has been removed by something else - ignore
+                    index.update(oldValue);
                     return oldValue;
                 }});
         } finally {
@@ -239,6 +248,7 @@ public DaemonRegistryContent update(DaemonRegistryContent oldValue) {
                     DaemonInfo daemonInfo = new DaemonInfo(address, daemonContext, token, state);
                     oldValue.removeInfo(((InetEndpoint) address).getPort());
                     oldValue.setStatus(address, daemonInfo);
+                    index.update(oldValue);
                     return oldValue;
                 }
             });
@@ -18,6 +18,7 @@
 import com.google.common.collect.ImmutableList;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.RetainedInMemoryCaches;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
@@ -59,6 +60,7 @@
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats;
 import org.gradle.launcher.daemon.server.health.DaemonMemoryStatus;
 import org.gradle.launcher.daemon.server.health.HealthExpirationStrategy;
+import org.gradle.launcher.daemon.server.health.RetainedCachesMonitor;
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy;
 import org.gradle.launcher.daemon.server.scaninfo.DaemonScanInfo;
 import org.gradle.launcher.daemon.server.scaninfo.DefaultDaemonScanInfo;
@@ -127,8 +129,12 @@ protected MasterExpirationStrategy createMasterExpirationStrategy(Daemon daemon,
         return new MasterExpirationStrategy(daemon, configuration, healthExpirationStrategy, listenerManager);
     }
 
-    protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonMemoryStatus memoryStatus) {
-        return new HealthExpirationStrategy(memoryStatus);
+    protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonMemoryStatus memoryStatus, RetainedCachesMonitor retainedCachesMonitor) {
+        return new HealthExpirationStrategy(memoryStatus, retainedCachesMonitor);
+    }
+
+    protected RetainedCachesMonitor createRetainedCachesMonitor(RetainedInMemoryCaches retainedInMemoryCaches, ExecutorFactory executorFactory) {
+        return new RetainedCachesMonitor(retainedInMemoryCaches, executorFactory);
     }
 
     protected DaemonHealthStats createDaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectorMonitoringStrategy strategy, ExecutorFactory executorFactory) {
@@ -139,19 +145,19 @@ protected GarbageCollectorMonitoringStrategy createGarbageCollectorMonitoringStr
         return GarbageCollectorMonitoringStrategy.determineGcStrategy();
     }
 
-    protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(DaemonContext daemonContext, ProcessEnvironment processEnvironment, DaemonHealthStats healthStats, DaemonHealthCheck healthCheck, BuildExecuter buildActionExecuter, DaemonRunningStats runningStats) {
+    protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(DaemonContext daemonContext, ProcessEnvironment processEnvironment, DaemonHealthStats healthStats, DaemonHealthCheck healthCheck, RetainedCachesMonitor retainedCachesMonitor, BuildExecuter buildActionExecuter, DaemonRunningStats runningStats) {
         File daemonLog = getDaemonLogFile();
         DaemonDiagnostics daemonDiagnostics = new DaemonDiagnostics(daemonLog, daemonContext.getPid());
         return ImmutableList.of(
             new HandleStop(get(ListenerManager.class)),
             new HandleInvalidateVirtualFileSystem(get(GradleUserHomeScopeServiceRegistry.class)),
             new HandleCancel(),
-            new HandleReportStatus(),
+            new HandleReportStatus(get(RetainedInMemoryCaches.class)),
             new ReturnResult(),
             new StartBuildOrRespondWithBusy(daemonDiagnostics), // from this point down, the daemon is 'busy'
             new EstablishBuildEnvironment(processEnvironment),
             new LogToClient(loggingManager, daemonDiagnostics), // from this point down, logging is sent back to the client
-            new LogAndCheckHealth(healthStats, healthCheck),
+            new LogAndCheckHealth(healthStats, healthCheck, retainedCachesMonitor),
             new ForwardClientInput(),
             new RequestStopIfSingleUsedDaemon(),
             new ResetDeprecationLogger(),
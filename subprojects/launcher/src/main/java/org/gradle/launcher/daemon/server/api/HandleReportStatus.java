@@ -16,21 +16,49 @@
 
 package org.gradle.launcher.daemon.server.api;
 
+import org.gradle.cache.internal.RetainedInMemoryCaches;
 import org.gradle.launcher.daemon.protocol.ReportStatus;
 import org.gradle.launcher.daemon.protocol.Status;
 import org.gradle.launcher.daemon.protocol.Success;
 import org.gradle.util.GradleVersion;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class HandleReportStatus implements DaemonCommandAction {
+    private static final int REPORTED_CACHES = 5;
+
+    private final RetainedInMemoryCaches retainedInMemoryCaches;
+
+    public HandleReportStatus(RetainedInMemoryCaches retainedInMemoryCaches) {
+        this.retainedInMemoryCaches = retainedInMemoryCaches;
+    }
+
     @Override
     public void execute(DaemonCommandExecution execution) {
         if (execution.getCommand() instanceof ReportStatus) {
             String version = GradleVersion.current().getVersion();
             String status = execution.getDaemonStateControl().getState().toString().toUpperCase();
-            Status message = new Status(execution.getDaemonContext().getPid(), version, status);
+            Status message = new Status(execution.getDaemonContext().getPid(), version, status, describeRetainedCaches());
             execution.getConnection().completed(new Success(message));
         } else {
             execution.proceed();
         }
     }
+
+    private List<String> describeRetainedCaches() {
+        List<RetainedInMemoryCaches.CacheSize> sizes = retainedInMemoryCaches.getCacheSizes();
+        int totalEntries = 0;
+        int totalEvicted = 0;
+        for (RetainedInMemoryCaches.CacheSize size : sizes) {
+            totalEntries += size.getEntries();
+            totalEvicted += size.getEvictedEntries();
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Retained in-memory caches: %d entries, %d evicted", totalEntries, totalEvicted));
+        for (RetainedInMemoryCaches.CacheSize size : sizes.subList(0, Math.min(REPORTED_CACHES, sizes.size()))) {
+            lines.add(String.format("  %s: %d entries, %d evicted", size.getDisplayName(), size.getEntries(), size.getEvictedEntries()));
+        }
+        return lines;
+    }
 }
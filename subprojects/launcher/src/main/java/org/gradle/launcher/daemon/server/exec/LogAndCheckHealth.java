@@ -24,6 +24,7 @@
 import org.gradle.launcher.daemon.server.health.DaemonHealthCheck;
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats;
 import org.gradle.launcher.daemon.server.health.HealthLogger;
+import org.gradle.launcher.daemon.server.health.RetainedCachesMonitor;
 
 public class LogAndCheckHealth implements DaemonCommandAction {
 
@@ -31,16 +32,18 @@ public class LogAndCheckHealth implements DaemonCommandAction {
 
     private final DaemonHealthStats stats;
     private final DaemonHealthCheck healthCheck;
+    private final RetainedCachesMonitor retainedCachesMonitor;
     private final HealthLogger logger;
 
-    public LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck) {
-        this(stats, healthCheck, new HealthLogger());
+    public LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, RetainedCachesMonitor retainedCachesMonitor) {
+        this(stats, healthCheck, retainedCachesMonitor, new HealthLogger());
     }
 
     @VisibleForTesting
-    LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, HealthLogger logger) {
+    LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, RetainedCachesMonitor retainedCachesMonitor, HealthLogger logger) {
         this.stats = stats;
         this.healthCheck = healthCheck;
+        this.retainedCachesMonitor = retainedCachesMonitor;
         this.logger = logger;
     }
 
@@ -52,7 +55,12 @@ public void execute(DaemonCommandExecution execution) {
         }
 
         logger.logHealth(stats, LOG);
-        execution.proceed();
+        retainedCachesMonitor.buildStarted();
+        try {
+            execution.proceed();
+        } finally {
+            logger.logRetainedCaches(retainedCachesMonitor.buildFinished(), LOG);
+        }
 
         // Execute the health check that should send out a DaemonExpiration event
         // if the daemon is unhealthy
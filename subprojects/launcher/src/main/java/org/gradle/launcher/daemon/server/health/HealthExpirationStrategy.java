@@ -25,10 +25,10 @@ public class HealthExpirationStrategy implements DaemonExpirationStrategy {
 
     private final DaemonExpirationStrategy strategy;
 
-    public HealthExpirationStrategy(DaemonMemoryStatus memoryStatus) {
+    public HealthExpirationStrategy(DaemonMemoryStatus memoryStatus, RetainedCachesMonitor retainedCachesMonitor) {
         this.strategy = new AnyDaemonExpirationStrategy(ImmutableList.of(
             new GcThrashingDaemonExpirationStrategy(memoryStatus),
-            new LowHeapSpaceDaemonExpirationStrategy(memoryStatus),
+            new LowHeapSpaceDaemonExpirationStrategy(memoryStatus, retainedCachesMonitor),
             new LowNonHeapDaemonExpirationStrategy(memoryStatus)
         ));
     }
@@ -30,4 +30,12 @@ public void logHealth(DaemonHealthStats stats, Logger logger) {
             logger.info(stats.getHealthInfo());
         }
     }
+
+    public void logRetainedCaches(RetainedCachesReport report, Logger logger) {
+        if (Boolean.getBoolean(HEALTH_MESSAGE_PROPERTY)) {
+            logger.lifecycle(report.getDescription());
+        } else {
+            logger.info(report.getDescription());
+        }
+    }
 }
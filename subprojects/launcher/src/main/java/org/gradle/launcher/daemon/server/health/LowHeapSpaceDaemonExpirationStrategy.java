@@ -25,18 +25,23 @@
 
 public class LowHeapSpaceDaemonExpirationStrategy implements DaemonExpirationStrategy {
     private final DaemonMemoryStatus status;
+    private final RetainedCachesMonitor retainedCachesMonitor;
     private static final Logger LOG = Logging.getLogger(LowHeapSpaceDaemonExpirationStrategy.class);
 
     public static final String EXPIRATION_REASON = "after running out of JVM memory";
     public static final String EXPIRE_DAEMON_MESSAGE = "Expiring Daemon because JVM heap space is exhausted";
 
-    public LowHeapSpaceDaemonExpirationStrategy(DaemonMemoryStatus status) {
+    public LowHeapSpaceDaemonExpirationStrategy(DaemonMemoryStatus status, RetainedCachesMonitor retainedCachesMonitor) {
         this.status = status;
+        this.retainedCachesMonitor = retainedCachesMonitor;
     }
 
     @Override
     public DaemonExpirationResult checkExpiration() {
         if (status.isHeapSpaceExhausted()) {
+            if (retainedCachesMonitor.trimInsteadOfExpiring()) {
+                return DaemonExpirationResult.NOT_TRIGGERED;
+            }
             LOG.warn(EXPIRE_DAEMON_MESSAGE);
             return new DaemonExpirationResult(GRACEFUL_EXPIRE, EXPIRATION_REASON);
         } else {
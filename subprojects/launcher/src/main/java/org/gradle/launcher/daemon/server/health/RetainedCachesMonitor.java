@@ -0,0 +1,170 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.RetainedInMemoryCaches;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the number of entries of the in-memory caches retained by the daemon, to report which caches grow during each build.
+ * Optionally trims those caches when the heap is exhausted, instead of expiring the daemon straight away.
+ *
+ * <p>The virtual file system and the ClassLoader caches are not included, see {@link RetainedInMemoryCaches}.</p>
+ */
+public class RetainedCachesMonitor implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(RetainedCachesMonitor.class);
+
+    public static final String TRIM_CACHES_PROPERTY = "org.gradle.daemon.performance.trim-caches";
+
+    private static final int SAMPLE_INTERVAL_SECONDS = 10;
+    private static final int REPORTED_CACHES = 10;
+    // The GC stats are averaged over a window of events, so they take a while to reflect the effect of trimming
+    private static final long TRIM_GRACE_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long MIN_TRIM_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final RetainedInMemoryCaches caches;
+    private final Clock clock;
+    private final ManagedScheduledExecutor scheduler;
+    private final Object lock = new Object();
+    private Map<String, Integer> sizesAtBuildStart = new HashMap<String, Integer>();
+    private final Map<String, Integer> peakSizes = new HashMap<String, Integer>();
+    private int trimmedEntries;
+    private long lastTrim = -1;
+
+    public RetainedCachesMonitor(RetainedInMemoryCaches caches, ExecutorFactory executorFactory) {
+        this.caches = caches;
+        this.clock = Time.clock();
+        this.scheduler = executorFactory.createScheduled("Daemon retained caches monitor", 1);
+        scheduler.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL_SECONDS, SAMPLE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @VisibleForTesting
+    RetainedCachesMonitor(RetainedInMemoryCaches caches, Clock clock) {
+        this.caches = caches;
+        this.clock = clock;
+        this.scheduler = null;
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    public void buildStarted() {
+        Map<String, Integer> sizes = currentSizes();
+        synchronized (lock) {
+            sizesAtBuildStart = sizes;
+            peakSizes.clear();
+            peakSizes.putAll(sizes);
+        }
+    }
+
+    @VisibleForTesting
+    void sample() {
+        Map<String, Integer> sizes = currentSizes();
+        synchronized (lock) {
+            recordPeaks(sizes);
+        }
+    }
+
+    /**
+     * Returns the report for the build that has just finished.
+     */
+    public RetainedCachesReport buildFinished() {
+        Map<String, Integer> sizes = currentSizes();
+        synchronized (lock) {
+            recordPeaks(sizes);
+            List<RetainedCachesReport.CacheUsage> usages = new ArrayList<RetainedCachesReport.CacheUsage>(sizes.size());
+            for (Map.Entry<String, Integer> entry : sizes.entrySet()) {
+                Integer atBuildStart = sizesAtBuildStart.get(entry.getKey());
+                usages.add(new RetainedCachesReport.CacheUsage(entry.getKey(), entry.getValue(), peakSizes.get(entry.getKey()), atBuildStart == null ? 0 : atBuildStart));
+            }
+            usages.sort(Comparator.comparingInt(RetainedCachesReport.CacheUsage::getEntries).reversed());
+            int totalEntries = 0;
+            for (RetainedCachesReport.CacheUsage usage : usages) {
+                totalEntries += usage.getEntries();
+            }
+            List<RetainedCachesReport.CacheUsage> largest = usages.subList(0, Math.min(REPORTED_CACHES, usages.size()));
+            RetainedCachesReport report = new RetainedCachesReport(ImmutableList.copyOf(largest), totalEntries, trimmedEntries);
+            trimmedEntries = 0;
+            return report;
+        }
+    }
+
+    /**
+     * Called when the heap is exhausted. Trims the retained caches if enabled and not done recently.
+     *
+     * @return true when the daemon should be given the chance to recover rather than expire.
+     */
+    public boolean trimInsteadOfExpiring() {
+        if (!Boolean.getBoolean(TRIM_CACHES_PROPERTY)) {
+            return false;
+        }
+        synchronized (lock) {
+            long now = clock.getCurrentTime();
+            if (lastTrim >= 0 && now - lastTrim < TRIM_GRACE_PERIOD_MILLIS) {
+                return true;
+            }
+            if (lastTrim >= 0 && now - lastTrim < MIN_TRIM_INTERVAL_MILLIS) {
+                // Trimming recently did not help
+                return false;
+            }
+            lastTrim = now;
+            int trimmed = caches.trim();
+            trimmedEntries += trimmed;
+            LOGGER.info("Heap space is exhausted, discarded {} entries from in-memory caches.", trimmed);
+            return true;
+        }
+    }
+
+    // Caller must be holding lock
+    private void recordPeaks(Map<String, Integer> sizes) {
+        for (Map.Entry<String, Integer> entry : sizes.entrySet()) {
+            Integer peak = peakSizes.get(entry.getKey());
+            if (peak == null || peak < entry.getValue()) {
+                peakSizes.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private Map<String, Integer> currentSizes() {
+        // Several caches may share a display name, such as the caches created for each instantiation scheme, so combine them
+        Map<String, Integer> sizes = new LinkedHashMap<String, Integer>();
+        for (RetainedInMemoryCaches.CacheSize size : caches.getCacheSizes()) {
+            sizes.merge(size.getDisplayName(), size.getEntries(), Integer::sum);
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import java.util.List;
+
+/**
+ * The number of entries of the largest in-memory caches retained by the daemon, at the end of a build.
+ */
+public class RetainedCachesReport {
+    private final List<CacheUsage> largestCaches;
+    private final int totalEntries;
+    private final int trimmedEntries;
+
+    public RetainedCachesReport(List<CacheUsage> largestCaches, int totalEntries, int trimmedEntries) {
+        this.largestCaches = largestCaches;
+        this.totalEntries = totalEntries;
+        this.trimmedEntries = trimmedEntries;
+    }
+
+    /**
+     * The largest caches, largest first.
+     */
+    public List<CacheUsage> getLargestCaches() {
+        return largestCaches;
+    }
+
+    public int getTotalEntries() {
+        return totalEntries;
+    }
+
+    /**
+     * The number of entries discarded because the heap was exhausted, since the previous report.
+     */
+    public int getTrimmedEntries() {
+        return trimmedEntries;
+    }
+
+    public String getDescription() {
+        StringBuilder builder = new StringBuilder();
+        // The virtual file system and the ClassLoader caches are not tracked, say so rather than suggest they are empty
+        builder.append(String.format("Retained in-memory caches, excluding the virtual file system and ClassLoader caches [total entries: %d", totalEntries));
+        if (trimmedEntries > 0) {
+            builder.append(String.format(", trimmed entries: %d", trimmedEntries));
+        }
+        builder.append("]");
+        for (CacheUsage usage : largestCaches) {
+            builder.append(String.format("%n  %s: %d entries (%+d during build, peak %d)", usage.getDisplayName(), usage.getEntries(), usage.getEntries() - usage.getEntriesAtBuildStart(), usage.getPeakEntries()));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+
+    public static class CacheUsage {
+        private final String displayName;
+        private final int entries;
+        private final int peakEntries;
+        private final int entriesAtBuildStart;
+
+        public CacheUsage(String displayName, int entries, int peakEntries, int entriesAtBuildStart) {
+            this.displayName = displayName;
+            this.entries = entries;
+            this.peakEntries = peakEntries;
+            this.entriesAtBuildStart = entriesAtBuildStart;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public int getPeakEntries() {
+            return peakEntries;
+        }
+
+        public int getEntriesAtBuildStart() {
+            return entriesAtBuildStart;
+        }
+    }
+}
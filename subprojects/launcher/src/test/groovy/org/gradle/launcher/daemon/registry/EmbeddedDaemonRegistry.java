@@ -77,6 +77,10 @@ public List<DaemonInfo> getIdle() {
         return daemonInfosOfEntriesMatching(idleSpec);
     }
 
+    public List<DaemonInfo> getIdleWithoutLocking() {
+        return getIdle();
+    }
+
     public List<DaemonInfo> getNotIdle() {
         return daemonInfosOfEntriesMatching(busySpec);
     }
@@ -152,6 +152,49 @@ class PersistentDaemonRegistryTest extends Specification {
         registry.all.size() == 1
     }
 
+    def "idle daemons can be found without locking the registry"() {
+        given:
+        def idle = new MultiChoiceAddress(UUID.randomUUID(), 1001, [InetAddress.localHost])
+        def busy = new MultiChoiceAddress(UUID.randomUUID(), 1002, [InetAddress.localHost])
+        registry.store(new DaemonInfo(idle, daemonContext(), "password".bytes, Idle))
+        registry.store(new DaemonInfo(busy, daemonContext(), "password".bytes, Busy))
+
+        expect:
+        registry.idleWithoutLocking*.address == [idle]
+        new PersistentDaemonRegistry(file, lockManager, Stub(Chmod)).idleWithoutLocking*.address == [idle]
+
+        when:
+        registry.markState(busy, Idle)
+        registry.markState(idle, Busy)
+
+        then:
+        registry.idleWithoutLocking*.address == [busy]
+
+        when:
+        registry.remove(busy)
+
+        then:
+        registry.idleWithoutLocking.empty
+    }
+
+    def "finds no idle daemons without locking when the index is missing or invalid"() {
+        expect:
+        registry.idleWithoutLocking.empty
+
+        when:
+        tmp.file("registry.slots").text = "not an index"
+
+        then:
+        registry.idleWithoutLocking.empty
+
+        when:
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1001, [InetAddress.localHost])
+        registry.store(new DaemonInfo(address, daemonContext(), "password".bytes, Idle))
+
+        then:
+        registry.idleWithoutLocking*.address == [address]
+    }
+
     DaemonContext daemonContext() {
         new DaemonContextBuilder([maybeGetPid: {null}] as ProcessEnvironment).with {
             daemonRegistryDir = tmp.createDir("daemons")
@@ -21,6 +21,8 @@ import org.gradle.launcher.daemon.server.health.DaemonHealthCheck
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats
 import org.gradle.launcher.daemon.server.health.DaemonMemoryStatus
 import org.gradle.launcher.daemon.server.health.HealthLogger
+import org.gradle.launcher.daemon.server.health.RetainedCachesMonitor
+import org.gradle.launcher.daemon.server.health.RetainedCachesReport
 import spock.lang.Specification
 
 class LogAndCheckHealthTest extends Specification {
@@ -29,7 +31,8 @@ class LogAndCheckHealthTest extends Specification {
     def status = Mock(DaemonMemoryStatus)
     def logger = Mock(HealthLogger)
     def healthCheck = Mock(DaemonHealthCheck)
-    def tracker = new LogAndCheckHealth(stats, healthCheck, logger)
+    def retainedCachesMonitor = Mock(RetainedCachesMonitor)
+    def tracker = new LogAndCheckHealth(stats, healthCheck, retainedCachesMonitor, logger)
 
     def "does not track single use daemon"() {
         when:
@@ -48,4 +51,21 @@ class LogAndCheckHealthTest extends Specification {
         then:
         1 * healthCheck.executeHealthCheck()
     }
+
+    def "reports retained caches after the build"() {
+        def report = new RetainedCachesReport([], 0, 0)
+
+        when:
+        tracker.execute(exec)
+
+        then:
+        1 * retainedCachesMonitor.buildStarted()
+
+        then:
+        1 * exec.proceed()
+
+        then:
+        1 * retainedCachesMonitor.buildFinished() >> report
+        1 * logger.logRetainedCaches(report, _)
+    }
 }
@@ -41,4 +41,17 @@ class HealthLoggerTest extends Specification {
         when: healthLogger.logHealth(stats, logger)
         then: logger.lifecycle("yyy")
     }
+
+    def "logs retained caches at info level by default"() {
+        def report = new RetainedCachesReport([], 0, 0)
+        when: healthLogger.logRetainedCaches(report, logger)
+        then: logger.info(report.description)
+    }
+
+    def "may log retained caches at lifecycle level"() {
+        System.setProperty(HealthLogger.HEALTH_MESSAGE_PROPERTY, "true")
+        def report = new RetainedCachesReport([], 0, 0)
+        when: healthLogger.logRetainedCaches(report, logger)
+        then: logger.lifecycle(report.description)
+    }
 }
@@ -23,9 +23,10 @@ import static org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus.GR
 
 class LowHeapSpaceDaemonExpirationStrategyTest extends Specification {
     private final DaemonMemoryStatus status = Mock(DaemonMemoryStatus)
+    private final RetainedCachesMonitor retainedCachesMonitor = Mock(RetainedCachesMonitor)
 
     def "daemon is expired when tenured space is low" () {
-        LowHeapSpaceDaemonExpirationStrategy strategy = new LowHeapSpaceDaemonExpirationStrategy(status)
+        LowHeapSpaceDaemonExpirationStrategy strategy = new LowHeapSpaceDaemonExpirationStrategy(status, retainedCachesMonitor)
 
         when:
         DaemonExpirationResult result = strategy.checkExpiration()
@@ -39,7 +40,7 @@ class LowHeapSpaceDaemonExpirationStrategyTest extends Specification {
     }
 
     def "daemon is not expired when tenured space is fine" () {
-        LowHeapSpaceDaemonExpirationStrategy strategy = new LowHeapSpaceDaemonExpirationStrategy(status)
+        LowHeapSpaceDaemonExpirationStrategy strategy = new LowHeapSpaceDaemonExpirationStrategy(status, retainedCachesMonitor)
 
         when:
         DaemonExpirationResult result = strategy.checkExpiration()
@@ -50,4 +51,18 @@ class LowHeapSpaceDaemonExpirationStrategyTest extends Specification {
         and:
         result == DaemonExpirationResult.NOT_TRIGGERED
     }
+
+    def "daemon is not expired when retained caches are trimmed instead" () {
+        LowHeapSpaceDaemonExpirationStrategy strategy = new LowHeapSpaceDaemonExpirationStrategy(status, retainedCachesMonitor)
+
+        when:
+        DaemonExpirationResult result = strategy.checkExpiration()
+
+        then:
+        1 * status.isHeapSpaceExhausted() >> true
+        1 * retainedCachesMonitor.trimInsteadOfExpiring() >> true
+
+        and:
+        result == DaemonExpirationResult.NOT_TRIGGERED
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.cache.internal.RetainedInMemoryCaches
+import org.gradle.internal.time.Clock
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class RetainedCachesMonitorTest extends Specification {
+    @Rule SetSystemProperties props = new SetSystemProperties()
+    def caches = Mock(RetainedInMemoryCaches)
+    def clock = Mock(Clock)
+    def monitor = new RetainedCachesMonitor(caches, clock)
+
+    def "reports growth and peak of each cache during the build"() {
+        when:
+        monitor.buildStarted()
+        monitor.sample()
+        def report = monitor.buildFinished()
+
+        then:
+        1 * caches.getCacheSizes() >> [size("a", 10), size("b", 5)]
+        1 * caches.getCacheSizes() >> [size("a", 30), size("b", 5), size("c", 2)]
+        1 * caches.getCacheSizes() >> [size("a", 20), size("b", 5), size("c", 8)]
+
+        and:
+        report.totalEntries == 33
+        report.trimmedEntries == 0
+        report.largestCaches*.displayName == ["a", "c", "b"]
+        report.largestCaches*.entries == [20, 8, 5]
+        report.largestCaches*.peakEntries == [30, 8, 5]
+        report.largestCaches*.entriesAtBuildStart == [10, 0, 5]
+    }
+
+    def "combines caches with the same display name"() {
+        caches.getCacheSizes() >> [size("a", 10), size("a", 5)]
+
+        when:
+        monitor.buildStarted()
+        def report = monitor.buildFinished()
+
+        then:
+        report.largestCaches.size() == 1
+        report.largestCaches[0].entries == 15
+    }
+
+    def "does not trim caches by default"() {
+        when:
+        def trimmed = monitor.trimInsteadOfExpiring()
+
+        then:
+        !trimmed
+        0 * caches.trim()
+    }
+
+    def "trims caches when enabled and gives up when trimming did not help"() {
+        System.setProperty(RetainedCachesMonitor.TRIM_CACHES_PROPERTY, "true")
+        caches.getCacheSizes() >> []
+
+        when:
+        def trimmed = monitor.trimInsteadOfExpiring()
+
+        then:
+        trimmed
+        1 * clock.currentTime >> 0
+        1 * caches.trim() >> 100
+
+        when:
+        trimmed = monitor.trimInsteadOfExpiring()
+
+        then:
+        trimmed
+        1 * clock.currentTime >> 30_000
+        0 * caches.trim()
+
+        when:
+        trimmed = monitor.trimInsteadOfExpiring()
+
+        then:
+        !trimmed
+        1 * clock.currentTime >> 120_000
+        0 * caches.trim()
+
+        when:
+        trimmed = monitor.trimInsteadOfExpiring()
+
+        then:
+        trimmed
+        1 * clock.currentTime >> 1_200_000
+        1 * caches.trim() >> 20
+
+        when:
+        def report = monitor.buildFinished()
+
+        then:
+        report.trimmedEntries == 120
+        monitor.buildFinished().trimmedEntries == 0
+    }
+
+    private static RetainedInMemoryCaches.CacheSize size(String displayName, int entries) {
+        return new RetainedInMemoryCaches.CacheSize(displayName, entries, 0)
+    }
+}
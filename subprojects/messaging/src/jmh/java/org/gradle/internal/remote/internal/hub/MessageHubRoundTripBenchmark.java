@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.id.UUIDGenerator;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.remote.internal.inet.InetAddressFactory;
+import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
+import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Measures the throughput of message round-trips through a {@link MessageHub} connected over a local socket, for messages of different sizes.
+ *
+ * The client keeps a bounded number of messages in flight, similar to a worker sending results or output to the build process.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class MessageHubRoundTripBenchmark {
+    private static final int MESSAGES = 200;
+    private static final int MAX_IN_FLIGHT = 32;
+
+    @Param({"64", "16384", "1048576"})
+    int payloadSize;
+
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private DefaultExecutorFactory executorFactory;
+    private ConnectionAcceptor acceptor;
+    private volatile ObjectConnection serverConnection;
+    private ObjectConnection clientConnection;
+    private Echo echo;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executorFactory = new DefaultExecutorFactory();
+        MessageHubBackedServer server = new MessageHubBackedServer(new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator()), executorFactory);
+        MessageHubBackedClient client = new MessageHubBackedClient(new TcpOutgoingConnector(), executorFactory);
+
+        acceptor = server.accept(new Action<ObjectConnection>() {
+            @Override
+            public void execute(ObjectConnection connection) {
+                final Reply reply = connection.addOutgoing(Reply.class);
+                connection.addIncoming(Echo.class, new Echo() {
+                    @Override
+                    public void echo(byte[] payload) {
+                        reply.reply(payload);
+                    }
+                });
+                connection.connect();
+                serverConnection = connection;
+            }
+        });
+
+        clientConnection = client.getConnection(acceptor.getAddress());
+        echo = clientConnection.addOutgoing(Echo.class);
+        clientConnection.addIncoming(Reply.class, new Reply() {
+            @Override
+            public void reply(byte[] payload) {
+                inFlight.release();
+            }
+        });
+        clientConnection.connect();
+
+        payload = new byte[payloadSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        CompositeStoppable.stoppable(clientConnection, serverConnection, acceptor, executorFactory).stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void roundTrip() throws InterruptedException {
+        for (int i = 0; i < MESSAGES; i++) {
+            inFlight.acquire();
+            echo.echo(payload);
+        }
+        inFlight.acquire(MAX_IN_FLIGHT);
+        inFlight.release(MAX_IN_FLIGHT);
+    }
+
+    public interface Echo {
+        void echo(byte[] payload);
+    }
+
+    public interface Reply {
+        void reply(byte[] payload);
+    }
+}
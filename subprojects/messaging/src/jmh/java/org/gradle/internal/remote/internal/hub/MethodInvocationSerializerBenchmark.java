@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.internal.dispatch.MethodInvocation;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Message;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Method;
+
+/**
+ * Measures the round-trip latency of method invocations through {@link MethodInvocationSerializer}, for method arguments that are not
+ * handled by a serializer registry of the connection, comparing Java serialization of the arguments with {@link CompactMethodArgsSerializer}.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class MethodInvocationSerializerBenchmark {
+    private static final int INVOCATIONS = 1000;
+
+    @Param({"java", "compact"})
+    String serializer;
+
+    private MethodInvocationSerializer invocationSerializer;
+    private MethodInvocation[] invocations;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        MethodArgsSerializer argsSerializer = serializer.equals("java") ? new JavaSerializedArgsSerializer(classLoader) : new CompactMethodArgsSerializer(classLoader);
+        invocationSerializer = new MethodInvocationSerializer(classLoader, argsSerializer);
+
+        Method progress = Protocol.class.getMethod("progress", String.class, Long.class, Status.class);
+        Method completed = Protocol.class.getMethod("completed", Object.class, File.class);
+        invocations = new MethodInvocation[INVOCATIONS];
+        for (int i = 0; i < INVOCATIONS; i++) {
+            if (i % 4 == 3) {
+                invocations[i] = new MethodInvocation(completed, new Object[]{i, new File("build/classes/Thing" + i + ".class")});
+            } else {
+                invocations[i] = new MethodInvocation(progress, new Object[]{"Compiling source file " + i, (long) i, Status.RUNNING});
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INVOCATIONS)
+    public void roundTrip(Blackhole blackhole) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Encoder encoder = new KryoBackedEncoder(outputStream);
+        ObjectWriter<MethodInvocation> writer = invocationSerializer.newWriter(encoder);
+        for (MethodInvocation invocation : invocations) {
+            writer.write(invocation);
+            encoder.flush();
+        }
+
+        Decoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(outputStream.toByteArray()));
+        ObjectReader<MethodInvocation> reader = invocationSerializer.newReader(decoder);
+        for (int i = 0; i < INVOCATIONS; i++) {
+            blackhole.consume(reader.read());
+        }
+    }
+
+    public interface Protocol {
+        void progress(String operation, Long id, Status status);
+
+        void completed(Object result, File output);
+    }
+
+    public enum Status {
+        RUNNING, DONE
+    }
+
+    /**
+     * Writes all arguments of an invocation using Java serialization, as previously done for arguments not handled by a serializer registry.
+     */
+    private static class JavaSerializedArgsSerializer implements MethodArgsSerializer {
+        private final ClassLoader classLoader;
+
+        JavaSerializedArgsSerializer(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public Serializer<Object[]> forTypes(Class<?>[] types) {
+            return new Serializer<Object[]>() {
+                @Override
+                public Object[] read(Decoder decoder) throws Exception {
+                    return (Object[]) Message.receive(decoder.getInputStream(), classLoader);
+                }
+
+                @Override
+                public void write(Encoder encoder, Object[] value) throws Exception {
+                    Message.send(value, encoder.getOutputStream());
+                }
+            };
+        }
+    }
+}
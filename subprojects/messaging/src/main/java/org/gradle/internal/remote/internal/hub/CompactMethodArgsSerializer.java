@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.internal.Cast;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Message;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.SerializerRegistry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes the arguments of methods that are not handled by any of the {@link SerializerRegistry} instances of a connection.
+ *
+ * <p>Arguments of common value types, such as strings, boxed primitives, files and enums, are written using a compact encoding with a
+ * single tag per argument. Arguments of other types are written together, after the tags and the values, using a single Java serialization
+ * stream for all of them.</p>
+ *
+ * <p>Unlike when the whole argument array is written using Java serialization, shared references are not preserved for the value type
+ * arguments: an argument of a value type which is also passed as another argument, or which is referenced by an argument written using
+ * Java serialization, is received as a separate instance. Shared references between the arguments written using Java serialization are
+ * preserved.</p>
+ */
+class CompactMethodArgsSerializer implements MethodArgsSerializer {
+    private static final Object[] ZERO_ARGS = new Object[0];
+
+    private static final int NULL = 0;
+    private static final int JAVA_SERIALIZED = 1;
+    private static final int ENUM = 2;
+    private static final int FIRST_VALUE_TYPE = 3;
+
+    private static final Class<?>[] VALUE_TYPES = {
+        String.class, Boolean.class, Integer.class, Long.class, Short.class, Byte.class, Character.class, Float.class, Double.class, File.class, byte[].class
+    };
+    private static final Serializer<?>[] VALUE_SERIALIZERS = {
+        BaseSerializerFactory.STRING_SERIALIZER,
+        BaseSerializerFactory.BOOLEAN_SERIALIZER,
+        BaseSerializerFactory.INTEGER_SERIALIZER,
+        BaseSerializerFactory.LONG_SERIALIZER,
+        BaseSerializerFactory.SHORT_SERIALIZER,
+        BaseSerializerFactory.BYTE_SERIALIZER,
+        BaseSerializerFactory.CHAR_SERIALIZER,
+        BaseSerializerFactory.FLOAT_SERIALIZER,
+        BaseSerializerFactory.DOUBLE_SERIALIZER,
+        BaseSerializerFactory.FILE_SERIALIZER,
+        BaseSerializerFactory.BYTE_ARRAY_SERIALIZER
+    };
+    private static final Map<Class<?>, Integer> VALUE_TYPE_TAGS = new IdentityHashMap<Class<?>, Integer>();
+
+    static {
+        for (int i = 0; i < VALUE_TYPES.length; i++) {
+            VALUE_TYPE_TAGS.put(VALUE_TYPES[i], FIRST_VALUE_TYPE + i);
+        }
+    }
+
+    private final ClassLoader classLoader;
+
+    public CompactMethodArgsSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public Serializer<Object[]> forTypes(Class<?>[] types) {
+        if (types.length == 0) {
+            return new EmptyArraySerializer();
+        }
+        return new ArraySerializer(types.length);
+    }
+
+    private static class EmptyArraySerializer implements Serializer<Object[]> {
+        @Override
+        public Object[] read(Decoder decoder) {
+            return ZERO_ARGS;
+        }
+
+        @Override
+        public void write(Encoder encoder, Object[] value) {
+        }
+    }
+
+    private class ArraySerializer implements Serializer<Object[]> {
+        private final int length;
+
+        ArraySerializer(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public Object[] read(Decoder decoder) throws Exception {
+            Object[] result = new Object[length];
+            List<Integer> javaSerializedArgs = null;
+            for (int i = 0; i < length; i++) {
+                int tag = decoder.readSmallInt();
+                if (tag == JAVA_SERIALIZED) {
+                    if (javaSerializedArgs == null) {
+                        javaSerializedArgs = new ArrayList<Integer>();
+                    }
+                    javaSerializedArgs.add(i);
+                } else {
+                    result[i] = readArg(tag, decoder);
+                }
+            }
+            if (javaSerializedArgs != null) {
+                Object[] values = (Object[]) Message.receive(decoder.getInputStream(), classLoader);
+                for (int i = 0; i < values.length; i++) {
+                    result[javaSerializedArgs.get(i)] = values[i];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void write(Encoder encoder, Object[] value) throws Exception {
+            List<Object> javaSerializedArgs = null;
+            for (Object arg : value) {
+                if (!writeArg(encoder, arg)) {
+                    if (javaSerializedArgs == null) {
+                        javaSerializedArgs = new ArrayList<Object>();
+                    }
+                    javaSerializedArgs.add(arg);
+                }
+            }
+            if (javaSerializedArgs != null) {
+                Message.send(javaSerializedArgs.toArray(), encoder.getOutputStream());
+            }
+        }
+    }
+
+    private Object readArg(int tag, Decoder decoder) throws Exception {
+        switch (tag) {
+            case NULL:
+                return null;
+            case ENUM:
+                Class<?> enumType = Class.forName(decoder.readString(), false, classLoader);
+                return enumType.getEnumConstants()[decoder.readSmallInt()];
+            default:
+                return VALUE_SERIALIZERS[tag - FIRST_VALUE_TYPE].read(decoder);
+        }
+    }
+
+    /**
+     * Writes the tag of the given argument, and its value unless it must be written using Java serialization.
+     *
+     * @return false if the argument must be written using Java serialization.
+     */
+    private static boolean writeArg(Encoder encoder, Object arg) throws Exception {
+        if (arg == null) {
+            encoder.writeSmallInt(NULL);
+            return true;
+        }
+        Integer tag = VALUE_TYPE_TAGS.get(arg.getClass());
+        if (tag != null) {
+            encoder.writeSmallInt(tag);
+            Serializer<Object> serializer = Cast.uncheckedNonnullCast(VALUE_SERIALIZERS[tag - FIRST_VALUE_TYPE]);
+            serializer.write(encoder, arg);
+            return true;
+        } else if (arg instanceof Enum) {
+            Enum<?> enumValue = (Enum<?>) arg;
+            encoder.writeSmallInt(ENUM);
+            encoder.writeString(enumValue.getDeclaringClass().getName());
+            encoder.writeSmallInt(enumValue.ordinal());
+            return true;
+        } else {
+            encoder.writeSmallInt(JAVA_SERIALIZED);
+            return false;
+        }
+    }
+}
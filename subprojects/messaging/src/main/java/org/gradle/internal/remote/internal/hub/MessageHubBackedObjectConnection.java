@@ -125,7 +125,7 @@ public void connect() {
         } else {
             methodParamClassLoader = new CachingClassLoader(new MultiParentClassLoader(methodParamClassLoaders));
         }
-        MethodArgsSerializer argsSerializer = new DefaultMethodArgsSerializer(paramSerializers, new JavaSerializationBackedMethodArgsSerializer(methodParamClassLoader));
+        MethodArgsSerializer argsSerializer = new DefaultMethodArgsSerializer(paramSerializers, new CompactMethodArgsSerializer(methodParamClassLoader));
 
         StatefulSerializer<InterHubMessage> serializer = new InterHubMessageSerializer(
             new TypeSafeSerializer<MethodInvocation>(MethodInvocation.class,
@@ -151,9 +151,15 @@ public void close() throws IOException {
         }, instr, outstr, socket).stop();
     }
 
+    /**
+     * Reads from the socket through a buffer that starts small, so that idle connections are cheap, and that grows while the peer
+     * sends more data than fits into it, so that large messages are received using fewer reads.
+     */
     private static class SocketInputStream extends InputStream {
+        private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+        private static final int MAX_BUFFER_SIZE = 256 * 1024;
         private final Selector selector;
-        private final ByteBuffer buffer;
+        private ByteBuffer buffer;
         private final SocketChannel socket;
         private final byte[] readBuffer = new byte[1];
 
@@ -161,7 +167,7 @@ public SocketInputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_READ);
-            buffer = ByteBuffer.allocateDirect(4096);
+            buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
             BufferCaster.cast(buffer).limit(0);
         }
 
@@ -207,6 +213,9 @@ public int read(byte[] dest, int offset, int max) throws IOException {
                 if (nread < 0) {
                     return -1;
                 }
+                if (nread == buffer.capacity() && buffer.capacity() < MAX_BUFFER_SIZE) {
+                    growBuffer();
+                }
             }
 
             int count = Math.min(buffer.remaining(), max);
@@ -214,22 +223,36 @@ public int read(byte[] dest, int offset, int max) throws IOException {
             return count;
         }
 
+        private void growBuffer() {
+            ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.min(buffer.capacity() * 2, MAX_BUFFER_SIZE));
+            newBuffer.put(buffer);
+            BufferCaster.cast(newBuffer).flip();
+            buffer = newBuffer;
+        }
+
         @Override
         public void close() throws IOException {
             selector.close();
         }
     }
 
+    /**
+     * Writes to the socket through a buffer that grows while more data is written between flushes than fits into it, so that the
+     * messages written between two flushes, such as a batch of queued messages or a single large message, are sent using as few
+     * writes as possible.
+     */
     private static class SocketOutputStream extends OutputStream {
         private static final int RETRIES_WHEN_BUFFER_FULL = 2;
+        private static final int INITIAL_BUFFER_SIZE = 32 * 1024;
+        private static final int MAX_BUFFER_SIZE = 256 * 1024;
         private Selector selector;
         private final SocketChannel socket;
-        private final ByteBuffer buffer;
+        private ByteBuffer buffer;
         private final byte[] writeBuffer = new byte[1];
 
         public SocketOutputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
-            buffer = ByteBuffer.allocateDirect(32 * 1024);
+            buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
         }
 
         @Override
@@ -249,27 +272,40 @@ public void write(byte[] src, int offset, int max) throws IOException {
                     remaining -= count;
                     currentPos += count;
                 }
-                while (buffer.remaining() == 0) {
-                    writeBufferToChannel();
+                if (buffer.remaining() == 0) {
+                    if (buffer.capacity() < MAX_BUFFER_SIZE) {
+                        growBuffer();
+                    } else {
+                        writeBufferToChannel();
+                    }
                 }
             }
         }
 
         @Override
         public void flush() throws IOException {
-            while (buffer.position() > 0) {
+            if (buffer.position() > 0) {
                 writeBufferToChannel();
             }
         }
 
+        private void growBuffer() {
+            ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.min(buffer.capacity() * 2, MAX_BUFFER_SIZE));
+            BufferCaster.cast(buffer).flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+
         private void writeBufferToChannel() throws IOException {
             BufferCaster.cast(buffer).flip();
-            int count = writeWithNonBlockingRetry();
-            if (count == 0) {
-                // buffer was still full after non-blocking retries, now block
-                waitForWriteBufferToDrain();
+            while (buffer.hasRemaining()) {
+                int count = writeWithNonBlockingRetry();
+                if (count == 0) {
+                    // buffer was still full after non-blocking retries, now block
+                    waitForWriteBufferToDrain();
+                }
             }
-            buffer.compact();
+            BufferCaster.cast(buffer).clear();
         }
 
         private int writeWithNonBlockingRetry() throws IOException {
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.shm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits for the other end of a connection to change the shared memory. There is no way to block on such a change, so this spins briefly, then parks
+ * for durations that double on each attempt, up to a limit. This keeps the latency low while messages flow, and while a
+ * peer picks up again after being idle, at the cost of an idle waiting thread waking up about 2000 times per second.
+ *
+ * <p>Not thread safe. Each waiting thread uses its own instance.</p>
+ */
+class Backoff {
+    private static final int YIELD_ATTEMPTS = 100;
+    private static final int SHORT_PARK_ATTEMPTS = 200;
+    private static final long SHORT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private int attempt;
+    private long parkNanos = SHORT_PARK_NANOS;
+
+    /**
+     * Waits for a while, for longer the more attempts have been made since the last call to {@link #reset()}.
+     */
+    void idle() {
+        if (attempt < YIELD_ATTEMPTS) {
+            attempt++;
+            Thread.yield();
+        } else if (attempt < SHORT_PARK_ATTEMPTS) {
+            attempt++;
+            LockSupport.parkNanos(SHORT_PARK_NANOS);
+        } else {
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Called when the other end has made progress.
+     */
+    void reset() {
+        attempt = 0;
+        parkNanos = SHORT_PARK_NANOS;
+    }
+}
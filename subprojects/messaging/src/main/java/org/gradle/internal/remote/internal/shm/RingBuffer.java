@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.io.BufferCaster;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single producer, single consumer ring buffer in memory that is shared with another process. The producer and the consumer may live in different processes.
+ *
+ * <p>The read and write positions only ever increase, the position in the data area is the position modulo the capacity.
+ * The producer only updates the write position and the consumer only updates the read position, so no locking is required.</p>
+ */
+class RingBuffer {
+    static final int CONTROL_SIZE = 256;
+    // Keep the positions on separate cache lines, as they are updated by different processes
+    private static final int WRITE_POSITION_OFFSET = 0;
+    private static final int READ_POSITION_OFFSET = 64;
+    private static final int WRITER_CLOSED_OFFSET = 128;
+    private static final int READER_CLOSED_OFFSET = 192;
+
+    // Accesses to memory mapped buffers are not covered by the Java memory model. Updating an atomic issues a full fence on all
+    // supported platforms, which orders the accesses to the shared memory, as required between the data and the positions.
+    private static final AtomicLong FENCE = new AtomicLong();
+
+    private final ByteBuffer control;
+    private final ByteBuffer data;
+    private final int capacity;
+
+    RingBuffer(ByteBuffer control, ByteBuffer data) {
+        this.control = control;
+        this.data = data;
+        this.capacity = data.capacity();
+    }
+
+    /**
+     * Copies as many bytes as there is space for into this buffer, without blocking.
+     *
+     * @return the number of bytes written, which is 0 when this buffer is full.
+     */
+    int write(byte[] src, int offset, int length) {
+        long writePosition = control.getLong(WRITE_POSITION_OFFSET);
+        long readPosition = control.getLong(READ_POSITION_OFFSET);
+        fence();
+        int count = (int) Math.min(length, capacity - (writePosition - readPosition));
+        if (count <= 0) {
+            return 0;
+        }
+        int index = (int) (writePosition % capacity);
+        int first = Math.min(count, capacity - index);
+        BufferCaster.cast(data).position(index);
+        data.put(src, offset, first);
+        if (first < count) {
+            BufferCaster.cast(data).position(0);
+            data.put(src, offset + first, count - first);
+        }
+        fence();
+        control.putLong(WRITE_POSITION_OFFSET, writePosition + count);
+        return count;
+    }
+
+    /**
+     * Copies as many bytes as are available from this buffer, without blocking.
+     *
+     * @return the number of bytes read, which is 0 when this buffer is empty.
+     */
+    int read(byte[] dest, int offset, int length) {
+        long readPosition = control.getLong(READ_POSITION_OFFSET);
+        long writePosition = control.getLong(WRITE_POSITION_OFFSET);
+        fence();
+        int count = (int) Math.min(length, writePosition - readPosition);
+        if (count <= 0) {
+            return 0;
+        }
+        int index = (int) (readPosition % capacity);
+        int first = Math.min(count, capacity - index);
+        BufferCaster.cast(data).position(index);
+        data.get(dest, offset, first);
+        if (first < count) {
+            BufferCaster.cast(data).position(0);
+            data.get(dest, offset + first, count - first);
+        }
+        fence();
+        control.putLong(READ_POSITION_OFFSET, readPosition + count);
+        return count;
+    }
+
+    void closeWriter() {
+        fence();
+        control.putInt(WRITER_CLOSED_OFFSET, 1);
+    }
+
+    boolean isWriterClosed() {
+        boolean closed = control.getInt(WRITER_CLOSED_OFFSET) != 0;
+        fence();
+        return closed;
+    }
+
+    void closeReader() {
+        control.putInt(READER_CLOSED_OFFSET, 1);
+        fence();
+    }
+
+    boolean isReaderClosed() {
+        boolean closed = control.getInt(READER_CLOSED_OFFSET) != 0;
+        fence();
+        return closed;
+    }
+
+    private static void fence() {
+        FENCE.incrementAndGet();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.remote.Address;
+
+import java.io.File;
+
+/**
+ * The address of a connection through a memory mapped file, shared by two processes on the same machine.
+ */
+public class SharedMemoryAddress implements Address {
+    private final File file;
+
+    public SharedMemoryAddress(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "[shared memory file:" + file + "]";
+    }
+
+    @Override
+    public String toString() {
+        return getDisplayName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SharedMemoryAddress other = (SharedMemoryAddress) o;
+        return file.equals(other.file);
+    }
+
+    @Override
+    public int hashCode() {
+        return file.hashCode();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+
+public class SharedMemoryAddressSerializer implements Serializer<SharedMemoryAddress> {
+    @Override
+    public SharedMemoryAddress read(Decoder decoder) throws IOException {
+        return new SharedMemoryAddress(new File(decoder.readString()));
+    }
+
+    @Override
+    public void write(Encoder encoder, SharedMemoryAddress address) throws IOException {
+        encoder.writeString(address.getFile().getAbsolutePath());
+    }
+}
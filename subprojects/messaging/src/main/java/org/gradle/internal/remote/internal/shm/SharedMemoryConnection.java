@@ -0,0 +1,239 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.remote.internal.MessageIOException;
+import org.gradle.internal.remote.internal.MessageSerializer;
+import org.gradle.internal.remote.internal.RecoverableMessageIOException;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection between two processes on the same machine, which exchanges messages through the ring buffers of a {@link SharedMemoryRegion}
+ * instead of a socket.
+ *
+ * <p>There is no way to block on a change to shared memory, so a side that waits for its peer uses a {@link Backoff}. While waiting, it checks
+ * once per {@link #PEER_CHECK_INTERVAL_NANOS} whether the peer is still alive, and treats a peer that is gone as end of stream.</p>
+ */
+public class SharedMemoryConnection<T> implements RemoteConnection<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMemoryConnection.class);
+    static final long PEER_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SharedMemoryRegion region;
+    private final ObjectReader<T> objectReader;
+    private final ObjectWriter<T> objectWriter;
+    private final FlushableEncoder encoder;
+    private final RingBufferInputStream instr;
+    private final RingBufferOutputStream outstr;
+
+    SharedMemoryConnection(SharedMemoryRegion region, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
+        this.region = region;
+        instr = new RingBufferInputStream(region.getIncoming());
+        outstr = new RingBufferOutputStream(region.getOutgoing());
+        objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
+        encoder = streamSerializer.newEncoder(outstr);
+        objectWriter = messageSerializer.newWriter(encoder);
+    }
+
+    @Override
+    public String toString() {
+        return "shared memory connection through " + region.getFile();
+    }
+
+    @Override
+    public T receive() throws MessageIOException {
+        try {
+            return objectReader.read();
+        } catch (EOFException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Discarding EOFException: {}", e.toString());
+            }
+            return null;
+        } catch (ObjectStreamException e) {
+            throw new RecoverableMessageIOException(String.format("Could not read message from '%s'.", region.getFile()), e);
+        } catch (ClassNotFoundException e) {
+            throw new RecoverableMessageIOException(String.format("Could not read message from '%s'.", region.getFile()), e);
+        } catch (IOException e) {
+            throw new RecoverableMessageIOException(String.format("Could not read message from '%s'.", region.getFile()), e);
+        } catch (Throwable e) {
+            throw new MessageIOException(String.format("Could not read message from '%s'.", region.getFile()), e);
+        }
+    }
+
+    @Override
+    public void dispatch(T message) throws MessageIOException {
+        try {
+            objectWriter.write(message);
+        } catch (ObjectStreamException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, region.getFile()), e);
+        } catch (ClassNotFoundException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, region.getFile()), e);
+        } catch (IOException e) {
+            throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, region.getFile()), e);
+        } catch (Throwable e) {
+            throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, region.getFile()), e);
+        }
+    }
+
+    @Override
+    public void flush() throws MessageIOException {
+        try {
+            encoder.flush();
+        } catch (Throwable e) {
+            throw new MessageIOException(String.format("Could not write '%s'.", region.getFile()), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(new Closeable() {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }, instr, outstr, region).stop();
+    }
+
+    /**
+     * Waits for the peer of a stream, checking on a timer that the peer is still alive. Used by a single thread.
+     */
+    private class PeerWaiter {
+        private final Backoff backoff = new Backoff();
+        private long lastPeerCheck = System.nanoTime();
+
+        void waitForPeer() throws EOFException {
+            backoff.idle();
+            long now = System.nanoTime();
+            if (now - lastPeerCheck >= PEER_CHECK_INTERVAL_NANOS) {
+                lastPeerCheck = now;
+                if (!region.isPeerAlive()) {
+                    throw new EOFException("The other end of the connection has terminated.");
+                }
+            }
+        }
+
+        void progressed() {
+            backoff.reset();
+        }
+    }
+
+    private class RingBufferInputStream extends InputStream {
+        private final RingBuffer ring;
+        private final PeerWaiter waiter = new PeerWaiter();
+        private final byte[] readBuffer = new byte[1];
+
+        RingBufferInputStream(RingBuffer ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int nread = read(readBuffer, 0, 1);
+            if (nread <= 0) {
+                return nread;
+            }
+            return readBuffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] dest, int offset, int max) throws IOException {
+            if (max == 0) {
+                return 0;
+            }
+            while (true) {
+                int count = ring.read(dest, offset, max);
+                if (count > 0) {
+                    waiter.progressed();
+                    return count;
+                }
+                if (ring.isWriterClosed()) {
+                    // Pick up anything written before the writer was closed
+                    count = ring.read(dest, offset, max);
+                    return count > 0 ? count : -1;
+                }
+                if (ring.isReaderClosed()) {
+                    return -1;
+                }
+                try {
+                    waiter.waitForPeer();
+                } catch (EOFException e) {
+                    return -1;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            ring.closeReader();
+        }
+    }
+
+    private class RingBufferOutputStream extends OutputStream {
+        private final RingBuffer ring;
+        private final PeerWaiter waiter = new PeerWaiter();
+        private final byte[] writeBuffer = new byte[1];
+
+        RingBufferOutputStream(RingBuffer ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writeBuffer[0] = (byte) b;
+            write(writeBuffer, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] src, int offset, int max) throws IOException {
+            int remaining = max;
+            int currentPos = offset;
+            while (remaining > 0) {
+                if (ring.isReaderClosed()) {
+                    throw new EOFException("The other end of the connection has been closed.");
+                }
+                int count = ring.write(src, currentPos, remaining);
+                if (count > 0) {
+                    remaining -= count;
+                    currentPos += count;
+                    waiter.progressed();
+                } else {
+                    waiter.waitForPeer();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            ring.closeWriter();
+        }
+    }
+}
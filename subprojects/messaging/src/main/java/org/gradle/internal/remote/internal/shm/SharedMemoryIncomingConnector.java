@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.IncomingConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Accepts a single connection from another process on the same machine, through a memory mapped file created in the given directory.
+ *
+ * <p>The first time it accepts a connection, it deletes the files left behind in the directory by connections that have gone.</p>
+ */
+public class SharedMemoryIncomingConnector implements IncomingConnector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMemoryIncomingConnector.class);
+    private static final File SHARED_MEMORY_DIR = new File("/dev/shm");
+    private static final Set<PosixFilePermission> PRIVATE_DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> PRIVATE_FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+    private final ExecutorFactory executorFactory;
+    private final File directory;
+    private final AtomicBoolean staleFilesDeleted = new AtomicBoolean();
+
+    public SharedMemoryIncomingConnector(ExecutorFactory executorFactory, File directory) {
+        this.executorFactory = executorFactory;
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory to create the files in: a directory of the current user in the in-memory file system at /dev/shm, where there is one,
+     * so that the ring buffers are never written to disk, or else the given directory. The directory in /dev/shm is
+     * checked to be private to the current user when a connection is accepted.
+     */
+    public static File getConnectionsDirectory(File fallbackDirectory) {
+        if (SHARED_MEMORY_DIR.isDirectory() && SHARED_MEMORY_DIR.canWrite()) {
+            return new File(SHARED_MEMORY_DIR, "gradle-" + System.getProperty("user.name"));
+        }
+        return fallbackDirectory;
+    }
+
+    @Override
+    public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allowRemote) {
+        if (allowRemote) {
+            throw new IllegalArgumentException("Cannot accept connections from remote machines through shared memory.");
+        }
+        final SharedMemoryRegion region;
+        try {
+            boolean posix = directory.toPath().getFileSystem().supportedFileAttributeViews().contains("posix");
+            if (SHARED_MEMORY_DIR.equals(directory.getParentFile()) && posix) {
+                // Other users can see the files in /dev/shm, and can create the directory before this process does
+                createPrivateDirectory(directory.toPath());
+            } else if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException(String.format("Could not create directory %s.", directory));
+            }
+            if (staleFilesDeleted.compareAndSet(false, true)) {
+                SharedMemoryRegion.deleteStaleFiles(directory);
+            }
+            region = SharedMemoryRegion.create(createRegionFile(directory.toPath(), posix));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+
+        final Address address = new SharedMemoryAddress(region.getFile());
+        LOGGER.debug("Listening on {}.", address);
+
+        final Receiver receiver = new Receiver(region, action);
+        final ManagedExecutor executor = executorFactory.create("Incoming shared memory connector for " + region.getFile().getName());
+        executor.execute(receiver);
+
+        return new ConnectionAcceptor() {
+            @Override
+            public Address getAddress() {
+                return address;
+            }
+
+            @Override
+            public void requestStop() {
+                receiver.stopped = true;
+            }
+
+            @Override
+            public void stop() {
+                requestStop();
+                executor.stop();
+            }
+        };
+    }
+
+    /**
+     * Creates the given directory, so that only the current user can access it, or checks that the existing directory is only accessible by the
+     * current user.
+     */
+    private static void createPrivateDirectory(Path directory) throws IOException {
+        try {
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(PRIVATE_DIRECTORY_PERMISSIONS));
+        } catch (FileAlreadyExistsException e) {
+            // Check below
+        }
+        PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal currentUser = directory.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        if (!attributes.isDirectory() || !attributes.owner().equals(currentUser) || !attributes.permissions().equals(PRIVATE_DIRECTORY_PERMISSIONS)) {
+            throw new IOException(String.format("Directory %s must be a directory owned by %s that only its owner can access.", directory, currentUser.getName()));
+        }
+    }
+
+    /**
+     * Creates a file that only the current user can read and write.
+     */
+    private static File createRegionFile(Path directory, boolean posix) throws IOException {
+        if (posix) {
+            return Files.createTempFile(directory, SharedMemoryRegion.FILE_PREFIX, SharedMemoryRegion.FILE_SUFFIX, PosixFilePermissions.asFileAttribute(PRIVATE_FILE_PERMISSIONS)).toFile();
+        }
+        return Files.createTempFile(directory, SharedMemoryRegion.FILE_PREFIX, SharedMemoryRegion.FILE_SUFFIX).toFile();
+    }
+
+    private static class Receiver implements Runnable {
+        private final SharedMemoryRegion region;
+        private final Action<ConnectCompletion> action;
+        private volatile boolean stopped;
+
+        Receiver(SharedMemoryRegion region, Action<ConnectCompletion> action) {
+            this.region = region;
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            boolean connected = false;
+            Backoff backoff = new Backoff();
+            try {
+                while (!stopped) {
+                    if (region.isConnected()) {
+                        LOGGER.debug("Accepted connection through {}.", region.getFile());
+                        connected = true;
+                        // Both ends have mapped the file, so it is no longer needed
+                        region.deleteFile();
+                        action.execute(new SharedMemoryConnectCompletion(region));
+                        return;
+                    }
+                    backoff.idle();
+                }
+            } catch (Throwable e) {
+                LOGGER.error("Could not accept connection.", e);
+                connected = false;
+            } finally {
+                if (!connected) {
+                    CompositeStoppable.stoppable(region).stop();
+                }
+            }
+        }
+    }
+}
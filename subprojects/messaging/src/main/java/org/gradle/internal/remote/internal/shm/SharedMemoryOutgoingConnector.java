@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.ConnectException;
+import org.gradle.internal.remote.internal.OutgoingConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Connects to a {@link SharedMemoryAddress} created by a {@link SharedMemoryIncomingConnector} in another process on the same machine.
+ */
+public class SharedMemoryOutgoingConnector implements OutgoingConnector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMemoryOutgoingConnector.class);
+
+    @Override
+    public ConnectCompletion connect(Address destinationAddress) throws ConnectException {
+        if (!(destinationAddress instanceof SharedMemoryAddress)) {
+            throw new IllegalArgumentException(String.format("Cannot create a connection to address of unknown type: %s.", destinationAddress));
+        }
+        SharedMemoryAddress address = (SharedMemoryAddress) destinationAddress;
+        LOGGER.debug("Attempting to connect to {}.", address);
+        try {
+            return new SharedMemoryConnectCompletion(SharedMemoryRegion.open(address.getFile()));
+        } catch (IOException e) {
+            throw new ConnectException(String.format("Could not connect to server %s.", address), e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm;
+
+import org.gradle.internal.io.BufferCaster;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A memory mapped file shared by the two ends of a connection, holding a {@link RingBuffer} for each direction.
+ *
+ * <p>Each end holds a lock on a region of the file, beyond the mapped area, for as long as it is connected. The operating system releases the lock
+ * when the process holding it terminates, so the other end can find out that its peer is gone, even when it did not close the connection.</p>
+ *
+ * <p>The server deletes the file as soon as the client has mapped it, which the operating system allows on all platforms but Windows. Files that
+ * are left behind, because they could not be deleted or because the server terminated, are deleted by {@link #deleteStaleFiles(File)}.</p>
+ */
+class SharedMemoryRegion implements Closeable {
+    static final String FILE_PREFIX = "connection";
+    static final String FILE_SUFFIX = ".bin";
+    static final int RING_CAPACITY = 1024 * 1024;
+    // Give a server that has just created a file the time to lock it
+    private static final long STALE_FILE_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAGIC = 0x47534d31;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CONNECTED_OFFSET = 4;
+    private static final int CONTROL_OFFSET = 64;
+    private static final int DATA_OFFSET = CONTROL_OFFSET + 2 * RingBuffer.CONTROL_SIZE;
+    private static final int SIZE = DATA_OFFSET + 2 * RING_CAPACITY;
+    private static final int SERVER_LOCK_POSITION = SIZE;
+    private static final int CLIENT_LOCK_POSITION = SIZE + 1;
+
+    private final File file;
+    private final boolean server;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private final RingBuffer serverToClient;
+    private final RingBuffer clientToServer;
+    private FileLock lock;
+
+    private SharedMemoryRegion(File file, boolean server) throws IOException {
+        this.file = file;
+        this.server = server;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            if (server) {
+                randomAccessFile.setLength(SIZE);
+            } else if (randomAccessFile.length() != SIZE) {
+                throw new IOException(String.format("Unexpected size of shared memory file %s.", file));
+            }
+            FileChannel channel = randomAccessFile.getChannel();
+            lock = channel.lock(server ? SERVER_LOCK_POSITION : CLIENT_LOCK_POSITION, 1, false);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        serverToClient = new RingBuffer(slice(CONTROL_OFFSET, RingBuffer.CONTROL_SIZE), slice(DATA_OFFSET, RING_CAPACITY));
+        clientToServer = new RingBuffer(slice(CONTROL_OFFSET + RingBuffer.CONTROL_SIZE, RingBuffer.CONTROL_SIZE), slice(DATA_OFFSET + RING_CAPACITY, RING_CAPACITY));
+    }
+
+    /**
+     * Creates the file for a new connection, for a client to open.
+     */
+    static SharedMemoryRegion create(File file) throws IOException {
+        SharedMemoryRegion region = new SharedMemoryRegion(file, true);
+        region.buffer.putInt(MAGIC_OFFSET, MAGIC);
+        region.buffer.force();
+        return region;
+    }
+
+    /**
+     * Opens the file created by a server, and signals the server that the connection has been established.
+     */
+    static SharedMemoryRegion open(File file) throws IOException {
+        SharedMemoryRegion region = new SharedMemoryRegion(file, false);
+        if (region.buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            region.close();
+            throw new IOException(String.format("Unexpected content of shared memory file %s.", file));
+        }
+        region.buffer.putInt(CONNECTED_OFFSET, 1);
+        return region;
+    }
+
+    /**
+     * Deletes the files in the given directory that are not locked by a server, and so are not used by any connection.
+     */
+    static void deleteStaleFiles(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long staleBefore = System.currentTimeMillis() - STALE_FILE_AGE_MILLIS;
+        for (File file : files) {
+            if (file.getName().startsWith(FILE_PREFIX) && file.getName().endsWith(FILE_SUFFIX) && file.lastModified() < staleBefore && !isLockedByServer(file)) {
+                file.delete();
+            }
+        }
+    }
+
+    private static boolean isLockedByServer(File file) {
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                FileLock serverLock = randomAccessFile.getChannel().tryLock(SERVER_LOCK_POSITION, 1, false);
+                if (serverLock == null) {
+                    return true;
+                }
+                serverLock.release();
+                return false;
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (OverlappingFileLockException e) {
+            // The server lives in this process
+            return true;
+        } catch (IOException e) {
+            // Cannot tell, for example because the file belongs to another user
+            return true;
+        }
+    }
+
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        BufferCaster.cast(duplicate).position(offset);
+        BufferCaster.cast(duplicate).limit(offset + length);
+        return duplicate.slice();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Deletes the file of this region, which remains mapped by both ends. Does nothing when the file cannot be deleted while mapped.
+     */
+    void deleteFile() {
+        if (server) {
+            file.delete();
+        }
+    }
+
+    boolean isConnected() {
+        return buffer.getInt(CONNECTED_OFFSET) != 0;
+    }
+
+    RingBuffer getIncoming() {
+        return server ? clientToServer : serverToClient;
+    }
+
+    RingBuffer getOutgoing() {
+        return server ? serverToClient : clientToServer;
+    }
+
+    /**
+     * Returns false when the process at the other end of the connection has released its lock, which happens when it has closed the connection or terminated.
+     */
+    boolean isPeerAlive() {
+        try {
+            FileLock peerLock = randomAccessFile.getChannel().tryLock(server ? CLIENT_LOCK_POSITION : SERVER_LOCK_POSITION, 1, false);
+            if (peerLock == null) {
+                return true;
+            }
+            peerLock.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            // The peer lives in this process
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (lock != null) {
+                lock.release();
+                lock = null;
+            }
+            randomAccessFile.close();
+        } finally {
+            // The file is usually gone already. On Windows it cannot be deleted until it is unmapped, which happens when the buffer is garbage
+            // collected, so it is left for deleteStaleFiles()
+            deleteFile();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub
+
+import org.gradle.internal.serialize.SerializerSpec
+
+class CompactMethodArgsSerializerTest extends SerializerSpec {
+    def serializer = new CompactMethodArgsSerializer(getClass().classLoader)
+
+    def "serializes an empty args array"() {
+        expect:
+        def arraySerializer = serializer.forTypes([] as Class[])
+        serialize([] as Object[], arraySerializer).length == 0
+        toBytes([] as Object[], arraySerializer).length == 0
+    }
+
+    def "serializes single args"() {
+        expect:
+        def arraySerializer = serializer.forTypes([String,] as Class[])
+        serialize(["a"] as Object[], arraySerializer) == ["a"] as Object[]
+    }
+
+    def "serializes multiple args"() {
+        expect:
+        def arraySerializer = serializer.forTypes([String, Long, String] as Class[])
+        serialize(["a", 12L, "b"] as Object[], arraySerializer) == ["a", 12L, "b"] as Object[]
+    }
+
+    def "serializes args of value types without using Java serialization"() {
+        def args = [null, "a", true, 12, 12L, 1 as short, 2 as byte, 'c' as char, 1.5f, 2.5d, new File("some-file"), Thing.TWO] as Object[]
+        def arraySerializer = serializer.forTypes([Object] * args.length as Class[])
+
+        expect:
+        def result = usesEfficientSerialization(args, arraySerializer)
+        result == args
+        result[11].is(Thing.TWO)
+    }
+
+    def "serializes args of other types using Java serialization"() {
+        def failure = new RuntimeException("broken")
+        def arraySerializer = serializer.forTypes([Object, Throwable, String] as Class[])
+
+        when:
+        def result = serialize([[a: "b"], failure, "c"] as Object[], arraySerializer)
+
+        then:
+        result[0] == [a: "b"]
+        result[1] instanceof RuntimeException
+        result[1].message == "broken"
+        result[2] == "c"
+    }
+
+    def "serializes args of other types using a single Java serialization stream"() {
+        def shared = [1, 2]
+        def file = new File("some-file")
+        def arraySerializer = serializer.forTypes([Object, File, Object, Object] as Class[])
+
+        when:
+        def result = serialize([[a: shared], file, [b: shared, c: file], "d"] as Object[], arraySerializer)
+
+        then:
+        result[0] == [a: [1, 2]]
+        result[1] == file
+        result[2] == [b: [1, 2], c: file]
+        result[3] == "d"
+
+        and:
+        result[0].a.is(result[2].b)
+        !result[1].is(result[2].c)
+    }
+
+    def "serializes byte array args"() {
+        def arraySerializer = serializer.forTypes([byte[]] as Class[])
+
+        expect:
+        def result = usesEfficientSerialization([[1, 2, 3] as byte[]] as Object[], arraySerializer)
+        result[0] == [1, 2, 3] as byte[]
+    }
+
+    enum Thing {
+        ONE, TWO
+    }
+}
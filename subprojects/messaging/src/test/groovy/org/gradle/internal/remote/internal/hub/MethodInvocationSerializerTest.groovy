@@ -23,7 +23,7 @@ import spock.lang.Specification
 
 class MethodInvocationSerializerTest extends Specification {
     final classLoader = new GroovyClassLoader(getClass().classLoader)
-    final serializer = new MethodInvocationSerializer(classLoader, new JavaSerializationBackedMethodArgsSerializer(classLoader))
+    final serializer = new MethodInvocationSerializer(classLoader, new CompactMethodArgsSerializer(classLoader))
 
     def "serializes a method invocation with parameters"() {
         def method = String.class.getMethod("substring", Integer.TYPE, Integer.TYPE)
@@ -225,6 +225,32 @@ class TcpConnectorTest extends ConcurrentSpec {
         acceptor?.stop()
     }
 
+    def "can send messages larger than the connection buffers"() {
+        def messages = [(1..100000).join(","), "small", (1..300000).join(",")]
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def conn = event.create(serializer)
+            messages.each { conn.dispatch(it) }
+            conn.flush()
+            conn.stop()
+            instant.closed
+        } as Action, false)
+
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.closed
+
+        then:
+        connection.receive() == messages[0]
+        connection.receive() == messages[1]
+        connection.receive() == messages[2]
+        connection.receive() == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
     def "returns null on failure to receive due to truncated input"() {
         given:
         def incomingSerializer = { Encoder encoder, String value ->
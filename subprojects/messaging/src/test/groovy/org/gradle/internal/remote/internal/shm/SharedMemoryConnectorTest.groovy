@@ -0,0 +1,245 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.remote.internal.shm
+
+import org.gradle.api.Action
+import org.gradle.internal.remote.internal.ConnectCompletion
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Serializers
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Timeout
+
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermissions
+
+@Timeout(60)
+class SharedMemoryConnectorTest extends ConcurrentSpec {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER)
+    def incomingConnector = new SharedMemoryIncomingConnector(executorFactory, tmpDir.file("connections"))
+    def outgoingConnector = new SharedMemoryOutgoingConnector()
+
+    def "client can exchange messages with server"() {
+        def serverConnection
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            serverConnection = completion.create(serializer)
+            instant.connected
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.connected
+
+        connection.dispatch("ping")
+        connection.flush()
+
+        then:
+        serverConnection.receive() == "ping"
+
+        when:
+        serverConnection.dispatch("pong")
+        serverConnection.flush()
+
+        then:
+        connection.receive() == "pong"
+
+        cleanup:
+        connection?.stop()
+        serverConnection?.stop()
+        acceptor?.stop()
+    }
+
+    def "can send messages larger than the ring buffer"() {
+        def message = "a" * (SharedMemoryRegion.RING_CAPACITY * 3)
+        def received
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            def serverConnection = completion.create(serializer)
+            received = serverConnection.receive()
+            serverConnection.stop()
+            instant.received
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        connection.dispatch(message)
+        connection.flush()
+        thread.blockUntil.received
+
+        then:
+        received == message
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    def "receives remaining messages and then end of stream after peer has closed connection"() {
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            def serverConnection = completion.create(serializer)
+            serverConnection.dispatch("bye")
+            serverConnection.stop()
+            instant.closed
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.closed
+
+        then:
+        connection.receive() == "bye"
+        connection.receive() == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    def "receive returns null when peer terminates without closing the connection"() {
+        def serverConnection
+
+        given:
+        def acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            serverConnection = completion.create(serializer)
+            instant.connected
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.connected
+
+        when:
+        connection.dispatch("last")
+        connection.flush()
+        // Release the lock of the client without closing its ring buffers, as the operating system does when a process terminates
+        connection.@region.close()
+
+        then:
+        serverConnection.receive() == "last"
+        serverConnection.receive() == null
+
+        cleanup:
+        serverConnection?.stop()
+        acceptor?.stop()
+    }
+
+    def "receive returns null when connection is stopped locally"() {
+        def serverConnection
+        def received = "not received"
+
+        given:
+        def acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            serverConnection = completion.create(serializer)
+            instant.connected
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.connected
+
+        when:
+        async {
+            start {
+                received = serverConnection.receive()
+            }
+            thread.block()
+            serverConnection.stop()
+        }
+
+        then:
+        received == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    @Requires(TestPrecondition.NOT_WINDOWS)
+    def "removes the file once the client has connected"() {
+        def serverConnection
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion completion ->
+            serverConnection = completion.create(serializer)
+            instant.connected
+        } as Action, false)
+        def file = ((SharedMemoryAddress) acceptor.address).file
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.connected
+
+        then:
+        !file.exists()
+
+        cleanup:
+        connection?.stop()
+        serverConnection?.stop()
+        acceptor?.stop()
+    }
+
+    def "removes stale files that are not used by a connection"() {
+        def directory = tmpDir.file("connections")
+        def staleFile = directory.file("${SharedMemoryRegion.FILE_PREFIX}stale${SharedMemoryRegion.FILE_SUFFIX}").createFile()
+        staleFile.lastModified = System.currentTimeMillis() - 120000
+        def recentFile = directory.file("${SharedMemoryRegion.FILE_PREFIX}recent${SharedMemoryRegion.FILE_SUFFIX}").createFile()
+        def otherFile = directory.file("other.txt").createFile()
+        otherFile.lastModified = System.currentTimeMillis() - 120000
+        def usedFile = directory.file("${SharedMemoryRegion.FILE_PREFIX}used${SharedMemoryRegion.FILE_SUFFIX}")
+        def usedRegion = SharedMemoryRegion.create(usedFile)
+        usedFile.lastModified = System.currentTimeMillis() - 120000
+
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), false)
+
+        then:
+        !staleFile.exists()
+        recentFile.exists()
+        otherFile.exists()
+        usedFile.exists()
+
+        cleanup:
+        acceptor?.stop()
+        usedRegion?.close()
+    }
+
+    def "removes the file when stopped before a client connects"() {
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), false)
+        def file = ((SharedMemoryAddress) acceptor.address).file
+
+        then:
+        file.isFile()
+
+        when:
+        acceptor.stop()
+
+        then:
+        !file.exists()
+    }
+
+    @Requires(TestPrecondition.NOT_WINDOWS)
+    def "creates connection files that only the current user can access"() {
+        when:
+        def acceptor = incomingConnector.accept({} as Action, false)
+        def file = ((SharedMemoryAddress) acceptor.address).file
+
+        then:
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())) == "rw-------"
+
+        cleanup:
+        acceptor?.stop()
+    }
+}
@@ -38,7 +38,7 @@ class DefaultInstantiationScheme implements InstantiationScheme {
     private final ClassGenerator classGenerator;
 
     public DefaultInstantiationScheme(ConstructorSelector constructorSelector, ClassGenerator classGenerator, ServiceLookup defaultServices, Set<Class<? extends Annotation>> injectionAnnotations, CrossBuildInMemoryCacheFactory cacheFactory) {
-        this(constructorSelector, classGenerator, defaultServices, injectionAnnotations, cacheFactory.newClassCache());
+        this(constructorSelector, classGenerator, defaultServices, injectionAnnotations, cacheFactory.newClassCache("Deserialization constructors"));
     }
 
     private DefaultInstantiationScheme(ConstructorSelector constructorSelector, ClassGenerator classGenerator, ServiceLookup defaultServices, Set<Class<? extends Annotation>> injectionAnnotations, CrossBuildInMemoryCache<Class<?>, ClassGenerator.SerializationConstructor<?>> deserializationConstructorCache) {
@@ -151,7 +151,7 @@ private static ImmutableMap<Class<? extends Annotation>, AnnotationCategory> all
     }
 
     private static CrossBuildInMemoryCache<Class<?>, TypeAnnotationMetadata> initCache(Collection<Class<?>> ignoredSuperTypes, CrossBuildInMemoryCacheFactory cacheFactory) {
-        CrossBuildInMemoryCache<Class<?>, TypeAnnotationMetadata> result = cacheFactory.newClassCache();
+        CrossBuildInMemoryCache<Class<?>, TypeAnnotationMetadata> result = cacheFactory.newClassCache("Type annotation metadata");
         for (Class<?> ignoredSuperType : ignoredSuperTypes) {
             result.put(ignoredSuperType, EMPTY_TYPE_ANNOTATION_METADATA);
         }
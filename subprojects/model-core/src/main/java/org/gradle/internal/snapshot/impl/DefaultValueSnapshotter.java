@@ -18,6 +18,9 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.MapMaker;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
 import org.gradle.internal.hash.HashCode;
@@ -36,18 +39,35 @@
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
 public class DefaultValueSnapshotter implements ValueSnapshotter, IsolatableFactory {
+    /**
+     * System property that enables sharing of isolated values with equal content, see {@link #DefaultValueSnapshotter(ClassLoaderHierarchyHasher, ManagedFactoryRegistry, boolean)}.
+     */
+    public static final String INTERN_ISOLATED_VALUES_PROPERTY = "org.gradle.internal.isolation.intern-values";
+
     private final ValueVisitor<ValueSnapshot> valueSnapshotValueVisitor;
     private final ValueVisitor<Isolatable<?>> isolatableValueVisitor;
 
     public DefaultValueSnapshotter(ClassLoaderHierarchyHasher classLoaderHasher, ManagedFactoryRegistry managedFactoryRegistry) {
+        this(classLoaderHasher, managedFactoryRegistry, false);
+    }
+
+    /**
+     * @param internIsolatedValues when true, isolated collections and managed values with equal content are shared, so that values
+     * that are isolated many times (for example the classpath parameter of many work items) are only retained once.
+     * Only values that cannot refer to classes loaded by a particular ClassLoader are shared, so that a shared value never
+     * isolates to an object of a class from another ClassLoader.
+     */
+    public DefaultValueSnapshotter(ClassLoaderHierarchyHasher classLoaderHasher, ManagedFactoryRegistry managedFactoryRegistry, boolean internIsolatedValues) {
         this.valueSnapshotValueVisitor = new ValueSnapshotVisitor(classLoaderHasher);
-        this.isolatableValueVisitor = new IsolatableVisitor(classLoaderHasher, managedFactoryRegistry);
+        this.isolatableValueVisitor = new IsolatableVisitor(classLoaderHasher, managedFactoryRegistry, internIsolatedValues ? Interners.newWeakInterner() : null);
     }
 
     @Override
@@ -350,12 +370,61 @@ public ValueSnapshot properties(ImmutableList<MapEntrySnapshot<ValueSnapshot>> e
     }
 
     private static class IsolatableVisitor implements ValueVisitor<Isolatable<?>> {
+        /**
+         * Scalar values whose equality takes the ClassLoader of the value into account, or which do not refer to any class other than a JDK class.
+         */
+        private static final Set<Class<?>> CLASSLOADER_INDEPENDENT_SCALARS = ImmutableSet.of(
+            NullValueSnapshot.class,
+            StringValueSnapshot.class,
+            BooleanValueSnapshot.class,
+            IntegerValueSnapshot.class,
+            LongValueSnapshot.class,
+            ShortValueSnapshot.class,
+            HashCodeSnapshot.class,
+            FileValueSnapshot.class,
+            IsolatedEnumValueSnapshot.class,
+            IsolatedSerializedValueSnapshot.class
+        );
+
         private final ClassLoaderHierarchyHasher classLoaderHasher;
         private final ManagedFactoryRegistry managedFactoryRegistry;
+        private final Interner<Isolatable<?>> interner;
+        // Weak identity set of the values that have been interned
+        private final Set<Isolatable<?>> internedValues;
 
-        IsolatableVisitor(ClassLoaderHierarchyHasher classLoaderHasher, ManagedFactoryRegistry managedFactoryRegistry) {
+        IsolatableVisitor(ClassLoaderHierarchyHasher classLoaderHasher, ManagedFactoryRegistry managedFactoryRegistry, @Nullable Interner<Isolatable<?>> interner) {
             this.classLoaderHasher = classLoaderHasher;
             this.managedFactoryRegistry = managedFactoryRegistry;
+            this.interner = interner;
+            this.internedValues = interner == null ? null : Collections.newSetFromMap(new MapMaker().weakKeys().<Isolatable<?>, Boolean>makeMap());
+        }
+
+        /**
+         * Returns an existing isolated value with the same content, if any. Isolated values are immutable, so they can be shared.
+         * Only composite values are interned, as the cost of interning scalar values would outweigh the memory saved.
+         * A composite value is only interned when all of its elements are scalars from {@link #CLASSLOADER_INDEPENDENT_SCALARS} or interned values.
+         */
+        private Isolatable<?> intern(Isolatable<?> value, Iterable<? extends Isolatable<?>> elements) {
+            if (interner == null) {
+                return value;
+            }
+            for (Isolatable<?> element : elements) {
+                if (!CLASSLOADER_INDEPENDENT_SCALARS.contains(element.getClass()) && element != IsolatedList.EMPTY && !internedValues.contains(element)) {
+                    return value;
+                }
+            }
+            Isolatable<?> interned = interner.intern(value);
+            internedValues.add(interned);
+            return interned;
+        }
+
+        private Isolatable<?> internEntries(Isolatable<?> value, List<MapEntrySnapshot<Isolatable<?>>> entries) {
+            List<Isolatable<?>> elements = new ArrayList<>(entries.size() * 2);
+            for (MapEntrySnapshot<Isolatable<?>> entry : entries) {
+                elements.add(entry.getKey());
+                elements.add(entry.getValue());
+            }
+            return intern(value, elements);
         }
 
         @Override
@@ -420,7 +489,7 @@ public Isolatable<?> managedImmutableValue(Managed managed) {
 
         @Override
         public Isolatable<?> managedValue(Managed value, Isolatable<?> state) {
-            return new IsolatedManagedValue(value.publicType(), managedFactoryRegistry.lookup(value.getFactoryId()), state);
+            return intern(new IsolatedManagedValue(value.publicType(), managedFactoryRegistry.lookup(value.getFactoryId()), state), Collections.singletonList(state));
         }
 
         @Override
@@ -440,7 +509,7 @@ public Isolatable<?> emptyArray(Class<?> arrayType) {
 
         @Override
         public Isolatable<?> array(ImmutableList<Isolatable<?>> elements, Class<?> arrayType) {
-            return new IsolatedArray(elements, arrayType);
+            return intern(new IsolatedArray(elements, arrayType), elements);
         }
 
         @Override
@@ -450,22 +519,22 @@ public Isolatable<?> emptyList() {
 
         @Override
         public Isolatable<?> list(ImmutableList<Isolatable<?>> elements) {
-            return new IsolatedList(elements);
+            return intern(new IsolatedList(elements), elements);
         }
 
         @Override
         public Isolatable<?> set(ImmutableSet<Isolatable<?>> elements) {
-            return new IsolatedSet(elements);
+            return intern(new IsolatedSet(elements), elements);
         }
 
         @Override
         public Isolatable<?> map(ImmutableList<MapEntrySnapshot<Isolatable<?>>> elements) {
-            return new IsolatedMap(elements);
+            return internEntries(new IsolatedMap(elements), elements);
         }
 
         @Override
         public Isolatable<?> properties(ImmutableList<MapEntrySnapshot<Isolatable<?>>> elements) {
-            return new IsolatedProperties(elements);
+            return internEntries(new IsolatedProperties(elements), elements);
         }
     }
 }
@@ -60,6 +60,16 @@ public <S> S coerce(Class<S> type) {
         return null;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj) && arrayType.equals(((IsolatedArray) obj).arrayType);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + arrayType.hashCode();
+    }
+
     public Class<?> getArrayType() {
         return arrayType;
     }
@@ -47,6 +47,17 @@ public Enum isolate() {
         return value;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        // Also compare the values, in case enum types with the same name are loaded by different ClassLoaders
+        return super.equals(obj) && value == ((IsolatedEnumValueSnapshot) obj).value;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
     @Nullable
     @Override
     public <S> S coerce(Class<S> type) {
@@ -51,6 +51,20 @@ public <S> S coerce(Class<S> type) {
         return type.cast(factory.fromState(type, state.isolate()));
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (!super.equals(obj)) {
+            return false;
+        }
+        IsolatedManagedValue other = (IsolatedManagedValue) obj;
+        return targetType.equals(other.targetType) && factory.getId() == other.factory.getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + targetType.hashCode();
+    }
+
     public int getFactoryId() {
         return factory.getId();
     }
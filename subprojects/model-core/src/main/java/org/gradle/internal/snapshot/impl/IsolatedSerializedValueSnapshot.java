@@ -58,4 +58,15 @@ public <S> S coerce(Class<S> type) {
     public Class<?> getOriginalClass() {
         return originalClass;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        // Also compare the classes, in case classes with the same name and implementation hash are loaded by different ClassLoaders
+        return super.equals(obj) && originalClass == ((IsolatedSerializedValueSnapshot) obj).originalClass;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
 }
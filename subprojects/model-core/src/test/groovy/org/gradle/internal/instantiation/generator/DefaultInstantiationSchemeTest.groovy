@@ -28,7 +28,7 @@ class DefaultInstantiationSchemeTest extends Specification {
     def cacheFactory = new TestCrossBuildInMemoryCacheFactory()
     def classGenerator = AsmBackedClassGenerator.injectOnly([], Stub(PropertyRoleAnnotationHandler), [], cacheFactory, 123)
     def scheme = new DefaultInstantiationScheme(
-        new Jsr330ConstructorSelector(classGenerator, cacheFactory.newClassCache()),
+        new Jsr330ConstructorSelector(classGenerator, cacheFactory.newClassCache("test")),
         classGenerator,
         new DefaultServiceRegistry(),
         [] as Set,
@@ -28,7 +28,7 @@ import javax.inject.Inject
 
 class DependencyInjectionUsingClassGeneratorBackedInstantiatorTest extends Specification {
     final ClassGenerator classGenerator = AsmBackedClassGenerator.decorateAndInject([], Stub(PropertyRoleAnnotationHandler), [], new TestCrossBuildInMemoryCacheFactory(), 0)
-    final CrossBuildInMemoryCache cache = new TestCrossBuildInMemoryCacheFactory().newCache()
+    final CrossBuildInMemoryCache cache = new TestCrossBuildInMemoryCacheFactory().newCache("test")
     final ServiceLookup services = new DefaultServiceRegistry()
     final DependencyInjectingInstantiator instantiator = new DependencyInjectingInstantiator(new Jsr330ConstructorSelector(classGenerator, cache), services)
 
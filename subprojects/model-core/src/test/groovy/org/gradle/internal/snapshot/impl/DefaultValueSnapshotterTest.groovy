@@ -17,6 +17,7 @@
 package org.gradle.internal.snapshot.impl
 
 import org.gradle.api.Named
+import org.gradle.api.attributes.Attribute
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.model.NamedObjectInstantiator
 import org.gradle.api.internal.provider.DefaultMapProperty
@@ -819,6 +820,61 @@ class DefaultValueSnapshotterTest extends Specification {
         copy.files == files1.files
     }
 
+    def "isolated composite values with the same content are shared when interning is enabled"() {
+        def snapshotter = new DefaultValueSnapshotter(classLoaderHasher, managedFactoryRegistry, true)
+        def files = (1..10).collect { new File("file${it}.jar") }
+
+        expect:
+        def isolated1 = snapshotter.isolate([files, new LinkedHashSet<>(files), [a: files], files as File[]])
+        def isolated2 = snapshotter.isolate([new ArrayList<>(files), new LinkedHashSet<>(files), [a: new ArrayList<>(files)], files as File[]])
+        isolated1.is(isolated2)
+
+        def isolated3 = snapshotter.isolate(["other", files])
+        isolated3.elements[1].is(isolated1.elements[0])
+        !isolated3.is(isolated1)
+        isolated3.isolate() == ["other", files]
+    }
+
+    def "isolated values with the same content but different types are not shared"() {
+        def snapshotter = new DefaultValueSnapshotter(classLoaderHasher, managedFactoryRegistry, true)
+        def files = [new File("a")]
+
+        expect:
+        !snapshotter.isolate(files).is(snapshotter.isolate(files as Set))
+        !snapshotter.isolate(files as File[]).is(snapshotter.isolate(files as Object[]))
+        snapshotter.isolate(files as Object[]).isolate().class == Object[]
+        snapshotter.isolate(files as File[]).isolate().class == File[]
+    }
+
+    def "does not share isolated values that may refer to classes from a particular ClassLoader"() {
+        def snapshotter = new DefaultValueSnapshotter(classLoaderHasher, managedFactoryRegistry, true)
+        def attribute = Attribute.of("a", String)
+
+        expect:
+        def isolated = snapshotter.isolate([attribute])
+        !isolated.is(snapshotter.isolate([attribute]))
+        isolated == snapshotter.isolate([attribute])
+    }
+
+    def "isolated serialized values of classes from different ClassLoaders are not equal"() {
+        def bytes = [1, 2, 3] as byte[]
+        def hash = HashCode.fromInt(123)
+        def otherClass = new GroovyClassLoader(getClass().classLoader).parseClass("class Bean implements Serializable {}")
+
+        expect:
+        new IsolatedSerializedValueSnapshot(hash, bytes, Bean) == new IsolatedSerializedValueSnapshot(hash, bytes, Bean)
+        new IsolatedSerializedValueSnapshot(hash, bytes, Bean) != new IsolatedSerializedValueSnapshot(hash, bytes, otherClass)
+    }
+
+    def "does not share isolated values by default"() {
+        def files = [new File("a")]
+
+        expect:
+        def isolated = snapshotter.isolate(files)
+        !isolated.is(snapshotter.isolate(files))
+        isolated == snapshotter.isolate(files)
+    }
+
     def "creates snapshot for serializable type"() {
         def value = new Bean()
 
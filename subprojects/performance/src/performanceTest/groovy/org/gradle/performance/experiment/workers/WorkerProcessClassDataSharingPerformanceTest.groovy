@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.workers
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.annotations.RunFor
+import org.gradle.performance.annotations.Scenario
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+import org.gradle.process.internal.worker.child.WorkerClassDataSharing
+
+import static org.gradle.performance.annotations.ScenarioType.PER_WEEK
+import static org.gradle.performance.results.OperatingSystem.LINUX
+
+@RunFor([
+    @Scenario(type = PER_WEEK, operatingSystems = [LINUX], testProjects = ["workerApiProject"])
+])
+class WorkerProcessClassDataSharingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+    def "start worker processes (class data sharing comparison)"() {
+        given:
+        runner.testGroup = "worker api"
+        runner.buildSpec {
+            displayName("with class data sharing")
+            invocation {
+                args("-D${WorkerClassDataSharing.CLASS_DATA_SHARING_PROPERTY}=true")
+            }
+        }
+        runner.baseline {
+            displayName("without class data sharing")
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+    }
+
+    @Override
+    protected void defaultSpec(GradleBuildExperimentSpec.GradleBuilder builder) {
+        super.defaultSpec(builder)
+        builder.invocation {
+            // Worker daemons only live as long as the build process, so every build starts new worker processes
+            useDaemon(false)
+            cleanTasks("clean")
+            tasksToRun("processIsolation")
+            args("-PoutputSize=4", "--max-workers=4")
+        }
+    }
+}
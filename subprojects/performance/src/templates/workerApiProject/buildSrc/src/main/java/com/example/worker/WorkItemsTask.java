@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WorkItemsTask extends DefaultTask {
+    private int itemCount = 1;
+    private boolean batch;
+
+    @Inject
+    public WorkerExecutor getWorkerExecutor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @TaskAction
+    public void executeTask() {
+        WorkQueue workQueue = getWorkerExecutor().noIsolation();
+        List<Action<NoOpWorkAction.Parameters>> parameterActions = new ArrayList<Action<NoOpWorkAction.Parameters>>();
+        for (int i = 0; i < itemCount; i++) {
+            final int index = i;
+            parameterActions.add(new Action<NoOpWorkAction.Parameters>() {
+                @Override
+                public void execute(NoOpWorkAction.Parameters parameters) {
+                    parameters.getIndex().set(index);
+                }
+            });
+        }
+        if (batch) {
+            workQueue.submitBatch(NoOpWorkAction.class, parameterActions);
+        } else {
+            for (Action<NoOpWorkAction.Parameters> parameterAction : parameterActions) {
+                workQueue.submit(NoOpWorkAction.class, parameterAction);
+            }
+        }
+        workQueue.await();
+    }
+
+    @Input
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    @Input
+    public boolean isBatch() {
+        return batch;
+    }
+
+    public void setBatch(boolean batch) {
+        this.batch = batch;
+    }
+}
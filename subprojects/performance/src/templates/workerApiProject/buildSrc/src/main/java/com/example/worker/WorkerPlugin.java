@@ -41,6 +41,15 @@ public void execute(WorkerTask workerTask) {
             }
         });
 
+        project.getTasks().create("workItems", WorkItemsTask.class, new Action<WorkItemsTask>() {
+            @Override
+            public void execute(WorkItemsTask workItemsTask) {
+                Object maybeItemCount = project.findProperty("itemCount");
+                workItemsTask.setItemCount(Integer.parseInt(maybeItemCount == null ? "1" : maybeItemCount.toString()));
+                workItemsTask.setBatch(Boolean.parseBoolean(String.valueOf(project.findProperty("batch"))));
+            }
+        });
+
         project.getTasks().withType(WorkerTask.class, new Action<WorkerTask>() {
             @Override
             public void execute(WorkerTask workerTask) {
@@ -44,6 +44,10 @@ public void retainAll(Collection<? extends K> keysToRetain) {
         map.keySet().retainAll(keysToRetain);
     }
 
+    public int size() {
+        return map.size();
+    }
+
     public void clear() {
         map.clear();
     }
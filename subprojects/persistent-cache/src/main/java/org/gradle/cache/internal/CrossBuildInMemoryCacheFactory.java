@@ -41,8 +41,10 @@ public interface CrossBuildInMemoryCacheFactory {
      * The current implementation does not remove an entry during a build session that the entry has been used in, but this is not part of the contract.
      *
      * <p>Note: this should be used to create _only_ global scoped instances.
+     *
+     * @param displayName Describes the contents of the cache, for diagnostics such as the daemon's report of retained caches.
      */
-    <K, V> CrossBuildInMemoryCache<K, V> newCache();
+    <K, V> CrossBuildInMemoryCache<K, V> newCache(String displayName);
 
     /**
      * Creates a new cache instance. Keys and values are always referenced using strong references.
@@ -51,9 +53,10 @@ public interface CrossBuildInMemoryCacheFactory {
      *
      * <p>Note: this should be used to create _only_ global/Gradle user home scoped instances.
      *
+     * @param displayName Describes the contents of the cache, for diagnostics such as the daemon's report of retained caches.
      * @param retentionFilter Determines which values should be retained till the next build.
      */
-    <K, V> CrossBuildInMemoryCache<K, V> newCacheRetainingDataFromPreviousBuild(Predicate<V> retentionFilter);
+    <K, V> CrossBuildInMemoryCache<K, V> newCacheRetainingDataFromPreviousBuild(String displayName, Predicate<V> retentionFilter);
 
     /**
      * Creates a new cache instance whose keys are Class instances. Keys are referenced using strong or weak references, values by strong or soft references depending on their usage.
@@ -63,8 +66,10 @@ public interface CrossBuildInMemoryCacheFactory {
      * The current implementation does not remove an entry during a build session that the entry has been used in, but this is not part of the contract.
      *
      * <p>Note: this should be used to create _only_ global scoped instances.
+     *
+     * @param displayName Describes the contents of the cache, for diagnostics such as the daemon's report of retained caches.
      */
-    <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache();
+    <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache(String displayName);
 
     /**
      * Creates a new map instance whose keys are Class instances. Keys are referenced using strong or weak references, values by strong or other references depending on their usage.
@@ -42,7 +42,7 @@ public class DefaultInMemoryCacheDecoratorFactory implements InMemoryCacheDecora
 
     public DefaultInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
         this.longLivingProcess = longLivingProcess;
-        caches = cacheFactory.newCache();
+        caches = cacheFactory.newCache("In-memory persistent cache contents");
     }
 
     @Override
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.internal.service.scopes.Scope.Global;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+
+/**
+ * Provides access to the {@link CrossBuildInMemoryCache} instances retained by this process, so that their size can be monitored and they can be trimmed when memory is low.
+ *
+ * <p>Only the caches created by {@link CrossBuildInMemoryCacheFactory} are included. In particular, the virtual file system and the ClassLoader caches are not,
+ * as they belong to the Gradle user home services rather than this process, and neither can count its entries without walking its whole content.</p>
+ */
+@ThreadSafe
+@ServiceScope(Global.class)
+public interface RetainedInMemoryCaches {
+    /**
+     * Returns the current number of entries of each cache, largest first. This is cheap enough to call periodically, and does not wait for values that are being computed.
+     */
+    List<CacheSize> getCacheSizes();
+
+    /**
+     * Discards all entries that have not been used in the current build session, where the cache supports this.
+     *
+     * @return the number of discarded entries.
+     */
+    int trim();
+
+    class CacheSize {
+        private final String displayName;
+        private final int entries;
+        private final int evictedEntries;
+
+        public CacheSize(String displayName, int entries, int evictedEntries) {
+            this.displayName = displayName;
+            this.entries = entries;
+            this.evictedEntries = evictedEntries;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * The number of entries discarded by trimming or due to memory pressure, since the cache was created.
+         */
+        public int getEvictedEntries() {
+            return evictedEntries;
+        }
+
+        @Override
+        public String toString() {
+            return displayName + ": " + entries + " entries, " + evictedEntries + " evicted";
+        }
+    }
+}
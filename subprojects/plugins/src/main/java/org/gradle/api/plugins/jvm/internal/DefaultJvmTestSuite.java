@@ -142,7 +142,7 @@ public DefaultJvmTestSuite(String name, ConfigurationContainer configurations, D
                         case NONE: // fall-through
                         case JUNIT4: // fall-through
                         case KOTLIN_TEST:
-                            return new JUnitTestFramework(task, (DefaultTestFilter) task.getFilter());
+                            return new JUnitTestFramework((DefaultTestFilter) task.getFilter());
                         case JUNIT_JUPITER: // fall-through
                         case SPOCK:
                             return new JUnitPlatformTestFramework((DefaultTestFilter) task.getFilter());
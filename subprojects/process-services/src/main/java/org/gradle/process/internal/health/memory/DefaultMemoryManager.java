@@ -25,8 +25,18 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class DefaultMemoryManager implements MemoryManager, Stoppable {
@@ -34,6 +44,7 @@ public class DefaultMemoryManager implements MemoryManager, Stoppable {
     public static final int STATUS_INTERVAL_SECONDS = 5;
     private static final double DEFAULT_MIN_FREE_MEMORY_PERCENTAGE = 0.1D; // 10%
     private static final long MIN_THRESHOLD_BYTES = 384 * 1024 * 1024; // 384M
+    private static final double HEAP_PRESSURE_THRESHOLD = 0.7D; // 70% of the tenured space still used after a collection
 
     private final double minFreeMemoryPercentage;
     private final OsMemoryInfo osMemoryInfo;
@@ -42,12 +53,18 @@ public class DefaultMemoryManager implements MemoryManager, Stoppable {
     private final ManagedScheduledExecutor scheduler;
     private final JvmMemoryStatusListener jvmBroadcast;
     private final OsMemoryStatusListener osBroadcast;
+    private final JvmMemoryPressureListener jvmPressureBroadcast;
     private final boolean osMemoryStatusSupported;
     private final Object holdersLock = new Object();
     private final Object memoryLock = new Object();
     private final List<MemoryHolder> holders = new ArrayList<MemoryHolder>();
     private OsMemoryStatus currentOsMemoryStatus;
     private final OsMemoryStatusListener osMemoryStatusListener;
+    private final NotificationListener heapPressureListener = new HeapPressureListener();
+    private final List<MemoryPoolMXBean> memoryPools;
+    private final NotificationEmitter memoryNotifications;
+    // The collection usage threshold of each tenured pool before it was changed, as the threshold is global to the JVM
+    private final Map<MemoryPoolMXBean, Long> previousCollectionUsageThresholds = new LinkedHashMap<MemoryPoolMXBean, Long>();
 
     public DefaultMemoryManager(OsMemoryInfo osMemoryInfo, JvmMemoryInfo jvmMemoryInfo, ListenerManager listenerManager, ExecutorFactory executorFactory) {
         this(osMemoryInfo, jvmMemoryInfo, listenerManager, executorFactory, DEFAULT_MIN_FREE_MEMORY_PERCENTAGE, true);
@@ -55,6 +72,11 @@ public DefaultMemoryManager(OsMemoryInfo osMemoryInfo, JvmMemoryInfo jvmMemoryIn
 
     @VisibleForTesting
     DefaultMemoryManager(OsMemoryInfo osMemoryInfo, JvmMemoryInfo jvmMemoryInfo, ListenerManager listenerManager, ExecutorFactory executorFactory, double minFreeMemoryPercentage, boolean autoFree) {
+        this(osMemoryInfo, jvmMemoryInfo, listenerManager, executorFactory, minFreeMemoryPercentage, autoFree, ManagementFactory.getMemoryPoolMXBeans(), (NotificationEmitter) ManagementFactory.getMemoryMXBean());
+    }
+
+    @VisibleForTesting
+    DefaultMemoryManager(OsMemoryInfo osMemoryInfo, JvmMemoryInfo jvmMemoryInfo, ListenerManager listenerManager, ExecutorFactory executorFactory, double minFreeMemoryPercentage, boolean autoFree, List<MemoryPoolMXBean> memoryPools, NotificationEmitter memoryNotifications) {
         Preconditions.checkArgument(minFreeMemoryPercentage >= 0, "Free memory percentage must be >= 0");
         Preconditions.checkArgument(minFreeMemoryPercentage <= 1, "Free memory percentage must be <= 1");
         this.minFreeMemoryPercentage = minFreeMemoryPercentage;
@@ -64,8 +86,11 @@ public DefaultMemoryManager(OsMemoryInfo osMemoryInfo, JvmMemoryInfo jvmMemoryIn
         this.scheduler = executorFactory.createScheduled("Memory manager", 1);
         this.jvmBroadcast = listenerManager.getBroadcaster(JvmMemoryStatusListener.class);
         this.osBroadcast = listenerManager.getBroadcaster(OsMemoryStatusListener.class);
+        this.jvmPressureBroadcast = listenerManager.getBroadcaster(JvmMemoryPressureListener.class);
         this.osMemoryStatusSupported = supportsOsMemoryStatus();
         this.osMemoryStatusListener = new OsMemoryListener(autoFree);
+        this.memoryPools = memoryPools;
+        this.memoryNotifications = memoryNotifications;
         start();
     }
 
@@ -86,12 +111,48 @@ private void start() {
         } else {
             LOGGER.info("This JVM does not support getting OS memory, so no OS memory status updates will be broadcast");
         }
+        startHeapPressureNotifications();
+    }
+
+    private void startHeapPressureNotifications() {
+        for (MemoryPoolMXBean pool : memoryPools) {
+            // Only the tenured heap pools support usage thresholds
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported()) {
+                long maxBytes = pool.getUsage().getMax();
+                if (maxBytes > 0) {
+                    previousCollectionUsageThresholds.put(pool, pool.getCollectionUsageThreshold());
+                    pool.setCollectionUsageThreshold((long) (maxBytes * HEAP_PRESSURE_THRESHOLD));
+                }
+            }
+        }
+        if (previousCollectionUsageThresholds.isEmpty()) {
+            LOGGER.info("This JVM does not support heap usage thresholds, so no JVM memory pressure notifications will be broadcast");
+            return;
+        }
+        memoryNotifications.addNotificationListener(heapPressureListener, null, null);
     }
 
     @Override
     public void stop() {
         scheduler.stop();
         listenerManager.removeListener(osMemoryStatusListener);
+        stopHeapPressureNotifications();
+    }
+
+    private void stopHeapPressureNotifications() {
+        if (previousCollectionUsageThresholds.isEmpty()) {
+            return;
+        }
+        try {
+            memoryNotifications.removeNotificationListener(heapPressureListener);
+        } catch (ListenerNotFoundException e) {
+            // Ignore
+        }
+        // Restore rather than clear the thresholds, as other code in this JVM may rely on them
+        for (Map.Entry<MemoryPoolMXBean, Long> entry : previousCollectionUsageThresholds.entrySet()) {
+            entry.getKey().setCollectionUsageThreshold(entry.getValue());
+        }
+        previousCollectionUsageThresholds.clear();
     }
 
     @Override
@@ -170,6 +231,22 @@ public void onOsMemoryStatus(OsMemoryStatus os) {
         }
     }
 
+    private class HeapPressureListener implements NotificationListener {
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+                LOGGER.debug("JVM heap usage is above {}% after garbage collection", (int) (HEAP_PRESSURE_THRESHOLD * 100));
+                // Do not notify the listeners from the JMX notification thread
+                scheduler.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        jvmPressureBroadcast.onJvmMemoryPressure();
+                    }
+                });
+            }
+        }
+    }
+
     @Override
     public void addMemoryHolder(MemoryHolder holder) {
         synchronized (holdersLock) {
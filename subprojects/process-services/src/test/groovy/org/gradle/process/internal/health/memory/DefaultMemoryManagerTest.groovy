@@ -18,11 +18,19 @@ package org.gradle.process.internal.health.memory
 
 import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedScheduledExecutor
 import org.gradle.internal.event.ListenerManager
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.util.UsesNativeServices
 import spock.util.concurrent.PollingConditions
 
+import javax.management.Notification
+import javax.management.NotificationEmitter
+import javax.management.NotificationListener
+import java.lang.management.MemoryNotificationInfo
+import java.lang.management.MemoryPoolMXBean
+import java.lang.management.MemoryType
+import java.lang.management.MemoryUsage
 import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.TimeUnit
 
@@ -177,6 +185,52 @@ class DefaultMemoryManagerTest extends ConcurrentSpec {
         memoryManager.stop()
     }
 
+    def "broadcasts memory pressure when a collection leaves a tenured pool above the threshold"() {
+        given:
+        def pressureListener = Mock(JvmMemoryPressureListener)
+        def listenerManager = Stub(ListenerManager) {
+            getBroadcaster(JvmMemoryPressureListener) >> pressureListener
+        }
+        def scheduler = Stub(ManagedScheduledExecutor) {
+            execute(_) >> { Runnable action -> action.run() }
+        }
+        def executorFactory = Stub(ExecutorFactory) {
+            createScheduled(_, _) >> scheduler
+        }
+        def tenuredPool = heapPool(true, 100)
+        def edenPool = heapPool(false, 0)
+        def notifications = Mock(NotificationEmitter)
+        NotificationListener notificationListener = null
+
+        when:
+        def memoryManager = new DefaultMemoryManager(osMemoryInfo, jvmMemoryInfo, listenerManager, executorFactory, 0.25, false, [edenPool, tenuredPool], notifications)
+
+        then:
+        1 * tenuredPool.setCollectionUsageThreshold(700)
+        0 * edenPool.setCollectionUsageThreshold(_)
+        1 * notifications.addNotificationListener(_, null, null) >> { args -> notificationListener = args[0] }
+
+        when:
+        notificationListener.handleNotification(new Notification(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED, tenuredPool, 1), null)
+
+        then:
+        1 * pressureListener.onJvmMemoryPressure()
+
+        when:
+        notificationListener.handleNotification(new Notification(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED, tenuredPool, 2), null)
+
+        then:
+        0 * pressureListener.onJvmMemoryPressure()
+
+        when:
+        memoryManager.stop()
+
+        then:
+        1 * notifications.removeNotificationListener(notificationListener)
+        1 * tenuredPool.setCollectionUsageThreshold(100)
+        0 * edenPool.setCollectionUsageThreshold(_)
+    }
+
     def "can add and remove holders concurrently"() {
         given:
         osMemoryInfo.freeMemory =  MemoryAmount.of(1).bytes
@@ -219,4 +273,14 @@ class DefaultMemoryManagerTest extends ConcurrentSpec {
             new OsMemoryStatusSnapshot(totalMemory, freeMemory)
         }
     }
+
+    private MemoryPoolMXBean heapPool(boolean supportsThresholds, long collectionUsageThreshold) {
+        return Mock(MemoryPoolMXBean) {
+            getType() >> MemoryType.HEAP
+            isUsageThresholdSupported() >> supportsThresholds
+            isCollectionUsageThresholdSupported() >> supportsThresholds
+            getUsage() >> new MemoryUsage(0, 0, 0, 1000)
+            getCollectionUsageThreshold() >> collectionUsageThreshold
+        }
+    }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.MessagingClient;
+import org.gradle.internal.remote.MessagingServer;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.remote.services.MessagingServices;
+import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.service.ServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Measures how many test events per second a test worker can send to the build process, with and without {@link BatchingTestResultProcessor batching}.
+ *
+ * The build side asks the worker side to process a test class through a {@link RemoteTestClassProcessor}, and the worker side sends the events of the
+ * tests in the class back through a {@link RemoteTestResultProcessor}. Both sides talk over a loopback socket, through the same message hub and
+ * serializers as a real test worker.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class TestEventTransportBenchmark {
+    private static final int TESTS = 1000;
+    private static final int OUTPUT_CHUNKS_PER_TEST = 4;
+    private static final int EVENTS = TESTS * (2 + OUTPUT_CHUNKS_PER_TEST);
+
+    @Param({"false", "true"})
+    public boolean batchTestEvents;
+
+    private ServiceRegistry services;
+    private ConnectionAcceptor acceptor;
+    private ObjectConnection buildConnection;
+    private ObjectConnection workerConnection;
+    private BatchingTestResultProcessor workerResultProcessor;
+    private RemoteTestClassProcessor remoteTestClassProcessor;
+    private final CountingTestResultProcessor receivedEvents = new CountingTestResultProcessor();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        services = ServiceRegistryBuilder.builder().displayName("messaging services").provider(new BenchmarkMessagingServices()).build();
+        final ObjectConnection[] accepted = new ObjectConnection[1];
+        acceptor = services.get(MessagingServer.class).accept(new Action<ObjectConnection>() {
+            @Override
+            public void execute(ObjectConnection connection) {
+                synchronized (accepted) {
+                    accepted[0] = connection;
+                    accepted.notifyAll();
+                }
+            }
+        });
+        workerConnection = services.get(MessagingClient.class).getConnection(acceptor.getAddress());
+        synchronized (accepted) {
+            while (accepted[0] == null) {
+                accepted.wait();
+            }
+            buildConnection = accepted[0];
+        }
+
+        ScheduledExecutorService flushExecutor = batchTestEvents ? Executors.newSingleThreadScheduledExecutor() : null;
+        workerConnection.useParameterSerializers(TestEventSerializer.create());
+        workerResultProcessor = new BatchingTestResultProcessor(workerConnection.addOutgoing(RemoteTestResultProcessor.class), flushExecutor);
+        workerConnection.addIncoming(RemoteTestClassProcessor.class, new EventGeneratingTestClassProcessor(workerResultProcessor));
+        workerConnection.connect();
+
+        buildConnection.useParameterSerializers(TestEventSerializer.create());
+        buildConnection.addIncoming(RemoteTestResultProcessor.class, receivedEvents);
+        remoteTestClassProcessor = buildConnection.addOutgoing(RemoteTestClassProcessor.class);
+        buildConnection.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        workerResultProcessor.stop();
+        CompositeStoppable.stoppable(buildConnection, workerConnection, acceptor, services).stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void sendEvents() throws Exception {
+        receivedEvents.reset();
+        remoteTestClassProcessor.processTestClass(new DefaultTestClassRunInfo("org.gradle.SomeTest"));
+        receivedEvents.awaitCompletedTests(TESTS);
+    }
+
+    /**
+     * The worker side, which runs a test class by sending the events of its tests.
+     */
+    private static class EventGeneratingTestClassProcessor implements RemoteTestClassProcessor {
+        private final BatchingTestResultProcessor resultProcessor;
+
+        EventGeneratingTestClassProcessor(BatchingTestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor;
+        }
+
+        @Override
+        public void startProcessing() {
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            for (int i = 0; i < TESTS; i++) {
+                CompositeIdGenerator.CompositeId id = new CompositeIdGenerator.CompositeId(1L, (long) i);
+                resultProcessor.started(new DefaultTestMethodDescriptor(id, testClass.getTestClassName(), "test" + i), new TestStartEvent(i));
+                for (int j = 0; j < OUTPUT_CHUNKS_PER_TEST; j++) {
+                    resultProcessor.output(id, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "Some output line " + j + "\n"));
+                }
+                resultProcessor.completed(id, new TestCompleteEvent(i + 1, TestResult.ResultType.SUCCESS));
+            }
+            resultProcessor.flush();
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    /**
+     * The build side, which counts the completed tests.
+     */
+    private static class CountingTestResultProcessor implements RemoteTestResultProcessor {
+        private int completedTests;
+
+        synchronized void reset() {
+            completedTests = 0;
+        }
+
+        synchronized void awaitCompletedTests(int count) throws InterruptedException, TimeoutException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (completedTests < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException("Received " + completedTests + " of " + count + " completed tests.");
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+
+        @Override
+        public void process(TestEventBatch batch) {
+            batch.replay(this);
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+        }
+
+        @Override
+        public synchronized void completed(Object testId, TestCompleteEvent event) {
+            completedTests++;
+            notifyAll();
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+        }
+    }
+
+    private static class BenchmarkMessagingServices extends MessagingServices {
+        protected ExecutorFactory createExecutorFactory() {
+            return new DefaultExecutorFactory();
+        }
+    }
+}
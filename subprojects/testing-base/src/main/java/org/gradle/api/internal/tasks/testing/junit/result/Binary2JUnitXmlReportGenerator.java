@@ -35,6 +35,9 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 public class Binary2JUnitXmlReportGenerator {
 
@@ -55,7 +58,20 @@ public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider t
     }
 
     public void generate() {
+        generate(Collections.<String>emptySet());
+    }
+
+    /**
+     * Generates the XML results for all test classes, except those whose results have already been written to the results directory.
+     *
+     * @param upToDateClassNames the names of the classes whose results are already up-to-date.
+     */
+    public void generate(final Set<String> upToDateClassNames) {
         Timer clock = Time.startTimer();
+        final Set<String> upToDateFileNames = new HashSet<String>();
+        for (String className : upToDateClassNames) {
+            upToDateFileNames.add(getReportFileName(className));
+        }
 
         buildOperationExecutor.run(new RunnableBuildOperation() {
             @Override
@@ -63,7 +79,7 @@ public void run(BuildOperationContext context) {
                 File[] oldXmlFiles = testResultsDir.listFiles(new FilenameFilter() {
                     @Override
                     public boolean accept(File dir, String name) {
-                        return name.startsWith("TEST") && name.endsWith(".xml");
+                        return name.startsWith("TEST") && name.endsWith(".xml") && !upToDateFileNames.contains(name);
                     }
                 });
 
@@ -84,7 +100,10 @@ public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue
                 testResultsProvider.visitClasses(new Action<TestClassResult>() {
                     @Override
                     public void execute(final TestClassResult result) {
-                        final File reportFile = new File(testResultsDir, getReportFileName(result));
+                        if (upToDateClassNames.contains(result.getClassName())) {
+                            return;
+                        }
+                        final File reportFile = new File(testResultsDir, getReportFileName(result.getClassName()));
                         queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
                     }
                 });
@@ -94,8 +113,21 @@ public void execute(final TestClassResult result) {
         LOG.info("Finished generating test XML results ({}) into: {}", clock.getElapsed(), testResultsDir);
     }
 
-    private String getReportFileName(TestClassResult result) {
-        return "TEST-" + FileUtils.toSafeFileName(result.getClassName()) + ".xml";
+    static String getReportFileName(String className) {
+        return "TEST-" + FileUtils.toSafeFileName(className) + ".xml";
+    }
+
+    static void writeReportFile(TestClassResult result, File reportFile, JUnitXmlResultWriter xmlWriter) {
+        FileOutputStream output = null;
+        try {
+            output = new FileOutputStream(reportFile);
+            xmlWriter.write(result, output);
+            output.close();
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), reportFile), e);
+        } finally {
+            IoActions.closeQuietly(output);
+        }
     }
 
     private static class JUnitXmlReportFileGenerator implements RunnableBuildOperation {
@@ -116,16 +148,7 @@ public BuildOperationDescriptor.Builder description() {
 
         @Override
         public void run(BuildOperationContext context) {
-            FileOutputStream output = null;
-            try {
-                output = new FileOutputStream(reportFile);
-                xmlWriter.write(result, output);
-                output.close();
-            } catch (Exception e) {
-                throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), reportFile), e);
-            } finally {
-                IoActions.closeQuietly(output);
-            }
+            writeReportFile(result, reportFile, xmlWriter);
         }
     }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.Action;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestDescriptor;
+import org.gradle.api.tasks.testing.TestListener;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestOutputListener;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.IoActions;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes the JUnit XML results for each test class as soon as the class completes, while the remaining tests are still running, so that most of the
+ * results are already written when test execution finishes.
+ *
+ * <p>Must be registered after the {@link TestReportDataCollector} that collects the results. The results are written on a single background thread, in the order the classes complete.
+ * Classes whose results or output change after their results were written, and classes whose results were still queued when this generator was stopped, are not
+ * included in {@link #getUpToDateClassNames()} and need to be written by {@link Binary2JUnitXmlReportGenerator}.
+ */
+public class StreamingJUnitXmlReportGenerator implements TestListener, TestOutputListener, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(StreamingJUnitXmlReportGenerator.class);
+
+    private final File testResultsDir;
+    private final Map<String, TestClassResult> results;
+    private final TestOutputStore.Writer outputWriter;
+    private final JUnitXmlResultOptions options;
+    private final String hostName;
+    private final ManagedExecutor executor;
+    private final ConcurrentMap<String, TestClassResult> submitted = new ConcurrentHashMap<String, TestClassResult>();
+    private final ConcurrentMap<String, TestClassResult> written = new ConcurrentHashMap<String, TestClassResult>();
+    private volatile boolean stopped;
+
+    public StreamingJUnitXmlReportGenerator(File testResultsDir, Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter, JUnitXmlResultOptions options, String hostName, ExecutorFactory executorFactory) {
+        this.testResultsDir = testResultsDir;
+        this.results = results;
+        this.outputWriter = outputWriter;
+        this.options = options;
+        this.hostName = hostName;
+        this.executor = executorFactory.create("JUnit XML results writer", 1);
+    }
+
+    @Override
+    public void beforeSuite(TestDescriptor suite) {
+    }
+
+    @Override
+    public void afterSuite(TestDescriptor suite, TestResult result) {
+        String className = suite.getClassName();
+        if (className == null || !className.equals(suite.getName()) || stopped) {
+            // Not a test class
+            return;
+        }
+        TestClassResult classResult = results.get(className);
+        if (classResult == null) {
+            return;
+        }
+
+        // Take a copy of the results collected so far, as more results may be added for the class while the results are written
+        final TestClassResult snapshot = new TestClassResult(classResult.getId(), className, classResult.getClassDisplayName(), classResult.getStartTime());
+        for (TestMethodResult methodResult : classResult.getResults()) {
+            snapshot.add(methodResult);
+        }
+        final TestOutputStore.OutputSnapshot output = outputWriter.snapshot(classResult.getId());
+        submitted.put(className, snapshot);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(snapshot, output);
+            }
+        });
+    }
+
+    @Override
+    public void beforeTest(TestDescriptor testDescriptor) {
+    }
+
+    @Override
+    public void afterTest(TestDescriptor testDescriptor, TestResult result) {
+    }
+
+    @Override
+    public void onOutput(TestDescriptor testDescriptor, TestOutputEvent outputEvent) {
+        for (TestDescriptor current = testDescriptor; current != null; current = current.getParent()) {
+            if (current.getClassName() != null) {
+                // Any results written for the class are missing this output
+                submitted.remove(current.getClassName());
+                return;
+            }
+        }
+    }
+
+    private void write(TestClassResult snapshot, TestOutputStore.OutputSnapshot output) {
+        if (stopped) {
+            // Leave the remaining classes to be written in parallel once test execution has finished
+            return;
+        }
+        File reportFile = new File(testResultsDir, Binary2JUnitXmlReportGenerator.getReportFileName(snapshot.getClassName()));
+        SnapshotResultsProvider resultsProvider = null;
+        try {
+            resultsProvider = new SnapshotResultsProvider(snapshot, output.reader());
+            Binary2JUnitXmlReportGenerator.writeReportFile(snapshot, reportFile, new JUnitXmlResultWriter(hostName, resultsProvider, options));
+            written.put(snapshot.getClassName(), snapshot);
+        } catch (Exception e) {
+            LOGGER.debug("Could not write XML test results for {} while tests are running. Results will be written after test execution.", snapshot.getClassName(), e);
+        } finally {
+            IoActions.closeQuietly(resultsProvider);
+        }
+    }
+
+    /**
+     * Stops writing results and waits for the class currently being written. Results that are still queued are discarded.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        executor.stop();
+    }
+
+    /**
+     * Returns the names of the classes whose XML results have been written and are up-to-date with the collected results. Must be called after {@link #stop()}.
+     */
+    public Set<String> getUpToDateClassNames() {
+        Set<String> upToDate = new HashSet<String>();
+        for (Map.Entry<String, TestClassResult> entry : written.entrySet()) {
+            String className = entry.getKey();
+            TestClassResult writtenResult = entry.getValue();
+            TestClassResult currentResult = results.get(className);
+            if (submitted.get(className) == writtenResult
+                && currentResult != null
+                && currentResult.getId() == writtenResult.getId()
+                && currentResult.getTestsCount() == writtenResult.getTestsCount()) {
+                upToDate.add(className);
+            }
+        }
+        return upToDate;
+    }
+
+    private static class SnapshotResultsProvider implements TestResultsProvider {
+        private final TestClassResult result;
+        private final TestOutputStore.Reader reader;
+
+        SnapshotResultsProvider(TestClassResult result, TestOutputStore.Reader reader) {
+            this.result = result;
+            this.reader = reader;
+        }
+
+        @Override
+        public void writeAllOutput(long classId, TestOutputEvent.Destination destination, Writer writer) {
+            reader.writeAllOutput(classId, destination, writer);
+        }
+
+        @Override
+        public void writeNonTestOutput(long classId, TestOutputEvent.Destination destination, Writer writer) {
+            reader.writeNonTestOutput(classId, destination, writer);
+        }
+
+        @Override
+        public void writeTestOutput(long classId, long testId, TestOutputEvent.Destination destination, Writer writer) {
+            reader.writeTestOutput(classId, testId, destination, writer);
+        }
+
+        @Override
+        public void visitClasses(Action<? super TestClassResult> visitor) {
+            visitor.execute(result);
+        }
+
+        @Override
+        public boolean hasOutput(long classId, TestOutputEvent.Destination destination) {
+            return reader.hasOutput(classId, destination);
+        }
+
+        @Override
+        public boolean hasOutput(long classId, long testId, TestOutputEvent.Destination destination) {
+            return reader.hasOutput(classId, testId, destination);
+        }
+
+        @Override
+        public boolean isHasResults() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -18,27 +18,40 @@
 
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.io.RandomAccessFileInputStream;
-import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
-import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Stores the output of tests.
+ *
+ * <p>The output is stored in a data file, in the order it is received. Output received for the same test and destination without any other output in between is
+ * stored as a single contiguous run of bytes. An index file records the runs for each test and destination, so the output of a single test can be read
+ * by seeking directly to its runs, without scanning over the output of other tests.
+ */
 public class TestOutputStore {
 
     private final File resultsDir;
@@ -57,34 +70,48 @@ File getIndexFile() {
         return new File(resultsDir, getOutputsFile().getName() + ".idx");
     }
 
-    private static class Region {
-        long start;
+    /**
+     * A contiguous region of the data file, containing output for a single test and destination.
+     */
+    private static class Run {
+        final long start;
         long stop;
 
-        private Region() {
-            start = -1;
-            stop = -1;
-        }
-
-        private Region(long start, long stop) {
+        private Run(long start, long stop) {
             this.start = start;
             this.stop = stop;
         }
     }
 
-    private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
+    private static class TestCaseRuns {
+        final List<Run> stdOut = new ArrayList<Run>();
+        final List<Run> stdErr = new ArrayList<Run>();
+
+        List<Run> get(boolean stdout) {
+            return stdout ? stdOut : stdErr;
+        }
+
+        TestCaseRuns copy() {
+            TestCaseRuns copy = new TestCaseRuns();
+            for (Run run : stdOut) {
+                copy.stdOut.add(new Run(run.start, run.stop));
+            }
+            for (Run run : stdErr) {
+                copy.stdErr.add(new Run(run.start, run.stop));
+            }
+            return copy;
+        }
     }
 
     public class Writer implements Closeable {
-        private final KryoBackedEncoder output;
+        private final OutputStream output;
+        private long position;
 
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, Map<Long, TestCaseRuns>> index = new LinkedHashMap<Long, Map<Long, TestCaseRuns>>();
 
         public Writer() {
             try {
-                output = new KryoBackedEncoder(new FileOutputStream(getOutputsFile()));
+                output = new BufferedOutputStream(new FileOutputStream(getOutputsFile()));
             } catch (FileNotFoundException e) {
                 throw new UncheckedIOException(e);
             }
@@ -92,7 +119,11 @@ public Writer() {
 
         @Override
         public void close() {
-            output.close();
+            try {
+                output.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
             writeIndex();
         }
 
@@ -102,11 +133,6 @@ public void onOutput(long classId, TestOutputEvent outputEvent) {
 
         public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
             boolean stdout = outputEvent.getDestination() == TestOutputEvent.Destination.StdOut;
-            mark(classId, testId, stdout);
-
-            output.writeBoolean(stdout);
-            output.writeSmallLong(classId);
-            output.writeSmallLong(testId);
 
             byte[] bytes;
             try {
@@ -114,30 +140,59 @@ public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
             } catch (UnsupportedEncodingException e) {
                 throw UncheckedException.throwAsUncheckedException(e);
             }
-            output.writeSmallInt(bytes.length);
-            output.writeBytes(bytes, 0, bytes.length);
-        }
 
-        private void mark(long classId, long testId, boolean isStdout) {
-            if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
+            List<Run> runs = testCaseRuns(classId, testId).get(stdout);
+            Run run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if (run == null || run.stop != position) {
+                // Some other output has been written since the last output for this test, so start a new run
+                run = new Run(position, position);
+                runs.add(run);
             }
 
-            Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
-            if (!testCaseRegions.containsKey(testId)) {
-                TestCaseRegion region = new TestCaseRegion();
-                testCaseRegions.put(testId, region);
+            try {
+                output.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            position += bytes.length;
+            run.stop = position;
+        }
 
-            TestCaseRegion region = testCaseRegions.get(testId);
+        private TestCaseRuns testCaseRuns(long classId, long testId) {
+            Map<Long, TestCaseRuns> classRuns = index.get(classId);
+            if (classRuns == null) {
+                classRuns = new LinkedHashMap<Long, TestCaseRuns>();
+                index.put(classId, classRuns);
+            }
+            TestCaseRuns testCaseRuns = classRuns.get(testId);
+            if (testCaseRuns == null) {
+                testCaseRuns = new TestCaseRuns();
+                classRuns.put(testId, testCaseRuns);
+            }
+            return testCaseRuns;
+        }
 
-            Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
+        /**
+         * Captures the output written so far for the given test class. The captured output can be read while this writer continues to be used, possibly from another thread.
+         * Output written after this method returns is not visible through the returned snapshot.
+         */
+        public OutputSnapshot snapshot(long classId) {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
 
-            long total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
+            Map<Long, Map<Long, TestCaseRuns>> snapshotIndex = new LinkedHashMap<Long, Map<Long, TestCaseRuns>>();
+            Map<Long, TestCaseRuns> classRuns = index.get(classId);
+            if (classRuns != null) {
+                Map<Long, TestCaseRuns> snapshotClassRuns = new LinkedHashMap<Long, TestCaseRuns>();
+                for (Map.Entry<Long, TestCaseRuns> testCaseEntry : classRuns.entrySet()) {
+                    snapshotClassRuns.put(testCaseEntry.getKey(), testCaseEntry.getValue().copy());
+                }
+                snapshotIndex.put(classId, snapshotClassRuns);
             }
-            streamRegion.stop = total;
+            return new OutputSnapshot(snapshotIndex);
         }
 
         private void writeIndex() {
@@ -148,86 +203,68 @@ private void writeIndex() {
                 throw new UncheckedIOException(e);
             }
 
-
             try {
                 indexOutput.writeInt(index.size(), true);
 
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
+                for (Map.Entry<Long, Map<Long, TestCaseRuns>> classEntry : index.entrySet()) {
                     Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
+                    Map<Long, TestCaseRuns> classRuns = classEntry.getValue();
 
                     indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
-
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
-                        long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
-                        indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
+                    indexOutput.writeInt(classRuns.size(), true);
+
+                    for (Map.Entry<Long, TestCaseRuns> testCaseEntry : classRuns.entrySet()) {
+                        indexOutput.writeLong(testCaseEntry.getKey(), true);
+                        writeRuns(indexOutput, testCaseEntry.getValue().stdOut);
+                        writeRuns(indexOutput, testCaseEntry.getValue().stdErr);
                     }
                 }
             } finally {
                 indexOutput.close();
             }
         }
+
+        private void writeRuns(Output indexOutput, List<Run> runs) {
+            indexOutput.writeInt(runs.size(), true);
+            for (Run run : runs) {
+                indexOutput.writeLong(run.start, true);
+                indexOutput.writeLong(run.stop - run.start, true);
+            }
+        }
     }
 
     public Writer writer() {
         return new Writer();
     }
 
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
+    /**
+     * The output of a test class captured while the output is still being written.
+     */
+    public class OutputSnapshot {
+        private final Map<Long, Map<Long, TestCaseRuns>> index;
 
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        private OutputSnapshot(Map<Long, Map<Long, TestCaseRuns>> index) {
+            this.index = index;
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        // IMPORTANT: return must be closed when done with.
+        public Reader reader() {
+            return new Reader(index);
         }
     }
 
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
-
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
+    public class Reader implements Closeable {
+        private final Map<Long, Map<Long, TestCaseRuns>> index;
+        private final RandomAccessFile dataFile;
 
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
-            }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
-            }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
-            }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
+        private Reader(Map<Long, Map<Long, TestCaseRuns>> index) {
+            this.index = index;
+            try {
+                dataFile = new RandomAccessFile(getOutputsFile(), "r");
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
             }
-
-            children.put(key, index);
-        }
-
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
         }
-    }
-
-    public class Reader implements Closeable {
-        private final Index index;
-        private final RandomAccessFile dataFile;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -245,31 +282,28 @@ public Reader() {
                     throw new UncheckedIOException(e);
                 }
 
-                IndexBuilder rootBuilder = null;
+                index = new LinkedHashMap<Long, Map<Long, TestCaseRuns>>();
                 try {
                     int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
                     for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
                         long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
+                        Map<Long, TestCaseRuns> classRuns = new LinkedHashMap<Long, TestCaseRuns>();
 
                         int numEntries = input.readInt(true);
                         for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
                             long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
+                            TestCaseRuns testCaseRuns = new TestCaseRuns();
+                            readRuns(input, testCaseRuns.stdOut);
+                            readRuns(input, testCaseRuns.stdErr);
+                            classRuns.put(testId, testCaseRuns);
                         }
 
-                        rootBuilder.add(classId, classBuilder.build());
+                        index.put(classId, classRuns);
                     }
                 } finally {
                     input.close();
                 }
 
-                index = rootBuilder.build();
-
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
@@ -280,11 +314,20 @@ public Reader() {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
                 }
 
-                index = null;
+                index = Collections.emptyMap();
                 dataFile = null;
             }
         }
 
+        private void readRuns(Input input, List<Run> runs) {
+            int numRuns = input.readInt(true);
+            for (int runCounter = 0; runCounter < numRuns; ++runCounter) {
+                long start = input.readLong(true);
+                long length = input.readLong(true);
+                runs.add(new Run(start, start + length));
+            }
+        }
+
         @Override
         public void close() throws IOException {
             if (dataFile != null) {
@@ -297,106 +340,73 @@ public boolean hasOutput(long classId, TestOutputEvent.Destination destination)
         }
 
         public boolean hasOutput(long classId, long testId, TestOutputEvent.Destination destination) {
-            if (dataFile == null) {
+            Map<Long, TestCaseRuns> classRuns = index.get(classId);
+            if (classRuns == null) {
                 return false;
             }
 
-            Index index = getIndex(classId, testId);
-            if (index == null) {
-                return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? index.stdOut : index.stdErr;
-                return region.start >= 0;
+            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
+            if (testId != 0) {
+                TestCaseRuns testCaseRuns = classRuns.get(testId);
+                return testCaseRuns != null && !testCaseRuns.get(stdout).isEmpty();
             }
+            for (TestCaseRuns testCaseRuns : classRuns.values()) {
+                if (!testCaseRuns.get(stdout).isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, true, destination, writer);
-        }
-
-        public void writeNonTestOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, false, destination, writer);
-        }
-
-        public void writeTestOutput(long classId, long testId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, testId, false, destination, writer);
-        }
-
-        private void doRead(long classId, long testId, boolean allClassOutput, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            if (dataFile == null) {
+            Map<Long, TestCaseRuns> classRuns = index.get(classId);
+            if (classRuns == null) {
                 return;
             }
 
-            Index targetIndex = getIndex(classId, testId);
-            if (targetIndex == null) {
-                return;
+            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
+            List<Run> runs = new ArrayList<Run>();
+            for (TestCaseRuns testCaseRuns : classRuns.values()) {
+                runs.addAll(testCaseRuns.get(stdout));
             }
+            // Restore the order the output was received in
+            Collections.sort(runs, new Comparator<Run>() {
+                @Override
+                public int compare(Run o1, Run o2) {
+                    return o1.start < o2.start ? -1 : (o1.start == o2.start ? 0 : 1);
+                }
+            });
+            writeRuns(runs, writer);
+        }
 
-            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
+        public void writeNonTestOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
+            writeTestOutput(classId, 0, destination, writer);
+        }
 
-            if (region.start < 0) {
+        public void writeTestOutput(long classId, long testId, TestOutputEvent.Destination destination, java.io.Writer writer) {
+            TestCaseRuns testCaseRuns = getRuns(classId, testId);
+            if (testCaseRuns == null) {
                 return;
             }
+            writeRuns(testCaseRuns.get(destination == TestOutputEvent.Destination.StdOut), writer);
+        }
 
-            boolean ignoreClassLevel = !allClassOutput && testId != 0;
-            boolean ignoreTestLevel = !allClassOutput && testId == 0;
-
+        private void writeRuns(List<Run> runs, java.io.Writer writer) {
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
-                    int readLength = decoder.readSmallInt();
-
-                    boolean isClassLevel = readTestId == 0;
-
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
-
-                        writer.write(message);
-                    } else {
-                        decoder.skipBytes(readLength);
-                    }
+                for (Run run : runs) {
+                    dataFile.seek(run.start);
+                    InputStreamReader reader = new InputStreamReader(ByteStreams.limit(new RandomAccessFileInputStream(dataFile), run.stop - run.start), messageStorageCharset);
+                    CharStreams.copy(reader, writer);
                 }
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
 
         @Nullable
-        private Index getIndex(long classId, long testId) {
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
-            return targetIndex;
+        private TestCaseRuns getRuns(long classId, long testId) {
+            Map<Long, TestCaseRuns> classRuns = index.get(classId);
+            return classRuns == null ? null : classRuns.get(testId);
         }
     }
 
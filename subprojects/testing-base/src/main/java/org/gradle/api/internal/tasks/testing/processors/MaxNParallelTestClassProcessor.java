@@ -18,27 +18,45 @@
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.Actor;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.dispatch.DispatchException;
+import org.gradle.internal.time.TimeFormatting;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * processors, or assigns each test class to the processor with the least estimated work when the durations of
+ * test classes are known from a previous run.
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(MaxNParallelTestClassProcessor.class);
+
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final TestClassDurationEstimates durationEstimates;
     private TestResultProcessor resultProcessor;
     private int pos;
+    private final List<Long> estimatedLoads = new ArrayList<Long>();
+    private ProcessorCompletionTracker completionTracker;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
@@ -46,13 +64,22 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, TestClassDurationEstimates.NONE);
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, TestClassDurationEstimates durationEstimates) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.durationEstimates = durationEstimates;
     }
 
     @Override
     public void startProcessing(TestResultProcessor resultProcessor) {
+        if (!durationEstimates.isEmpty()) {
+            completionTracker = new ProcessorCompletionTracker(resultProcessor);
+            resultProcessor = completionTracker;
+        }
         // Create a processor that processes events in its own thread
         resultProcessorActor = actorFactory.createActor(resultProcessor);
         this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
@@ -65,6 +92,7 @@ public void processTestClass(TestClassRunInfo testClass) {
         }
 
         TestClassProcessor processor;
+        int index;
         if (processors.size() < maxProcessors) {
             processor = factory.create();
             rawProcessors.add(processor);
@@ -73,13 +101,33 @@ public void processTestClass(TestClassRunInfo testClass) {
             actors.add(actor);
             processors.add(processor);
             processor.startProcessing(resultProcessor);
-        } else {
+            index = processors.size() - 1;
+            estimatedLoads.add(0L);
+        } else if (durationEstimates.isEmpty()) {
+            index = pos;
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
+        } else {
+            index = leastLoadedProcessor();
+            processor = processors.get(index);
+        }
+        estimatedLoads.set(index, estimatedLoads.get(index) + durationEstimates.estimate(testClass.getTestClassName()));
+        if (completionTracker != null) {
+            completionTracker.assigned(testClass.getTestClassName(), index);
         }
         processor.processTestClass(testClass);
     }
 
+    private int leastLoadedProcessor() {
+        int leastLoaded = 0;
+        for (int i = 1; i < estimatedLoads.size(); i++) {
+            if (estimatedLoads.get(i) < estimatedLoads.get(leastLoaded)) {
+                leastLoaded = i;
+            }
+        }
+        return leastLoaded;
+    }
+
     @Override
     public void stop() {
         try {
@@ -87,6 +135,9 @@ public void stop() {
         } catch (DispatchException e) {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
         }
+        if (completionTracker != null) {
+            completionTracker.logTailLatency(estimatedLoads);
+        }
     }
 
     @Override
@@ -96,4 +147,78 @@ public void stopNow() {
             processor.stopNow();
         }
     }
+
+    /**
+     * Records when the last test class assigned to each processor completed, to report how long the slowest processor
+     * kept running after the others had finished.
+     */
+    private static class ProcessorCompletionTracker implements TestResultProcessor {
+        private final TestResultProcessor delegate;
+        // Written by the thread assigning the test classes, read by the thread of the result processor
+        private final Map<String, Integer> processorByTestClass = new ConcurrentHashMap<String, Integer>();
+        private final Map<Object, Integer> processorByTestClassId = new HashMap<Object, Integer>();
+        private final Map<Integer, Long> completionTimeByProcessor = new TreeMap<Integer, Long>();
+        private long startTime = Long.MAX_VALUE;
+
+        ProcessorCompletionTracker(TestResultProcessor delegate) {
+            this.delegate = delegate;
+        }
+
+        void assigned(String testClassName, int processor) {
+            processorByTestClass.put(testClassName, processor);
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            startTime = Math.min(startTime, event.getStartTime());
+            if (test.isComposite() && test.getClassName() != null) {
+                Integer processor = processorByTestClass.get(test.getClassName());
+                if (processor != null) {
+                    processorByTestClassId.put(test.getId(), processor);
+                }
+            }
+            delegate.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            Integer processor = processorByTestClassId.remove(testId);
+            if (processor != null) {
+                Long completionTime = completionTimeByProcessor.get(processor);
+                if (completionTime == null || completionTime < event.getEndTime()) {
+                    completionTimeByProcessor.put(processor, event.getEndTime());
+                }
+            }
+            delegate.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            delegate.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            delegate.failure(testId, result);
+        }
+
+        void logTailLatency(List<Long> estimatedLoads) {
+            if (completionTimeByProcessor.size() < 2 || !LOGGER.isInfoEnabled()) {
+                return;
+            }
+            long firstCompleted = Collections.min(completionTimeByProcessor.values());
+            long lastCompleted = Collections.max(completionTimeByProcessor.values());
+            StringBuilder perProcessor = new StringBuilder();
+            for (Map.Entry<Integer, Long> entry : completionTimeByProcessor.entrySet()) {
+                if (perProcessor.length() > 0) {
+                    perProcessor.append(", ");
+                }
+                perProcessor.append("#").append(entry.getKey() + 1)
+                    .append(" finished after ").append(TimeFormatting.formatDurationVerbose(entry.getValue() - startTime))
+                    .append(" (estimated ").append(TimeFormatting.formatDurationVerbose(estimatedLoads.get(entry.getKey()))).append(")");
+            }
+            LOGGER.info("The last of {} test workers finished {} after the first one. Test workers: {}.",
+                completionTimeByProcessor.size(), TimeFormatting.formatDurationVerbose(lastCompleted - firstCompleted), perProcessor);
+        }
+    }
 }
@@ -20,21 +20,26 @@
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * In order to speed up the development feedback cycle, this class guarantee previous failed test classes
  * to be passed to its delegate first.
+ *
+ * <p>Previous failed test classes are passed on as soon as they are received. Other test classes are held back only until all previous failed
+ * test classes have been received, and are passed on as soon as they are received from then on.</p>
  */
 public class RunPreviousFailedFirstTestClassProcessor implements TestClassProcessor {
-    private final Set<String> previousFailedTestClasses;
+    private final Set<String> pendingFailedTestClasses;
     private final TestClassProcessor delegate;
-    private final LinkedHashSet<TestClassRunInfo> prioritizedTestClasses = new LinkedHashSet<TestClassRunInfo>();
-    private final LinkedHashSet<TestClassRunInfo> otherTestClasses = new LinkedHashSet<TestClassRunInfo>();
+    private final Set<TestClassRunInfo> processedTestClasses = new HashSet<TestClassRunInfo>();
+    private final List<TestClassRunInfo> heldBackTestClasses = new ArrayList<TestClassRunInfo>();
 
     public RunPreviousFailedFirstTestClassProcessor(Set<String> previousFailedTestClasses, TestClassProcessor delegate) {
-        this.previousFailedTestClasses = previousFailedTestClasses;
+        this.pendingFailedTestClasses = new HashSet<String>(previousFailedTestClasses);
         this.delegate = delegate;
     }
 
@@ -45,21 +50,31 @@ public void startProcessing(TestResultProcessor resultProcessor) {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
-        if (previousFailedTestClasses.contains(testClass.getTestClassName())) {
-            prioritizedTestClasses.add(testClass);
+        if (!processedTestClasses.add(testClass)) {
+            return;
+        }
+        if (pendingFailedTestClasses.remove(testClass.getTestClassName())) {
+            delegate.processTestClass(testClass);
+            if (pendingFailedTestClasses.isEmpty()) {
+                processHeldBackTestClasses();
+            }
+        } else if (pendingFailedTestClasses.isEmpty()) {
+            delegate.processTestClass(testClass);
         } else {
-            otherTestClasses.add(testClass);
+            heldBackTestClasses.add(testClass);
         }
     }
 
-    @Override
-    public void stop() {
-        for (TestClassRunInfo test : prioritizedTestClasses) {
-            delegate.processTestClass(test);
-        }
-        for (TestClassRunInfo test : otherTestClasses) {
+    private void processHeldBackTestClasses() {
+        for (TestClassRunInfo test : heldBackTestClasses) {
             delegate.processTestClass(test);
         }
+        heldBackTestClasses.clear();
+    }
+
+    @Override
+    public void stop() {
+        processHeldBackTestClasses();
         delegate.stop();
     }
 
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The durations of test classes recorded by a previous run, used to estimate how long each test class will take to run.
+ */
+public class TestClassDurationEstimates {
+    public static final TestClassDurationEstimates NONE = new TestClassDurationEstimates(Collections.<String, Long>emptyMap());
+
+    private final Map<String, Long> previousDurations;
+    private final long defaultEstimate;
+
+    public TestClassDurationEstimates(Map<String, Long> previousDurations) {
+        this.previousDurations = previousDurations;
+        long total = 0;
+        for (Long duration : previousDurations.values()) {
+            total += duration;
+        }
+        // A test class which did not run previously is assumed to take an average amount of time
+        this.defaultEstimate = previousDurations.isEmpty() ? 0 : total / previousDurations.size();
+    }
+
+    public boolean isEmpty() {
+        return previousDurations.isEmpty();
+    }
+
+    /**
+     * Returns the estimated duration of the given test class, in milliseconds.
+     */
+    public long estimate(String testClassName) {
+        Long duration = previousDurations.get(testClassName);
+        return duration == null ? defaultEstimate : duration;
+    }
+}
@@ -23,6 +23,8 @@
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.BuildOperationQueue;
@@ -37,7 +39,9 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
@@ -51,11 +55,21 @@ public DefaultTestReport(BuildOperationExecutor buildOperationExecutor) {
 
     @Override
     public void generateReport(TestResultsProvider resultsProvider, File reportDir) {
+        generateReport(resultsProvider, reportDir, Specs.<String>satisfyAll());
+    }
+
+    /**
+     * Generates the report, reusing the existing pages of the classes that have not changed since the report was last generated.
+     * The overview and package pages summarize the results of many classes, and are always generated.
+     *
+     * @param changedClasses accepts the names of the classes whose results may have changed.
+     */
+    public void generateReport(TestResultsProvider resultsProvider, File reportDir, Spec<? super String> changedClasses) {
         LOG.info("Generating HTML test report...");
 
         Timer clock = Time.startTimer();
         AllTestResults model = loadModelFromProvider(resultsProvider);
-        generateFiles(model, resultsProvider, reportDir);
+        generateFiles(model, resultsProvider, reportDir, changedClasses);
         LOG.info("Finished generating test html results ({}) into: {}", clock.getElapsed(), reportDir);
     }
 
@@ -82,15 +96,24 @@ public void execute(TestClassResult classResult) {
         return model;
     }
 
-    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
+    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir, Spec<? super String> changedClasses) {
         try {
+            final Set<String> reusableClassPages = new HashSet<String>();
+            for (PackageTestResults packageResults : model.getPackages()) {
+                for (ClassTestResults classResults : packageResults.getClasses()) {
+                    if (!changedClasses.isSatisfiedBy(classResults.getName())) {
+                        reusableClassPages.add(classResults.getBaseUrl());
+                    }
+                }
+            }
+
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
             buildOperationExecutor.run(new RunnableBuildOperation() {
                 @Override
                 public void run(BuildOperationContext context) {
                     // Clean-up old HTML report directories
                     GFileUtils.deleteQuietly(new File(reportDir, "packages"));
-                    GFileUtils.deleteQuietly(new File(reportDir, "classes"));
+                    deleteClassPagesExcept(reportDir, reusableClassPages);
                 }
 
                 @Override
@@ -109,6 +132,9 @@ public void execute(BuildOperationQueue<HtmlReportFileGenerator<? extends Compos
                             for (PackageTestResults packageResults : model.getPackages()) {
                                 queue.add(generator(packageResults.getBaseUrl(), packageResults, new PackagePageRenderer(), output));
                                 for (ClassTestResults classResults : packageResults.getClasses()) {
+                                    if (reusableClassPages.contains(classResults.getBaseUrl()) && new File(reportDir, classResults.getBaseUrl()).isFile()) {
+                                        continue;
+                                    }
                                     queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
                                 }
                             }
@@ -121,6 +147,23 @@ public void execute(BuildOperationQueue<HtmlReportFileGenerator<? extends Compos
         }
     }
 
+    private static void deleteClassPagesExcept(File reportDir, Set<String> reusableClassPages) {
+        File classesDir = new File(reportDir, "classes");
+        if (reusableClassPages.isEmpty()) {
+            GFileUtils.deleteQuietly(classesDir);
+            return;
+        }
+        File[] classPages = classesDir.listFiles();
+        if (classPages == null) {
+            return;
+        }
+        for (File classPage : classPages) {
+            if (!reusableClassPages.contains(classesDir.getName() + "/" + classPage.getName())) {
+                GFileUtils.deleteQuietly(classPage);
+            }
+        }
+    }
+
     public static <T extends CompositeTestResults> HtmlReportFileGenerator<T> generator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output) {
         return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output);
     }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects test events into batches, which are sent to the build process as single messages, to reduce the number of messages
+ * the build process has to handle for tests which produce many events.
+ *
+ * <p>A batch is sent when it contains a maximum number of events or amount of output, or at the latest a short time after its first event was added.
+ * Consecutive output of the same test to the same destination is coalesced into a single output event.</p>
+ *
+ * <p>Batching is opt-in, see {@link #BATCH_TEST_EVENTS_PROPERTY}. Without a flush executor, every event is sent on its own as soon as it is received.</p>
+ *
+ * <p>Events can be received from any thread.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    /**
+     * When set to true, test workers send their test events to the build process in batches.
+     */
+    public static final String BATCH_TEST_EVENTS_PROPERTY = "org.gradle.internal.testing.batch-events";
+
+    static final int MAX_EVENTS_PER_BATCH = 256;
+    static final int MAX_OUTPUT_CHARS_PER_BATCH = 64 * 1024;
+    static final long MAX_LATENCY_MILLIS = 20;
+
+    private final RemoteTestResultProcessor target;
+    private final ScheduledExecutorService flushExecutor;
+    private final Runnable scheduledFlush = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (BatchingTestResultProcessor.this) {
+                flushScheduled = false;
+                flush();
+            }
+        }
+    };
+    private TestEventBatch batch = new TestEventBatch();
+    private int outputChars;
+    private Object pendingOutputTestId;
+    private TestOutputEvent.Destination pendingOutputDestination;
+    private final StringBuilder pendingOutput = new StringBuilder();
+    private boolean flushScheduled;
+    private boolean stopped;
+
+    /**
+     * Creates a processor which batches the events, if the given flush executor is not null. The processor takes ownership of the executor.
+     */
+    public BatchingTestResultProcessor(RemoteTestResultProcessor target, @Nullable ScheduledExecutorService flushExecutor) {
+        this.target = target;
+        this.flushExecutor = flushExecutor;
+    }
+
+    @Override
+    public synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+        if (!isBatching()) {
+            target.started(test, event);
+            return;
+        }
+        addPendingOutput();
+        batch.started(test, event);
+        added();
+    }
+
+    @Override
+    public synchronized void completed(Object testId, TestCompleteEvent event) {
+        if (!isBatching()) {
+            target.completed(testId, event);
+            return;
+        }
+        addPendingOutput();
+        batch.completed(testId, event);
+        added();
+    }
+
+    @Override
+    public synchronized void output(Object testId, TestOutputEvent event) {
+        if (!isBatching()) {
+            target.output(testId, event);
+            return;
+        }
+        if (pendingOutputTestId == null || !pendingOutputTestId.equals(testId) || pendingOutputDestination != event.getDestination()) {
+            addPendingOutput();
+            pendingOutputTestId = testId;
+            pendingOutputDestination = event.getDestination();
+        }
+        pendingOutput.append(event.getMessage());
+        outputChars += event.getMessage().length();
+        added();
+    }
+
+    private void addPendingOutput() {
+        if (pendingOutputTestId != null) {
+            batch.output(pendingOutputTestId, new DefaultTestOutputEvent(pendingOutputDestination, pendingOutput.toString()));
+            pendingOutputTestId = null;
+            pendingOutputDestination = null;
+            pendingOutput.setLength(0);
+        }
+    }
+
+    @Override
+    public synchronized void failure(Object testId, Throwable result) {
+        if (!isBatching()) {
+            target.failure(testId, result);
+            return;
+        }
+        addPendingOutput();
+        batch.failure(testId, result);
+        added();
+    }
+
+    private boolean isBatching() {
+        return flushExecutor != null && !stopped;
+    }
+
+    private void added() {
+        if (batch.size() >= MAX_EVENTS_PER_BATCH || outputChars >= MAX_OUTPUT_CHARS_PER_BATCH) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            flushExecutor.schedule(scheduledFlush, MAX_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the events which have not been sent yet.
+     */
+    public synchronized void flush() {
+        addPendingOutput();
+        if (batch.isEmpty()) {
+            return;
+        }
+        TestEventBatch toSend = batch;
+        batch = new TestEventBatch();
+        outputChars = 0;
+        target.process(toSend);
+    }
+
+    /**
+     * Sends the events which have not been sent yet and stops the flush executor. Any later event is sent on its own as soon as it is received.
+     */
+    @Override
+    public void stop() {
+        synchronized (this) {
+            flush();
+            stopped = true;
+        }
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+    }
+}
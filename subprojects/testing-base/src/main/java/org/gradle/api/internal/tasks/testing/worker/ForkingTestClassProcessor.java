@@ -16,13 +16,19 @@
 
 package org.gradle.api.internal.tasks.testing.worker;
 
+import com.google.common.collect.ImmutableList;
 import org.gradle.api.Action;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
@@ -32,6 +38,7 @@
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.internal.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
@@ -49,9 +56,12 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final List<String> testWorkerImplementationModules;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final TestWorkerPool workerPool;
+    private final boolean batchTestEvents;
     private final Lock lock = new ReentrantLock();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
+    private PooledTestWorkerClient pooledWorker;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private final DocumentationRegistry documentationRegistry;
@@ -60,6 +70,17 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options,
                                      Iterable<File> classPath, Iterable<File> modulePath, List<String> testWorkerImplementationModules,
                                      Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, modulePath, testWorkerImplementationModules, buildConfigAction, moduleRegistry, documentationRegistry, null, false);
+    }
+
+    /**
+     * Creates a processor which runs the tests in a test worker from the given pool, if not null, rather than in a test worker of its own,
+     * and which asks the test worker to send the test events in batches when requested.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options,
+                                     Iterable<File> classPath, Iterable<File> modulePath, List<String> testWorkerImplementationModules,
+                                     Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry,
+                                     @Nullable TestWorkerPool workerPool, boolean batchTestEvents) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -70,6 +91,8 @@ public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLea
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.workerPool = workerPool;
+        this.batchTestEvents = batchTestEvents;
     }
 
     @Override
@@ -88,7 +111,7 @@ public void processTestClass(TestClassRunInfo testClass) {
             if (remoteProcessor == null) {
                 completion = currentWorkerLease.startChild();
                 try {
-                    remoteProcessor = forkProcess();
+                    remoteProcessor = workerPool != null ? startPooledSession() : forkProcess();
                 } catch (RuntimeException e) {
                     completion.leaseFinish();
                     completion = null;
@@ -103,7 +126,7 @@ public void processTestClass(TestClassRunInfo testClass) {
     }
 
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
+        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory, batchTestEvents));
         builder.setBaseName("Gradle Test Executor");
         builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
         builder.setImplementationModulePath(getTestWorkerImplementationModulePath());
@@ -118,13 +141,37 @@ RemoteTestClassProcessor forkProcess() {
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
-        connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        connection.addIncoming(RemoteTestResultProcessor.class, new ReplayingTestResultProcessor(resultProcessor));
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
         return remoteProcessor;
     }
 
+    RemoteTestClassProcessor startPooledSession() {
+        TestWorkerPool.Key key = TestWorkerPool.Key.of(options, TestWorker.WORKER_TMPDIR_SYS_PROPERTY);
+        WorkerProcessBuilder builder = workerFactory.create(new PooledTestWorker());
+        // Collects the shared packages of the test framework, which are applied to each session
+        buildConfigAction.execute(builder);
+
+        PooledTestWorkerClient worker = workerPool.reserveIdleWorker(key);
+        if (worker == null) {
+            builder.setBaseName("Gradle Test Executor");
+            builder.setImplementationClasspath(getTestWorkerInfrastructureClasspath());
+            options.copyTo(builder.getJavaCommand());
+            builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
+            WorkerProcess process = builder.build();
+            process.start();
+            worker = workerPool.reserveNewWorker(key, process);
+        }
+        pooledWorker = worker;
+
+        Object workerTmpDir = options.getSystemProperties().get(TestWorker.WORKER_TMPDIR_SYS_PROPERTY);
+        TestWorkerSession session = new TestWorkerSession(getTestFrameworkImplementationClasspath(), DefaultClassPath.of(classPath).getAsURLs(),
+            ImmutableList.copyOf(builder.getSharedPackages()), TestWorkerSession.serialize(processorFactory), options.getWorkingDir().getAbsolutePath(), workerTmpDir == null ? null : workerTmpDir.toString(), batchTestEvents);
+        return worker.startSession(session, resultProcessor);
+    }
+
     List<URL> getTestWorkerImplementationClasspath() {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
@@ -153,6 +200,23 @@ List<URL> getTestWorkerImplementationClasspath() {
         );
     }
 
+    /**
+     * The part of the implementation classpath which does not depend on the test framework, and can be shared by the test tasks using a pooled test worker.
+     */
+    private List<URL> getTestWorkerInfrastructureClasspath() {
+        List<URL> classpath = new ArrayList<URL>(getTestWorkerImplementationClasspath());
+        classpath.removeAll(getTestFrameworkImplementationClasspath());
+        return classpath;
+    }
+
+    private List<URL> getTestFrameworkImplementationClasspath() {
+        return CollectionUtils.flattenCollections(URL.class,
+            moduleRegistry.getModule("gradle-testing-jvm").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-testing-junit-platform").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("junit").getImplementationClasspath().getAsURLs()
+        );
+    }
+
     List<URL> getTestWorkerImplementationModulePath() {
         List<URL> modules = new ArrayList<URL>();
         for(String moduleName : testWorkerImplementationModules) {
@@ -173,7 +237,11 @@ public void stop() {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (pooledWorker != null) {
+                    waitForPooledSession();
+                } else {
+                    workerProcess.waitForStop();
+                }
             }
         } catch (ExecException e) {
             if (!stoppedNow) {
@@ -194,11 +262,56 @@ public void stopNow() {
         lock.lock();
         try {
             stoppedNow = true;
-            if (remoteProcessor != null) {
+            if (pooledWorker != null) {
+                workerPool.discard(pooledWorker);
+            } else if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
         } finally {
             lock.unlock();
         }
     }
+
+    private void waitForPooledSession() {
+        try {
+            pooledWorker.waitForSessionCompleted();
+        } catch (ExecException e) {
+            workerPool.discard(pooledWorker);
+            throw e;
+        }
+        workerPool.release(pooledWorker);
+    }
+
+    private static class ReplayingTestResultProcessor implements RemoteTestResultProcessor {
+        private final TestResultProcessor resultProcessor;
+
+        ReplayingTestResultProcessor(TestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor;
+        }
+
+        @Override
+        public void process(TestEventBatch batch) {
+            batch.replay(resultProcessor);
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            resultProcessor.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+        }
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.Cast;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.FilteringClassLoader;
+import org.gradle.internal.classloader.MultiParentClassLoader;
+import org.gradle.internal.classloader.VisitableURLClassLoader;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.dispatch.ContextClassLoaderProxy;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.time.Clock;
+import org.gradle.process.internal.worker.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.security.AccessControlException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs the tests of several test tasks in the same process, one session after the other, until a shutdown command is received.
+ *
+ * <p>Each session loads the test classpath and the test framework implementation in class loaders of its own, which are discarded
+ * at the end of the session. Only the Gradle infrastructure is shared between sessions.</p>
+ *
+ * <p>Unlike in a {@link TestWorker}, the test classpath is not loaded by the system class loader. The session's application class loader
+ * has the platform class loader as its parent, and the test framework implementation class loader sees the shared packages of the test
+ * classpath and the Gradle infrastructure.</p>
+ *
+ * <p>As with {@link TestWorker}, commands are received on communication threads and then processed sequentially on the main thread.</p>
+ */
+public class PooledTestWorker implements Action<WorkerProcessContext>, RemotePooledTestWorker, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledTestWorker.class);
+
+    private final BlockingQueue<Runnable> runQueue = new LinkedBlockingQueue<Runnable>();
+    private boolean shutdown;
+
+    /**
+     * These fields are only accessed from the main thread or inside a command passed to the run queue.
+     */
+    private WorkerProcessContext workerProcessContext;
+    private DefaultServiceRegistry testServices;
+    private RemotePooledTestResultProcessor resultTarget;
+    private SecurityManager securityManager;
+    private Session session;
+
+    @Override
+    public void execute(WorkerProcessContext workerProcessContext) {
+        Thread.currentThread().setName(TestWorker.WORK_THREAD_NAME);
+
+        LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
+
+        this.workerProcessContext = workerProcessContext;
+        this.securityManager = System.getSecurityManager();
+        System.setProperty(TestWorker.WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
+
+        testServices = new TestWorker.TestFrameworkServiceRegistry(workerProcessContext);
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        resultTarget = serverConnection.addOutgoing(RemotePooledTestResultProcessor.class);
+        serverConnection.addIncoming(RemotePooledTestWorker.class, this);
+        serverConnection.connect();
+
+        try {
+            try {
+                while (!isShutdown()) {
+                    TestWorker.executeAndMaintainThreadName(runQueue.take());
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        } finally {
+            LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
+
+            synchronized (this) {
+                shutdown = true;
+                runQueue.clear();
+            }
+
+            if (session != null) {
+                // Send any events which have not been sent yet, for example when a session was not stopped normally
+                session.resultProcessor.stop();
+                session.close();
+            }
+            testServices.close();
+        }
+    }
+
+    @Override
+    public void startSession(final TestWorkerSession workerSession) {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                if (session != null) {
+                    throw new IllegalStateException("A session has already been started");
+                }
+                session = new Session(workerSession);
+            }
+        });
+    }
+
+    @Override
+    public void startProcessing() {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                Session current = currentSession();
+                current.processor.startProcessing(current.resultProcessor);
+            }
+        });
+    }
+
+    @Override
+    public void processTestClass(final TestClassRunInfo testClass) {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    currentSession().processor.processTestClass(testClass);
+                } catch (AccessControlException e) {
+                    throw e;
+                } finally {
+                    // Clean the interrupted status
+                    Thread.interrupted();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                Session stopped = currentSession();
+                try {
+                    stopped.processor.stop();
+                } finally {
+                    session = null;
+                    stopped.resultProcessor.stop();
+                    stopped.close();
+                    // Clean the interrupted status
+                    // because some test class processors do work here, e.g. JUnitPlatform
+                    Thread.interrupted();
+                }
+                resultTarget.sessionCompleted();
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        submitToRun(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (PooledTestWorker.this) {
+                    shutdown = true;
+                }
+            }
+        });
+    }
+
+    private Session currentSession() {
+        if (session == null) {
+            throw new IllegalStateException("No session has been started");
+        }
+        return session;
+    }
+
+    private synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    private synchronized void submitToRun(Runnable command) {
+        if (!shutdown) {
+            runQueue.add(command);
+        }
+    }
+
+    private class Session {
+        private final VisitableURLClassLoader applicationClassLoader;
+        private final VisitableURLClassLoader implementationClassLoader;
+        private final TestClassProcessor processor;
+        private final BatchingTestResultProcessor resultProcessor;
+
+        Session(TestWorkerSession workerSession) {
+            System.setProperty("user.dir", workerSession.getWorkingDir());
+            if (workerSession.getWorkerTmpDir() != null) {
+                System.setProperty(TestWorker.WORKER_TMPDIR_SYS_PROPERTY, workerSession.getWorkerTmpDir());
+            }
+
+            applicationClassLoader = new VisitableURLClassLoader("test-application", ClassLoaderUtils.getPlatformClassLoader(), workerSession.getApplicationClasspath());
+            FilteringClassLoader.Spec sharedPackages = new FilteringClassLoader.Spec();
+            for (String sharedPackage : workerSession.getSharedPackages()) {
+                sharedPackages.allowPackage(sharedPackage);
+            }
+            ClassLoader parent = new MultiParentClassLoader(new FilteringClassLoader(applicationClassLoader, sharedPackages), PooledTestWorker.class.getClassLoader());
+            implementationClassLoader = new VisitableURLClassLoader("test-implementation", parent, workerSession.getImplementationClasspath());
+
+            WorkerTestClassProcessorFactory factory = workerSession.getProcessorFactory(implementationClassLoader);
+            TestClassProcessor targetProcessor = factory.create(testServices);
+            IdGenerator<Object> idGenerator = Cast.uncheckedNonnullCast(testServices.get(IdGenerator.class));
+            targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
+                workerProcessContext.getDisplayName(), testServices.get(Clock.class));
+            processor = new ContextClassLoaderProxy<TestClassProcessor>(TestClassProcessor.class, targetProcessor, applicationClassLoader).getSource();
+            resultProcessor = new BatchingTestResultProcessor(resultTarget,
+                workerSession.isBatchTestEvents() ? testServices.get(ExecutorFactory.class).createScheduled("Test event batching", 1) : null);
+        }
+
+        void close() {
+            TestWorker.resetSecurityManager(securityManager);
+            ClassLoaderUtils.tryClose(implementationClassLoader);
+            ClassLoaderUtils.tryClose(applicationClassLoader);
+        }
+    }
+}
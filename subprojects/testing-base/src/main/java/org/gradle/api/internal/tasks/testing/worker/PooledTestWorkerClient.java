@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The build side of a {@link PooledTestWorker}, which runs one session at a time.
+ */
+public class PooledTestWorkerClient implements RemotePooledTestResultProcessor {
+    private final WorkerProcess workerProcess;
+    private final TestWorkerPool.Key key;
+    private final RemotePooledTestWorker worker;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private volatile TestResultProcessor resultProcessor;
+    private boolean sessionRunning;
+    private boolean exited;
+    private ExecException failure;
+    private int sessions;
+
+    public PooledTestWorkerClient(WorkerProcess workerProcess, TestWorkerPool.Key key) {
+        this.workerProcess = workerProcess;
+        this.key = key;
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addIncoming(RemotePooledTestResultProcessor.class, this);
+        this.worker = connection.addOutgoing(RemotePooledTestWorker.class);
+        connection.connect();
+    }
+
+    public TestWorkerPool.Key getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the number of sessions started in this worker so far.
+     */
+    public int getSessions() {
+        lock.lock();
+        try {
+            return sessions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isFailed() {
+        lock.lock();
+        try {
+            return exited;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public RemoteTestClassProcessor startSession(TestWorkerSession session, TestResultProcessor resultProcessor) {
+        lock.lock();
+        try {
+            if (sessionRunning) {
+                throw new IllegalStateException("A session is already running in " + workerProcess);
+            }
+            sessionRunning = true;
+            sessions++;
+        } finally {
+            lock.unlock();
+        }
+        this.resultProcessor = resultProcessor;
+        worker.startSession(session);
+        worker.startProcessing();
+        return worker;
+    }
+
+    /**
+     * Waits for the current session to complete, after it was asked to stop.
+     *
+     * @throws ExecException when the worker process failed before the session completed.
+     */
+    public void waitForSessionCompleted() {
+        lock.lock();
+        try {
+            while (sessionRunning && !exited) {
+                try {
+                    condition.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (sessionRunning) {
+                sessionRunning = false;
+                if (failure != null) {
+                    throw failure;
+                }
+                throw new ExecException("Process '" + workerProcess + "' stopped before its tests were completed.");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void process(TestEventBatch batch) {
+        batch.replay(resultProcessor);
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        resultProcessor.started(test, event);
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        resultProcessor.completed(testId, event);
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        resultProcessor.output(testId, event);
+    }
+
+    @Override
+    public void failure(Object testId, Throwable result) {
+        resultProcessor.failure(testId, result);
+    }
+
+    @Override
+    public void sessionCompleted() {
+        lock.lock();
+        try {
+            sessionRunning = false;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the worker process to exit. Called once, on a thread of its own, for as long as the worker process is running.
+     */
+    void waitForExit() {
+        ExecException processFailure = null;
+        try {
+            workerProcess.waitForStop();
+        } catch (ExecException e) {
+            processFailure = e;
+        } finally {
+            lock.lock();
+            try {
+                exited = true;
+                failure = processFailure;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void stopNow() {
+        workerProcess.stopNow();
+    }
+
+    /**
+     * Asks the worker process to exit once its current session has completed.
+     */
+    public void shutdown() {
+        worker.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return workerProcess.toString();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+/**
+ * The commands sent to a pooled test worker. A pooled test worker runs any number of sessions, one after the other, each of them
+ * receiving the commands of a {@link RemoteTestClassProcessor} after {@link #startSession(TestWorkerSession)}. A session ends with
+ * {@link #stop()}, which is acknowledged with {@link RemotePooledTestResultProcessor#sessionCompleted()}.
+ *
+ * @see PooledTestWorker
+ */
+public interface RemotePooledTestWorker extends RemoteTestClassProcessor {
+    /**
+     * Does not block.
+     */
+    void startSession(TestWorkerSession session);
+
+    /**
+     * Stops the worker once the current session, if any, has completed. Does not block.
+     */
+    void shutdown();
+}
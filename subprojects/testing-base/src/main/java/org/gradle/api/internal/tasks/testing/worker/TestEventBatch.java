@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of test events, sent from a test worker to the build process in a single message.
+ */
+public class TestEventBatch {
+    enum Type {
+        STARTED, COMPLETED, OUTPUT, FAILURE
+    }
+
+    private final List<Type> types;
+    private final List<Object> subjects;
+    private final List<Object> payloads;
+
+    public TestEventBatch() {
+        this(new ArrayList<Type>(), new ArrayList<Object>(), new ArrayList<Object>());
+    }
+
+    private TestEventBatch(List<Type> types, List<Object> subjects, List<Object> payloads) {
+        this.types = types;
+        this.subjects = subjects;
+        this.payloads = payloads;
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        add(Type.STARTED, test, event);
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        add(Type.COMPLETED, testId, event);
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        add(Type.OUTPUT, testId, event);
+    }
+
+    public void failure(Object testId, Throwable failure) {
+        add(Type.FAILURE, testId, failure);
+    }
+
+    void add(Type type, Object subject, Object payload) {
+        types.add(type);
+        subjects.add(subject);
+        payloads.add(payload);
+    }
+
+    public int size() {
+        return types.size();
+    }
+
+    public boolean isEmpty() {
+        return types.isEmpty();
+    }
+
+    Type getType(int index) {
+        return types.get(index);
+    }
+
+    Object getSubject(int index) {
+        return subjects.get(index);
+    }
+
+    Object getPayload(int index) {
+        return payloads.get(index);
+    }
+
+    /**
+     * Passes the events in this batch to the given processor, in the order in which they were added.
+     */
+    public void replay(TestResultProcessor processor) {
+        for (int i = 0; i < types.size(); i++) {
+            Object subject = subjects.get(i);
+            Object payload = payloads.get(i);
+            switch (types.get(i)) {
+                case STARTED:
+                    processor.started((TestDescriptorInternal) subject, (TestStartEvent) payload);
+                    break;
+                case COMPLETED:
+                    processor.completed(subject, (TestCompleteEvent) payload);
+                    break;
+                case OUTPUT:
+                    processor.output(subject, (TestOutputEvent) payload);
+                    break;
+                case FAILURE:
+                    processor.failure(subject, (Throwable) payload);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected event type " + types.get(i));
+            }
+        }
+    }
+}
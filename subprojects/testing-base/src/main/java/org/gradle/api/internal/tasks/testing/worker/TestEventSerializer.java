@@ -38,6 +38,14 @@ public static SerializerRegistry create() {
         registry.register(TestCompleteEvent.class, new TestCompleteEventSerializer());
         registry.register(DefaultTestOutputEvent.class, new DefaultTestOutputEventSerializer());
         registry.register(Throwable.class, factory.getSerializerFor(Throwable.class));
+        registry.register(TestWorkerSession.class, new TestWorkerSession.TestWorkerSessionSerializer());
+        registry.register(TestEventBatch.class, new TestEventBatchSerializer(
+            registry.build(Object.class),
+            registry.build(TestDescriptorInternal.class),
+            registry.build(TestStartEvent.class),
+            registry.build(TestCompleteEvent.class),
+            registry.build(DefaultTestOutputEvent.class),
+            registry.build(Throwable.class)));
         return registry;
     }
 
@@ -256,4 +264,79 @@ public void write(Encoder encoder, DefaultTestMethodDescriptor value) throws Exc
             encoder.writeString(value.getName());
         }
     }
+
+    private static class TestEventBatchSerializer implements Serializer<TestEventBatch> {
+        private static final TestEventBatch.Type[] TYPES = TestEventBatch.Type.values();
+        private final Serializer<Object> testIdSerializer;
+        private final Serializer<TestDescriptorInternal> descriptorSerializer;
+        private final Serializer<TestStartEvent> startEventSerializer;
+        private final Serializer<TestCompleteEvent> completeEventSerializer;
+        private final Serializer<DefaultTestOutputEvent> outputEventSerializer;
+        private final Serializer<Throwable> failureSerializer;
+
+        TestEventBatchSerializer(Serializer<Object> testIdSerializer, Serializer<TestDescriptorInternal> descriptorSerializer, Serializer<TestStartEvent> startEventSerializer,
+                                 Serializer<TestCompleteEvent> completeEventSerializer, Serializer<DefaultTestOutputEvent> outputEventSerializer, Serializer<Throwable> failureSerializer) {
+            this.testIdSerializer = testIdSerializer;
+            this.descriptorSerializer = descriptorSerializer;
+            this.startEventSerializer = startEventSerializer;
+            this.completeEventSerializer = completeEventSerializer;
+            this.outputEventSerializer = outputEventSerializer;
+            this.failureSerializer = failureSerializer;
+        }
+
+        @Override
+        public TestEventBatch read(Decoder decoder) throws Exception {
+            int size = decoder.readSmallInt();
+            TestEventBatch batch = new TestEventBatch();
+            for (int i = 0; i < size; i++) {
+                TestEventBatch.Type type = TYPES[decoder.readSmallInt()];
+                switch (type) {
+                    case STARTED:
+                        batch.started(descriptorSerializer.read(decoder), startEventSerializer.read(decoder));
+                        break;
+                    case COMPLETED:
+                        batch.completed(testIdSerializer.read(decoder), completeEventSerializer.read(decoder));
+                        break;
+                    case OUTPUT:
+                        batch.output(testIdSerializer.read(decoder), outputEventSerializer.read(decoder));
+                        break;
+                    case FAILURE:
+                        batch.failure(testIdSerializer.read(decoder), failureSerializer.read(decoder));
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected event type " + type);
+                }
+            }
+            return batch;
+        }
+
+        @Override
+        public void write(Encoder encoder, TestEventBatch value) throws Exception {
+            encoder.writeSmallInt(value.size());
+            for (int i = 0; i < value.size(); i++) {
+                TestEventBatch.Type type = value.getType(i);
+                encoder.writeSmallInt(type.ordinal());
+                switch (type) {
+                    case STARTED:
+                        descriptorSerializer.write(encoder, (TestDescriptorInternal) value.getSubject(i));
+                        startEventSerializer.write(encoder, (TestStartEvent) value.getPayload(i));
+                        break;
+                    case COMPLETED:
+                        testIdSerializer.write(encoder, value.getSubject(i));
+                        completeEventSerializer.write(encoder, (TestCompleteEvent) value.getPayload(i));
+                        break;
+                    case OUTPUT:
+                        testIdSerializer.write(encoder, value.getSubject(i));
+                        outputEventSerializer.write(encoder, (DefaultTestOutputEvent) value.getPayload(i));
+                        break;
+                    case FAILURE:
+                        testIdSerializer.write(encoder, value.getSubject(i));
+                        failureSerializer.write(encoder, (Throwable) value.getPayload(i));
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected event type " + type);
+                }
+            }
+        }
+    }
 }
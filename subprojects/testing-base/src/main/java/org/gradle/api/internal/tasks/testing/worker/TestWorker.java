@@ -19,7 +19,6 @@
 import org.gradle.api.Action;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
@@ -44,6 +43,7 @@
 import java.security.AccessControlException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Processes tests in a remote process with the given {@link TestClassProcessor} until a stop command is received.  Requires that
@@ -63,12 +63,13 @@ private enum State { INITIALIZING, STARTED, STOPPED }
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
     public static final String WORKER_TMPDIR_SYS_PROPERTY = "org.gradle.internal.worker.tmpdir";
-    private static final String WORK_THREAD_NAME = "Test worker";
+    static final String WORK_THREAD_NAME = "Test worker";
 
     private final WorkerTestClassProcessorFactory factory;
+    private final boolean batchTestEvents;
     private final BlockingQueue<Runnable> runQueue = new ArrayBlockingQueue<Runnable>(1);
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor resultProcessor;
 
     /**
      * Note that the state object is not synchronized and not thread-safe.  Any modifications to the
@@ -78,7 +79,15 @@ private enum State { INITIALIZING, STARTED, STOPPED }
     private volatile State state = State.INITIALIZING;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
+        this(factory, false);
+    }
+
+    /**
+     * Creates a worker which sends its test events to the build process in batches when requested, see {@link BatchingTestResultProcessor}.
+     */
+    public TestWorker(WorkerTestClassProcessorFactory factory, boolean batchTestEvents) {
         this.factory = factory;
+        this.batchTestEvents = batchTestEvents;
     }
 
     @Override
@@ -112,19 +121,28 @@ public void execute(final WorkerProcessContext workerProcessContext) {
                 runQueue.clear();
             }
 
-            if (System.getSecurityManager() != securityManager) {
-                try {
-                    // Reset security manager the tests seem to have installed
-                    System.setSecurityManager(securityManager);
-                } catch (SecurityException e) {
-                    LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
-                }
+            if (resultProcessor != null) {
+                // Send any events which have not been sent yet, for example when the tests were not stopped normally
+                resultProcessor.stop();
             }
+
+            resetSecurityManager(securityManager);
             testServices.close();
         }
     }
 
-    private static void executeAndMaintainThreadName(Runnable action) {
+    static void resetSecurityManager(SecurityManager securityManager) {
+        if (System.getSecurityManager() != securityManager) {
+            try {
+                // Reset security manager the tests seem to have installed
+                System.setSecurityManager(securityManager);
+            } catch (SecurityException e) {
+                LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
+            }
+        }
+    }
+
+    static void executeAndMaintainThreadName(Runnable action) {
         try {
             action.run();
         } finally {
@@ -145,7 +163,8 @@ private void startReceivingTests(WorkerProcessContext workerProcessContext, Serv
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        ScheduledExecutorService flushExecutor = batchTestEvents ? testServices.get(ExecutorFactory.class).createScheduled("Test event batching", 1) : null;
+        this.resultProcessor = new BatchingTestResultProcessor(serverConnection.addOutgoing(RemoteTestResultProcessor.class), flushExecutor);
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -192,6 +211,7 @@ public void run() {
                 try {
                     processor.stop();
                 } finally {
+                    resultProcessor.stop();
                     state = State.STOPPED;
                     // Clean the interrupted status
                     // because some test class processors do work here, e.g. JUnitPlatform
@@ -211,7 +231,7 @@ private synchronized void submitToRun(Runnable command) {
         }
     }
 
-    private static class TestFrameworkServiceRegistry extends DefaultServiceRegistry {
+    static class TestFrameworkServiceRegistry extends DefaultServiceRegistry {
         private final WorkerProcessContext workerProcessContext;
 
         public TestFrameworkServiceRegistry(WorkerProcessContext workerProcessContext) {
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.gradle.StartParameter;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps test worker processes alive between test tasks of a build session, so that test tasks with the same JVM configuration can
+ * reuse them rather than forking new ones. Test workers are only reused while idle, and each test task gets class loaders of its own
+ * in the reused process.
+ *
+ * <p>The working directory is not part of the configuration, so that test tasks of different projects can share test workers. Each
+ * session sets the {@code user.dir} system property to the working directory of its test task instead. The process itself keeps the
+ * working directory it was started in.</p>
+ *
+ * <p>At most as many idle test workers as the maximum number of workers are kept. When another test worker becomes idle, the test worker
+ * which has been idle the longest is shut down.</p>
+ *
+ * @see PooledTestWorker
+ */
+public class TestWorkerPool implements Stoppable {
+    /**
+     * When set to true, test workers are reused across the test tasks of a build.
+     */
+    public static final String REUSE_TEST_WORKERS_PROPERTY = "org.gradle.internal.testing.reuse-workers";
+
+    private static final Logger LOGGER = Logging.getLogger(TestWorkerPool.class);
+    private static final int STOP_TIMEOUT_SECONDS = 30;
+
+    private final Object lock = new Object();
+    private final List<PooledTestWorkerClient> allWorkers = new ArrayList<PooledTestWorkerClient>();
+    private final List<PooledTestWorkerClient> idleWorkers = new ArrayList<PooledTestWorkerClient>();
+    private final ManagedExecutor processWatchers;
+    private final int maxIdleWorkers;
+    private int startedWorkers;
+    private int reusedWorkers;
+
+    public TestWorkerPool(ExecutorFactory executorFactory, StartParameter startParameter) {
+        this(executorFactory, startParameter.getMaxWorkerCount());
+    }
+
+    TestWorkerPool(ExecutorFactory executorFactory, int maxIdleWorkers) {
+        this.processWatchers = executorFactory.create("Test worker process watcher");
+        this.maxIdleWorkers = maxIdleWorkers;
+    }
+
+    @Nullable
+    public PooledTestWorkerClient reserveIdleWorker(Key key) {
+        synchronized (lock) {
+            Iterator<PooledTestWorkerClient> it = idleWorkers.iterator();
+            while (it.hasNext()) {
+                PooledTestWorkerClient candidate = it.next();
+                if (candidate.isFailed()) {
+                    it.remove();
+                    allWorkers.remove(candidate);
+                } else if (candidate.getKey().equals(key)) {
+                    it.remove();
+                    reusedWorkers++;
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Adds a newly started worker process to the pool, reserved for the caller.
+     */
+    public PooledTestWorkerClient reserveNewWorker(Key key, WorkerProcess workerProcess) {
+        final PooledTestWorkerClient worker = new PooledTestWorkerClient(workerProcess, key);
+        processWatchers.execute(new Runnable() {
+            @Override
+            public void run() {
+                worker.waitForExit();
+            }
+        });
+        synchronized (lock) {
+            allWorkers.add(worker);
+            startedWorkers++;
+        }
+        return worker;
+    }
+
+    public void release(PooledTestWorkerClient worker) {
+        PooledTestWorkerClient evicted = null;
+        synchronized (lock) {
+            if (!worker.isFailed()) {
+                idleWorkers.add(worker);
+                if (idleWorkers.size() > maxIdleWorkers) {
+                    evicted = idleWorkers.remove(0);
+                    allWorkers.remove(evicted);
+                }
+            } else {
+                allWorkers.remove(worker);
+            }
+        }
+        if (evicted != null) {
+            evicted.shutdown();
+        }
+    }
+
+    /**
+     * Removes a reserved worker from the pool, stopping its process.
+     */
+    public void discard(PooledTestWorkerClient worker) {
+        synchronized (lock) {
+            allWorkers.remove(worker);
+        }
+        worker.stopNow();
+    }
+
+    @Override
+    public void stop() {
+        List<PooledTestWorkerClient> workers;
+        synchronized (lock) {
+            workers = new ArrayList<PooledTestWorkerClient>(allWorkers);
+            allWorkers.clear();
+            idleWorkers.clear();
+            if (startedWorkers > 0) {
+                int sessions = startedWorkers + reusedWorkers;
+                LOGGER.info("Ran {} test worker session(s) in {} pooled test worker(s), {}% of them in a reused worker.",
+                    sessions, startedWorkers, reusedWorkers * 100 / sessions);
+            }
+        }
+        for (PooledTestWorkerClient worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            // Waits for the worker processes to exit
+            processWatchers.stop(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (IllegalStateException e) {
+            LOGGER.debug("Timeout waiting for pooled test workers to stop, stopping them now.", e);
+            for (PooledTestWorkerClient worker : workers) {
+                worker.stopNow();
+            }
+        }
+    }
+
+    /**
+     * The configuration of a test worker process. Processes are only reused by test tasks with exactly the same configuration.
+     */
+    public static class Key {
+        private final String executable;
+        private final List<String> jvmArgs;
+        private final Map<String, String> environment;
+
+        public Key(String executable, List<String> jvmArgs, Map<String, String> environment) {
+            this.executable = executable;
+            this.jvmArgs = jvmArgs;
+            this.environment = environment;
+        }
+
+        /**
+         * Creates the key for the given options, ignoring the working directory and the given system properties, which are set again for each session.
+         */
+        public static Key of(JavaForkOptions options, String... sessionSystemProperties) {
+            ImmutableList.Builder<String> jvmArgs = ImmutableList.builder();
+            for (String jvmArg : options.getAllJvmArgs()) {
+                if (!isSessionSystemProperty(jvmArg, sessionSystemProperties)) {
+                    jvmArgs.add(jvmArg);
+                }
+            }
+            ImmutableMap.Builder<String, String> environment = ImmutableMap.builder();
+            for (Map.Entry<String, Object> entry : options.getEnvironment().entrySet()) {
+                environment.put(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+            return new Key(options.getExecutable(), jvmArgs.build(), environment.build());
+        }
+
+        private static boolean isSessionSystemProperty(String jvmArg, String[] sessionSystemProperties) {
+            for (String property : sessionSystemProperties) {
+                if (jvmArg.startsWith("-D" + property + "=")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return executable.equals(key.executable)
+                && jvmArgs.equals(key.jvmArgs)
+                && environment.equals(key.environment);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = executable.hashCode();
+            result = 31 * result + jvmArgs.hashCode();
+            result = 31 * result + environment.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.io.ClassLoaderObjectInputStream;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything a pooled test worker needs to run the tests of one test task: the classpaths, the packages to share between them,
+ * and the serialized {@link WorkerTestClassProcessorFactory}, which can only be deserialized once the classpaths are known.
+ */
+public class TestWorkerSession {
+    private final List<URL> implementationClasspath;
+    private final List<URL> applicationClasspath;
+    private final List<String> sharedPackages;
+    private final byte[] serializedProcessorFactory;
+    private final String workingDir;
+    private final String workerTmpDir;
+    private final boolean batchTestEvents;
+
+    public TestWorkerSession(List<URL> implementationClasspath, List<URL> applicationClasspath, List<String> sharedPackages, byte[] serializedProcessorFactory, String workingDir,
+                             @Nullable String workerTmpDir, boolean batchTestEvents) {
+        this.implementationClasspath = implementationClasspath;
+        this.applicationClasspath = applicationClasspath;
+        this.sharedPackages = sharedPackages;
+        this.serializedProcessorFactory = serializedProcessorFactory;
+        this.workingDir = workingDir;
+        this.workerTmpDir = workerTmpDir;
+        this.batchTestEvents = batchTestEvents;
+    }
+
+    public static byte[] serialize(WorkerTestClassProcessorFactory processorFactory) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream outputStream = new ObjectOutputStream(bytes);
+            outputStream.writeObject(processorFactory);
+            outputStream.close();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The classpath of the test framework implementation, which is loaded separately for each session.
+     */
+    public List<URL> getImplementationClasspath() {
+        return implementationClasspath;
+    }
+
+    public List<URL> getApplicationClasspath() {
+        return applicationClasspath;
+    }
+
+    public List<String> getSharedPackages() {
+        return sharedPackages;
+    }
+
+    /**
+     * The working directory of the test task, which the session uses as {@code user.dir}.
+     */
+    public String getWorkingDir() {
+        return workingDir;
+    }
+
+    @Nullable
+    public String getWorkerTmpDir() {
+        return workerTmpDir;
+    }
+
+    /**
+     * Whether the test events of this session are sent in batches, see {@link BatchingTestResultProcessor}.
+     */
+    public boolean isBatchTestEvents() {
+        return batchTestEvents;
+    }
+
+    public WorkerTestClassProcessorFactory getProcessorFactory(ClassLoader classLoader) {
+        try {
+            ClassLoaderObjectInputStream inputStream = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedProcessorFactory), classLoader);
+            try {
+                return (WorkerTestClassProcessorFactory) inputStream.readObject();
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    static class TestWorkerSessionSerializer implements Serializer<TestWorkerSession> {
+        @Override
+        public TestWorkerSession read(Decoder decoder) throws Exception {
+            List<URL> implementationClasspath = readUrls(decoder);
+            List<URL> applicationClasspath = readUrls(decoder);
+            int sharedPackagesCount = decoder.readSmallInt();
+            List<String> sharedPackages = new ArrayList<String>(sharedPackagesCount);
+            for (int i = 0; i < sharedPackagesCount; i++) {
+                sharedPackages.add(decoder.readString());
+            }
+            byte[] serializedProcessorFactory = decoder.readBinary();
+            String workingDir = decoder.readString();
+            String workerTmpDir = decoder.readNullableString();
+            boolean batchTestEvents = decoder.readBoolean();
+            return new TestWorkerSession(implementationClasspath, applicationClasspath, sharedPackages, serializedProcessorFactory, workingDir, workerTmpDir, batchTestEvents);
+        }
+
+        @Override
+        public void write(Encoder encoder, TestWorkerSession value) throws Exception {
+            writeUrls(encoder, value.implementationClasspath);
+            writeUrls(encoder, value.applicationClasspath);
+            encoder.writeSmallInt(value.sharedPackages.size());
+            for (String sharedPackage : value.sharedPackages) {
+                encoder.writeString(sharedPackage);
+            }
+            encoder.writeBinary(value.serializedProcessorFactory);
+            encoder.writeString(value.workingDir);
+            encoder.writeNullableString(value.workerTmpDir);
+            encoder.writeBoolean(value.batchTestEvents);
+        }
+
+        private static List<URL> readUrls(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            List<URL> urls = new ArrayList<URL>(count);
+            for (int i = 0; i < count; i++) {
+                urls.add(new URL(decoder.readString()));
+            }
+            return urls;
+        }
+
+        private static void writeUrls(Encoder encoder, List<URL> urls) throws Exception {
+            encoder.writeSmallInt(urls.size());
+            for (URL url : urls) {
+                encoder.writeString(url.toString());
+            }
+        }
+    }
+}
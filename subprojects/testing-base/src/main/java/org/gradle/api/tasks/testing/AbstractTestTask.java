@@ -35,6 +35,7 @@
 import org.gradle.api.internal.tasks.testing.junit.result.Binary2JUnitXmlReportGenerator;
 import org.gradle.api.internal.tasks.testing.junit.result.InMemoryTestResultsProvider;
 import org.gradle.api.internal.tasks.testing.junit.result.JUnitXmlResultOptions;
+import org.gradle.api.internal.tasks.testing.junit.result.StreamingJUnitXmlReportGenerator;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
 import org.gradle.api.internal.tasks.testing.junit.result.TestReportDataCollector;
@@ -66,6 +67,7 @@
 import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
 import org.gradle.internal.Cast;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.deprecation.DeprecationLogger;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
@@ -83,9 +85,11 @@
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Abstract class for all test tasks.
@@ -471,6 +475,14 @@ public void execute(DeleteSpec spec) {
         addTestListener(testReportDataCollector);
         addTestOutputListener(testReportDataCollector);
 
+        StreamingJUnitXmlReportGenerator streamingXmlReportGenerator = null;
+        JUnitXmlReport junitXml = reports.getJunitXml();
+        if (junitXml.getRequired().get()) {
+            streamingXmlReportGenerator = new StreamingJUnitXmlReportGenerator(junitXml.getOutputLocation().getAsFile().get(), results, outputWriter, createJUnitXmlResultOptions(junitXml), getHostnameLookup().getHostname(), getServices().get(ExecutorFactory.class));
+            addTestListener(streamingXmlReportGenerator);
+            addTestOutputListener(streamingXmlReportGenerator);
+        }
+
         TestCountLogger testCountLogger = new TestCountLogger(getProgressLoggerFactory());
         addTestListener(testCountLogger);
 
@@ -498,12 +510,14 @@ public void execute(DeleteSpec spec) {
             testListenerBroadcaster.removeAll();
             getTestOutputListenerBroadcaster().removeAll();
             getTestListenerInternalBroadcaster().removeAll();
+            CompositeStoppable.stoppable(streamingXmlReportGenerator).stop();
             outputWriter.close();
         }
 
         new TestResultSerializer(binaryResultsDir).write(results.values());
 
-        createReporting(results, testOutputStore);
+        Set<String> upToDateXmlReportClassNames = streamingXmlReportGenerator == null ? Collections.<String>emptySet() : streamingXmlReportGenerator.getUpToDateClassNames();
+        createReporting(results, testOutputStore, upToDateXmlReportClassNames);
 
         handleCollectedResults(testCountLogger);
     }
@@ -544,7 +558,7 @@ protected List<String> getNoMatchingTestErrorReasons() {
         return reasons;
     }
 
-    private void createReporting(Map<String, TestClassResult> results, TestOutputStore testOutputStore) {
+    private void createReporting(Map<String, TestClassResult> results, TestOutputStore testOutputStore, Set<String> upToDateXmlReportClassNames) {
         TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore);
 
         try {
@@ -554,12 +568,8 @@ private void createReporting(Map<String, TestClassResult> results, TestOutputSto
 
             JUnitXmlReport junitXml = reports.getJunitXml();
             if (junitXml.getRequired().get()) {
-                JUnitXmlResultOptions xmlResultOptions = new JUnitXmlResultOptions(
-                    junitXml.isOutputPerTestCase(),
-                    junitXml.getMergeReruns().get()
-                );
-                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getOutputLocation().getAsFile().get(), testResultsProvider, xmlResultOptions, getBuildOperationExecutor(), getHostnameLookup().getHostname());
-                binary2JUnitXmlReportGenerator.generate();
+                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getOutputLocation().getAsFile().get(), testResultsProvider, createJUnitXmlResultOptions(junitXml), getBuildOperationExecutor(), getHostnameLookup().getHostname());
+                binary2JUnitXmlReportGenerator.generate(upToDateXmlReportClassNames);
             }
 
             DirectoryReport html = reports.getHtml();
@@ -574,6 +584,13 @@ private void createReporting(Map<String, TestClassResult> results, TestOutputSto
         }
     }
 
+    private static JUnitXmlResultOptions createJUnitXmlResultOptions(JUnitXmlReport junitXml) {
+        return new JUnitXmlResultOptions(
+            junitXml.isOutputPerTestCase(),
+            junitXml.getMergeReruns().get()
+        );
+    }
+
     /**
      * Sets the test name patterns to be included in execution.
      * Classes or method names are supported, wildcard '*' is supported.
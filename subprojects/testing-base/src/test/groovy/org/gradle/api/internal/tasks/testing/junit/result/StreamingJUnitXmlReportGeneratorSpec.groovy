@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.internal.tasks.testing.DecoratingTestDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor
+import org.gradle.api.internal.tasks.testing.results.DefaultTestResult
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.WorkspaceTest
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
+
+class StreamingJUnitXmlReportGeneratorSpec extends WorkspaceTest {
+    def executorFactory = new DefaultExecutorFactory()
+    def results = [:] as Map<String, TestClassResult>
+    def outputStore = new TestOutputStore(file("binary").createDir())
+    def outputWriter = outputStore.writer()
+    def reportsDir = file("reports").createDir()
+    def collector = new TestReportDataCollector(results, outputWriter)
+    def generator = new StreamingJUnitXmlReportGenerator(reportsDir, results, outputWriter, new JUnitXmlResultOptions(false, false), "localhost", executorFactory)
+
+    def root = new DefaultTestSuiteDescriptor("1", "Suite")
+    def fooClass = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1", "FooTest"), root)
+    def fooTest = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.1", "FooTest", "testFoo"), fooClass)
+    def barClass = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.2", "BarTest"), root)
+    def barTest = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.2.1", "BarTest", "testBar"), barClass)
+
+    def cleanup() {
+        outputWriter.close()
+        executorFactory.stop()
+    }
+
+    def "writes results of each class when the class completes"() {
+        when:
+        runTest(fooClass, fooTest, "foo output")
+        generator.stop()
+
+        then:
+        generator.upToDateClassNames == ["FooTest"] as Set
+        def xml = new File(reportsDir, "TEST-FooTest.xml").text
+        xml.contains('<testsuite name="FooTest" tests="1"')
+        xml.contains('<testcase name="testFoo" classname="FooTest"')
+        xml.contains('foo output')
+    }
+
+    def "results are not up-to-date when class receives results or output after it completes"() {
+        when:
+        runTest(fooClass, fooTest, "foo output")
+        runTest(barClass, barTest, "bar output")
+        generator.stop()
+        sendOutput(fooTest, "late output")
+        notifyTest(barTest)
+
+        then:
+        generator.upToDateClassNames.empty
+    }
+
+    def "does not write results for classes that complete after generator is stopped"() {
+        when:
+        generator.stop()
+        runTest(fooClass, fooTest, "foo output")
+
+        then:
+        generator.upToDateClassNames.empty
+        !new File(reportsDir, "TEST-FooTest.xml").exists()
+    }
+
+    private void runTest(DecoratingTestDescriptor testClass, DecoratingTestDescriptor test, String output) {
+        sendOutput(test, output)
+        notifyTest(test)
+        def classResult = new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, [])
+        collector.afterSuite(testClass, classResult)
+        generator.afterSuite(testClass, classResult)
+    }
+
+    private void sendOutput(DecoratingTestDescriptor test, String output) {
+        def event = new DefaultTestOutputEvent(StdOut, output)
+        collector.onOutput(test, event)
+        generator.onOutput(test, event)
+    }
+
+    private void notifyTest(DecoratingTestDescriptor test) {
+        collector.beforeTest(test)
+        def result = new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, [])
+        collector.afterTest(test, result)
+        generator.afterTest(test, result)
+    }
+}
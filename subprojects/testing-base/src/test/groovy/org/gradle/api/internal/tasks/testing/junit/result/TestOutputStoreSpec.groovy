@@ -98,6 +98,47 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reads large output containing multi-byte characters"() {
+        def message = "\u00e9\u4e2d\ud83d\ude00-" * 10000
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, message))
+        writer.onOutput(1, 2, output(StdOut, "[other]"))
+        writer.onOutput(1, 1, output(StdOut, message))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == message + message
+        collectAllOutput(reader, 1, StdOut) == message + "[other]" + message
+
+        cleanup:
+        reader.close()
+    }
+
+    def "can read output of a class while output is still being written"() {
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, output(StdOut, "[out-1]"))
+        writer.onOutput(1, 1, output(StdOut, "[out-2]"))
+        writer.onOutput(2, 1, output(StdOut, "[out-3]"))
+        writer.onOutput(1, 1, output(StdErr, "[out-4]"))
+        def snapshot = writer.snapshot(1)
+        writer.onOutput(1, 1, output(StdOut, "[out-5]"))
+        def reader = snapshot.reader()
+
+        then:
+        collectAllOutput(reader, 1, StdOut) == "[out-1][out-2]"
+        collectOutput(reader, 1, 1, StdErr) == "[out-4]"
+        collectOutput(reader, 1, StdOut) == "[out-1]"
+        !reader.hasOutput(2, StdOut)
+
+        cleanup:
+        reader?.close()
+        writer?.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }
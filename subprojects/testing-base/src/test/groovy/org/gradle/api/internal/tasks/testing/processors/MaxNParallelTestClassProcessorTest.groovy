@@ -202,4 +202,40 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * processor1.stopNow()
         1 * processor2.stopNow()
     }
+
+    def assignsTestClassesToLeastLoadedProcessorWhenDurationsAreKnown() {
+        def estimates = new TestClassDurationEstimates([Slow: 1000L, Medium: 600L, Fast1: 300L, Fast2: 300L, Fast3: 100L])
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, estimates)
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Stub() {
+            getProxy(TestClassProcessor) >> asyncProcessor1
+        }
+        Actor actor2 = Stub() {
+            getProxy(TestClassProcessor) >> asyncProcessor2
+        }
+
+        given:
+        1 * actorFactory.createActor({ it != resultProcessor && it instanceof TestResultProcessor }) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+        2 * factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        2 * actorFactory.createActor(_ as TestClassProcessor) >>> [actor1, actor2]
+
+        when:
+        ['Slow', 'Medium', 'Fast1', 'Fast2', 'Fast3'].each { processor.processTestClass(testClass(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'Slow' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'Medium' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'Fast1' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'Fast2' })
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'Fast3' })
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
 }
@@ -46,4 +46,51 @@ class RunPreviousFailedFirstTestClassProcessorTest extends Specification {
         then:
         1 * delegate.stop()
     }
+
+    def 'test classes are passed to delegate as soon as no previous failed test classes are pending'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor(['Class2'] as Set, delegate)
+        processor.startProcessing(testResultProcessor)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        0 * delegate.processTestClass(_)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class2'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class3'))
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class3'))
+        0 * delegate.processTestClass(_)
+    }
+
+    def 'test classes are passed to delegate immediately when there are no previous failed test classes'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor([] as Set, delegate)
+        processor.startProcessing(testResultProcessor)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        when:
+        processor.stop()
+
+        then:
+        0 * delegate.processTestClass(_)
+        1 * delegate.stop()
+    }
 }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.report
 import org.gradle.api.internal.tasks.testing.BuildableTestResultsProvider
 import org.gradle.api.internal.tasks.testing.junit.result.AggregateTestResultsProvider
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider
+import org.gradle.api.specs.Spec
 import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.concurrent.DefaultParallelismConfiguration
 import org.gradle.internal.operations.BuildOperationExecutor
@@ -465,6 +466,26 @@ class DefaultTestReportTest extends Specification {
         numThreads << [1, 4]
     }
 
+    def "reuses pages of unchanged classes and removes pages of classes without results"() {
+        given:
+        report = reportWithMaxThreads(1)
+        report.generateReport(failingBuildResults(), reportDir)
+        def passedPage = reportDir.file('classes/org.gradle.passing.Passed.html')
+        def alsoPassedPage = reportDir.file('classes/org.gradle.passing.AlsoPassed.html')
+        passedPage.text = "reused"
+        alsoPassedPage.text = "stale"
+        reportDir.file('classes/org.gradle.removed.Removed.html').text = "removed"
+
+        when:
+        report.generateReport(failingBuildResults(), reportDir, { it == 'org.gradle.passing.AlsoPassed' } as Spec<String>)
+
+        then:
+        passedPage.text == "reused"
+        results(alsoPassedPage).assertHasStandardOutput('this is\nstandard output')
+        !reportDir.file('classes/org.gradle.removed.Removed.html').exists()
+        results(indexFile).assertHasTests(7)
+    }
+
     def reportsOnClassesInDefaultPackage() {
         given:
         report = reportWithMaxThreads(1)
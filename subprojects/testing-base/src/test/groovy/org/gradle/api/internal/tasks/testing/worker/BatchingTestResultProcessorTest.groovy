@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestOutputEvent
+import spock.lang.Specification
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+
+class BatchingTestResultProcessorTest extends Specification {
+    def target = Mock(RemoteTestResultProcessor)
+    def flushExecutor = Mock(ScheduledExecutorService)
+    def replayed = Mock(TestResultProcessor)
+    def processor = new BatchingTestResultProcessor(target, flushExecutor)
+
+    def "sends events in a single batch when flushed"() {
+        def test = Stub(TestDescriptorInternal)
+        def startEvent = new TestStartEvent(1)
+        def completeEvent = new TestCompleteEvent(2)
+
+        when:
+        processor.started(test, startEvent)
+        processor.completed("id", completeEvent)
+
+        then:
+        1 * flushExecutor.schedule(_, BatchingTestResultProcessor.MAX_LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+        0 * target._
+
+        when:
+        processor.flush()
+
+        then:
+        1 * target.process({ it.size() == 2 }) >> { TestEventBatch batch -> batch.replay(replayed) }
+        1 * replayed.started(test, startEvent)
+        1 * replayed.completed("id", completeEvent)
+
+        when:
+        processor.flush()
+
+        then:
+        0 * target._
+    }
+
+    def "sends batch from scheduled flush"() {
+        Runnable scheduledFlush = null
+
+        when:
+        processor.completed("id", new TestCompleteEvent(2))
+        processor.completed("id", new TestCompleteEvent(3))
+
+        then:
+        1 * flushExecutor.schedule(_, _, _) >> { Runnable action, long delay, TimeUnit unit -> scheduledFlush = action; null }
+
+        when:
+        scheduledFlush.run()
+
+        then:
+        1 * target.process({ it.size() == 2 })
+
+        when:
+        processor.completed("id", new TestCompleteEvent(4))
+
+        then:
+        1 * flushExecutor.schedule(_, _, _)
+    }
+
+    def "sends batch when it reaches the maximum number of events"() {
+        when:
+        (BatchingTestResultProcessor.MAX_EVENTS_PER_BATCH - 1).times {
+            processor.completed("id", new TestCompleteEvent(it))
+        }
+
+        then:
+        0 * target._
+
+        when:
+        processor.completed("id", new TestCompleteEvent(0))
+
+        then:
+        1 * target.process({ it.size() == BatchingTestResultProcessor.MAX_EVENTS_PER_BATCH })
+    }
+
+    def "coalesces consecutive output of the same test to the same destination"() {
+        when:
+        processor.output("id", new DefaultTestOutputEvent(StdOut, "a"))
+        processor.output("id", new DefaultTestOutputEvent(StdOut, "b"))
+        processor.output("id", new DefaultTestOutputEvent(StdErr, "c"))
+        processor.output("other", new DefaultTestOutputEvent(StdErr, "d"))
+        processor.output("other", new DefaultTestOutputEvent(StdErr, "e"))
+        processor.flush()
+
+        then:
+        1 * target.process({ it.size() == 3 }) >> { TestEventBatch batch -> batch.replay(replayed) }
+
+        then:
+        1 * replayed.output("id", new DefaultTestOutputEvent(StdOut, "ab"))
+        then:
+        1 * replayed.output("id", new DefaultTestOutputEvent(StdErr, "c"))
+        then:
+        1 * replayed.output("other", new DefaultTestOutputEvent(StdErr, "de"))
+    }
+
+    def "sends batch when it reaches the maximum amount of output"() {
+        def output = "x" * BatchingTestResultProcessor.MAX_OUTPUT_CHARS_PER_BATCH
+
+        when:
+        processor.output("id", new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, output))
+
+        then:
+        1 * target.process({ it.size() == 1 })
+    }
+
+    def "sends pending events and stops flush executor when stopped"() {
+        when:
+        processor.completed("id", new TestCompleteEvent(2))
+        processor.stop()
+
+        then:
+        1 * target.process({ it.size() == 1 })
+        1 * flushExecutor.shutdownNow()
+
+        when:
+        def event = new TestCompleteEvent(3)
+        processor.completed("id", event)
+
+        then:
+        1 * target.completed("id", event)
+        0 * target.process(_)
+        0 * flushExecutor._
+    }
+
+    def "sends each event on its own as soon as it is received when not batching"() {
+        def unbatched = new BatchingTestResultProcessor(target, null)
+        def output1 = new DefaultTestOutputEvent(StdOut, "a")
+        def output2 = new DefaultTestOutputEvent(StdOut, "b")
+        def completed = new TestCompleteEvent(2)
+
+        when:
+        unbatched.output("id", output1)
+        unbatched.output("id", output2)
+        unbatched.completed("id", completed)
+
+        then:
+        1 * target.output("id", output1)
+
+        then:
+        1 * target.output("id", output2)
+
+        then:
+        1 * target.completed("id", completed)
+        0 * target.process(_)
+
+        when:
+        unbatched.stop()
+
+        then:
+        0 * target._
+    }
+}
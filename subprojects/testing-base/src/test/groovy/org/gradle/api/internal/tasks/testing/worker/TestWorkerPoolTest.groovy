@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.worker.WorkerProcess
+import spock.lang.Specification
+import spock.lang.Subject
+
+class TestWorkerPoolTest extends Specification {
+    def processWatchers = Mock(ManagedExecutor)
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_) >> processWatchers
+    }
+
+    @Subject
+    def pool = new TestWorkerPool(executorFactory, 2)
+
+    def "reuses idle worker with the same configuration"() {
+        def key = key("-Xmx64m")
+        def worker = pool.reserveNewWorker(key, workerProcess())
+
+        expect:
+        pool.reserveIdleWorker(key) == null
+
+        when:
+        pool.release(worker)
+
+        then:
+        pool.reserveIdleWorker(key("-Xmx128m")) == null
+        pool.reserveIdleWorker(key("-Xmx64m")) == worker
+        pool.reserveIdleWorker(key) == null
+    }
+
+    def "does not reuse failed worker"() {
+        def key = key()
+        def workerProcess = workerProcess()
+        def worker = pool.reserveNewWorker(key, workerProcess)
+
+        when:
+        worker.waitForExit()
+        pool.release(worker)
+
+        then:
+        1 * workerProcess.waitForStop()
+        pool.reserveIdleWorker(key) == null
+    }
+
+    def "shuts down the worker which has been idle the longest when too many workers are idle"() {
+        def remoteWorker1 = Mock(RemotePooledTestWorker)
+        def remoteWorker2 = Mock(RemotePooledTestWorker)
+        def remoteWorker3 = Mock(RemotePooledTestWorker)
+        def worker1 = pool.reserveNewWorker(key("-Xmx64m"), workerProcess(remoteWorker1))
+        def worker2 = pool.reserveNewWorker(key("-Xmx128m"), workerProcess(remoteWorker2))
+        def worker3 = pool.reserveNewWorker(key("-Xmx256m"), workerProcess(remoteWorker3))
+
+        when:
+        pool.release(worker1)
+        pool.release(worker2)
+
+        then:
+        0 * _.shutdown()
+
+        when:
+        pool.release(worker3)
+
+        then:
+        1 * remoteWorker1.shutdown()
+        0 * _.shutdown()
+        pool.reserveIdleWorker(key("-Xmx64m")) == null
+        pool.reserveIdleWorker(key("-Xmx128m")) == worker2
+        pool.reserveIdleWorker(key("-Xmx256m")) == worker3
+    }
+
+    def "discarding a worker stops its process"() {
+        def workerProcess = workerProcess()
+        def worker = pool.reserveNewWorker(key(), workerProcess)
+
+        when:
+        pool.discard(worker)
+
+        then:
+        1 * workerProcess.stopNow()
+    }
+
+    def "key ignores system properties which are set for each session"() {
+        def options1 = forkOptions("-Dorg.gradle.internal.worker.tmpdir=build/tmp/test/work", "-Dfoo=bar")
+        def options2 = forkOptions("-Dorg.gradle.internal.worker.tmpdir=build/tmp/otherTest/work", "-Dfoo=bar")
+        def options3 = forkOptions("-Dorg.gradle.internal.worker.tmpdir=build/tmp/test/work", "-Dfoo=baz")
+
+        expect:
+        TestWorkerPool.Key.of(options1, TestWorker.WORKER_TMPDIR_SYS_PROPERTY) == TestWorkerPool.Key.of(options2, TestWorker.WORKER_TMPDIR_SYS_PROPERTY)
+        TestWorkerPool.Key.of(options1, TestWorker.WORKER_TMPDIR_SYS_PROPERTY) != TestWorkerPool.Key.of(options3, TestWorker.WORKER_TMPDIR_SYS_PROPERTY)
+        TestWorkerPool.Key.of(options1) != TestWorkerPool.Key.of(options2)
+    }
+
+    def "key ignores the working directory, which is set for each session"() {
+        expect:
+        TestWorkerPool.Key.of(forkOptionsIn(new File("project1"), "-Dfoo=bar")) == TestWorkerPool.Key.of(forkOptionsIn(new File("project2"), "-Dfoo=bar"))
+    }
+
+    def "stop shuts down all workers"() {
+        def remoteWorker = Mock(RemotePooledTestWorker)
+        pool.release(pool.reserveNewWorker(key(), workerProcess(remoteWorker)))
+        pool.reserveNewWorker(key(), workerProcess(remoteWorker))
+
+        when:
+        pool.stop()
+
+        then:
+        2 * remoteWorker.shutdown()
+        1 * processWatchers.stop(_, _)
+    }
+
+    private TestWorkerPool.Key key(String... jvmArgs) {
+        return TestWorkerPool.Key.of(forkOptions(jvmArgs))
+    }
+
+    private JavaForkOptions forkOptions(String... jvmArgs) {
+        return forkOptionsIn(new File("project"), jvmArgs)
+    }
+
+    private JavaForkOptions forkOptionsIn(File workingDir, String... jvmArgs) {
+        return Stub(JavaForkOptions) {
+            getExecutable() >> "java"
+            getAllJvmArgs() >> (jvmArgs as List)
+            getWorkingDir() >> workingDir
+            getEnvironment() >> [PATH: "/bin"]
+        }
+    }
+
+    private WorkerProcess workerProcess(RemotePooledTestWorker remoteWorker = Stub(RemotePooledTestWorker)) {
+        def connection = Stub(ObjectConnection) {
+            addOutgoing(RemotePooledTestWorker) >> remoteWorker
+        }
+        return Mock(WorkerProcess) {
+            getConnection() >> connection
+        }
+    }
+}
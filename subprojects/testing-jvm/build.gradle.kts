@@ -12,6 +12,7 @@ dependencies {
     implementation(project(":process-services"))
     implementation(project(":file-collections"))
     implementation(project(":file-temp"))
+    implementation(project(":persistent-cache"))
     implementation(project(":jvm-services"))
     implementation(project(":core-api"))
     implementation(project(":model-core"))
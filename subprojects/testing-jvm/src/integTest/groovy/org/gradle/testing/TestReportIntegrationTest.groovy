@@ -249,6 +249,69 @@ public class SubClassTests extends SuperClassTests {
         succeeds "testReport"
     }
 
+    def "test report task only updates classes of test tasks that ran again"() {
+        given:
+        buildScript """
+            apply plugin: 'java'
+
+            $junitSetup
+
+            test {
+                exclude '**/OtherTest*'
+                def message = providers.systemProperty('message').forUseAtConfigurationTime()
+                systemProperty 'message', message.getOrElse('first')
+            }
+
+            task otherTests(type: Test) {
+                testClassesDirs = test.testClassesDirs
+                classpath = test.classpath
+                include '**/OtherTest*'
+            }
+
+            task testReport(type: TestReport) {
+                reportOn test, otherTests
+                destinationDir reporting.file("tr")
+            }
+        """
+
+        and:
+        file("src/test/java/LoggingTest.java") << """
+            public class LoggingTest {
+                @org.junit.Test
+                public void test() {
+                    System.out.println(System.getProperty("message"));
+                }
+            }
+        """
+        file("src/test/java/OtherTest.java") << """
+            public class OtherTest {
+                @org.junit.Test
+                public void test() {
+                    System.out.println("other");
+                }
+            }
+        """
+
+        when:
+        succeeds "testReport"
+
+        then:
+        def result = new HtmlTestExecutionResult(testDirectory, "build/reports/tr")
+        result.assertTestClassesExecuted("LoggingTest", "OtherTest")
+        result.testClass("LoggingTest").assertStdout(equalTo("first\n"))
+
+        when:
+        executer.withArguments("-Dmessage=second")
+        succeeds "testReport"
+
+        then:
+        executedAndNotSkipped(":test", ":testReport")
+        skipped(":otherTests")
+        result.assertTestClassesExecuted("LoggingTest", "OtherTest")
+        result.testClass("LoggingTest").assertStdout(equalTo("second\n"))
+        result.testClass("OtherTest").assertStdout(equalTo("other\n"))
+    }
+
     def "test report task is skipped when there are no results"() {
         given:
         buildScript """
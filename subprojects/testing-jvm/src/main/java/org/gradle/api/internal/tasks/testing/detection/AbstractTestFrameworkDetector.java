@@ -16,53 +16,66 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
+import org.gradle.api.Action;
 import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.cache.internal.FileContentCache;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
-import org.gradle.internal.IoActions;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
+import javax.annotation.Nullable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
-public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
+/**
+ * Detects test classes by parsing their class files, and the class files of their super classes. Test class files can be processed concurrently,
+ * in which case the results for super classes are shared between the threads.
+ *
+ * <p>When given a detection cache, the information parsed from the class files of the test classes directories is cached across builds, keyed by
+ * the hash of the class file content, so unchanged class files are not parsed again.</p>
+ */
+public abstract class AbstractTestFrameworkDetector implements TestFrameworkDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTestFrameworkDetector.class);
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
 
-    private List<File> testClassDirectories;
+    private volatile List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private final ConcurrentMap<String, Boolean> superClasses;
+    private final String detectionCacheName;
+    private final TestClassVisitor.Factory classVisitorFactory;
+    private FileContentCache<TestClass> detectionCache;
     private TestClassProcessor testClassProcessor;
 
     private Set<File> testClassesDirectories;
     private Set<File> testClasspath;
 
-    protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
+    /**
+     * @param detectionCacheName The name of the cache of parsed class files, which must be different for each test framework.
+     * @param classVisitorFactory The stateless factory of the class visitors which detect test classes.
+     */
+    protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager, String detectionCacheName, TestClassVisitor.Factory classVisitorFactory) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<String, Boolean>();
+        this.detectionCacheName = detectionCacheName;
+        this.classVisitorFactory = classVisitorFactory;
     }
 
-    protected abstract T createClassVisitor();
-
-    private File getSuperTestClassFile(String superClassName) {
-        prepareClasspath();
+    @Nullable
+    private TestClass readSuperClass(String superClassName) {
+        List<File> testClassDirectories = prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
             throw new IllegalArgumentException("superClassName is empty!");
         }
@@ -76,22 +89,23 @@ private File getSuperTestClassFile(String superClassName) {
         }
 
         if (superTestClassFile != null) {
-            return superTestClassFile;
+            return readClassFile(superTestClassFile, Factories.constant(superClassName));
         } else if (JAVA_LANG_OBJECT.equals(superClassName)) {
             // java.lang.Object found, which is not a test class
             return null;
         } else {
             // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
+            byte[] superClassBytes = classFileExtractionManager.getLibraryClassBytes(superClassName);
+            return superClassBytes == null ? null : readClass(superClassBytes, Factories.constant(superClassName));
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized List<File> prepareClasspath() {
         if (testClassDirectories != null) {
-            return;
+            return testClassDirectories;
         }
 
-        testClassDirectories = new ArrayList<File>();
+        List<File> testClassDirectories = new ArrayList<File>();
 
         if (testClassesDirectories != null) {
             testClassDirectories.addAll(testClassesDirectories);
@@ -105,6 +119,9 @@ private void prepareClasspath() {
                 }
             }
         }
+
+        this.testClassDirectories = testClassDirectories;
+        return testClassDirectories;
     }
 
     @Override
@@ -117,31 +134,46 @@ public void setTestClasspath(Set<File> testClasspath) {
         this.testClasspath = testClasspath;
     }
 
+    @Override
+    public void setDetectionCache(TestClassDetectionCache detectionCache) {
+        this.detectionCache = detectionCache.getCache(detectionCacheName, classVisitorFactory);
+    }
+
     private TestClass readClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
-        final TestClassVisitor classVisitor = createClassVisitor();
+        TestClass testClass = detectionCache != null ? detectionCache.get(testClassFile) : TestClassDetectionCache.parseClassFile(testClassFile, classVisitorFactory);
+        return testClass.isParseable() ? testClass : TestClass.forUnparseableFile(fallbackClassNameProvider.create());
+    }
 
-        InputStream classStream = null;
+    private TestClass readClass(byte[] classBytes, Factory<String> fallbackClassNameProvider) {
         try {
-            classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(IOUtils.toByteArray(classStream));
-            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-            return TestClass.forParseableFile(classVisitor);
+            return TestClassDetectionCache.parseClass(classBytes, classVisitorFactory);
         } catch (Throwable e) {
-            LOGGER.debug("Failed to read class file " + testClassFile.getAbsolutePath() + "; assuming it's a test class and continuing", e);
+            LOGGER.debug("Failed to read class " + fallbackClassNameProvider.create() + "; assuming it's a test class and continuing", e);
             return TestClass.forUnparseableFile(fallbackClassNameProvider.create());
-        } finally {
-            IoActions.closeQuietly(classStream);
         }
     }
 
     @Override
-    public boolean processTestClass(final RelativeFile testClassFile) {
-        return processTestClass(testClassFile.getFile(), false, new Factory<String>() {
+    public boolean processTestClass(RelativeFile testClassFile) {
+        return processTestClass(testClassFile, new Action<TestClassRunInfo>() {
+            @Override
+            public void execute(TestClassRunInfo testClass) {
+                testClassProcessor.processTestClass(testClass);
+            }
+        });
+    }
+
+    @Override
+    public boolean processTestClass(final RelativeFile testClassFile, Action<? super TestClassRunInfo> detectedTestClasses) {
+        TestClass testClass = readClassFile(testClassFile.getFile(), new Factory<String>() {
             @Override
             public String create() {
                 return testClassFile.getRelativePath().getPathString().replace(".class", "");
             }
         });
+        boolean isTest = processTestClass(testClass);
+        publishTestClass(isTest, testClass, detectedTestClasses);
+        return isTest;
     }
 
     /**
@@ -149,9 +181,7 @@ public String create() {
      * class is a test class. First the package of the parent class is checked, if it is a java.lang or groovy.lang the class can't be a test class, otherwise the parent class is scanned. <p/> When a
      * parent class is a test class all the extending classes are marked as test classes.
      */
-    private boolean processTestClass(File testClassFile, boolean superClass, Factory<String> fallbackClassNameProvider) {
-        TestClass testClass = readClassFile(testClassFile, fallbackClassNameProvider);
-
+    private boolean processTestClass(TestClass testClass) {
         boolean isTest = testClass.isTest();
 
         if (!isTest) { // scan parent class
@@ -160,48 +190,43 @@ private boolean processTestClass(File testClassFile, boolean superClass, Factory
             if (isKnownTestCaseClassName(superClassName)) {
                 isTest = true;
             } else {
-                File superClassFile = getSuperTestClassFile(superClassName);
-
-                if (superClassFile != null) {
-                    isTest = processSuperClass(superClassFile, superClassName);
-                } else {
-                    LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
-                        superClassName);
-                }
+                isTest = processSuperClass(superClassName);
             }
         }
 
-        publishTestClass(isTest, testClass, superClass);
-
         return isTest;
     }
 
     protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
 
-    private boolean processSuperClass(File testClassFile, String superClassName) {
-        boolean isTest;
-
-        Boolean isSuperTest = superClasses.get(testClassFile);
-
-        if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true, Factories.constant(superClassName));
+    private boolean processSuperClass(String superClassName) {
+        Boolean isSuperTest = superClasses.get(superClassName);
+        if (isSuperTest != null) {
+            return isSuperTest;
+        }
 
-            superClasses.put(testClassFile, isTest);
+        // The same super class may be processed by several threads at the same time, which yield the same result
+        boolean isTest = false;
+        TestClass superClass = readSuperClass(superClassName);
+        if (superClass != null) {
+            isTest = processTestClass(superClass);
         } else {
-            isTest = isSuperTest;
+            LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
+                superClassName);
         }
 
+        superClasses.put(superClassName, isTest);
         return isTest;
     }
 
     /**
-     * In none super class mode a test class is published when the class is a test and it is not abstract. In super class mode it must not publish the class otherwise it will get published multiple
+     * A test class is published when the class is a test and it is not abstract. Super classes are not published, otherwise they would get published multiple
      * times (for each extending class).
      */
-    private void publishTestClass(boolean isTest, TestClass testClass, boolean superClass) {
-        if (isTest && !testClass.isAbstract() && !superClass) {
+    private void publishTestClass(boolean isTest, TestClass testClass, Action<? super TestClassRunInfo> detectedTestClasses) {
+        if (isTest && !testClass.isAbstract()) {
             String className = Type.getObjectType(testClass.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            detectedTestClasses.execute(new DefaultTestClassRunInfo(className));
         }
     }
 
@@ -210,42 +235,8 @@ public void startDetection(TestClassProcessor testClassProcessor) {
         this.testClassProcessor = testClassProcessor;
     }
 
-    private static class TestClass {
-        private final boolean test;
-        private final boolean isAbstract;
-        private final String className;
-        private final String superClassName;
-
-        static TestClass forParseableFile(TestClassVisitor testClassVisitor) {
-            return new TestClass(testClassVisitor.isTest(), testClassVisitor.isAbstract(), testClassVisitor.getClassName(), testClassVisitor.getSuperClassName());
-        }
-
-        static TestClass forUnparseableFile(String className) {
-            return new TestClass(true, false, className, null);
-        }
-
-        private TestClass(boolean test, boolean isAbstract, String className, String superClassName) {
-            this.test = test;
-            this.isAbstract = isAbstract;
-            this.className = className;
-            this.superClassName = superClassName;
-        }
-
-        boolean isTest() {
-            return test;
-        }
-
-        boolean isAbstract() {
-            return isAbstract;
-        }
-
-        String getClassName() {
-            return className;
-        }
-
-        String getSuperClassName() {
-            return superClassName;
-        }
+    @Override
+    public void stopDetection() {
+        classFileExtractionManager.closeLibraryJars();
     }
-
 }
@@ -15,35 +15,33 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.text.StrBuilder;
 import org.gradle.api.GradleException;
-import org.gradle.api.internal.file.temp.DefaultTemporaryFileProvider;
-import org.gradle.api.internal.file.temp.TemporaryFileProvider;
-import org.gradle.internal.Factory;
-import org.gradle.util.internal.JarUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages the lookup of class files in library jar files.
+ *
+ * <p>Class files are read directly from the jar files, using an index of the packages of each jar file. Each jar file is opened once and kept
+ * open until {@link #closeLibraryJars()} is called. Can be used from multiple threads.</p>
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
     private final Map<String, Set<File>> packageJarFilesMappings;
-    private final Map<String, File> extractedJarClasses;
-    private final Set<String> unextractableClasses;
-    private final TemporaryFileProvider tempDirProvider;
+    private final Map<File, ZipFile> openJarFiles = new HashMap<File, ZipFile>();
 
-    public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
-        assert tempDirFactory != null;
-        tempDirProvider = new DefaultTemporaryFileProvider(tempDirFactory);
+    public ClassFileExtractionManager() {
         packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
-        unextractableClasses = new TreeSet<String>();
     }
 
     /**
@@ -51,7 +49,7 @@ public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             @Override
             public void receivePackage(String packageName) {
@@ -67,66 +65,68 @@ public void receivePackage(String packageName) {
     }
 
     /**
-     * Retrieve the file that contains the extracted class file.
-     *
-     * <p>
-     * This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
-     * </p>
+     * Reads the class file of the given class from the library jars.
      *
-     * @param className Name of the class to extract.
-     * @return File that contains the extracted class file.
+     * @param className Name of the class to read.
+     * @return The content of the class file, or null when the class is not in any of the library jars.
      */
-    public File getLibraryClassFile(final String className) {
-        if (unextractableClasses.contains(className)) {
-            return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
-                }
-            }
-
-            return extractedJarClasses.get(className);
-        }
-    }
-
-    private boolean extractClassFile(final String className) {
-        boolean classFileExtracted = false;
-
-        final File extractedClassFile = tempFile();
+    @Nullable
+    public byte[] getLibraryClassBytes(final String className) {
         final String classFileName = new StrBuilder().append(className).append(".class").toString();
-        final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
-
-        File classFileSourceJar = null;
-
-        if (packageJarFiles != null && !packageJarFiles.isEmpty()) {
-            final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
-
-            while (!classFileExtracted && packageJarFilesIt.hasNext()) {
-                final File jarFile = packageJarFilesIt.next();
-
-                try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
+        final Set<File> packageJarFiles;
+        synchronized (this) {
+            packageJarFiles = packageJarFilesMappings.get(classNamePackage(className));
+        }
 
-                    if (classFileExtracted) {
-                        classFileSourceJar = jarFile;
-                    }
-                } catch (IOException e) {
-                    throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
+        if (packageJarFiles != null) {
+            for (File jarFile : packageJarFiles) {
+                byte[] classBytes = readZipEntry(jarFile, classFileName);
+                if (classBytes != null) {
+                    LOGGER.debug("read class {} from {}", className, jarFile.getName());
+                    return classBytes;
                 }
             }
+        } // super class not on the classpath - unable to scan parent class
 
-            if (classFileExtracted) {
-                LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
+        return null;
+    }
 
-                extractedJarClasses.put(className, extractedClassFile);
+    @Nullable
+    private byte[] readZipEntry(File jarFile, String entryName) {
+        try {
+            ZipFile zipFile = openJarFile(jarFile);
+            ZipEntry zipEntry = zipFile.getEntry(entryName);
+            if (zipEntry == null) {
+                return null;
             }
-        } // super class not on the classpath - unable to scan parent class
+            InputStream inputStream = zipFile.getInputStream(zipEntry);
+            try {
+                return IOUtils.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new GradleException("failed to read class file from jar (" + jarFile + ")", e);
+        }
+    }
+
+    private synchronized ZipFile openJarFile(File jarFile) throws IOException {
+        ZipFile zipFile = openJarFiles.get(jarFile);
+        if (zipFile == null) {
+            zipFile = new ZipFile(jarFile);
+            openJarFiles.put(jarFile, zipFile);
+        }
+        return zipFile;
+    }
 
-        return classFileExtracted;
+    /**
+     * Closes the jar files opened so far. They are opened again when another class file is read from them.
+     */
+    public synchronized void closeLibraryJars() {
+        for (ZipFile zipFile : openJarFiles.values()) {
+            IOUtils.closeQuietly(zipFile);
+        }
+        openJarFiles.clear();
     }
 
     private String classNamePackage(final String className) {
@@ -138,8 +138,4 @@ private String classNamePackage(final String className) {
             return className.substring(0, lastSlashIndex + 1);
         }
     }
-
-    private File tempFile() {
-        return tempDirProvider.createTemporaryFile("jar_extract_", "_tmp"); // Could throw UncheckedIOException
-    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Action;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
@@ -24,32 +25,60 @@
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When given a build operation executor, the detection of test classes runs concurrently, in batches of class files, on the worker threads of the
+ * build, each of which holds a worker lease. The detected test classes are passed to the test class processor in the order of the class files, as
+ * soon as they are available, from the thread which detected them.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
+    static final int DETECTION_BATCH_SIZE = 32;
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final BuildOperationExecutor buildOperationExecutor;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable BuildOperationExecutor buildOperationExecutor) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     @Override
     public void run() {
         if (testFrameworkDetector == null) {
             filenameScan();
-        } else {
-            detectionScan();
+            return;
+        }
+        try {
+            if (buildOperationExecutor == null) {
+                detectionScan();
+            } else {
+                concurrentDetectionScan();
+            }
+        } finally {
+            testFrameworkDetector.stopDetection();
         }
     }
 
@@ -63,6 +92,29 @@ public void visitClassFile(FileVisitDetails fileDetails) {
         });
     }
 
+    private void concurrentDetectionScan() {
+        final OrderedTestClasses detectedTestClasses = new OrderedTestClasses();
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<DetectTestClasses>>() {
+            @Override
+            public void execute(final BuildOperationQueue<DetectTestClasses> queue) {
+                final List<RelativeFile> batch = new ArrayList<RelativeFile>(DETECTION_BATCH_SIZE);
+                candidateClassFiles.visit(new ClassFileVisitor() {
+                    @Override
+                    public void visitClassFile(FileVisitDetails fileDetails) {
+                        batch.add(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+                        if (batch.size() == DETECTION_BATCH_SIZE) {
+                            queue.add(new DetectTestClasses(detectedTestClasses.nextBatch(), new ArrayList<RelativeFile>(batch), detectedTestClasses));
+                            batch.clear();
+                        }
+                    }
+                });
+                if (!batch.isEmpty()) {
+                    queue.add(new DetectTestClasses(detectedTestClasses.nextBatch(), batch, detectedTestClasses));
+                }
+            }
+        });
+    }
+
     private void filenameScan() {
         candidateClassFiles.visit(new ClassFileVisitor() {
             @Override
@@ -98,6 +150,64 @@ public boolean isReproducibleFileOrder() {
         }
     }
 
+    private class DetectTestClasses implements RunnableBuildOperation {
+        private final int batchIndex;
+        private final List<RelativeFile> testClassFiles;
+        private final OrderedTestClasses detectedTestClasses;
+
+        DetectTestClasses(int batchIndex, List<RelativeFile> testClassFiles, OrderedTestClasses detectedTestClasses) {
+            this.batchIndex = batchIndex;
+            this.testClassFiles = testClassFiles;
+            this.detectedTestClasses = detectedTestClasses;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            final List<TestClassRunInfo> testClasses = new ArrayList<TestClassRunInfo>();
+            for (RelativeFile testClassFile : testClassFiles) {
+                testFrameworkDetector.processTestClass(testClassFile, new Action<TestClassRunInfo>() {
+                    @Override
+                    public void execute(TestClassRunInfo testClass) {
+                        testClasses.add(testClass);
+                    }
+                });
+            }
+            detectedTestClasses.detected(batchIndex, testClasses);
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Detect test classes in " + testClassFiles.size() + " class files");
+        }
+    }
+
+    /**
+     * Passes the test classes detected for each batch of class files to the test class processor, in the order of the batches.
+     */
+    private class OrderedTestClasses {
+        private final List<List<TestClassRunInfo>> detectedBatches = new ArrayList<List<TestClassRunInfo>>();
+        private int batches;
+        private int nextBatchToProcess;
+
+        int nextBatch() {
+            return batches++;
+        }
+
+        synchronized void detected(int batchIndex, List<TestClassRunInfo> testClasses) {
+            while (detectedBatches.size() <= batchIndex) {
+                detectedBatches.add(null);
+            }
+            detectedBatches.set(batchIndex, testClasses);
+            while (nextBatchToProcess < detectedBatches.size() && detectedBatches.get(nextBatchToProcess) != null) {
+                List<TestClassRunInfo> batch = detectedBatches.set(nextBatchToProcess, null);
+                nextBatchToProcess++;
+                for (TestClassRunInfo testClass : batch) {
+                    testClassProcessor.processTestClass(testClass);
+                }
+            }
+        }
+    }
+
     private String getClassName(FileVisitDetails fileDetails) {
         return fileDetails.getRelativePath().getPathString().replaceAll("\\.class", "").replace('/', '.');
     }
@@ -30,17 +30,22 @@
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.RunLongestFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.TestClassDurationEstimates;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 import java.util.Set;
@@ -52,6 +57,11 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
 
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
+    /**
+     * When set to true, test classes are ordered and distributed across the forked test workers based on their durations in the previous run.
+     */
+    public static final String DURATION_BASED_SCHEDULING_PROPERTY = "org.gradle.internal.testing.duration-based-scheduling";
+
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
     private final ModuleRegistry moduleRegistry;
@@ -60,11 +70,28 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final TestClassDetectionCache detectionCache;
+    private final TestWorkerPool workerPool;
+    private final boolean batchTestEvents;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, int maxWorkerCount,
                                Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
+        this(workerFactory, actorFactory, moduleRegistry, workerLeaseRegistry, maxWorkerCount, clock, documentationRegistry, testFilter, null, null, null, false);
+    }
+
+    /**
+     * Creates an executer which detects test classes concurrently using the given build operation executor, if not null, caching the information parsed
+     * from test class files in the given cache, if not null, and which runs the tests in test workers from the given pool, if not null,
+     * unless the tests need a fresh test worker. The test workers send their test events in batches when requested.
+     */
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
+                               WorkerLeaseRegistry workerLeaseRegistry, int maxWorkerCount,
+                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter,
+                               @Nullable BuildOperationExecutor buildOperationExecutor, @Nullable TestClassDetectionCache detectionCache,
+                               @Nullable TestWorkerPool workerPool, boolean batchTestEvents) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
@@ -73,6 +100,10 @@ public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory acto
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.detectionCache = detectionCache;
+        this.workerPool = workerPool;
+        this.batchTestEvents = batchTestEvents;
     }
 
     @Override
@@ -83,11 +114,13 @@ public void execute(final JvmTestExecutionSpec testExecutionSpec, TestResultProc
         final Set<File> classpath = ImmutableSet.copyOf(testExecutionSpec.getClasspath());
         final Set<File> modulePath = ImmutableSet.copyOf(testExecutionSpec.getModulePath());
         final List<String> testWorkerImplementationModules = testFramework.getTestWorkerImplementationModules();
+        // Tests which run as a module, or which ask for a fresh process every n test classes, are not run in pooled test workers
+        final TestWorkerPool testWorkerPool = modulePath.isEmpty() && testExecutionSpec.getForkEvery() == 0 ? workerPool : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             @Override
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, modulePath, testWorkerImplementationModules, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, modulePath, testWorkerImplementationModules, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, testWorkerPool, batchTestEvents);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -96,10 +129,14 @@ public TestClassProcessor create() {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
             }
         };
-        processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        TestClassDurationEstimates durationEstimates = new TestClassDurationEstimates(testExecutionSpec.getPreviousTestClassDurations());
+        TestClassProcessor orderedProcessor =
+            new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
+                new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory, durationEstimates));
+        if (!durationEstimates.isEmpty()) {
+            orderedProcessor = new RunLongestFirstTestClassProcessor(durationEstimates, orderedProcessor);
+        }
+        processor = new PatternMatchTestClassProcessor(testFilter, orderedProcessor);
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -108,7 +145,10 @@ public TestClassProcessor create() {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClasses(testExecutionSpec.getTestClassesDirs().getFiles());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            if (detectionCache != null) {
+                testFrameworkDetector.setDetectionCache(detectionCache);
+            }
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, maxWorkerCount > 1 ? buildOperationExecutor : null);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
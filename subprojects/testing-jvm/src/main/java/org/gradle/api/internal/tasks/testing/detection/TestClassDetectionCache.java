@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.cache.internal.FileContentCache;
+import org.gradle.cache.internal.FileContentCacheFactory;
+import org.gradle.internal.IoActions;
+import org.objectweb.asm.ClassReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the information parsed from test class files across builds, keyed by the hash of the class file content, so unchanged class files are not
+ * parsed again. There is a single cache for each test framework, shared by all test tasks. The cached values are calculated by stateless calculators,
+ * so the caches do not retain the detector, the test class processor or the classpath of the test task which created them.
+ */
+public class TestClassDetectionCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestClassDetectionCache.class);
+
+    private final FileContentCacheFactory cacheFactory;
+    private final ConcurrentMap<String, FileContentCache<TestClass>> caches = new ConcurrentHashMap<String, FileContentCache<TestClass>>();
+
+    public TestClassDetectionCache(FileContentCacheFactory cacheFactory) {
+        this.cacheFactory = cacheFactory;
+    }
+
+    /**
+     * Returns the cache with the given name, which parses class files using the class visitors of the given factory.
+     *
+     * @param name The name of the cache, which must be different for each test framework.
+     */
+    FileContentCache<TestClass> getCache(String name, TestClassVisitor.Factory classVisitorFactory) {
+        FileContentCache<TestClass> cache = caches.get(name);
+        if (cache == null) {
+            cache = cacheFactory.newCache(name, 100000, new ClassFileParser(classVisitorFactory), new TestClass.Serializer());
+            FileContentCache<TestClass> existing = caches.putIfAbsent(name, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+    static TestClass parseClassFile(File classFile, TestClassVisitor.Factory classVisitorFactory) {
+        try {
+            return parseClass(readBytes(classFile), classVisitorFactory);
+        } catch (Throwable e) {
+            LOGGER.debug("Failed to read class file " + classFile.getAbsolutePath() + "; assuming it's a test class and continuing", e);
+            return TestClass.UNPARSEABLE;
+        }
+    }
+
+    static TestClass parseClass(byte[] classBytes, TestClassVisitor.Factory classVisitorFactory) {
+        TestClassVisitor classVisitor = classVisitorFactory.create();
+        ClassReader classReader = new ClassReader(classBytes);
+        classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        return TestClass.forParseableFile(classVisitor);
+    }
+
+    private static byte[] readBytes(File classFile) throws IOException {
+        InputStream classStream = new BufferedInputStream(new FileInputStream(classFile));
+        try {
+            return IOUtils.toByteArray(classStream);
+        } finally {
+            IoActions.closeQuietly(classStream);
+        }
+    }
+
+    private static class ClassFileParser implements FileContentCacheFactory.Calculator<TestClass> {
+        private final TestClassVisitor.Factory classVisitorFactory;
+
+        ClassFileParser(TestClassVisitor.Factory classVisitorFactory) {
+            this.classVisitorFactory = classVisitorFactory;
+        }
+
+        @Override
+        public TestClass calculate(File file, boolean isRegularFile) {
+            return parseClassFile(file, classVisitorFactory);
+        }
+    }
+}
@@ -24,18 +24,13 @@
  * Base class for ASM test class scanners.
  */
 public abstract class TestClassVisitor extends ClassVisitor {
-    protected final TestFrameworkDetector detector;
     private boolean isAbstract;
     private String className;
     private String superClassName;
     private boolean test;
 
-    protected TestClassVisitor(TestFrameworkDetector detector) {
+    protected TestClassVisitor() {
         super(AsmConstants.ASM_LEVEL);
-        if (detector == null) {
-            throw new IllegalArgumentException("detector == null!");
-        }
-        this.detector = detector;
     }
 
     public String getClassName() {
@@ -77,4 +72,11 @@ public void visitInnerClass(String name, String outerName, String innerName, int
     private boolean innerClassIsNonStatic(String name, int access) {
         return name.equals(getClassName()) && (access & Opcodes.ACC_STATIC) == 0;
     }
+
+    /**
+     * Creates the class visitors used to parse class files. Implementations must be stateless, as they are retained by the test class detection cache.
+     */
+    public interface Factory {
+        TestClassVisitor create();
+    }
 }
@@ -15,8 +15,10 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Action;
 import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 
 import java.io.File;
 import java.util.Set;
@@ -26,7 +28,23 @@ public interface TestFrameworkDetector {
 
     boolean processTestClass(RelativeFile testClassFile);
 
+    /**
+     * Detects whether the given class file contains a test class, passing the test class to run, if any, to the given action rather than to the
+     * test class processor. Can be called concurrently, and without calling {@link #startDetection(TestClassProcessor)} first.
+     */
+    boolean processTestClass(RelativeFile testClassFile, Action<? super TestClassRunInfo> detectedTestClasses);
+
     void setTestClasses(Set<File> testClasses);
 
     void setTestClasspath(Set<File> classpath);
+
+    /**
+     * Enables caching the information parsed from test class files across builds, using the given cache.
+     */
+    void setDetectionCache(TestClassDetectionCache detectionCache);
+
+    /**
+     * Releases the resources held while detecting test classes, such as open jar files. Called once all test class files have been processed.
+     */
+    void stopDetection();
 }
@@ -18,19 +18,21 @@
 import com.google.common.collect.ImmutableSet;
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
 
-public class JUnitDetector extends AbstractTestFrameworkDetector<JUnitTestClassDetector> {
+public class JUnitDetector extends AbstractTestFrameworkDetector {
     private static final String TEST_CASE = "junit/framework/TestCase";
     private static final String GROOVY_TEST_CASE = "groovy/util/GroovyTestCase";
     private static final ImmutableSet<String> KNOWN_TEST_CASE_CLASS_NAMES = ImmutableSet.of(TEST_CASE, GROOVY_TEST_CASE);
+    private static final TestClassVisitor.Factory CLASS_VISITOR_FACTORY = new TestClassVisitor.Factory() {
+        @Override
+        public TestClassVisitor create() {
+            return new JUnitTestClassDetector();
+        }
+    };
 
     public JUnitDetector(ClassFileExtractionManager classFileExtractionManager) {
-        super(classFileExtractionManager);
-    }
-
-    @Override
-    protected JUnitTestClassDetector createClassVisitor() {
-        return new JUnitTestClassDetector(this);
+        super(classFileExtractionManager, "junit-test-classes", CLASS_VISITOR_FACTORY);
     }
 
     @Override
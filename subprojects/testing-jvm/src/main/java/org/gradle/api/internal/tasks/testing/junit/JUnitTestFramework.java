@@ -42,10 +42,17 @@ public class JUnitTestFramework implements TestFramework {
     private JUnitDetector detector;
     private final DefaultTestFilter filter;
 
-    public JUnitTestFramework(Test testTask, DefaultTestFilter filter) {
+    public JUnitTestFramework(DefaultTestFilter filter) {
         this.filter = filter;
         options = new JUnitOptions();
-        detector = new JUnitDetector(new ClassFileExtractionManager(testTask.getTemporaryDirFactory()));
+        detector = new JUnitDetector(new ClassFileExtractionManager());
+    }
+
+    /**
+     * Kept for the test-retry plugin, which creates the framework with this constructor.
+     */
+    public JUnitTestFramework(Test testTask, DefaultTestFilter filter) {
+        this(filter);
     }
 
     @Override
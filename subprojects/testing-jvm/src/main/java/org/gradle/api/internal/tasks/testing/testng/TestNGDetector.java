@@ -17,15 +17,18 @@
 
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
 
-class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetector> {
-    TestNGDetector(ClassFileExtractionManager classFileExtractionManager) {
-        super(classFileExtractionManager);
-    }
+class TestNGDetector extends AbstractTestFrameworkDetector {
+    private static final TestClassVisitor.Factory CLASS_VISITOR_FACTORY = new TestClassVisitor.Factory() {
+        @Override
+        public TestClassVisitor create() {
+            return new TestNGTestClassDetector();
+        }
+    };
 
-    @Override
-    protected TestNGTestClassDetector createClassVisitor() {
-        return new TestNGTestClassDetector(this);
+    TestNGDetector(ClassFileExtractionManager classFileExtractionManager) {
+        super(classFileExtractionManager, "testng-test-classes", CLASS_VISITOR_FACTORY);
     }
 
     @Override
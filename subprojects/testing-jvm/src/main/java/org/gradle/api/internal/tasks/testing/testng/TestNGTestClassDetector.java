@@ -18,7 +18,6 @@
 import com.google.common.collect.ImmutableSet;
 import org.gradle.internal.classanalysis.AsmConstants;
 import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
-import org.gradle.api.internal.tasks.testing.detection.TestFrameworkDetector;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.MethodVisitor;
 
@@ -37,10 +36,6 @@ class TestNGTestClassDetector extends TestClassVisitor {
         .add("Lorg/testng/annotations/Factory;")
         .build();
 
-    TestNGTestClassDetector(final TestFrameworkDetector detector) {
-        super(detector);
-    }
-
     @Override
     protected boolean ignoreNonStaticInnerClass() {
         return false;
@@ -66,7 +66,7 @@ public TestNGTestFramework(final Test testTask, FileCollection classpath, Defaul
         this.testTaskTemporaryDir = testTask.getTemporaryDirFactory();
         options = objects.newInstance(TestNGOptions.class);
         conventionMapOutputDirectory(options, testTask.getReports().getHtml());
-        detector = new TestNGDetector(new ClassFileExtractionManager(testTask.getTemporaryDirFactory()));
+        detector = new TestNGDetector(new ClassFileExtractionManager());
     }
 
     private static void conventionMapOutputDirectory(TestNGOptions options, final DirectoryReport html) {
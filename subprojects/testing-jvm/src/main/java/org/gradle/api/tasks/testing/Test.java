@@ -33,13 +33,16 @@
 import org.gradle.api.internal.tasks.testing.TestExecuter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
 import org.gradle.api.internal.tasks.testing.junitplatform.JUnitPlatformTestFramework;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.BatchingTestResultProcessor;
 import org.gradle.api.internal.tasks.testing.worker.TestWorker;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
 import org.gradle.api.jvm.ModularitySpec;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
@@ -87,7 +90,7 @@
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -191,7 +194,7 @@ public Object call() {
         forkOptions.setExecutable(null);
         modularity = getObjectFactory().newInstance(DefaultModularitySpec.class);
         javaLauncher = getObjectFactory().property(JavaLauncher.class);
-        testFramework = getObjectFactory().property(TestFramework.class).convention(new JUnitTestFramework(this, (DefaultTestFilter) getFilter()));
+        testFramework = getObjectFactory().property(TestFramework.class).convention(new JUnitTestFramework((DefaultTestFilter) getFilter()));
     }
 
     @Inject
@@ -640,7 +643,10 @@ protected JvmTestExecutionSpec createTestExecutionSpec() {
         boolean testIsModule = javaModuleDetector.isModule(modularity.getInferModulePath().get(), getTestClassesDirs());
         FileCollection classpath = javaModuleDetector.inferClasspath(testIsModule, stableClasspath);
         FileCollection modulePath = javaModuleDetector.inferModulePath(testIsModule, stableClasspath);
-        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses());
+        Set<String> previousFailedTestClasses = new HashSet<String>();
+        Map<String, Long> previousTestClassDurations = new HashMap<String, Long>();
+        readPreviousTestClassResults(previousFailedTestClasses, isDurationBasedSchedulingEnabled() ? previousTestClassDurations : null);
+        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), previousFailedTestClasses, previousTestClassDurations);
     }
 
     private void validateToolchainConfiguration() {
@@ -649,24 +655,36 @@ private void validateToolchainConfiguration() {
         }
     }
 
-    private Set<String> getPreviousFailedTestClasses() {
+    private void readPreviousTestClassResults(final Set<String> previousFailedTestClasses, @Nullable final Map<String, Long> previousTestClassDurations) {
         TestResultSerializer serializer = new TestResultSerializer(getBinaryResultsDirectory().getAsFile().get());
         if (serializer.isHasResults()) {
-            final Set<String> previousFailedTestClasses = new HashSet<String>();
             serializer.read(new Action<TestClassResult>() {
                 @Override
                 public void execute(TestClassResult testClassResult) {
                     if (testClassResult.getFailuresCount() > 0) {
                         previousFailedTestClasses.add(testClassResult.getClassName());
                     }
+                    if (previousTestClassDurations != null) {
+                        previousTestClassDurations.put(testClassResult.getClassName(), testClassResult.getDuration());
+                    }
                 }
             });
-            return previousFailedTestClasses;
-        } else {
-            return Collections.emptySet();
         }
     }
 
+    private boolean isDurationBasedSchedulingEnabled() {
+        return isInternalFlagEnabled(DefaultTestExecuter.DURATION_BASED_SCHEDULING_PROPERTY);
+    }
+
+    private boolean isTestWorkerReuseEnabled() {
+        return isInternalFlagEnabled(TestWorkerPool.REUSE_TEST_WORKERS_PROPERTY);
+    }
+
+    private boolean isInternalFlagEnabled(String property) {
+        String value = getServices().get(StartParameter.class).getSystemPropertiesArgs().get(property);
+        return Boolean.parseBoolean(value != null ? value : System.getProperty(property));
+    }
+
     @Override
     @TaskAction
     public void executeTests() {
@@ -698,7 +716,11 @@ protected TestExecuter<JvmTestExecutionSpec> createTestExecuter() {
                 getServices().get(StartParameter.class).getMaxWorkerCount(),
                 getServices().get(Clock.class),
                 getServices().get(DocumentationRegistry.class),
-                (DefaultTestFilter) getFilter());
+                (DefaultTestFilter) getFilter(),
+                getBuildOperationExecutor(),
+                getServices().get(TestClassDetectionCache.class),
+                isTestWorkerReuseEnabled() ? getServices().get(TestWorkerPool.class) : null,
+                isInternalFlagEnabled(BatchingTestResultProcessor.BATCH_TEST_EVENTS_PROPERTY));
         } else {
             return testExecuter;
         }
@@ -1014,7 +1036,7 @@ public void useJUnit(@Nullable Closure testFrameworkConfigure) {
      * @since 3.5
      */
     public void useJUnit(Action<? super JUnitOptions> testFrameworkConfigure) {
-        useTestFramework(new JUnitTestFramework(this, (DefaultTestFilter) getFilter()), testFrameworkConfigure);
+        useTestFramework(new JUnitTestFramework((DefaultTestFilter) getFilter()), testFrameworkConfigure);
     }
 
     /**
@@ -16,15 +16,19 @@
 
 package org.gradle.api.tasks.testing;
 
+import org.gradle.api.Action;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.Transformer;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.junit.result.AggregateTestResultsProvider;
 import org.gradle.api.internal.tasks.testing.junit.result.BinaryResultBackedTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.internal.tasks.testing.report.DefaultTestReport;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.IgnoreEmptyDirectories;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.OutputDirectory;
@@ -32,13 +36,26 @@
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.internal.GFileUtils;
 import org.gradle.work.DisableCachingByDefault;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.gradle.internal.concurrent.CompositeStoppable.stoppable;
 import static org.gradle.util.internal.CollectionUtils.collect;
@@ -136,12 +153,19 @@ public void reportOn(Object... results) {
     }
 
     @TaskAction
-    void generateReport() {
-        TestResultsProvider resultsProvider = createAggregateProvider();
+    void generateReport(InputChanges inputChanges) {
+        // Records the classes contained in each results directory, to determine which classes are affected when a results directory changes or is removed
+        File classesByResultDirFile = new File(getTemporaryDir(), "classes-by-result-dir.bin");
+        Map<File, Set<String>> previousClassesByResultDir = inputChanges.isIncremental() ? readClassesByResultDir(classesByResultDirFile) : null;
+        GFileUtils.deleteQuietly(classesByResultDirFile);
+
+        Map<File, Set<String>> classesByResultDir = new HashMap<File, Set<String>>();
+        TestResultsProvider resultsProvider = createAggregateProvider(classesByResultDir);
         try {
             if (resultsProvider.isHasResults()) {
                 DefaultTestReport testReport = new DefaultTestReport(getBuildOperationExecutor());
-                testReport.generateReport(resultsProvider, getDestinationDir());
+                testReport.generateReport(resultsProvider, getDestinationDir(), getChangedClasses(inputChanges, previousClassesByResultDir, classesByResultDir));
+                writeClassesByResultDir(classesByResultDirFile, classesByResultDir);
             } else {
                 getLogger().info("{} - no binary test results found in dirs: {}.", getPath(), getTestResultDirs().getFiles());
                 setDidWork(false);
@@ -151,17 +175,119 @@ void generateReport() {
         }
     }
 
-    private TestResultsProvider createAggregateProvider() {
+    /**
+     * Determines the classes whose pages need to be generated again, which are the classes contained in the results directories that have changed since the report was last generated.
+     * The classes contained in each results directory are only known once the results have been read, so the returned spec must not be used before then.
+     */
+    private Spec<String> getChangedClasses(InputChanges inputChanges, @Nullable final Map<File, Set<String>> previousClassesByResultDir, final Map<File, Set<String>> classesByResultDir) {
+        if (previousClassesByResultDir == null) {
+            return Specs.satisfyAll();
+        }
+
+        Set<File> resultDirs = new HashSet<File>(getTestResultDirs().getFiles());
+        resultDirs.addAll(previousClassesByResultDir.keySet());
+        final Set<File> changedResultDirs = new HashSet<File>();
+        for (FileChange change : inputChanges.getFileChanges(getTestResultDirs())) {
+            File resultDir = findResultDir(change.getFile(), resultDirs);
+            if (resultDir == null) {
+                return Specs.satisfyAll();
+            }
+            changedResultDirs.add(resultDir);
+        }
+
+        return new Spec<String>() {
+            private Set<String> changedClassNames;
+
+            @Override
+            public boolean isSatisfiedBy(String className) {
+                if (changedClassNames == null) {
+                    changedClassNames = new HashSet<String>();
+                    for (File resultDir : changedResultDirs) {
+                        addAll(changedClassNames, classesByResultDir.get(resultDir));
+                        addAll(changedClassNames, previousClassesByResultDir.get(resultDir));
+                    }
+                }
+                return changedClassNames.contains(className);
+            }
+        };
+    }
+
+    private static void addAll(Set<String> target, @Nullable Set<String> classNames) {
+        if (classNames != null) {
+            target.addAll(classNames);
+        }
+    }
+
+    @Nullable
+    private static File findResultDir(File file, Set<File> resultDirs) {
+        for (File current = file; current != null; current = current.getParentFile()) {
+            if (resultDirs.contains(current)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Map<File, Set<String>> readClassesByResultDir(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(file));
+            try {
+                Map<File, Set<String>> classesByResultDir = new HashMap<File, Set<String>>();
+                int resultDirCount = decoder.readSmallInt();
+                for (int i = 0; i < resultDirCount; i++) {
+                    File resultDir = new File(decoder.readString());
+                    int classCount = decoder.readSmallInt();
+                    Set<String> classNames = new HashSet<String>(classCount);
+                    for (int j = 0; j < classCount; j++) {
+                        classNames.add(decoder.readString());
+                    }
+                    classesByResultDir.put(resultDir, classNames);
+                }
+                return classesByResultDir;
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            // Regenerate the whole report
+            return null;
+        }
+    }
+
+    private static void writeClassesByResultDir(File file, Map<File, Set<String>> classesByResultDir) {
+        try {
+            KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(file));
+            try {
+                encoder.writeSmallInt(classesByResultDir.size());
+                for (Map.Entry<File, Set<String>> entry : classesByResultDir.entrySet()) {
+                    encoder.writeString(entry.getKey().getAbsolutePath());
+                    encoder.writeSmallInt(entry.getValue().size());
+                    for (String className : entry.getValue()) {
+                        encoder.writeString(className);
+                    }
+                }
+            } finally {
+                encoder.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private TestResultsProvider createAggregateProvider(final Map<File, Set<String>> classesByResultDir) {
         List<TestResultsProvider> resultsProviders = new LinkedList<TestResultsProvider>();
         try {
             FileCollection resultDirs = getTestResultDirs();
             if (resultDirs.getFiles().size() == 1) {
-                return new BinaryResultBackedTestResultsProvider(resultDirs.getSingleFile());
+                return createResultsProvider(resultDirs.getSingleFile(), classesByResultDir);
             } else {
                 return new AggregateTestResultsProvider(collect(resultDirs, resultsProviders, new Transformer<TestResultsProvider, File>() {
                     @Override
                     public TestResultsProvider transform(File dir) {
-                        return new BinaryResultBackedTestResultsProvider(dir);
+                        return createResultsProvider(dir, classesByResultDir);
                     }
                 }));
             }
@@ -170,4 +296,21 @@ public TestResultsProvider transform(File dir) {
             throw e;
         }
     }
+
+    private static TestResultsProvider createResultsProvider(final File resultDir, final Map<File, Set<String>> classesByResultDir) {
+        return new BinaryResultBackedTestResultsProvider(resultDir) {
+            @Override
+            public void visitClasses(final Action<? super TestClassResult> visitor) {
+                final Set<String> classNames = new HashSet<String>();
+                classesByResultDir.put(resultDir, classNames);
+                super.visitClasses(new Action<TestClassResult>() {
+                    @Override
+                    public void execute(TestClassResult classResult) {
+                        classNames.add(classResult.getClassName());
+                        visitor.execute(classResult);
+                    }
+                });
+            }
+        };
+    }
 }
@@ -16,12 +16,20 @@
 
 package org.gradle.api.internal.tasks.testing.detection
 
+import org.gradle.api.Action
 import org.gradle.api.file.FileTree
 import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.RelativeFile
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -54,6 +62,8 @@ class DefaultTestClassScannerTest extends Specification {
         1 * detector.processTestClass({ it.file.is(class1.file) && it.relativePath.is(class1.relativePath) })
         then:
         1 * detector.processTestClass({ it.file.is(class2.file) && it.relativePath.is(class2.relativePath) })
+        then:
+        1 * detector.stopDetection()
 
         0 * _._
     }
@@ -71,10 +81,74 @@ class DefaultTestClassScannerTest extends Specification {
             visitor.visitFile(stubFileVisitDetails('AnonymousClass$1'))
             visitor.visitFile(stubFileVisitDetails('AnonymousClass$1$22'))
         }
+        then:
+        1 * detector.stopDetection()
 
         0 * _._
     }
 
+    void detectsTestClassesInBatchesAndProcessesThemInOrder() {
+        given:
+        def classNames = (1..DefaultTestClassScanner.DETECTION_BATCH_SIZE + 1).collect { "class$it" }
+        def testClassProcessor = Mock(TestClassProcessor)
+        def buildOperationExecutor = Mock(BuildOperationExecutor)
+        def detector = new TestFrameworkDetector() {
+            @Override
+            void startDetection(TestClassProcessor testClassProcessor) {
+                throw new UnsupportedOperationException()
+            }
+
+            @Override
+            boolean processTestClass(RelativeFile testClassFile) {
+                throw new UnsupportedOperationException()
+            }
+
+            @Override
+            boolean processTestClass(RelativeFile testClassFile, Action<? super TestClassRunInfo> detectedTestClasses) {
+                detectedTestClasses.execute(new DefaultTestClassRunInfo(testClassFile.relativePath.lastName - '.class'))
+                return true
+            }
+
+            @Override
+            void setTestClasses(Set<File> testClasses) {
+            }
+
+            @Override
+            void setTestClasspath(Set<File> classpath) {
+            }
+
+            @Override
+            void setDetectionCache(TestClassDetectionCache detectionCache) {
+            }
+
+            @Override
+            void stopDetection() {
+            }
+        }
+        def scanner = new DefaultTestClassScanner(files, detector, testClassProcessor, buildOperationExecutor)
+        def processed = []
+
+        when:
+        scanner.run()
+
+        then:
+        1 * buildOperationExecutor.runAll(_) >> { Action<BuildOperationQueue<RunnableBuildOperation>> schedulingAction ->
+            def operations = []
+            schedulingAction.execute(Stub(BuildOperationQueue) {
+                add(_) >> { RunnableBuildOperation operation -> operations << operation }
+            })
+            assert operations.size() == 2
+            // The second batch is detected first
+            operations.reverse().each { it.run(Stub(BuildOperationContext)) }
+        }
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            classNames.each { visitor.visitFile(stubFileVisitDetails(it)) }
+        }
+        (DefaultTestClassScanner.DETECTION_BATCH_SIZE + 1) * testClassProcessor.processTestClass(_) >> { TestClassRunInfo info -> processed << info.testClassName }
+        processed == classNames
+    }
+
     FileVisitDetails stubFileVisitDetails(String className) {
         return new DefaultFileVisitDetails(new File("${className}.class"), new RelativePath(false, "${className}.class"), null, null, null)
     }
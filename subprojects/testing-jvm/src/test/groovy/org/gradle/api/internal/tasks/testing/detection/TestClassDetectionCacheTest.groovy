@@ -0,0 +1,167 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.RelativeFile
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.junit.JUnitDetector
+import org.gradle.cache.internal.FileContentCache
+import org.gradle.cache.internal.FileContentCacheFactory
+import org.gradle.internal.serialize.Serializer
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class TestClassDetectionCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheFactory = new ContentHashingCacheFactory()
+    def detectionCache = new TestClassDetectionCache(cacheFactory)
+    def classesDir = tmpDir.createDir("classes")
+
+    def "reuses parsed class files across detectors"() {
+        def classFile = writeClass("org/gradle/FooTest", true)
+        def processor1 = Mock(TestClassProcessor)
+        def processor2 = Mock(TestClassProcessor)
+
+        when:
+        def detected = detector(processor1).processTestClass(relativeFile(classFile))
+
+        then:
+        detected
+        1 * processor1.processTestClass({ it.testClassName == "org.gradle.FooTest" })
+        0 * _
+
+        when:
+        detected = detector(processor2).processTestClass(relativeFile(classFile))
+
+        then:
+        detected
+        1 * processor2.processTestClass({ it.testClassName == "org.gradle.FooTest" })
+        0 * _
+
+        and:
+        cacheFactory.cacheNames == ["junit-test-classes"]
+        cacheFactory.calculations == 1
+    }
+
+    def "parses class file again when its content changes"() {
+        def classFile = writeClass("org/gradle/FooTest", true)
+        def processor = Mock(TestClassProcessor)
+
+        when:
+        def detected = detector(processor).processTestClass(relativeFile(classFile))
+
+        then:
+        detected
+        1 * processor.processTestClass({ it.testClassName == "org.gradle.FooTest" })
+        cacheFactory.calculations == 1
+
+        when:
+        writeClass("org/gradle/FooTest", false)
+        detected = detector(processor).processTestClass(relativeFile(classFile))
+
+        then:
+        !detected
+        0 * processor._
+
+        and:
+        cacheFactory.calculations == 2
+    }
+
+    def "cache does not retain the detector which created it"() {
+        def classFile = writeClass("org/gradle/FooTest", true)
+        def processor1 = Mock(TestClassProcessor)
+        def processor2 = Mock(TestClassProcessor)
+        def otherDir = tmpDir.createDir("other-classes")
+        def otherClassFile = otherDir.file("org/gradle/BarTest.class")
+        otherClassFile.bytes = classBytes("org/gradle/BarTest", true)
+        detector(processor1).processTestClass(relativeFile(classFile))
+
+        when:
+        detector(processor2, otherDir).processTestClass(relativeFile(otherClassFile))
+
+        then:
+        1 * processor2.processTestClass({ it.testClassName == "org.gradle.BarTest" })
+        0 * processor1._
+
+        and:
+        cacheFactory.cacheNames == ["junit-test-classes"]
+        cacheFactory.calculations == 2
+    }
+
+    private JUnitDetector detector(TestClassProcessor processor, File dir = classesDir) {
+        def detector = new JUnitDetector(new ClassFileExtractionManager())
+        detector.testClasses = [dir] as Set
+        detector.testClasspath = [] as Set
+        detector.detectionCache = detectionCache
+        detector.startDetection(processor)
+        return detector
+    }
+
+    private TestFile writeClass(String className, boolean test) {
+        def classFile = classesDir.file("${className}.class")
+        classFile.bytes = classBytes(className, test)
+        return classFile
+    }
+
+    private static RelativeFile relativeFile(TestFile classFile) {
+        return new RelativeFile(classFile, RelativePath.parse(true, classFile.name))
+    }
+
+    private static byte[] classBytes(String className, boolean test) {
+        def classWriter = new ClassWriter(0)
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null)
+        MethodVisitor method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, test ? "test" : "helper", "()V", null, null)
+        if (test) {
+            method.visitAnnotation("Lorg/junit/Test;", true).visitEnd()
+        }
+        method.visitEnd()
+        classWriter.visitEnd()
+        return classWriter.toByteArray()
+    }
+
+    /**
+     * Keys the cached values by the content of the files, like the real file content caches do.
+     */
+    private static class ContentHashingCacheFactory implements FileContentCacheFactory {
+        final List<String> cacheNames = []
+        final Map<String, Object> values = [:]
+        int calculations
+
+        @Override
+        <V> FileContentCache<V> newCache(String name, int normalizedCacheSize, FileContentCacheFactory.Calculator<? extends V> calculator, Serializer<V> serializer) {
+            cacheNames << name
+            return new FileContentCache<V>() {
+                @Override
+                V get(File file) {
+                    def key = "${name}:${file.absolutePath}:${file.bytes.encodeHex()}".toString()
+                    if (!values.containsKey(key)) {
+                        calculations++
+                        values[key] = calculator.calculate(file, true)
+                    }
+                    return values[key] as V
+                }
+            }
+        }
+    }
+}
@@ -31,8 +31,13 @@
 import org.gradle.internal.nativeintegration.services.NativeServices;
 import org.gradle.internal.remote.MessagingClient;
 import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.remote.internal.ConnectException;
+import org.gradle.internal.remote.internal.hub.MessageHubBackedClient;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddress;
+import org.gradle.internal.remote.internal.shm.SharedMemoryAddressSerializer;
+import org.gradle.internal.remote.internal.shm.SharedMemoryOutgoingConnector;
 import org.gradle.internal.remote.services.MessagingServices;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.InputStreamBackedDecoder;
@@ -98,6 +103,7 @@ public Void call() throws Exception {
         File gradleUserHomeDir = new File(gradleUserHomeDirPath);
 
         // Read server address and start connecting
+        SharedMemoryAddress sharedMemoryAddress = decoder.readBoolean() ? new SharedMemoryAddressSerializer().read(decoder) : null;
         MultiChoiceAddress serverAddress = new MultiChoiceAddressSerializer().read(decoder);
         NativeServices.initializeOnWorker(gradleUserHomeDir);
         DefaultServiceRegistry basicWorkerServices = new DefaultServiceRegistry(NativeServices.getInstance(), loggingServiceRegistry);
@@ -120,7 +126,7 @@ public Void call() throws Exception {
             byte[] serializedWorker = decoder.readBinary();
             Action<WorkerProcessContext> workerAction = deserializeWorker(serializedWorker);
 
-            connection = basicWorkerServices.get(MessagingClient.class).getConnection(serverAddress);
+            connection = connect(basicWorkerServices, sharedMemoryAddress, serverAddress);
             connection.addUnrecoverableErrorHandler(unrecoverableErrorHandler);
             configureLogging(loggingManager, connection, workerLogEventListener);
             // start logging now that the logging manager is connected
@@ -185,6 +191,17 @@ public void execute(Throwable throwable) {
         }
     }
 
+    private static ObjectConnection connect(ServiceRegistry services, SharedMemoryAddress sharedMemoryAddress, MultiChoiceAddress serverAddress) {
+        if (sharedMemoryAddress != null) {
+            try {
+                return new MessageHubBackedClient(new SharedMemoryOutgoingConnector(), services.get(ExecutorFactory.class)).getConnection(sharedMemoryAddress);
+            } catch (ConnectException e) {
+                // The shared memory cannot be opened or mapped in this process, connect through the socket instead
+            }
+        }
+        return services.get(MessagingClient.class).getConnection(serverAddress);
+    }
+
     private void configureLogging(LoggingManagerInternal loggingManager, ObjectConnection connection, WorkerLogEventListener workerLogEventListener) {
         connection.useParameterSerializers(WorkerLoggingSerializer.create());
         WorkerLoggingProtocol workerLoggingProtocol = connection.addOutgoing(WorkerLoggingProtocol.class);
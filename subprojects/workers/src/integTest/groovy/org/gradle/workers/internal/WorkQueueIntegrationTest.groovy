@@ -218,6 +218,62 @@ class WorkQueueIntegrationTest extends AbstractWorkerExecutorIntegrationTest {
         isolationMode << ISOLATION_MODES
     }
 
+    @Unroll
+    def "can submit a batch of work items to a queue with #isolationMode"() {
+        buildFile << """
+            task runWork(type: WorkItemTask) {
+                isolationMode = '${isolationMode}'
+                doLast {
+                    def workQueue = submitBatch(ParallelWorkAction.class, [ "item1", "item2", "item3" ])
+                    workQueue.await()
+                }
+            }
+        """
+
+        blockingHttpServer.expect("item1")
+        blockingHttpServer.expect("item2")
+        blockingHttpServer.expect("item3")
+
+        when:
+        succeeds("runWork")
+
+        then:
+        assertWorkItemsExecuted("item1", "item2", "item3")
+
+        where:
+        isolationMode << ISOLATION_MODES
+    }
+
+    @Unroll
+    def "all errors are reported from a batch of work items submitted to a queue with #isolationMode"() {
+        buildFile << """
+            task runWork(type: WorkItemTask) {
+                isolationMode = '${isolationMode}'
+                doLast {
+                    def workQueue = submitBatch(ParallelWorkAction.class, [ "item1", "item2", "item3" ], [ "item1", "item3" ])
+                    workQueue.await()
+                }
+            }
+        """
+
+        blockingHttpServer.expect("item1")
+        blockingHttpServer.expect("item2")
+        blockingHttpServer.expect("item3")
+
+        when:
+        fails("runWork")
+
+        then:
+        assertWorkItemsExecuted("item2")
+
+        and:
+        failure.assertHasCause("Failure from item1")
+        failure.assertHasCause("Failure from item3")
+
+        where:
+        isolationMode << ISOLATION_MODES
+    }
+
     void assertWorkItemsExecuted(String... items) {
         File outputDir = new File("${fixture.outputFileDirPath}")
         assert items.every { item ->
@@ -253,6 +309,17 @@ class WorkQueueIntegrationTest extends AbstractWorkerExecutorIntegrationTest {
                     return workQueue
                 }
 
+                def submitBatch(Class<?> executionClass, List<String> items, List<String> failures = []) {
+                    def workQueue = workerExecutor."\${isolationMode}"()
+                    workQueue.submitBatch(executionClass, items.collect { name ->
+                        return { parameters ->
+                            parameters.itemName = name
+                            parameters.shouldFail = failures.contains(name)
+                        } as Action
+                    })
+                    return workQueue
+                }
+
                 def signal(String signal) {
                     new URI("http", null, "localhost", ${blockingHttpServer.getPort()}, "/\${signal}", null, null).toURL().text
                 }
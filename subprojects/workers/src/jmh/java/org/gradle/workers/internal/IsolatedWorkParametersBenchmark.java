@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.isolation.Isolatable;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures isolating and serializing the parameters of many work items that share a large classpath, as work items
+ * submitted to a process isolated work queue are, with and without interning of the isolated values.
+ *
+ * Run with {@code -prof gc} to compare the allocations per work item ({@code gc.alloc.rate.norm}). The isolated
+ * parameters are kept until all work items have been submitted, like a queue of pending work items does.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(IsolatedWorkParametersBenchmark.WORK_ITEMS)
+public class IsolatedWorkParametersBenchmark {
+    static final int WORK_ITEMS = 1000;
+    private static final int CLASSPATH_SIZE = 500;
+
+    @Param({"true", "false"})
+    boolean intern;
+
+    private DefaultValueSnapshotter isolatableFactory;
+    private IsolatableSerializerRegistry serializerRegistry;
+    private List<File> classpath;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HashCode classLoaderHash = HashCode.fromInt(123);
+        isolatableFactory = new DefaultValueSnapshotter(classLoader -> classLoaderHash, null, intern);
+        serializerRegistry = new IsolatableSerializerRegistry(classLoader -> classLoaderHash, null, intern);
+        classpath = new ArrayList<>(CLASSPATH_SIZE);
+        for (int i = 0; i < CLASSPATH_SIZE; i++) {
+            classpath.add(new File("/caches/modules-2/files-2.1/org.example/library" + i + "/1.0/library" + i + "-1.0.jar"));
+        }
+    }
+
+    @Benchmark
+    public int isolateAndSerialize() throws Exception {
+        List<Isolatable<?>> pending = new ArrayList<>(WORK_ITEMS);
+        int size = 0;
+        for (int i = 0; i < WORK_ITEMS; i++) {
+            // Each work item resolves its own copy of the classpath, as it does for a ConfigurableFileCollection parameter
+            List<Object> parameters = Arrays.asList("item" + i, new ArrayList<>(classpath));
+            Isolatable<?> isolated = isolatableFactory.isolate(parameters);
+            pending.add(isolated);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+            serializerRegistry.writeIsolatable(encoder, isolated);
+            encoder.flush();
+            size += outputStream.size();
+        }
+        return size + pending.size();
+    }
+}
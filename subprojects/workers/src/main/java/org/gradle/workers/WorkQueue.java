@@ -17,6 +17,7 @@
 package org.gradle.workers;
 
 import org.gradle.api.Action;
+import org.gradle.api.Incubating;
 
 /**
  * Represents a queue of work items with a uniform set of worker requirements.
@@ -37,6 +38,21 @@ public interface WorkQueue {
      */
     <T extends WorkParameters> void submit(Class<? extends WorkAction<T>> workActionClass, Action<? super T> parameterAction);
 
+    /**
+     * Submits many pieces of work, which all use the same work action, to be executed asynchronously as a single unit of work.
+     *
+     * This is intended for large numbers of small pieces of work, where the cost of submitting each piece of work separately outweighs the cost of the work itself.
+     * The pieces of work are sent to the worker together, under a single build operation, and are executed one after the other.
+     * Pieces of work that are large enough to benefit from being executed in parallel should be submitted separately, using {@link #submit(Class, Action)}.
+     *
+     * All pieces of work are executed, even when some of them fail.  Any errors will be thrown from {@link #await()} or from the surrounding task action if {@link #await()} is not used.
+     *
+     * @param parameterActions one action for each piece of work, which configures the parameters of that piece of work
+     * @since 7.4
+     */
+    @Incubating
+    <T extends WorkParameters> void submitBatch(Class<? extends WorkAction<T>> workActionClass, Iterable<? extends Action<? super T>> parameterActions);
+
     /**
      * Blocks until all work associated with this queue is complete.  Note that when using this method inside
      * a task action, it will block completion of the task action until the submitted work is complete.  This means that other
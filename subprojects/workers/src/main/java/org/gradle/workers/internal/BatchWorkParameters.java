@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.workers.internal;
+
+import org.gradle.workers.WorkParameters;
+
+import java.util.List;
+
+/**
+ * The parameters of a batch of work items submitted using {@link org.gradle.workers.WorkQueue#submitBatch(Class, Iterable)}.
+ * The batch is isolated, transported and executed as a single unit of work.
+ */
+public interface BatchWorkParameters extends WorkParameters {
+    /**
+     * The parameters of each work item, or {@code null} for work actions without parameters.
+     */
+    void setItems(List<WorkParameters> items);
+    List<WorkParameters> getItems();
+
+    void setDisplayName(String displayName);
+    String getDisplayName();
+}
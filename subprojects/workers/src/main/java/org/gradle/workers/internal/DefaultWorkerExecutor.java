@@ -177,6 +177,32 @@ <T extends WorkerSpec> Action<T> getWorkerSpecAdapterAction(DefaultWorkerConfigu
         return spec -> configuration.adaptTo(spec);
     }
 
+    private <T extends WorkParameters> AsyncWorkCompletion submitBatch(Class<? extends WorkAction<T>> workActionClass, Iterable<? extends Action<? super T>> parameterActions, WorkerSpec workerSpec, WorkerFactory workerFactory) {
+        Class<T> parameterType = isolationScheme.parameterTypeFor(workActionClass);
+        List<WorkParameters> items = Lists.newArrayList();
+        for (Action<? super T> parameterAction : parameterActions) {
+            T parameters = (parameterType == null) ? null : instantiator.newInstance(parameterType);
+            if (parameters != null) {
+                parameterAction.execute(parameters);
+            }
+            items.add(parameters);
+        }
+        BatchWorkParameters batch = instantiator.newInstance(BatchWorkParameters.class);
+        batch.setItems(items);
+        batch.setDisplayName("batch of " + items.size() + " work items for " + workActionClass.getName());
+
+        // The batch is executed by the worker server, which recognises it by the type of its parameters
+        Class<? extends WorkAction<BatchWorkParameters>> batchActionClass = Cast.uncheckedCast(workActionClass);
+        WorkerRequirement workerRequirement = getWorkerRequirement(workActionClass, workerSpec, batch);
+        IsolatedParametersActionExecutionSpec<?> spec;
+        try {
+            spec = actionExecutionSpecFactory.newIsolatedSpec(batch.getDisplayName(), batchActionClass, batch, workerRequirement, false);
+        } catch (Throwable t) {
+            throw new WorkExecutionException(batch.getDisplayName(), t);
+        }
+        return submitWork(spec, workerFactory, workerRequirement);
+    }
+
     private <T extends WorkParameters> AsyncWorkCompletion submitWork(Class<? extends WorkAction<T>> workActionClass, Action<? super T> parameterAction, WorkerSpec workerSpec, WorkerFactory workerFactory) {
         Class<T> parameterType = isolationScheme.parameterTypeFor(workActionClass);
         T parameters = (parameterType == null) ? null : instantiator.newInstance(parameterType);
@@ -208,6 +234,7 @@ private AsyncWorkCompletion submitWork(IsolatedParametersActionExecutionSpec<?>
                 throw new WorkExecutionException(spec.getDisplayName(), t);
             }
         });
+        workerFactory.prepareWorker(workerRequirement);
         executionQueue.submit(execution);
         asyncWorkTracker.registerWork(currentBuildOperation, execution);
         return execution;
@@ -301,6 +328,11 @@ private Class<?>[] getParamClasses(Class<?> actionClass, WorkParameters paramete
             AdapterWorkParameters adapterWorkParameters = (AdapterWorkParameters) parameters;
             implementationClass = classFromContextLoader(adapterWorkParameters.getImplementationClassName());
             params = adapterWorkParameters.getParams();
+        } else if (parameters instanceof BatchWorkParameters) {
+            BatchWorkParameters batchWorkParameters = (BatchWorkParameters) parameters;
+            implementationClass = actionClass;
+            // All items have the same type
+            params = batchWorkParameters.getItems().isEmpty() ? new Object[0] : new Object[]{batchWorkParameters.getItems().get(0)};
         } else {
             implementationClass = actionClass;
             params = new Object[]{parameters};
@@ -409,6 +441,11 @@ public <T extends WorkParameters> void submit(Class<? extends WorkAction<T>> wor
             workItems.add(workerExecutor.submitWork(workActionClass, parameterAction, spec, workerFactory));
         }
 
+        @Override
+        public <T extends WorkParameters> void submitBatch(Class<? extends WorkAction<T>> workActionClass, Iterable<? extends Action<? super T>> parameterActions) {
+            workItems.add(workerExecutor.submitBatch(workActionClass, parameterActions, spec, workerFactory));
+        }
+
         @Override
         public void await() throws WorkerExecutionException {
             workerExecutor.await(workItems);
@@ -18,6 +18,7 @@
 
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.Cast;
+import org.gradle.internal.exceptions.DefaultMultiCauseException;
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.isolated.IsolationScheme;
 import org.gradle.internal.reflect.Instantiator;
@@ -26,7 +27,9 @@
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public class DefaultWorkerServer implements Worker {
     private final ServiceRegistry internalServices;
@@ -43,6 +46,9 @@ public DefaultWorkerServer(ServiceRegistry internalServices, InstantiatorFactory
 
     @Override
     public DefaultWorkResult execute(SimpleActionExecutionSpec<?> spec) {
+        if (spec.getParameters() instanceof BatchWorkParameters) {
+            return executeBatch(Cast.uncheckedCast(spec.getImplementationClass()), (BatchWorkParameters) spec.getParameters(), spec.isInternalServicesRequired());
+        }
         try {
             Class<? extends WorkAction<?>> implementationClass = Cast.uncheckedCast(spec.getImplementationClass());
             // Exceptions to services available for injection
@@ -71,6 +77,26 @@ public DefaultWorkResult execute(SimpleActionExecutionSpec<?> spec) {
         }
     }
 
+    private DefaultWorkResult executeBatch(Class<? extends WorkAction<WorkParameters>> implementationClass, BatchWorkParameters batch, boolean usesInternalServices) {
+        // Execute all items, like separately submitted items would be
+        boolean didWork = false;
+        List<Throwable> failures = new ArrayList<>();
+        for (WorkParameters item : batch.getItems()) {
+            DefaultWorkResult result = execute(new SimpleActionExecutionSpec<>(implementationClass, item, usesInternalServices));
+            didWork |= result.getDidWork();
+            if (!result.isSuccess()) {
+                failures.add(result.getException());
+            }
+        }
+        if (failures.isEmpty()) {
+            return new DefaultWorkResult(didWork, null);
+        } else if (failures.size() == 1) {
+            return new DefaultWorkResult(true, failures.get(0));
+        } else {
+            return new DefaultWorkResult(true, new DefaultMultiCauseException("Multiple work items of " + batch.getDisplayName() + " failed.", failures));
+        }
+    }
+
     @Override
     public String toString() {
         return "DefaultWorkerServer{}";
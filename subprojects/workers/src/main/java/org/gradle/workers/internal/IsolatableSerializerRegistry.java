@@ -16,6 +16,8 @@
 
 package org.gradle.workers.internal;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -29,6 +31,7 @@
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 import org.gradle.internal.snapshot.impl.AbstractIsolatedMap;
 import org.gradle.internal.snapshot.impl.AttributeDefinitionSnapshot;
 import org.gradle.internal.snapshot.impl.BooleanValueSnapshot;
@@ -52,6 +55,7 @@
 import org.gradle.internal.state.ManagedFactory;
 import org.gradle.internal.state.ManagedFactoryRegistry;
 
+import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.List;
@@ -83,14 +87,33 @@ public class IsolatableSerializerRegistry extends DefaultSerializerRegistry {
     private static final byte OTHER_TYPE = (byte) 2;
     private static final byte NULL_TYPE = (byte) 3;
 
+    /**
+     * Composite values with at least this many elements are serialized once and the result reused, when isolated values are shared.
+     */
+    private static final int MIN_SHARED_SERIALIZED_SIZE = 16;
+
     private final Map<Byte, IsolatableSerializer<?>> isolatableSerializers = Maps.newHashMap();
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
     private final ManagedFactoryRegistry managedFactoryRegistry;
+    // Isolated values with equal content are shared, see DefaultValueSnapshotter, so many work items can refer to the same instance.
+    // Keyed by identity and held weakly, so an entry is discarded once no work item refers to the value.
+    private final Cache<Isolatable<?>, byte[]> serializedValues = CacheBuilder.newBuilder().weakKeys().build();
+    private final boolean shareSerializedValues;
 
     public IsolatableSerializerRegistry(ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ManagedFactoryRegistry managedFactoryRegistry) {
+        this(classLoaderHierarchyHasher, managedFactoryRegistry, false);
+    }
+
+    /**
+     * @param shareSerializedValues when true, large composite values are serialized once and the result reused. This only pays off when
+     * isolated values with equal content are shared, see {@link org.gradle.internal.snapshot.impl.DefaultValueSnapshotter#INTERN_ISOLATED_VALUES_PROPERTY}.
+     * Otherwise, each value is serialized once anyway, and caching the result only retains memory.
+     */
+    public IsolatableSerializerRegistry(ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ManagedFactoryRegistry managedFactoryRegistry, boolean shareSerializedValues) {
         super(false);
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
         this.managedFactoryRegistry = managedFactoryRegistry;
+        this.shareSerializedValues = shareSerializedValues;
 
         isolatableSerializers.put(STRING_VALUE, new StringValueSnapshotSerializer());
         isolatableSerializers.put(BOOLEAN_VALUE, new BooleanValueSnapshotSerializer());
@@ -119,6 +142,10 @@ public static IsolatableSerializerRegistry create(ClassLoaderHierarchyHasher cla
         return new IsolatableSerializerRegistry(classLoaderHierarchyHasher, managedFactoryRegistry);
     }
 
+    public static IsolatableSerializerRegistry create(ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ManagedFactoryRegistry managedFactoryRegistry, boolean shareSerializedValues) {
+        return new IsolatableSerializerRegistry(classLoaderHierarchyHasher, managedFactoryRegistry, shareSerializedValues);
+    }
+
     public Isolatable<?> readIsolatable(Decoder decoder) throws Exception {
         byte type = decoder.readByte();
         Class<? extends Isolatable<?>> isolatableClass = isolatableSerializers.get(type).getIsolatableClass();
@@ -126,7 +153,37 @@ public Isolatable<?> readIsolatable(Decoder decoder) throws Exception {
     }
 
     public void writeIsolatable(Encoder encoder, Isolatable<?> isolatable) throws Exception {
+        if (shareSerializedValues && isLargeComposite(isolatable)) {
+            byte[] serialized = serializedValues.getIfPresent(isolatable);
+            if (serialized == null) {
+                serialized = serialize(isolatable);
+                serializedValues.put(isolatable, serialized);
+            }
+            encoder.writeBytes(serialized);
+        } else {
+            build(isolatable.getClass()).write(encoder, Cast.uncheckedCast(isolatable));
+        }
+    }
+
+    private byte[] serialize(Isolatable<?> isolatable) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
         build(isolatable.getClass()).write(encoder, Cast.uncheckedCast(isolatable));
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static boolean isLargeComposite(Isolatable<?> isolatable) {
+        if (isolatable instanceof IsolatedList) {
+            return ((IsolatedList) isolatable).getElements().size() >= MIN_SHARED_SERIALIZED_SIZE;
+        } else if (isolatable instanceof IsolatedSet) {
+            return ((IsolatedSet) isolatable).getElements().size() >= MIN_SHARED_SERIALIZED_SIZE;
+        } else if (isolatable instanceof IsolatedArray) {
+            return ((IsolatedArray) isolatable).getElements().size() >= MIN_SHARED_SERIALIZED_SIZE;
+        } else if (isolatable instanceof AbstractIsolatedMap) {
+            return ((AbstractIsolatedMap<?>) isolatable).getEntries().size() >= MIN_SHARED_SERIALIZED_SIZE;
+        }
+        return false;
     }
 
     private void readIsolatableSequence(Decoder decoder, ImmutableCollection.Builder<Isolatable<?>> builder) throws Exception {
@@ -20,6 +20,7 @@
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class IsolatedParametersActionExecutionSpec<T extends WorkParameters> {
@@ -30,8 +31,9 @@
     private final File baseDir;
     private final boolean usesInternalServices;
     private final String displayName;
+    private final Object workerAffinity;
 
-    public IsolatedParametersActionExecutionSpec(Class<? extends WorkAction<T>> implementationClass, String displayName, String actionImplementationClassName, Isolatable<T> isolatedParams, ClassLoaderStructure classLoaderStructure, File baseDir, boolean usesInternalServices) {
+    public IsolatedParametersActionExecutionSpec(Class<? extends WorkAction<T>> implementationClass, String displayName, String actionImplementationClassName, Isolatable<T> isolatedParams, ClassLoaderStructure classLoaderStructure, File baseDir, boolean usesInternalServices, @Nullable Object workerAffinity) {
         this.implementationClass = implementationClass;
         this.displayName = displayName;
         this.actionImplementationClassName = actionImplementationClassName;
@@ -39,6 +41,7 @@ public IsolatedParametersActionExecutionSpec(Class<? extends WorkAction<T>> impl
         this.classLoaderStructure = classLoaderStructure;
         this.baseDir = baseDir;
         this.usesInternalServices = usesInternalServices;
+        this.workerAffinity = workerAffinity;
     }
 
     public String getDisplayName() {
@@ -67,6 +70,14 @@ public String getActionImplementationClassName() {
         return actionImplementationClassName;
     }
 
+    /**
+     * Identifies the classes the work loads, so that it can be executed by a worker daemon that has already loaded them. See {@link ProvidesWorkerAffinity}.
+     */
+    @Nullable
+    public Object getWorkerAffinity() {
+        return workerAffinity;
+    }
+
     public boolean isInternalServicesRequired() {
         return usesInternalServices;
     }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import javax.annotation.Nullable;
+
+/**
+ * Implemented by work parameters that know better than the work action class which worker daemon should execute the work.
+ */
+public interface ProvidesWorkerAffinity {
+    /**
+     * Returns a key that is equal for work that loads the same classes, such as the compile classpath of a compiler, or {@code null} for no preference.
+     */
+    @Nullable
+    Object getWorkerAffinity();
+}
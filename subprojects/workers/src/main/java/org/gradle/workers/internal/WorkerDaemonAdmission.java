@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.workers.internal;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+import org.gradle.process.internal.health.memory.MaximumHeapHelper;
+import org.gradle.process.internal.health.memory.MemoryAmount;
+import org.gradle.process.internal.health.memory.OsMemoryInfo;
+import org.gradle.process.internal.health.memory.OsMemoryStatus;
+
+import java.util.List;
+
+/**
+ * Decides whether there is enough free system memory to start another worker daemon.
+ *
+ * <p>A new daemon is expected to grow up to its maximum heap size. Busy daemons may also still grow up to their maximum heap size,
+ * so the difference between that and the heap they have last reported as committed is kept free for them. Daemons that are still starting
+ * have not used any memory yet, so their whole maximum heap size is kept free for them. On top of this, the same
+ * share of system memory that the memory manager tries to keep free is left untouched.</p>
+ */
+public class WorkerDaemonAdmission {
+    public static final String DISABLE_ADMISSION_CONTROL_PROPERTY_KEY = "org.gradle.workers.internal.disable-daemons-admission-control";
+
+    private static final Logger LOGGER = Logging.getLogger(WorkerDaemonAdmission.class);
+    private static final double MIN_FREE_MEMORY_PERCENTAGE = 0.1D;
+    private static final long MIN_FREE_MEMORY_BYTES = 384 * 1024 * 1024;
+
+    private final OsMemoryInfo memoryInfo;
+
+    public WorkerDaemonAdmission(OsMemoryInfo memoryInfo) {
+        this.memoryInfo = memoryInfo;
+    }
+
+    /**
+     * Returns true when a daemon with the given fork options can be started while the given daemons are busy and daemons with the given fork options are starting.
+     */
+    public boolean canStart(DaemonForkOptions forkOptions, List<WorkerDaemonClient> busyClients, List<DaemonForkOptions> startingDaemons) {
+        OsMemoryStatus osMemoryStatus;
+        try {
+            osMemoryStatus = memoryInfo.getOsSnapshot();
+        } catch (UnsupportedOperationException e) {
+            // Cannot tell, so do not hold back any work
+            return true;
+        }
+        long totalMemory = osMemoryStatus.getTotalPhysicalMemory();
+        long required = getMaximumHeapSize(forkOptions, totalMemory);
+        for (WorkerDaemonClient busyClient : busyClients) {
+            required += getRemainingGrowth(busyClient, totalMemory);
+        }
+        for (DaemonForkOptions startingDaemon : startingDaemons) {
+            required += getMaximumHeapSize(startingDaemon, totalMemory);
+        }
+        long available = osMemoryStatus.getFreePhysicalMemory() - Math.max(MIN_FREE_MEMORY_BYTES, (long) (totalMemory * MIN_FREE_MEMORY_PERCENTAGE));
+        if (required > available) {
+            LOGGER.debug("{} memory required to start a worker daemon and for busy and starting worker daemons to grow, {} available", required, available);
+            return false;
+        }
+        return true;
+    }
+
+    private static long getRemainingGrowth(WorkerDaemonClient client, long osTotalMemory) {
+        // prefer to use the actual memory usage reported by the worker
+        try {
+            JvmMemoryStatus memoryStatus = client.getJvmMemoryStatus();
+            return Math.max(0, memoryStatus.getMaxMemory() - memoryStatus.getCommittedMemory());
+        } catch (UnsupportedOperationException e) {
+            // This means the client does not support reporting jvm memory info
+        } catch (IllegalStateException e) {
+            // This means the client has not reported memory usage yet
+        }
+        return getMaximumHeapSize(client.getForkOptions(), osTotalMemory);
+    }
+
+    /**
+     * Returns the maximum heap size of a daemon started with the given fork options, or 0 when it is not known.
+     *
+     * @param osTotalMemory OS total memory in bytes, or -1 when not known
+     */
+    static long getMaximumHeapSize(DaemonForkOptions forkOptions, long osTotalMemory) {
+        long parsed = MemoryAmount.parseNotation(forkOptions.getJavaForkOptions().getMaxHeapSize());
+        if (parsed != -1) {
+            // From fork options
+            return parsed;
+        }
+
+        // If we don't know what the max heap is, approximate it based on OS total memory
+        // according to JVM documentation
+        if (osTotalMemory != -1) {
+            return new MaximumHeapHelper().getDefaultMaximumHeapSize(osTotalMemory);
+        }
+        return 0;
+    }
+}
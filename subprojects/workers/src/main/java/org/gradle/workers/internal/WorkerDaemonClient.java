@@ -22,6 +22,8 @@
 import org.gradle.process.internal.worker.MultiRequestClient;
 import org.gradle.process.internal.worker.WorkerProcess;
 
+import javax.annotation.Nullable;
+
 class WorkerDaemonClient implements Stoppable {
     public static final String DISABLE_EXPIRATION_PROPERTY_KEY = "org.gradle.workers.internal.disable-daemons-expiration";
     private final DaemonForkOptions forkOptions;
@@ -30,6 +32,7 @@ class WorkerDaemonClient implements Stoppable {
     private final LogLevel logLevel;
     private final ActionExecutionSpecFactory actionExecutionSpecFactory;
     private int uses;
+    private Object lastWorkerAffinity;
     private boolean failed;
     private boolean cannotBeExpired = Boolean.getBoolean(DISABLE_EXPIRATION_PROPERTY_KEY);
 
@@ -43,6 +46,7 @@ public WorkerDaemonClient(DaemonForkOptions forkOptions, MultiRequestClient<Tran
 
     public DefaultWorkResult execute(IsolatedParametersActionExecutionSpec<?> spec) {
         uses++;
+        lastWorkerAffinity = spec.getWorkerAffinity();
         return workerClient.run(actionExecutionSpecFactory.newTransportableSpec(spec));
     }
 
@@ -67,6 +71,16 @@ public int getUses() {
         return uses;
     }
 
+    /**
+     * Returns the worker affinity of the work most recently executed by this daemon, or {@code null} when none has been executed yet.
+     *
+     * @see IsolatedParametersActionExecutionSpec#getWorkerAffinity()
+     */
+    @Nullable
+    public Object getLastWorkerAffinity() {
+        return lastWorkerAffinity;
+    }
+
     public KeepAliveMode getKeepAliveMode() {
         return forkOptions.getKeepAliveMode();
     }
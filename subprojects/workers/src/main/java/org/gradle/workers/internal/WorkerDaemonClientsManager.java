@@ -24,6 +24,8 @@
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.session.BuildSessionLifecycleListener;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
@@ -31,24 +33,36 @@
 import org.gradle.internal.logging.events.LogLevelChangeEvent;
 import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.OsMemoryInfo;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.util.internal.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Comparator.*;
 
 public class WorkerDaemonClientsManager implements Stoppable {
 
     private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
+    private static final long ADMISSION_RECHECK_INTERVAL_MILLIS = 1000;
 
     private final Object lock = new Object();
     private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
     private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
+    private final List<PrewarmedClient> prewarmingClients = new ArrayList<PrewarmedClient>();
+    // Idle clients started ahead of time, which have not been used yet
+    private final Set<WorkerDaemonClient> prewarmedClients = new HashSet<WorkerDaemonClient>();
+    // Fork options of the daemons being started, for which memory has been reserved
+    private final List<DaemonForkOptions> startingDaemons = new ArrayList<DaemonForkOptions>();
     private final Action<WorkerProcess> workerProcessCleanupAction = new WorkerProcessCleanupAction();
 
     private final WorkerDaemonStarter workerDaemonStarter;
@@ -59,10 +73,30 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final OutputEventListener logLevelChangeEventListener;
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
+    private final ManagedExecutor prewarmExecutor;
+    private final WorkerDaemonAdmission admission;
     private volatile LogLevel currentLogLevel;
+    private int coldStarts;
+    private int prewarmedStarts;
+    private int reuses;
+    private int sameAffinityReuses;
+    private int delayedStarts;
 
     public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+        this(workerDaemonStarter, listenerManager, loggingManager, memoryManager, memoryInfo, null);
+    }
+
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, @Nullable ExecutorFactory executorFactory) {
+        this(workerDaemonStarter, listenerManager, loggingManager, memoryManager, memoryInfo, executorFactory, null);
+    }
+
+    /**
+     * @param executorFactory used to start worker daemons ahead of time, see {@link #prewarm(DaemonForkOptions, int)}. No daemons are started ahead of time when {@code null}.
+     * @param admission decides whether there is enough memory to start a new worker daemon, see {@link #reserveNewClient(DaemonForkOptions)}. Daemons are always started when {@code null}.
+     */
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, @Nullable ExecutorFactory executorFactory, @Nullable WorkerDaemonAdmission admission) {
         this.workerDaemonStarter = workerDaemonStarter;
+        this.admission = admission;
         this.listenerManager = listenerManager;
         this.loggingManager = loggingManager;
         this.memoryInfo = memoryInfo;
@@ -74,38 +108,266 @@ public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, Liste
         this.memoryManager = memoryManager;
         this.workerDaemonExpiration = new WorkerDaemonExpiration(this, getTotalPhysicalMemory());
         memoryManager.addMemoryHolder(workerDaemonExpiration);
+        this.prewarmExecutor = executorFactory == null ? null : executorFactory.create("Worker daemon prewarming");
     }
 
-    // TODO - should supply and check for the same parameters as passed to reserveNewClient()
     public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+        return reserveIdleClient(forkOptions, (Object) null);
+    }
+
+    /**
+     * Reserves an idle client compatible with the given fork options, preferring a client that last executed work with the given worker affinity.
+     * Such a client has already loaded and compiled the classes the work uses, and may have cached state to reuse.
+     *
+     * @see IsolatedParametersActionExecutionSpec#getWorkerAffinity()
+     */
+    public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, @Nullable Object workerAffinity) {
+        return reserveIdleClient(forkOptions, workerAffinity, idleClients);
     }
 
     WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
+        return reserveIdleClient(forkOptions, null, clients);
+    }
+
+    WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, @Nullable Object workerAffinity, List<WorkerDaemonClient> clients) {
         synchronized (lock) {
+            WorkerDaemonClient selected = null;
+            boolean selectedHasSameAffinity = false;
             Iterator<WorkerDaemonClient> it = clients.iterator();
             while (it.hasNext()) {
                 WorkerDaemonClient candidate = it.next();
                 if (candidate.isCompatibleWith(forkOptions)) {
-                    it.remove();
                     if (candidate.getLogLevel() != currentLogLevel) {
                         // TODO: Send a message to workers to change their log level rather than stopping
+                        it.remove();
                         LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
                         candidate.stop();
                     } else {
-                        return candidate;
+                        boolean hasSameAffinity = workerAffinity != null && workerAffinity.equals(candidate.getLastWorkerAffinity());
+                        if (selected == null || (hasSameAffinity && !selectedHasSameAffinity)) {
+                            selected = candidate;
+                            selectedHasSameAffinity = hasSameAffinity;
+                        }
                     }
                 }
             }
-            return null;
+            if (selected != null) {
+                clients.remove(selected);
+                if (prewarmedClients.remove(selected)) {
+                    prewarmedStarts++;
+                } else {
+                    reuses++;
+                    if (selectedHasSameAffinity) {
+                        sameAffinityReuses++;
+                    }
+                }
+            }
+            return selected;
         }
     }
 
+    /**
+     * Reserves a client for a newly started daemon compatible with the given fork options.
+     *
+     * <p>When there is not enough free memory to start the daemon, waits for busy daemons to finish their work instead of over-committing memory.
+     * A compatible daemon released while waiting is reserved instead of starting a new one. The memory a daemon needs is reserved until it has started,
+     * so that daemons started concurrently do not all count on the same free memory.</p>
+     */
     public WorkerDaemonClient reserveNewClient(DaemonForkOptions forkOptions) {
+        return reserveNewClient(forkOptions, null);
+    }
+
+    /**
+     * Reserves a client for a newly started daemon compatible with the given fork options, as {@link #reserveNewClient(DaemonForkOptions)} does.
+     *
+     * @param workerLeaseService used to release the worker lease of the current thread while waiting for enough free memory, so that other work can run meanwhile.
+     * The lease is kept while waiting when {@code null}.
+     */
+    public WorkerDaemonClient reserveNewClient(DaemonForkOptions forkOptions, @Nullable WorkerLeaseService workerLeaseService) {
+        WorkerDaemonClient prewarmed = reservePrewarmingClient(forkOptions);
+        if (prewarmed != null) {
+            return prewarmed;
+        }
+        if (admission != null) {
+            WorkerDaemonClient released = awaitAdmission(forkOptions, workerLeaseService);
+            if (released != null) {
+                return released;
+            }
+        } else {
+            synchronized (lock) {
+                startingDaemons.add(forkOptions);
+            }
+        }
         //allow the daemon to be started concurrently
-        WorkerDaemonClient client = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
+        WorkerDaemonClient client = null;
+        try {
+            client = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
+        } finally {
+            synchronized (lock) {
+                startingDaemons.remove(forkOptions);
+                if (client != null) {
+                    allClients.add(client);
+                    coldStarts++;
+                }
+                lock.notifyAll();
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Returns a compatible daemon released while waiting, or {@code null} once memory has been reserved to start a new daemon.
+     */
+    @Nullable
+    private WorkerDaemonClient awaitAdmission(DaemonForkOptions forkOptions, @Nullable WorkerLeaseService workerLeaseService) {
         synchronized (lock) {
-            allClients.add(client);
+            WorkerDaemonClient released = reserveIdleClient(forkOptions);
+            if (released != null || reserveStart(forkOptions)) {
+                return released;
+            }
+        }
+        if (workerLeaseService == null) {
+            return waitForAdmission(forkOptions);
+        }
+        AtomicReference<WorkerDaemonClient> released = new AtomicReference<>();
+        workerLeaseService.withoutWorkerLease(() -> released.set(waitForAdmission(forkOptions)));
+        return released.get();
+    }
+
+    @Nullable
+    private WorkerDaemonClient waitForAdmission(DaemonForkOptions forkOptions) {
+        boolean waiting = false;
+        while (true) {
+            synchronized (lock) {
+                WorkerDaemonClient released = reserveIdleClient(forkOptions);
+                if (released != null) {
+                    return released;
+                }
+                if (reserveStart(forkOptions)) {
+                    return null;
+                }
+            }
+            // Ask memory holders, such as idle worker daemons, to release memory.
+            // Do not hold lock while doing so, as the memory manager holds its own lock while stopping idle worker daemons
+            memoryManager.requestFreeMemory(WorkerDaemonAdmission.getMaximumHeapSize(forkOptions, getTotalPhysicalMemory()));
+            synchronized (lock) {
+                if (reserveStart(forkOptions)) {
+                    return null;
+                }
+                if (!waiting) {
+                    LOGGER.info("Not enough free memory to start another worker daemon, waiting for busy worker daemons to finish.");
+                    delayedStarts++;
+                    waiting = true;
+                }
+                try {
+                    lock.wait(ADMISSION_RECHECK_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves the memory to start a daemon with the given fork options, when there is enough. The caller removes the fork options from
+     * {@link #startingDaemons} once the daemon has started or has failed to start.
+     */
+    private boolean reserveStart(DaemonForkOptions forkOptions) {
+        if (!canStart(forkOptions)) {
+            return false;
+        }
+        startingDaemons.add(forkOptions);
+        return true;
+    }
+
+    private boolean canStart(DaemonForkOptions forkOptions) {
+        List<WorkerDaemonClient> busyClients = new ArrayList<WorkerDaemonClient>(allClients);
+        busyClients.removeAll(idleClients);
+        // Memory can only be released by busy daemons, or by starting daemons once these are busy, so do not wait when there are none
+        return (busyClients.isEmpty() && startingDaemons.isEmpty()) || admission.canStart(forkOptions, busyClients, startingDaemons);
+    }
+
+    /**
+     * Starts a worker daemon compatible with the given fork options in the background, when all such daemons are busy and there are fewer than the given number of them.
+     * This is called when work that needs such a daemon has been submitted, so that the daemon starts while the work is waiting to be executed.
+     *
+     * <p>No daemon is started ahead of time when there is not enough free memory to start it. The work then waits for memory in {@link #reserveNewClient(DaemonForkOptions)}.</p>
+     *
+     * @param maxDaemons the number of daemons that can be busy at once, usually the maximum number of workers.
+     */
+    public void prewarm(DaemonForkOptions forkOptions, int maxDaemons) {
+        prewarm(forkOptions, 0, maxDaemons);
+    }
+
+    /**
+     * Starts a spare worker daemon compatible with the given fork options in the background, when a client compatible with them has just been reserved,
+     * and some other compatible daemon is busy as well, as {@link #prewarm(DaemonForkOptions, int)} does. This way, a daemon is started ahead of time
+     * for work that executes daemons concurrently, such as compilations, even when that work does not announce its need for a daemon in advance.
+     */
+    public void prewarmSpare(DaemonForkOptions forkOptions, int maxDaemons) {
+        prewarm(forkOptions, 2, maxDaemons);
+    }
+
+    private void prewarm(DaemonForkOptions forkOptions, int minBusyDaemons, int maxDaemons) {
+        if (prewarmExecutor == null) {
+            return;
+        }
+        PrewarmedClient prewarming;
+        synchronized (lock) {
+            int compatibleDaemons = 0;
+            for (WorkerDaemonClient client : allClients) {
+                if (client.isCompatibleWith(forkOptions)) {
+                    if (idleClients.contains(client)) {
+                        return;
+                    }
+                    compatibleDaemons++;
+                }
+            }
+            if (compatibleDaemons < minBusyDaemons || compatibleDaemons >= maxDaemons) {
+                return;
+            }
+            for (PrewarmedClient client : prewarmingClients) {
+                if (client.forkOptions.isCompatibleWith(forkOptions)) {
+                    return;
+                }
+            }
+            if (!canPrewarm(forkOptions)) {
+                return;
+            }
+            prewarming = new PrewarmedClient(forkOptions);
+            prewarmingClients.add(prewarming);
+        }
+        prewarmExecutor.execute(prewarming);
+    }
+
+    private boolean canPrewarm(DaemonForkOptions forkOptions) {
+        return admission == null || canStart(forkOptions);
+    }
+
+    @Nullable
+    private WorkerDaemonClient reservePrewarmingClient(DaemonForkOptions forkOptions) {
+        PrewarmedClient prewarming = null;
+        synchronized (lock) {
+            Iterator<PrewarmedClient> it = prewarmingClients.iterator();
+            while (it.hasNext()) {
+                PrewarmedClient candidate = it.next();
+                if (candidate.forkOptions.isCompatibleWith(forkOptions)) {
+                    it.remove();
+                    candidate.reserved = true;
+                    prewarming = candidate;
+                    break;
+                }
+            }
+        }
+        if (prewarming == null) {
+            return null;
+        }
+        WorkerDaemonClient client = prewarming.await();
+        if (client != null) {
+            synchronized (lock) {
+                // The daemon was still starting, so this waited for it like for a daemon started on demand
+                coldStarts++;
+            }
         }
         return client;
     }
@@ -115,15 +377,21 @@ public void release(WorkerDaemonClient client) {
             if (!client.isFailed()) {
                 idleClients.add(client);
             }
+            lock.notifyAll();
         }
     }
 
     @Override
     public void stop() {
+        if (prewarmExecutor != null) {
+            // Do not hold lock while waiting for daemons being started, as these need to acquire the lock to register the daemon
+            prewarmExecutor.stop();
+        }
         synchronized (lock) {
             stopWorkers(allClients);
             allClients.clear();
             idleClients.clear();
+            prewarmedClients.clear();
             listenerManager.removeListener(stopSessionScopeWorkers);
             memoryManager.removeMemoryHolder(workerDaemonExpiration);
         }
@@ -168,6 +436,8 @@ private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
             }
             idleClients.removeAll(clientsToStop);
             allClients.removeAll(clientsToStop);
+            prewarmedClients.removeAll(clientsToStop);
+            lock.notifyAll();
             if (!failures.isEmpty()) {
                 if (failures.size() == 1) {
                     throw UncheckedException.throwAsUncheckedException(failures.get(0));
@@ -185,6 +455,14 @@ private class StopSessionScopedWorkers implements BuildSessionLifecycleListener
         public void beforeComplete() {
             synchronized (lock) {
                 List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(allClients, client -> client.getKeepAliveMode() == KeepAliveMode.SESSION);
+                if (coldStarts + prewarmedStarts + reuses > 0) {
+                    LOGGER.info("Worker daemon usage: {} cold start(s), {} use(s) of a daemon started ahead of time, {} reuse(s) of an idle daemon ({} of a daemon that last executed work using the same classes), {} start(s) delayed by low memory.", coldStarts, prewarmedStarts, reuses, sameAffinityReuses, delayedStarts);
+                }
+                coldStarts = 0;
+                prewarmedStarts = 0;
+                reuses = 0;
+                sameAffinityReuses = 0;
+                delayedStarts = 0;
                 stopWorkers(sessionScopedClients);
             }
         }
@@ -200,6 +478,74 @@ public void onOutput(OutputEvent event) {
         }
     }
 
+    /**
+     * A worker daemon being started ahead of time. The daemon becomes idle once started, unless it has been reserved while starting.
+     */
+    private class PrewarmedClient implements Runnable {
+        private final DaemonForkOptions forkOptions;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private WorkerDaemonClient client;
+        private boolean reserved;
+
+        PrewarmedClient(DaemonForkOptions forkOptions) {
+            this.forkOptions = forkOptions;
+        }
+
+        @Override
+        public void run() {
+            WorkerDaemonClient startedClient = null;
+            boolean canStart = false;
+            try {
+                synchronized (lock) {
+                    // Memory may have been used up by daemons started since this daemon was scheduled
+                    canStart = admission == null || canStart(forkOptions);
+                    if (canStart) {
+                        startingDaemons.add(forkOptions);
+                    }
+                }
+                if (canStart) {
+                    startedClient = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
+                } else {
+                    LOGGER.info("Not enough free memory to start a worker daemon ahead of time.");
+                }
+            } catch (Exception e) {
+                LOGGER.info("Could not start worker daemon ahead of time.", e);
+            } finally {
+                synchronized (lock) {
+                    client = startedClient;
+                    prewarmingClients.remove(this);
+                    if (canStart) {
+                        startingDaemons.remove(forkOptions);
+                        lock.notifyAll();
+                    }
+                    if (startedClient != null) {
+                        allClients.add(startedClient);
+                        if (!reserved) {
+                            idleClients.add(startedClient);
+                            prewarmedClients.add(startedClient);
+                        }
+                    }
+                }
+                started.countDown();
+            }
+        }
+
+        /**
+         * Waits for the daemon to start, returning {@code null} when it could not be started.
+         */
+        @Nullable
+        WorkerDaemonClient await() {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            synchronized (lock) {
+                return client;
+            }
+        }
+    }
+
     private class WorkerProcessCleanupAction implements Action<WorkerProcess> {
         @Override
         public void execute(WorkerProcess workerProcess) {
@@ -212,6 +558,7 @@ public void execute(WorkerProcess workerProcess) {
                         iterator.remove();
                     }
                 }
+                lock.notifyAll();
             }
         }
     }
@@ -19,8 +19,6 @@
 import org.gradle.api.Transformer;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.gradle.process.internal.health.memory.MaximumHeapHelper;
-import org.gradle.process.internal.health.memory.MemoryAmount;
 import org.gradle.process.internal.health.memory.MemoryHolder;
 
 import java.util.ArrayList;
@@ -106,21 +104,7 @@ private long getMemoryUsage(WorkerDaemonClient idleClient) {
 
             // if the worker has not reported memory usage yet for some reason, or does not support it,
             // use the max heap as an approximation
-            String forkOptionsMaxHeapSize = idleClient.getForkOptions().getJavaForkOptions().getMaxHeapSize();
-            long parsed = MemoryAmount.parseNotation(forkOptionsMaxHeapSize);
-            if (parsed != -1) {
-                // From fork options
-                return parsed;
-            }
-
-            // If we don't know what the max heap is, approximate it based on OS total memory
-            // according to JVM documentation
-            if (osTotalMemory != -1) {
-                return new MaximumHeapHelper().getDefaultMaximumHeapSize(osTotalMemory);
-            }
-
-            // If we get here, we have no idea how much memory the worker is using
-            return 0;
+            return WorkerDaemonAdmission.getMaximumHeapSize(idleClient.getForkOptions(), osTotalMemory);
         }
     }
 }
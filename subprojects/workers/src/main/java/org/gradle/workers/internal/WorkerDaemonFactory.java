@@ -18,6 +18,7 @@
 
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.work.WorkerLeaseService;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -28,10 +29,12 @@
 public class WorkerDaemonFactory implements WorkerFactory {
     private final WorkerDaemonClientsManager clientsManager;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final WorkerLeaseService workerLeaseService;
 
-    public WorkerDaemonFactory(WorkerDaemonClientsManager clientsManager, BuildOperationExecutor buildOperationExecutor) {
+    public WorkerDaemonFactory(WorkerDaemonClientsManager clientsManager, BuildOperationExecutor buildOperationExecutor, WorkerLeaseService workerLeaseService) {
         this.clientsManager = clientsManager;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.workerLeaseService = workerLeaseService;
     }
 
     @Override
@@ -39,7 +42,7 @@ public BuildOperationAwareWorker getWorker(WorkerRequirement workerRequirement)
         return new AbstractWorker(buildOperationExecutor) {
             @Override
             public DefaultWorkResult execute(IsolatedParametersActionExecutionSpec<?> spec, BuildOperationRef parentBuildOperation) {
-                final WorkerDaemonClient client = reserveClient();
+                final WorkerDaemonClient client = reserveClient(spec);
                 try {
                     return executeWrappedInBuildOperation(spec, parentBuildOperation, client::execute);
                 } finally {
@@ -47,17 +50,24 @@ public DefaultWorkResult execute(IsolatedParametersActionExecutionSpec<?> spec,
                 }
             }
 
-            private WorkerDaemonClient reserveClient() {
+            private WorkerDaemonClient reserveClient(IsolatedParametersActionExecutionSpec<?> spec) {
                 DaemonForkOptions forkOptions = ((ForkedWorkerRequirement) workerRequirement).getForkOptions();
-                WorkerDaemonClient client = clientsManager.reserveIdleClient(forkOptions);
+                WorkerDaemonClient client = clientsManager.reserveIdleClient(forkOptions, spec.getWorkerAffinity());
                 if (client == null) {
-                    client = clientsManager.reserveNewClient(forkOptions);
+                    client = clientsManager.reserveNewClient(forkOptions, workerLeaseService);
                 }
+                // Covers work that does not call prepareWorker(), such as compilations
+                clientsManager.prewarmSpare(forkOptions, workerLeaseService.getMaxWorkerCount());
                 return client;
             }
         };
     }
 
+    @Override
+    public void prepareWorker(WorkerRequirement workerRequirement) {
+        clientsManager.prewarm(((ForkedWorkerRequirement) workerRequirement).getForkOptions(), workerLeaseService.getMaxWorkerCount());
+    }
+
     @Override
     public IsolationMode getIsolationMode() {
         return IsolationMode.PROCESS;
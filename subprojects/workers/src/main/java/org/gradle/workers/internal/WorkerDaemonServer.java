@@ -30,6 +30,8 @@
 import org.gradle.api.resources.ResourceHandler;
 import org.gradle.api.resources.TextResourceFactory;
 import org.gradle.initialization.LegacyTypesSupport;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
@@ -52,7 +54,7 @@
 import javax.inject.Inject;
 import java.io.File;
 
-public class WorkerDaemonServer implements RequestHandler<TransportableActionExecutionSpec, DefaultWorkResult> {
+public class WorkerDaemonServer implements RequestHandler<TransportableActionExecutionSpec, DefaultWorkResult>, Stoppable {
     private final ServiceRegistry internalServices;
     private final LegacyTypesSupport legacyTypesSupport;
     private final ActionExecutionSpecFactory actionExecutionSpecFactory;
@@ -104,6 +106,11 @@ private ClassLoader getWorkerClassLoader(ClassLoaderStructure classLoaderStructu
         return workerClassLoader;
     }
 
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(internalServices).stop();
+    }
+
     @Override
     public String toString() {
         return "WorkerDaemonServer{}";
@@ -136,6 +143,10 @@ public HashCode getClassLoaderHash(@Nonnull ClassLoader classLoader) {
             };
         }
 
+        WorkerDaemonSharedObjects createWorkerDaemonSharedObjects() {
+            return new WorkerDaemonSharedObjects();
+        }
+
         DomainObjectCollectionFactory createDomainObjectCollectionFactory(InstantiatorFactory instantiatorFactory, ServiceRegistry services) {
             return new DefaultDomainObjectCollectionFactory(instantiatorFactory, services, CollectionCallbackActionDecorator.NOOP, MutationGuards.identity());
         }
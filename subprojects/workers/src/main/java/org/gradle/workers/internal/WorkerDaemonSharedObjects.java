@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds objects that work running in a worker daemon wants to keep across work items, such as the file managers of a
+ * compiler daemon. The objects are stopped, in reverse creation order, when the worker daemon stops. For a daemon
+ * that is kept alive for the build session only, this happens at the end of the build session.
+ *
+ * <p>Objects that implement {@link Stoppable} or {@link java.io.Closeable} are stopped, other objects are simply dropped.</p>
+ */
+public class WorkerDaemonSharedObjects implements Stoppable {
+    private final Map<Class<?>, Object> objects = new LinkedHashMap<>();
+    private boolean stopped;
+
+    /**
+     * Returns the object of the given type, creating it using the given factory when no such object exists yet.
+     */
+    public synchronized <T> T get(Class<T> type, Factory<? extends T> factory) {
+        if (stopped) {
+            throw new IllegalStateException("Cannot use the shared objects of a worker daemon that has stopped.");
+        }
+        Object object = objects.get(type);
+        if (object == null) {
+            object = factory.create();
+            objects.put(type, object);
+        }
+        return type.cast(object);
+    }
+
+    @Override
+    public void stop() {
+        List<Object> toStop;
+        synchronized (this) {
+            stopped = true;
+            toStop = new ArrayList<>(objects.values());
+            objects.clear();
+        }
+        Collections.reverse(toStop);
+        CompositeStoppable.stoppable(toStop).stop();
+    }
+}
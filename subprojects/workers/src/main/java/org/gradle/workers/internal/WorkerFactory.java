@@ -19,5 +19,11 @@
 public interface WorkerFactory {
     BuildOperationAwareWorker getWorker(WorkerRequirement workerRequirement);
 
+    /**
+     * Called when work that needs a worker for the given requirement has been submitted, before the worker is requested to execute it.
+     */
+    default void prepareWorker(WorkerRequirement workerRequirement) {
+    }
+
     IsolationMode getIsolationMode();
 }
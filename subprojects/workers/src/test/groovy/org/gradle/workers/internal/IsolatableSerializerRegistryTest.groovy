@@ -340,6 +340,30 @@ class IsolatableSerializerRegistryTest extends Specification {
         newIsolatables[0].isolate() == list
     }
 
+    def "can serialize/deserialize large isolated values that are shared"() {
+        isolatableFactory = new DefaultValueSnapshotter(classLoaderHasher, managedFactoryRegistry, true)
+        serializer = IsolatableSerializerRegistry.create(classLoaderHasher, managedFactoryRegistry, true)
+        List<File> files = (1..100).collect { new File("file${it}.jar") }
+        Set<File> set = new LinkedHashSet<>(files)
+        def isolatedList = isolatableFactory.isolate(["first", files, set])
+        def sharedList = isolatableFactory.isolate(["second", new ArrayList<>(files), new LinkedHashSet<>(files)])
+
+        expect:
+        sharedList.elements[1].is(isolatedList.elements[1])
+        sharedList.elements[2].is(isolatedList.elements[2])
+
+        when:
+        serialize(isolatedList, sharedList, isolatedList)
+
+        and:
+        Isolatable<?>[] newIsolatables = deserialize()
+
+        then:
+        newIsolatables[0].isolate() == ["first", files, set]
+        newIsolatables[1].isolate() == ["second", files, set]
+        newIsolatables[2].isolate() == ["first", files, set]
+    }
+
     def serialize(Isolatable<?>... isolatables) {
         encoder.writeInt(isolatables.size())
         isolatables.each { serializer.writeIsolatable(encoder, it) }
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.workers.internal
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.event.ListenerManager
+import org.gradle.internal.logging.LoggingManagerInternal
+import org.gradle.internal.work.WorkerLeaseService
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.health.memory.JvmMemoryStatus
+import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.health.memory.OsMemoryInfo
+import org.gradle.process.internal.health.memory.OsMemoryStatus
+import org.gradle.process.internal.health.memory.OsMemoryStatusSnapshot
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.CountDownLatch
+
+class WorkerDaemonAdmissionTest extends ConcurrentSpec {
+    private static final long GB = 1024L * 1024 * 1024
+
+    def memoryInfo = new SimulatedOsMemoryInfo(32 * GB, 20 * GB)
+    def admission = new WorkerDaemonAdmission(memoryInfo)
+    def fourGbOptions = forkOptions("4g")
+
+    def "admits daemon when there is enough free memory"() {
+        expect:
+        admission.canStart(fourGbOptions, [busyClient(8 * GB, 2 * GB)], [])
+    }
+
+    def "does not admit daemon when busy daemons may grow into the free memory"() {
+        expect:
+        !admission.canStart(fourGbOptions, [busyClient(8 * GB, 2 * GB), busyClient(8 * GB, 2 * GB), busyClient(8 * GB, 2 * GB)], [])
+    }
+
+    def "keeps maximum heap size free for daemons that are still starting"() {
+        expect:
+        admission.canStart(fourGbOptions, [], [forkOptions("8g")])
+        !admission.canStart(fourGbOptions, [], [forkOptions("8g"), forkOptions("8g")])
+    }
+
+    def "keeps part of the system memory free"() {
+        memoryInfo.freeMemory = 6 * GB
+
+        expect:
+        !admission.canStart(fourGbOptions, [], [])
+    }
+
+    def "uses maximum heap size of fork options for busy daemons that have not reported their memory usage"() {
+        def notReported = Stub(WorkerDaemonClient) {
+            getJvmMemoryStatus() >> { throw new IllegalStateException() }
+            getForkOptions() >> forkOptions("16g")
+        }
+
+        expect:
+        admission.canStart(fourGbOptions, [busyClient(8 * GB, 2 * GB)], [])
+        !admission.canStart(fourGbOptions, [notReported], [])
+    }
+
+    def "admits daemon when system memory is not known"() {
+        def admission = new WorkerDaemonAdmission({ throw new UnsupportedOperationException() } as OsMemoryInfo)
+
+        expect:
+        admission.canStart(fourGbOptions, [busyClient(8 * GB, 0)], [])
+    }
+
+    def "starts daemon without waiting when there is not enough memory but no daemon is busy"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def manager = clientsManager(starter)
+        memoryInfo.freeMemory = 1 * GB
+
+        when:
+        manager.reserveNewClient(fourGbOptions)
+
+        then:
+        1 * starter.startDaemon(fourGbOptions, _) >> busyClient(4 * GB, 1 * GB)
+    }
+
+    def "reuses busy daemon once released instead of starting another when there is not enough memory"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def memoryManager = Mock(MemoryManager)
+        def manager = clientsManager(starter, memoryManager)
+        def client = busyClient(4 * GB, 1 * GB)
+        memoryInfo.freeMemory = 8 * GB
+        WorkerDaemonClient reserved = null
+
+        when:
+        def first = manager.reserveNewClient(fourGbOptions)
+        async {
+            start {
+                reserved = manager.reserveNewClient(fourGbOptions)
+            }
+            manager.release(first)
+        }
+
+        then:
+        1 * starter.startDaemon(fourGbOptions, _) >> client
+        _ * memoryManager.requestFreeMemory(4 * GB)
+        reserved == client
+    }
+
+    def "starts another daemon once enough memory is free"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def manager = clientsManager(starter)
+        memoryInfo.freeMemory = 8 * GB
+        WorkerDaemonClient reserved = null
+
+        when:
+        manager.reserveNewClient(fourGbOptions)
+        async {
+            start {
+                reserved = manager.reserveNewClient(fourGbOptions)
+            }
+            memoryInfo.freeMemory = 20 * GB
+        }
+
+        then:
+        2 * starter.startDaemon(fourGbOptions, _) >>> [busyClient(4 * GB, 1 * GB), busyClient(4 * GB, 1 * GB)]
+        reserved != null
+    }
+
+    def "does not over-commit memory when daemons are started concurrently"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def memoryManager = Mock(MemoryManager)
+        def manager = clientsManager(starter, memoryManager)
+        def client = busyClient(4 * GB, 1 * GB)
+        def secondWaiting = new CountDownLatch(1)
+        memoryInfo.freeMemory = 10 * GB
+        WorkerDaemonClient first = null
+        WorkerDaemonClient second = null
+
+        when:
+        async {
+            start {
+                first = manager.reserveNewClient(fourGbOptions)
+                instant.firstStarted
+            }
+            start {
+                thread.blockUntil.starting
+                second = manager.reserveNewClient(fourGbOptions)
+            }
+            thread.blockUntil.firstStarted
+            manager.release(first)
+        }
+
+        then:
+        1 * starter.startDaemon(fourGbOptions, _) >> {
+            instant.starting
+            secondWaiting.await()
+            client
+        }
+        _ * memoryManager.requestFreeMemory(_) >> { secondWaiting.countDown() }
+        second == client
+    }
+
+    def "releases memory reserved for a daemon that fails to start"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def manager = clientsManager(starter)
+        memoryInfo.freeMemory = 10 * GB
+
+        when:
+        manager.reserveNewClient(fourGbOptions)
+
+        then:
+        1 * starter.startDaemon(fourGbOptions, _) >> { throw new RuntimeException("broken") }
+        thrown(RuntimeException)
+
+        when:
+        def client = manager.reserveNewClient(fourGbOptions)
+
+        then:
+        1 * starter.startDaemon(fourGbOptions, _) >> busyClient(4 * GB, 1 * GB)
+        client != null
+    }
+
+    def "releases worker lease while waiting for enough memory"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def workerLeaseService = Mock(WorkerLeaseService)
+        def manager = clientsManager(starter)
+        def client = busyClient(4 * GB, 1 * GB)
+        memoryInfo.freeMemory = 8 * GB
+        WorkerDaemonClient reserved = null
+
+        when:
+        def first = manager.reserveNewClient(fourGbOptions, workerLeaseService)
+        async {
+            start {
+                reserved = manager.reserveNewClient(fourGbOptions, workerLeaseService)
+            }
+            manager.release(first)
+        }
+
+        then:
+        1 * starter.startDaemon(fourGbOptions, _) >> client
+        1 * workerLeaseService.withoutWorkerLease(_) >> { Runnable action -> action.run() }
+        reserved == client
+    }
+
+    def "does not start daemon ahead of time when there is not enough memory"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def manager = clientsManager(starter, Mock(MemoryManager), new DefaultExecutorFactory())
+        def otherOptions = forkOptions("4g")
+        def otherClient = busyClient(4 * GB, 1 * GB, false)
+        memoryInfo.freeMemory = 8 * GB
+
+        when:
+        manager.reserveNewClient(otherOptions)
+        manager.prewarm(fourGbOptions, 4)
+        manager.stop()
+
+        then:
+        1 * starter.startDaemon(otherOptions, _) >> otherClient
+        0 * starter._
+    }
+
+    private WorkerDaemonClientsManager clientsManager(WorkerDaemonStarter starter, MemoryManager memoryManager = Mock(MemoryManager), ExecutorFactory executorFactory = null) {
+        return new WorkerDaemonClientsManager(starter, Stub(ListenerManager), Stub(LoggingManagerInternal), memoryManager, memoryInfo, executorFactory, admission)
+    }
+
+    private DaemonForkOptions forkOptions(String maxHeapSize) {
+        def javaForkOptions = Stub(JavaForkOptions) {
+            getMaxHeapSize() >> maxHeapSize
+        }
+        return Stub(DaemonForkOptions) {
+            getJavaForkOptions() >> javaForkOptions
+        }
+    }
+
+    private WorkerDaemonClient busyClient(long maxMemory, long committedMemory, boolean compatible = true) {
+        def memoryStatus = Stub(JvmMemoryStatus) {
+            getMaxMemory() >> maxMemory
+            getCommittedMemory() >> committedMemory
+        }
+        return Stub(WorkerDaemonClient) {
+            getJvmMemoryStatus() >> memoryStatus
+            isCompatibleWith(_) >> compatible
+            getUses() >> 1
+        }
+    }
+
+    /**
+     * Reports a configurable amount of free system memory, to simulate memory pressure.
+     */
+    static class SimulatedOsMemoryInfo implements OsMemoryInfo {
+        final long totalMemory
+        volatile long freeMemory
+
+        SimulatedOsMemoryInfo(long totalMemory, long freeMemory) {
+            this.totalMemory = totalMemory
+            this.freeMemory = freeMemory
+        }
+
+        @Override
+        OsMemoryStatus getOsSnapshot() {
+            return new OsMemoryStatusSnapshot(totalMemory, freeMemory)
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.gradle.workers.internal
 import org.gradle.api.Transformer
 import org.gradle.api.logging.LogLevel
 import org.gradle.internal.session.BuildSessionLifecycleListener
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.exceptions.DefaultMultiCauseException
@@ -66,6 +67,24 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         input == [noMatch] //match removed from input
     }
 
+    def "prefers idle client that last executed work with the same worker affinity"() {
+        def other = Stub(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLastWorkerAffinity() >> "OtherAction"
+        }
+        def same = Stub(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLastWorkerAffinity() >> "SomeAction"
+        }
+        def input = [other, same]
+
+        expect:
+        manager.reserveIdleClient(options, "SomeAction", input) == same
+        input == [other]
+        manager.reserveIdleClient(options, "SomeAction", input) == other
+        input == []
+    }
+
     def "reserves new client"() {
         def newClient = Stub(WorkerDaemonClient)
         starter.startDaemon(options, _) >> newClient
@@ -77,6 +96,110 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         newClient == client
     }
 
+    def "uses daemon started ahead of time for new client"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def newClient = Stub(WorkerDaemonClient)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+
+        when:
+        manager.prewarm(options, 4)
+        def client = manager.reserveNewClient(options)
+
+        then:
+        1 * starter.startDaemon(options, _) >> newClient
+        client == newClient
+        manager.reserveIdleClient(options) == null
+
+        cleanup:
+        manager.stop()
+    }
+
+    def "daemon started ahead of time becomes idle"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def newClient = Mock(WorkerDaemonClient)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+
+        when:
+        manager.prewarm(options, 4)
+        manager.prewarm(options, 4)
+        manager.stop()
+
+        then:
+        1 * starter.startDaemon(options, _) >> newClient
+        1 * newClient.stop()
+    }
+
+    def "does not start daemon ahead of time when as many compatible daemons as can be busy at once exist"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def client = Stub(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+        }
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+
+        when:
+        manager.reserveNewClient(options)
+        manager.prewarm(options, 1)
+        manager.stop()
+
+        then:
+        1 * starter.startDaemon(options, _) >> client
+    }
+
+    def "starts daemon ahead of time when all compatible daemons are busy"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def client = Stub(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+        }
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+
+        when:
+        manager.reserveNewClient(options)
+        manager.prewarm(options, 2)
+        manager.stop()
+
+        then:
+        2 * starter.startDaemon(options, _) >> client
+    }
+
+    def "does not start daemon ahead of time when a compatible daemon is idle"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def client = Stub(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+        }
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+
+        when:
+        manager.release(manager.reserveNewClient(options))
+        manager.prewarm(options, 4)
+        manager.stop()
+
+        then:
+        1 * starter.startDaemon(options, _) >> client
+    }
+
+    def "starts spare daemon ahead of time only when compatible daemons are used concurrently"() {
+        def starter = Mock(WorkerDaemonStarter)
+        def client = Stub(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+        }
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+
+        when:
+        manager.reserveNewClient(options)
+        manager.prewarmSpare(options, 4)
+
+        then:
+        1 * starter.startDaemon(options, _) >> client
+
+        when:
+        manager.reserveNewClient(options)
+        manager.prewarmSpare(options, 4)
+        manager.stop()
+
+        then:
+        2 * starter.startDaemon(options, _) >> client
+    }
+
     def "can stop all created clients"() {
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
@@ -19,6 +19,7 @@ package org.gradle.workers.internal
 import org.gradle.internal.operations.BuildOperationContext
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.work.WorkerLeaseService
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -28,16 +29,20 @@ class WorkerDaemonFactoryTest extends Specification {
     def client = Mock(WorkerDaemonClient)
     def buildOperationExecutor = Mock(BuildOperationExecutor)
     def buildOperation = Mock(BuildOperationRef)
+    def workerLeaseService = Mock(WorkerLeaseService)
 
-    @Subject factory = new WorkerDaemonFactory(clientsManager, buildOperationExecutor)
+    @Subject factory = new WorkerDaemonFactory(clientsManager, buildOperationExecutor, workerLeaseService)
 
     def workingDir = new File("some-dir")
     def options = Stub(DaemonForkOptions)
     def requirement = new ForkedWorkerRequirement(workingDir, options)
-    def spec = Stub(IsolatedParametersActionExecutionSpec)
+    def spec = Stub(IsolatedParametersActionExecutionSpec) {
+        getWorkerAffinity() >> "TestAction"
+    }
 
     def setup() {
         _ * buildOperationExecutor.getCurrentOperation() >> buildOperation
+        _ * workerLeaseService.getMaxWorkerCount() >> 4
     }
 
     def "getting a worker daemon does not assume client use"() {
@@ -48,15 +53,27 @@ class WorkerDaemonFactoryTest extends Specification {
         0 * clientsManager._
     }
 
+    def "preparing a worker daemon starts a daemon ahead of time"() {
+        when:
+        factory.prepareWorker(requirement)
+
+        then:
+        1 * clientsManager.prewarm(options, 4)
+        0 * clientsManager._
+    }
+
     def "new client is created when daemon is executed and no idle clients found"() {
         when:
         factory.getWorker(requirement).execute(spec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> null
+        1 * clientsManager.reserveIdleClient(options, "TestAction") >> null
+
+        then:
+        1 * clientsManager.reserveNewClient(options, workerLeaseService) >> client
 
         then:
-        1 * clientsManager.reserveNewClient(options) >> client
+        1 * clientsManager.prewarmSpare(options, 4)
 
         then:
         1 * buildOperationExecutor.call(_) >> { args -> args[0].call(Stub(BuildOperationContext)) }
@@ -71,7 +88,10 @@ class WorkerDaemonFactoryTest extends Specification {
         factory.getWorker(requirement).execute(spec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(options, "TestAction") >> client
+
+        then:
+        1 * clientsManager.prewarmSpare(options, 4)
 
         then:
         1 * buildOperationExecutor.call(_) >> { args -> args[0].call(Stub(BuildOperationContext)) }
@@ -86,7 +106,7 @@ class WorkerDaemonFactoryTest extends Specification {
         factory.getWorker(requirement).execute(spec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(options, "TestAction") >> client
 
         then:
         1 * buildOperationExecutor.call(_) >> { args -> args[0].call() }
@@ -102,7 +122,7 @@ class WorkerDaemonFactoryTest extends Specification {
         factory.getWorker(requirement).execute(spec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(options, "TestAction") >> client
         1 * buildOperationExecutor.call(_)
     }
 
@@ -111,7 +131,7 @@ class WorkerDaemonFactoryTest extends Specification {
         factory.getWorker(requirement).execute(spec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(options, "TestAction") >> client
         1 * buildOperationExecutor.call(_) >> { args -> args[0].call() }
         1 * client.execute(spec) >> { throw new RuntimeException("Boo!") }
 
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal
+
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.Stoppable
+import spock.lang.Specification
+
+class WorkerDaemonSharedObjectsTest extends Specification {
+    def sharedObjects = new WorkerDaemonSharedObjects()
+
+    def "creates object once per type"() {
+        def factory = Mock(Factory)
+        def object = Mock(Stoppable)
+
+        when:
+        def first = sharedObjects.get(Stoppable, factory)
+        def second = sharedObjects.get(Stoppable, factory)
+
+        then:
+        1 * factory.create() >> object
+        first.is(object)
+        second.is(object)
+    }
+
+    def "stops objects in reverse creation order when stopped"() {
+        def first = Mock(Stoppable)
+        def second = Mock(Closeable)
+
+        given:
+        sharedObjects.get(Stoppable, { first } as Factory)
+        sharedObjects.get(Closeable, { second } as Factory)
+
+        when:
+        sharedObjects.stop()
+
+        then:
+        1 * second.close()
+
+        then:
+        1 * first.stop()
+    }
+
+    def "cannot create objects once stopped"() {
+        given:
+        sharedObjects.stop()
+
+        when:
+        sharedObjects.get(Stoppable, Mock(Factory))
+
+        then:
+        thrown(IllegalStateException)
+    }
+}